@@ -25,12 +25,13 @@ import java.util.HashSet;
 import java.util.List;
 
 import org.apache.ctakes.assertion.attributes.generic.GenericAttributeClassifier;
+import org.apache.ctakes.assertion.medfacts.cleartk.extractors.AnnotationIndexFeatureExtractor;
+import org.apache.ctakes.assertion.util.AssertionAnnotationIndex;
 import org.apache.ctakes.dependency.parser.util.DependencyUtility;
 import org.apache.ctakes.typesystem.type.syntax.ConllDependencyNode;
 import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
 import org.apache.uima.jcas.JCas;
 import org.cleartk.ml.Feature;
-import org.cleartk.ml.feature.extractor.FeatureExtractor1;
 
 
 /** SubjectFeaturesExtractor
@@ -39,11 +40,16 @@ import org.cleartk.ml.feature.extractor.FeatureExtractor1;
  * @author m081914
  *
  */
-public class GenericFeaturesExtractor implements FeatureExtractor1<IdentifiedAnnotation> {
+public class GenericFeaturesExtractor implements AnnotationIndexFeatureExtractor<IdentifiedAnnotation> {
 	
 	
 	@Override
 	public List<Feature> extract(JCas jCas, IdentifiedAnnotation arg) {
+		return extract(jCas, arg, null);
+	}
+
+	@Override
+	public List<Feature> extract(JCas jCas, IdentifiedAnnotation arg, AssertionAnnotationIndex annotationIndex) {
 		
 		List<Feature> features = new ArrayList<>();
 		
@@ -54,7 +60,7 @@ public class GenericFeaturesExtractor implements FeatureExtractor1<IdentifiedAnn
 	    	features.add(new Feature("DEPENDENCY_HEAD_deprel", node.getDeprel()));
 		}
 	    
-	    HashMap<String, Boolean> featsMap = GenericAttributeClassifier.extract(jCas, arg);
+	    HashMap<String, Boolean> featsMap = GenericAttributeClassifier.extract(jCas, arg, annotationIndex);
 
 	    // Pull in all the features that were used for the rule-based module
 	    features.addAll( hashToFeatureList(featsMap) );
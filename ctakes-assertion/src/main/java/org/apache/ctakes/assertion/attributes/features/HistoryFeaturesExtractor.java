@@ -25,12 +25,13 @@ import java.util.HashSet;
 import java.util.List;
 
 import org.apache.ctakes.assertion.attributes.history.HistoryAttributeClassifier;
+import org.apache.ctakes.assertion.medfacts.cleartk.extractors.AnnotationIndexFeatureExtractor;
+import org.apache.ctakes.assertion.util.AssertionAnnotationIndex;
 import org.apache.ctakes.dependency.parser.util.DependencyUtility;
 import org.apache.ctakes.typesystem.type.syntax.ConllDependencyNode;
 import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
 import org.apache.uima.jcas.JCas;
 import org.cleartk.ml.Feature;
-import org.cleartk.ml.feature.extractor.FeatureExtractor1;
 
 
 /** HistoryFeaturesExtractor
@@ -39,11 +40,16 @@ import org.cleartk.ml.feature.extractor.FeatureExtractor1;
  * @author shalgrim
  *
  */
-public class HistoryFeaturesExtractor implements FeatureExtractor1<IdentifiedAnnotation> {
+public class HistoryFeaturesExtractor implements AnnotationIndexFeatureExtractor<IdentifiedAnnotation> {
 	
 	
 	@Override
 	public List<Feature> extract(JCas jCas, IdentifiedAnnotation arg) {
+		return extract(jCas, arg, null);
+	}
+
+	@Override
+	public List<Feature> extract(JCas jCas, IdentifiedAnnotation arg, AssertionAnnotationIndex annotationIndex) {
 		
 		List<Feature> features = new ArrayList<>();
 		
@@ -57,7 +63,7 @@ public class HistoryFeaturesExtractor implements FeatureExtractor1<IdentifiedAnn
 //	    	features.add(new Feature("DEPENDENCY_HEAD_lemma", node.getLemma()));
 		}
 	    
-	    HashMap<String, Boolean> featsMap = HistoryAttributeClassifier.extract(jCas, arg);
+	    HashMap<String, Boolean> featsMap = HistoryAttributeClassifier.extract(jCas, arg, annotationIndex);
 
 	    // Pull in all the features that were used for the rule-based module
 	    features.addAll( hashToFeatureList(featsMap) );
@@ -20,7 +20,6 @@ package org.apache.ctakes.assertion.attributes.generic;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -32,6 +31,7 @@ import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.fit.util.JCasUtil;
 import org.xml.sax.SAXException;
 
+import org.apache.ctakes.assertion.util.AssertionAnnotationIndex;
 import org.apache.ctakes.dependency.parser.util.DependencyUtility;
 import org.apache.ctakes.typesystem.type.constants.CONST;
 import org.apache.ctakes.typesystem.type.syntax.BaseToken;
@@ -88,20 +88,24 @@ public class GenericAttributeClassifier {
 
 	public static HashMap<String, Boolean> extract(JCas jCas,
 			Annotation arg) {
+		return extract(jCas, arg, null);
+	}
+
+	/**
+	 * @param jCas - the jcas of the document
+	 * @param arg - the annotation to extract features for
+	 * @param annotationIndex - index of the jcas, or null to select from the jcas
+	 * @return the features used by the rule-based classifier
+	 */
+	public static HashMap<String, Boolean> extract(JCas jCas,
+			Annotation arg, AssertionAnnotationIndex annotationIndex) {
 		HashMap<String,Boolean> vfeat = new HashMap<String,Boolean>();
 		for (String feat : FeatureIndex) {
 			vfeat.put(feat, false);
 		}
 		
 		// find the sentence that entityMention is in
-		Sentence sEntity = null;
-		Collection<Sentence> sentences = JCasUtil.select(jCas, Sentence.class);
-		for (Sentence s : sentences) {
-			if ( s.getBegin()<=arg.getBegin() && s.getEnd()>=arg.getEnd()) {
-				sEntity = s;
-				break;
-			}
-		}
+		Sentence sEntity = AssertionAnnotationIndex.getCoveringSentence(annotationIndex, jCas, arg);
 //		if (sEntity==null)
 //			return null;
 		
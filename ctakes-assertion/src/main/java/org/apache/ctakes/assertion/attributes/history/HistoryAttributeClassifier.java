@@ -18,6 +18,7 @@
  */
 package org.apache.ctakes.assertion.attributes.history;
 
+import org.apache.ctakes.assertion.util.AssertionAnnotationIndex;
 import org.apache.ctakes.dependency.parser.util.DependencyUtility;
 import org.apache.ctakes.typesystem.type.syntax.Chunk;
 import org.apache.ctakes.typesystem.type.syntax.ConllDependencyNode;
@@ -167,6 +168,17 @@ public class HistoryAttributeClassifier {
 
 	public static HashMap<String, Boolean> extract(JCas jCas,
 			Annotation arg) {
+		return extract(jCas, arg, null);
+	}
+
+	/**
+	 * @param jCas - the jcas of the document
+	 * @param arg - the annotation to extract features for
+	 * @param annotationIndex - index of the jcas, or null to select from the jcas
+	 * @return the features used by the rule-based classifier
+	 */
+	public static HashMap<String, Boolean> extract(JCas jCas,
+			Annotation arg, AssertionAnnotationIndex annotationIndex) {
 		HashMap<String,Boolean> vfeat = new HashMap<String,Boolean>();
 		for (String feat : FeatureIndex) {
 			vfeat.put(feat, false);
@@ -174,11 +186,16 @@ public class HistoryAttributeClassifier {
 		
 		// find the sentence that entityMention is in
 		Sentence sEntity = null;
-		Collection<Sentence> sentences = JCasUtil.select(jCas, Sentence.class);
-		for (Sentence s : sentences) {
-			if ( s.getBegin()<=arg.getBegin() && s.getEnd()>=arg.getEnd()) {
-				sEntity = s;
-				break;
+		Collection<Sentence> sentences = null;
+		if (annotationIndex != null) {
+			sEntity = annotationIndex.getCoveringSentence(arg);
+		} else {
+			sentences = JCasUtil.select(jCas, Sentence.class);
+			for (Sentence s : sentences) {
+				if ( s.getBegin()<=arg.getBegin() && s.getEnd()>=arg.getEnd()) {
+					sEntity = s;
+					break;
+				}
 			}
 		}
 		
@@ -206,13 +223,19 @@ public class HistoryAttributeClassifier {
 				{
 					boolean argInHistSection = false;
 					
-					// sort the sentences
-					// TODO: make it so you don't sort every time for same sentence.
-					ArrayList<Sentence> sentList = new ArrayList<Sentence>(sentences);
-					Collections.sort(sentList, new AnnotLocationComparator());
+					// sort the sentences, once per document if there is an index
+					List<Sentence> sentList;
+					int currind;
+					if (annotationIndex != null) {
+						sentList = annotationIndex.getSentencesByLocation();
+						currind = annotationIndex.getLocationIndex(sEntity);
+					} else {
+						sentList = new ArrayList<Sentence>(sentences);
+						Collections.sort(sentList, new AnnotLocationComparator());
 					
-					// get index of sEntity
-					int currind = sentList.indexOf(sEntity);
+						// get index of sEntity
+						currind = sentList.indexOf(sEntity);
+					}
 					
 					if (currind == 0) {
 						argInHistSection = isInHistSection(sEntity);						
@@ -19,11 +19,11 @@
 package org.apache.ctakes.assertion.attributes.subject;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 
 import org.apache.ctakes.assertion.eval.AssertionEvaluation;
+import org.apache.ctakes.assertion.util.AssertionAnnotationIndex;
 import org.apache.ctakes.dependency.parser.util.DependencyPath;
 import org.apache.ctakes.dependency.parser.util.DependencyUtility;
 import org.apache.ctakes.typesystem.type.constants.CONST;
@@ -95,20 +95,24 @@ public class SubjectAttributeClassifier {
 
 	public static HashMap<String, Boolean> extract(JCas jCas,
 			Annotation mention) {
+		return extract(jCas, mention, null);
+	}
+
+	/**
+	 * @param jCas - the jcas of the document
+	 * @param mention - the annotation to extract features for
+	 * @param annotationIndex - index of the jcas, or null to select from the jcas
+	 * @return the features used by the rule-based classifier
+	 */
+	public static HashMap<String, Boolean> extract(JCas jCas,
+			Annotation mention, AssertionAnnotationIndex annotationIndex) {
 		HashMap<String,Boolean> vfeat = new HashMap<String,Boolean>();
 		for (String feat : FeatureIndex) {
 			vfeat.put(feat, false);
 		}
 		
 		// find the sentence that entityMention is in
-		Sentence sEntity = null;
-		Collection<Sentence> sentences = JCasUtil.select(jCas, Sentence.class);
-		for (Sentence s : sentences) {
-			if ( s.getBegin()<=mention.getBegin() && s.getEnd()>=mention.getEnd()) {
-				sEntity = s;
-				break;
-			}
-		}
+		Sentence sEntity = AssertionAnnotationIndex.getCoveringSentence(annotationIndex, jCas, mention);
 		
 		// if there is no sentence, then all these features are null!
 		if (sEntity==null) {
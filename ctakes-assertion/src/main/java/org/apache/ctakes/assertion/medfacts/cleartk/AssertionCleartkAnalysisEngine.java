@@ -31,7 +31,9 @@ import java.util.Random;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.ctakes.assertion.attributes.features.selection.FeatureSelection;
+import org.apache.ctakes.assertion.medfacts.cleartk.extractors.AnnotationIndexFeatureExtractor;
 import org.apache.ctakes.assertion.medfacts.cleartk.extractors.FedaFeatureFunction;
+import org.apache.ctakes.assertion.util.AssertionAnnotationIndex;
 import org.apache.ctakes.core.util.DocumentIDAnnotationUtil;
 import org.apache.ctakes.typesystem.type.constants.CONST;
 import org.apache.ctakes.typesystem.type.syntax.BaseToken;
@@ -298,6 +300,35 @@ public abstract class AssertionCleartkAnalysisEngine extends
 
   @Override
   public void process(JCas jCas) throws AnalysisEngineProcessException
+  {
+    JCas identifiedAnnotationView = startDocument(jCas);
+
+//    Map<IdentifiedAnnotation, Collection<Sentence>> coveringSentenceMap = JCasUtil.indexCovering(identifiedAnnotationView, IdentifiedAnnotation.class, Sentence.class);
+//    Map<Sentence, Collection<BaseToken>> tokensCoveredInSentenceMap = JCasUtil.indexCovered(identifiedAnnotationView, Sentence.class, BaseToken.class);
+
+//    Map<IdentifiedAnnotation, Collection<Zone>> coveringZoneMap =
+//        JCasUtil.indexCovering(jCas, IdentifiedAnnotation.class, Zone.class);
+//    Map<IdentifiedAnnotation, Collection<Sentence>> coveringSents =
+//        JCasUtil.indexCovering(jCas, IdentifiedAnnotation.class, Sentence.class);
+    
+//    List<Instance<String>> instances = new ArrayList<Instance<String>>();
+    // sentences, tokens and cue phrases of the document, shared by all entities and events
+    // and by the extractors while the entities and events are processed
+    AssertionAnnotationIndex annotationIndex = new AssertionAnnotationIndex(jCas);
+    // generate a list of training instances for each sentence in the document
+    for (IdentifiedAnnotation entityOrEventMention : getEntityOrEventMentions(identifiedAnnotationView))
+    {
+      Instance<String> instance = new Instance<>();
+      instance.addAll(extractSharedFeatures(identifiedAnnotationView, entityOrEventMention, annotationIndex));
+      processMention(jCas, entityOrEventMention, instance, annotationIndex);
+    }
+  }
+
+  /**
+   * Set up the engine for a new document.
+   * @return the view that holds the entities and events to classify
+   */
+  JCas startDocument(JCas jCas) throws AnalysisEngineProcessException
   {
     String documentId = DocumentIDAnnotationUtil.getDocumentID(jCas);
     String domainId = "";
@@ -341,26 +372,38 @@ public abstract class AssertionCleartkAnalysisEngine extends
     } else {
       identifiedAnnotationView = jCas;
     }
+    return identifiedAnnotationView;
+  }
 
-
-//    Map<IdentifiedAnnotation, Collection<Sentence>> coveringSentenceMap = JCasUtil.indexCovering(identifiedAnnotationView, IdentifiedAnnotation.class, Sentence.class);
-//    Map<Sentence, Collection<BaseToken>> tokensCoveredInSentenceMap = JCasUtil.indexCovered(identifiedAnnotationView, Sentence.class, BaseToken.class);
-
-//    Map<IdentifiedAnnotation, Collection<Zone>> coveringZoneMap =
-//        JCasUtil.indexCovering(jCas, IdentifiedAnnotation.class, Zone.class);
-//    Map<IdentifiedAnnotation, Collection<Sentence>> coveringSents =
-//        JCasUtil.indexCovering(jCas, IdentifiedAnnotation.class, Sentence.class);
-    
-//    List<Instance<String>> instances = new ArrayList<Instance<String>>();
-    // generate a list of training instances for each sentence in the document
+  /**
+   * @return the entity and event mentions in the view, in index order
+   */
+  static List<IdentifiedAnnotation> getEntityOrEventMentions(JCas identifiedAnnotationView)
+  {
+    List<IdentifiedAnnotation> mentions = new ArrayList<>();
     Collection<IdentifiedAnnotation> entities = JCasUtil.select(identifiedAnnotationView, IdentifiedAnnotation.class);
     for (IdentifiedAnnotation identifiedAnnotation : entities)
     {
-      if (!(identifiedAnnotation instanceof EntityMention || identifiedAnnotation instanceof EventMention))
+      if (identifiedAnnotation instanceof EntityMention || identifiedAnnotation instanceof EventMention)
       {
-        continue;
+        mentions.add(identifiedAnnotation);
       }
-      IdentifiedAnnotation entityOrEventMention = identifiedAnnotation;
+    }
+    return mentions;
+  }
+
+  /**
+   * Extract the token context, closest cue phrase and entity type features.
+   * They are the first features of every instance and are extracted the same way by every assertion engine
+   * that is not doing domain adaptation.
+   * @param identifiedAnnotationView view that holds the mention
+   * @param entityOrEventMention -
+   * @param annotationIndex index of the sentences, tokens and cue phrases of the document
+   * @return features that do not depend upon the attribute being classified
+   */
+  List<Feature> extractSharedFeatures(JCas identifiedAnnotationView, IdentifiedAnnotation entityOrEventMention,
+      AssertionAnnotationIndex annotationIndex) throws AnalysisEngineProcessException
+  {
       if (entityOrEventMention.getPolarity() == -1)
       {
         logger.debug(String.format(" - identified annotation: [%d-%d] polarity %d (%s)",
@@ -396,11 +439,7 @@ public abstract class AssertionCleartkAnalysisEngine extends
           instance.addAll(extractor.extract(identifiedAnnotationView, entityMention));
         }
         */
-      List<Sentence> sents = new ArrayList<>(JCasUtil.selectCovering(jCas, Sentence.class, entityOrEventMention.getBegin(), entityOrEventMention.getEnd()));
-      Sentence coveringSent = null;
-      if(sents.size() > 0){
-        coveringSent = sents.get(0);
-      }
+      Sentence coveringSent = annotationIndex.getCoveringSentence(entityOrEventMention);
       
       // only use extract this version if not doing domain adaptation 
       if (ffDomainAdaptor==null) {
@@ -419,14 +458,14 @@ public abstract class AssertionCleartkAnalysisEngine extends
 //          cuePhraseInWindowExtractor.extract(jCas, entityOrEventMention);
           //cuePhraseInWindowExtractor.extractWithin(jCas, entityMention, firstCoveringSentence);
 //      List<Sentence> sents = new ArrayList<Sentence>(coveringSents.get(entityOrEventMention));
-        List<AssertionCuePhraseAnnotation> cues = JCasUtil.selectCovered(AssertionCuePhraseAnnotation.class, coveringSent);
+        List<AssertionCuePhraseAnnotation> cues = annotationIndex.getCuePhrases(coveringSent);
         int closest = Integer.MAX_VALUE;
         AssertionCuePhraseAnnotation closestCue = null;
         for(AssertionCuePhraseAnnotation cue : cues){
-          List<BaseToken> tokens = JCasUtil.selectBetween(BaseToken.class, cue, entityOrEventMention);
-          if(tokens.size() < closest){
+          int tokenCount = annotationIndex.getTokenCountBetween(cue, entityOrEventMention);
+          if(tokenCount < closest){
             closestCue = cue;
-            closest = tokens.size();
+            closest = tokenCount;
           }
 //          instance.addAll(cuePhraseInWindowExtractor.extractBetween(jCas, cue, entityOrEventMention));
         }
@@ -468,16 +507,28 @@ public abstract class AssertionCleartkAnalysisEngine extends
     	  instance.add(new Feature("ENTITY_TYPE_DRUG"));
       }
       */
-      
+      return instance.getFeatures();
+  }
+
+  /**
+   * Add the features of this engine to an instance, then classify the mention or write the training instance.
+   * @param jCas ye olde ...
+   * @param entityOrEventMention -
+   * @param instance holds the shared features of the mention
+   * @param annotationIndex index of the sentences, tokens and cue phrases of the document
+   */
+  void processMention(JCas jCas, IdentifiedAnnotation entityOrEventMention, Instance<String> instance,
+      AssertionAnnotationIndex annotationIndex) throws AnalysisEngineProcessException
+  {
       // only extract these features if not doing domain adaptation
       if (ffDomainAdaptor==null) {
     	  for (FeatureExtractor1<IdentifiedAnnotation> extractor : this.entityFeatureExtractors) {
-    		  instance.addAll(extractor.extract(jCas, entityOrEventMention));
+    		  instance.addAll(extract(extractor, jCas, entityOrEventMention, annotationIndex));
     	  }
       }
 
       for (FeatureExtractor1<IdentifiedAnnotation> extractor : this.entityTreeExtractors) {
-        instance.addAll(extractor.extract(jCas, entityOrEventMention));
+        instance.addAll(extract(extractor, jCas, entityOrEventMention, annotationIndex));
       }
 
 //      List<Feature> zoneFeatures = extractZoneFeatures(coveringZoneMap, entityOrEventMention);
@@ -520,8 +571,20 @@ public abstract class AssertionCleartkAnalysisEngine extends
     	    }
     	  }
       }
+  }
+
+  /**
+   * Extract features with the index of the document if the extractor can use it.
+   */
+  static private List<Feature> extract(FeatureExtractor1<IdentifiedAnnotation> extractor, JCas jCas,
+      IdentifiedAnnotation entityOrEventMention, AssertionAnnotationIndex annotationIndex)
+      throws AnalysisEngineProcessException
+  {
+    if (extractor instanceof AnnotationIndexFeatureExtractor) {
+      return ((AnnotationIndexFeatureExtractor<IdentifiedAnnotation>)extractor)
+          .extract(jCas, entityOrEventMention, annotationIndex);
     }
-    
+    return extractor.extract(jCas, entityOrEventMention);
   }
 
   /*
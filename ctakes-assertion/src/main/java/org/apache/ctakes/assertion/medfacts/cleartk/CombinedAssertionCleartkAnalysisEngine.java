@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.assertion.medfacts.cleartk;
+
+import org.apache.ctakes.assertion.util.AssertionAnnotationIndex;
+import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
+import org.apache.log4j.Logger;
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.UimaContextFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.NameValuePair;
+import org.cleartk.ml.Feature;
+import org.cleartk.ml.Instance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classifies polarity, uncertainty, history, conditional, generic and subject with one engine.
+ * <p>
+ * The six attribute engines each extract the same token context, closest cue phrase and entity type features
+ * for every entity and event.  This engine extracts those features once per mention and gives them to each of the
+ * attribute engines, which add their own features and classify the mention.
+ * Each attribute engine is configured exactly as its own annotator description configures it,
+ * so the attributes are the same as those set by the six engines run one after another.
+ * </p>
+ * For each mention the attributes are classified in the order of the attribute sub pipeline.
+ * Uncertainty features use the polarity of the mention, so polarity must be classified first.
+ * This engine only classifies.  Train each attribute model with its own engine.
+ */
+final public class CombinedAssertionCleartkAnalysisEngine extends JCasAnnotator_ImplBase {
+
+   static private final Logger LOGGER = Logger.getLogger( "CombinedAssertionCleartkAnalysisEngine" );
+
+   static public final String PARAM_POLARITY_MODEL = "PolarityModel";
+   static public final String PARAM_UNCERTAINTY_MODEL = "UncertaintyModel";
+   static public final String PARAM_HISTORY_MODEL = "HistoryModel";
+   static public final String PARAM_CONDITIONAL_MODEL = "ConditionalModel";
+   static public final String PARAM_GENERIC_MODEL = "GenericModel";
+   static public final String PARAM_SUBJECT_MODEL = "SubjectModel";
+
+   @ConfigurationParameter(
+         name = PARAM_POLARITY_MODEL,
+         description = "Path to the polarity model jar.  If not set the default polarity model is used.",
+         mandatory = false
+   )
+   private String _polarityModel;
+
+   @ConfigurationParameter(
+         name = PARAM_UNCERTAINTY_MODEL,
+         description = "Path to the uncertainty model jar.  If not set the default uncertainty model is used.",
+         mandatory = false
+   )
+   private String _uncertaintyModel;
+
+   @ConfigurationParameter(
+         name = PARAM_HISTORY_MODEL,
+         description = "Path to the history model jar.  If not set the default history model is used.",
+         mandatory = false
+   )
+   private String _historyModel;
+
+   @ConfigurationParameter(
+         name = PARAM_CONDITIONAL_MODEL,
+         description = "Path to the conditional model jar.  If not set the default conditional model is used.",
+         mandatory = false
+   )
+   private String _conditionalModel;
+
+   @ConfigurationParameter(
+         name = PARAM_GENERIC_MODEL,
+         description = "Path to the generic model jar.  If not set the default generic model is used.",
+         mandatory = false
+   )
+   private String _genericModel;
+
+   @ConfigurationParameter(
+         name = PARAM_SUBJECT_MODEL,
+         description = "Path to the subject model jar.  If not set the default subject model is used.",
+         mandatory = false
+   )
+   private String _subjectModel;
+
+   // attribute engines in the order that they classify each mention
+   private final List<AssertionCleartkAnalysisEngine> _engines = new ArrayList<>();
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void initialize( final UimaContext context ) throws ResourceInitializationException {
+      super.initialize( context );
+      LOGGER.info( "Initializing assertion attribute engines ..." );
+      addEngine( _polarityModel == null
+                 ? PolarityCleartkAnalysisEngine.createAnnotatorDescription()
+                 : PolarityCleartkAnalysisEngine.createAnnotatorDescription( _polarityModel ) );
+      addEngine( _uncertaintyModel == null
+                 ? UncertaintyCleartkAnalysisEngine.createAnnotatorDescription()
+                 : UncertaintyCleartkAnalysisEngine.createAnnotatorDescription( _uncertaintyModel ) );
+      addEngine( _historyModel == null
+                 ? HistoryCleartkAnalysisEngine.createAnnotatorDescription()
+                 : HistoryCleartkAnalysisEngine.createAnnotatorDescription( _historyModel ) );
+      addEngine( _conditionalModel == null
+                 ? ConditionalCleartkAnalysisEngine.createAnnotatorDescription()
+                 : ConditionalCleartkAnalysisEngine.createAnnotatorDescription( _conditionalModel ) );
+      addEngine( _genericModel == null
+                 ? GenericCleartkAnalysisEngine.createAnnotatorDescription()
+                 : GenericCleartkAnalysisEngine.createAnnotatorDescription( _genericModel ) );
+      addEngine( _subjectModel == null
+                 ? SubjectCleartkAnalysisEngine.createAnnotatorDescription()
+                 : SubjectCleartkAnalysisEngine.createAnnotatorDescription( _subjectModel ) );
+      LOGGER.info( "Finished initializing " + _engines.size() + " assertion attribute engines" );
+   }
+
+   /**
+    * Create and initialize an attribute engine with the parameter settings of its description.
+    *
+    * @param description annotator description of the attribute engine
+    * @throws ResourceInitializationException if the engine cannot be created or initialized
+    */
+   private void addEngine( final AnalysisEngineDescription description ) throws ResourceInitializationException {
+      final AssertionCleartkAnalysisEngine engine;
+      try {
+         engine = Class.forName( description.getAnnotatorImplementationName() )
+                       .asSubclass( AssertionCleartkAnalysisEngine.class )
+                       .newInstance();
+      } catch ( ReflectiveOperationException | ClassCastException e ) {
+         throw new ResourceInitializationException( e );
+      }
+      final NameValuePair[] settings = description.getAnalysisEngineMetaData()
+                                                  .getConfigurationParameterSettings()
+                                                  .getParameterSettings();
+      final Object[] parameters = new Object[ settings.length * 2 ];
+      for ( int i = 0; i < settings.length; i++ ) {
+         parameters[ i * 2 ] = settings[ i ].getName();
+         parameters[ i * 2 + 1 ] = settings[ i ].getValue();
+      }
+      engine.initialize( UimaContextFactory.createUimaContext( parameters ) );
+      _engines.add( engine );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void process( final JCas jCas ) throws AnalysisEngineProcessException {
+      // every engine only classifies, so every engine returns the same view of entities and events
+      JCas identifiedAnnotationView = jCas;
+      for ( AssertionCleartkAnalysisEngine engine : _engines ) {
+         identifiedAnnotationView = engine.startDocument( jCas );
+      }
+      final AssertionAnnotationIndex annotationIndex = new AssertionAnnotationIndex( jCas );
+      for ( IdentifiedAnnotation mention
+            : AssertionCleartkAnalysisEngine.getEntityOrEventMentions( identifiedAnnotationView ) ) {
+         final List<Feature> sharedFeatures
+               = _engines.get( 0 ).extractSharedFeatures( identifiedAnnotationView, mention, annotationIndex );
+         for ( AssertionCleartkAnalysisEngine engine : _engines ) {
+            final Instance<String> instance = new Instance<>();
+            instance.addAll( sharedFeatures );
+            engine.processMention( jCas, mention, instance, annotationIndex );
+         }
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void collectionProcessComplete() throws AnalysisEngineProcessException {
+      super.collectionProcessComplete();
+      for ( AssertionCleartkAnalysisEngine engine : _engines ) {
+         engine.collectionProcessComplete();
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void destroy() {
+      for ( AssertionCleartkAnalysisEngine engine : _engines ) {
+         engine.destroy();
+      }
+      _engines.clear();
+      super.destroy();
+   }
+
+   /**
+    * @return description of an engine that uses the default model for each attribute
+    * @throws ResourceInitializationException -
+    */
+   static public AnalysisEngineDescription createAnnotatorDescription() throws ResourceInitializationException {
+      return AnalysisEngineFactory.createEngineDescription( CombinedAssertionCleartkAnalysisEngine.class );
+   }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.assertion.medfacts.cleartk.extractors;
+
+import java.util.List;
+
+import org.apache.ctakes.assertion.util.AssertionAnnotationIndex;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.cleartk.ml.Feature;
+import org.cleartk.ml.feature.extractor.CleartkExtractorException;
+import org.cleartk.ml.feature.extractor.FeatureExtractor1;
+
+/**
+ * A feature extractor that can look up sentences and tokens in an {@link AssertionAnnotationIndex} of the document.
+ * The assertion engines give the index of the document to extractors of this type.
+ * {@link #extract(JCas, Annotation)} selects from the jcas instead.
+ */
+public interface AnnotationIndexFeatureExtractor<T extends Annotation> extends FeatureExtractor1<T> {
+
+   /**
+    * @param view            the jcas of the document
+    * @param focusAnnotation annotation to extract features for
+    * @param annotationIndex index of the jcas, or null to select from the jcas
+    * @return extracted features
+    * @throws CleartkExtractorException if the features cannot be extracted
+    */
+   List<Feature> extract( JCas view, T focusAnnotation, AssertionAnnotationIndex annotationIndex )
+         throws CleartkExtractorException;
+
+}
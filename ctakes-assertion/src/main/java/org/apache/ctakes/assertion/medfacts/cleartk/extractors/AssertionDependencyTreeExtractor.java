@@ -21,6 +21,7 @@ package org.apache.ctakes.assertion.medfacts.cleartk.extractors;
 import java.util.List;
 
 import org.apache.ctakes.assertion.pipelines.GenerateDependencyRepresentation;
+import org.apache.ctakes.assertion.util.AssertionAnnotationIndex;
 import org.apache.ctakes.assertion.util.AssertionDepUtils;
 import org.apache.ctakes.assertion.util.AssertionTreeUtils;
 import org.apache.ctakes.assertion.util.SemanticClasses;
@@ -34,12 +35,11 @@ import org.apache.uima.jcas.JCas;
 import org.cleartk.ml.Feature;
 import org.cleartk.ml.TreeFeature;
 import org.cleartk.ml.feature.extractor.CleartkExtractorException;
-import org.cleartk.ml.feature.extractor.FeatureExtractor1;
 import org.cleartk.util.CleartkInitializationException;
 
 import com.google.common.collect.Lists;
 
-public class AssertionDependencyTreeExtractor implements FeatureExtractor1<IdentifiedAnnotation> {
+public class AssertionDependencyTreeExtractor implements AnnotationIndexFeatureExtractor<IdentifiedAnnotation> {
   protected SemanticClasses sems = null;
 
   public AssertionDependencyTreeExtractor() throws CleartkInitializationException {
@@ -53,15 +53,20 @@ public class AssertionDependencyTreeExtractor implements FeatureExtractor1<Ident
   @Override
   public List<Feature> extract(JCas jCas, IdentifiedAnnotation arg1)
       throws CleartkExtractorException {
+    return extract(jCas, arg1, null);
+  }
+
+  @Override
+  public List<Feature> extract(JCas jCas, IdentifiedAnnotation arg1, AssertionAnnotationIndex annotationIndex)
+      throws CleartkExtractorException {
     List<Feature> feats = Lists.newArrayList();
     TreeFeature f1 = null;
     String treeString = null;
     
-    List<Sentence> sents = JCasUtil.selectCovering(jCas, Sentence.class, arg1.getBegin(), arg1.getEnd());
-    if(sents == null || sents.size() == 0){
+    Sentence sent = AssertionAnnotationIndex.getCoveringSentence(annotationIndex, jCas, arg1);
+    if(sent == null){
       treeString = "(S (no parse))";
     }else{
-      Sentence sent = sents.get(0);
       List<ConllDependencyNode> nodes = JCasUtil.selectCovered(ConllDependencyNode.class, sent);
     
       //treeString = AnnotationDepUtils.getTokenRelTreeString(jCas, nodes, new Annotation[]{arg1}, new String[]{"CONCEPT"}, true);
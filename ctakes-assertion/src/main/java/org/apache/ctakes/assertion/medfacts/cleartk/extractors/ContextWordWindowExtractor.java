@@ -27,16 +27,15 @@ import java.util.Scanner;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.ctakes.assertion.util.AssertionAnnotationIndex;
 import org.apache.ctakes.typesystem.type.syntax.BaseToken;
 import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
 import org.apache.ctakes.typesystem.type.textspan.Sentence;
-import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
 import org.cleartk.ml.Feature;
 import org.cleartk.ml.feature.extractor.CleartkExtractorException;
-import org.cleartk.ml.feature.extractor.FeatureExtractor1;
 
-public class ContextWordWindowExtractor implements FeatureExtractor1<IdentifiedAnnotation> {
+public class ContextWordWindowExtractor implements AnnotationIndexFeatureExtractor<IdentifiedAnnotation> {
 
 	private HashMap<String,Double> termVals = null;
 	private static final Pattern linePatt = Pattern.compile("^([^ ]+) : (.+)$");
@@ -84,11 +83,16 @@ public class ContextWordWindowExtractor implements FeatureExtractor1<IdentifiedA
 	@Override
 	public List<Feature> extract(JCas view, IdentifiedAnnotation mention)
 			throws CleartkExtractorException {
+		return extract(view, mention, null);
+	}
+
+	@Override
+	public List<Feature> extract(JCas view, IdentifiedAnnotation mention,
+			AssertionAnnotationIndex annotationIndex) throws CleartkExtractorException {
 		ArrayList<Feature> feats = new ArrayList<Feature>();
-		List<Sentence> sents = JCasUtil.selectCovering(view, Sentence.class, mention.getBegin(), mention.getEnd());
-		if(sents.size() == 0) return feats;
-		Sentence sent = sents.get(0);
-		List<BaseToken> tokens = JCasUtil.selectCovered(BaseToken.class, sent);
+		Sentence sent = AssertionAnnotationIndex.getCoveringSentence(annotationIndex, view, mention);
+		if(sent == null) return feats;
+		List<BaseToken> tokens = AssertionAnnotationIndex.getCoveredTokens(annotationIndex, view, sent);
 		int startIndex = -1;
 		int endIndex = -1;
 		
@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.ctakes.assertion.pipelines.GenerateDependencyRepresentation;
+import org.apache.ctakes.assertion.util.AssertionAnnotationIndex;
 import org.apache.ctakes.assertion.util.AssertionDepUtils;
 import org.apache.ctakes.assertion.util.AssertionTreeUtils;
 import org.apache.ctakes.constituency.parser.util.TreeUtils;
@@ -34,7 +35,8 @@ import org.apache.uima.jcas.JCas;
 import org.cleartk.ml.Feature;
 import org.cleartk.util.CleartkInitializationException;
 
-public class DependencyWordsFragmentExtractor extends TreeFragmentFeatureExtractor {
+public class DependencyWordsFragmentExtractor extends TreeFragmentFeatureExtractor
+    implements AnnotationIndexFeatureExtractor<IdentifiedAnnotation> {
 
   public DependencyWordsFragmentExtractor(String prefix, String fragsPath) throws CleartkInitializationException {
     super(prefix, fragsPath);
@@ -42,12 +44,16 @@ public class DependencyWordsFragmentExtractor extends TreeFragmentFeatureExtract
 
   @Override
   public List<Feature> extract(JCas jCas, IdentifiedAnnotation mention) {
+    return extract(jCas, mention, null);
+  }
+
+  @Override
+  public List<Feature> extract(JCas jCas, IdentifiedAnnotation mention, AssertionAnnotationIndex annotationIndex) {
     List<Feature> features = new ArrayList<Feature>();
 
-    List<Sentence> sents = JCasUtil.selectCovering(jCas, Sentence.class, mention.getBegin(), mention.getEnd());
-    if(sents != null && sents.size() > 0){
+    Sentence sent = AssertionAnnotationIndex.getCoveringSentence(annotationIndex, jCas, mention);
+    if(sent != null){
 
-      Sentence sent = sents.get(0);
       List<ConllDependencyNode> nodes = JCasUtil.selectCovered(ConllDependencyNode.class, sent);
 
       SimpleTree tree = AssertionDepUtils.getTokenTreeString(jCas, nodes, mention, GenerateDependencyRepresentation.UP_NODES);
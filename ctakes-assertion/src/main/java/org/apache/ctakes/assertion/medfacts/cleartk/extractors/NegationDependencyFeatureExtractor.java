@@ -21,19 +21,18 @@ package org.apache.ctakes.assertion.medfacts.cleartk.extractors;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.ctakes.assertion.util.AssertionAnnotationIndex;
 import org.apache.ctakes.assertion.util.NegationManualDepContextAnalyzer;
 import org.apache.ctakes.dependency.parser.util.DependencyUtility;
 import org.apache.ctakes.typesystem.type.syntax.ConllDependencyNode;
 import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
 import org.apache.ctakes.typesystem.type.textspan.Sentence;
-import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
 import org.cleartk.ml.Feature;
 import org.cleartk.ml.feature.extractor.CleartkExtractorException;
-import org.cleartk.ml.feature.extractor.FeatureExtractor1;
 
 public class NegationDependencyFeatureExtractor implements
-		FeatureExtractor1<IdentifiedAnnotation> {
+		AnnotationIndexFeatureExtractor<IdentifiedAnnotation> {
 
 	NegationManualDepContextAnalyzer conAnal = null;
 
@@ -44,13 +43,17 @@ public class NegationDependencyFeatureExtractor implements
 	@Override
 	public List<Feature> extract(JCas jcas, IdentifiedAnnotation focusAnnotation)
 			throws CleartkExtractorException {
+		return extract(jcas, focusAnnotation, null);
+	}
+
+	@Override
+	public List<Feature> extract(JCas jcas, IdentifiedAnnotation focusAnnotation,
+			AssertionAnnotationIndex annotationIndex) throws CleartkExtractorException {
 		List<Feature> feats = new ArrayList<>();
 		Sentence sent = null;
 		
-		List<Sentence> sents = JCasUtil.selectCovering(jcas, Sentence.class, focusAnnotation.getBegin(), focusAnnotation.getEnd());
-		if(sents != null && sents.size() > 0){
-			sent = sents.get(0);
-		}else{
+		sent = AssertionAnnotationIndex.getCoveringSentence(annotationIndex, jcas, focusAnnotation);
+		if(sent == null){
 			return feats;
 		}
 		
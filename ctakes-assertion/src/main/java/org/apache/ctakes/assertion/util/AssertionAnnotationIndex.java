@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.assertion.util;
+
+import org.apache.ctakes.typesystem.type.syntax.BaseToken;
+import org.apache.ctakes.typesystem.type.temporary.assertion.AssertionCuePhraseAnnotation;
+import org.apache.ctakes.typesystem.type.textspan.Sentence;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+
+import java.util.*;
+
+/**
+ * Sentences, tokens and assertion cue phrases of a document, held in arrays sorted by offset so that the lookups made
+ * by the assertion engines for every entity and event are binary searches rather than scans of the cas indexes.
+ * <p>
+ * Each lookup returns exactly what the equivalent uimafit selection returns, in the same order:
+ * <ul>
+ * <li>{@link #getCoveringSentence(Annotation)} : the first of JCasUtil.selectCovering for Sentence</li>
+ * <li>{@link #getCoveredTokens(Annotation)} : JCasUtil.selectCovered for BaseToken</li>
+ * <li>{@link #getCuePhrases(Annotation)} : JCasUtil.selectCovered for AssertionCuePhraseAnnotation</li>
+ * <li>{@link #getTokenCountBetween(Annotation, Annotation)} : the size of JCasUtil.selectBetween for BaseToken</li>
+ * </ul>
+ * </p>
+ * An engine creates an index at the start of processing a document and passes it to the feature extractors and
+ * classifiers that it calls for the document.  The static methods of this class take an index that may be null,
+ * and fall back to the uimafit selections when it is.
+ * The annotations in the jcas must not change while the index is in use.
+ */
+final public class AssertionAnnotationIndex {
+
+   private final Spans<Sentence> _sentences;
+   private final Spans<BaseToken> _tokens;
+   private final Spans<AssertionCuePhraseAnnotation> _cuePhrases;
+   // greatest sentence end at or before each sentence in index order
+   private final int[] _maxSentenceEnds;
+   // cue phrases of each sentence, created as sentences are requested
+   private final Map<Sentence, List<AssertionCuePhraseAnnotation>> _sentenceCuePhrases = new HashMap<>();
+   // sentences sorted by begin then end, and the position of each, created when first requested
+   private List<Sentence> _locationSentences;
+   private Map<Sentence, Integer> _locationIndices;
+
+   /**
+    * @param jCas ye olde ...
+    */
+   public AssertionAnnotationIndex( final JCas jCas ) {
+      _sentences = new Spans<>( JCasUtil.select( jCas, Sentence.class ) );
+      _tokens = new Spans<>( JCasUtil.select( jCas, BaseToken.class ) );
+      _cuePhrases = new Spans<>( JCasUtil.select( jCas, AssertionCuePhraseAnnotation.class ) );
+      _maxSentenceEnds = new int[ _sentences.size() ];
+      int maxEnd = Integer.MIN_VALUE;
+      for ( int i = 0; i < _maxSentenceEnds.length; i++ ) {
+         maxEnd = Math.max( maxEnd, _sentences._ends[ i ] );
+         _maxSentenceEnds[ i ] = maxEnd;
+      }
+   }
+
+   /**
+    * @param index      index of the jcas, or null to select from the jcas
+    * @param jCas       ye olde ...
+    * @param annotation -
+    * @return the first sentence in index order that covers the annotation, or null if there is none
+    */
+   static public Sentence getCoveringSentence( final AssertionAnnotationIndex index,
+                                               final JCas jCas,
+                                               final Annotation annotation ) {
+      if ( index != null ) {
+         return index.getCoveringSentence( annotation );
+      }
+      final List<Sentence> sentences
+            = JCasUtil.selectCovering( jCas, Sentence.class, annotation.getBegin(), annotation.getEnd() );
+      return sentences.isEmpty() ? null : sentences.get( 0 );
+   }
+
+   /**
+    * @param index      index of the jcas, or null to select from the jcas
+    * @param jCas       ye olde ...
+    * @param annotation -
+    * @return tokens covered by the annotation
+    */
+   static public List<BaseToken> getCoveredTokens( final AssertionAnnotationIndex index,
+                                                   final JCas jCas,
+                                                   final Annotation annotation ) {
+      if ( index != null ) {
+         return index.getCoveredTokens( annotation );
+      }
+      return JCasUtil.selectCovered( jCas, BaseToken.class, annotation );
+   }
+
+   /**
+    * @param annotation -
+    * @return the first sentence in index order that covers the annotation, or null if there is none
+    */
+   public Sentence getCoveringSentence( final Annotation annotation ) {
+      // sentences that begin at or before the annotation
+      final int last = _sentences.upperBound( annotation.getBegin() ) - 1;
+      if ( last < 0 ) {
+         return null;
+      }
+      // the first sentence whose end reaches the annotation end is the first with a great enough maximum end
+      final int first = lowerBound( _maxSentenceEnds, 0, last + 1, annotation.getEnd() );
+      return first <= last ? _sentences._annotations.get( first ) : null;
+   }
+
+   /**
+    * @return sentences sorted by begin offset and then by end offset
+    */
+   public List<Sentence> getSentencesByLocation() {
+      if ( _locationSentences == null ) {
+         final List<Sentence> sentences = new ArrayList<>( _sentences._annotations );
+         sentences.sort( Comparator.comparingInt( Sentence::getBegin ).thenComparingInt( Sentence::getEnd ) );
+         _locationIndices = new HashMap<>( sentences.size() );
+         for ( int i = 0; i < sentences.size(); i++ ) {
+            _locationIndices.putIfAbsent( sentences.get( i ), i );
+         }
+         _locationSentences = Collections.unmodifiableList( sentences );
+      }
+      return _locationSentences;
+   }
+
+   /**
+    * @param sentence -
+    * @return position of the sentence in {@link #getSentencesByLocation()}, or -1 if it is not in the index
+    */
+   public int getLocationIndex( final Sentence sentence ) {
+      getSentencesByLocation();
+      return _locationIndices.getOrDefault( sentence, -1 );
+   }
+
+   /**
+    * @param annotation -
+    * @return tokens covered by the annotation
+    */
+   public List<BaseToken> getCoveredTokens( final Annotation annotation ) {
+      return _tokens.getCovered( annotation.getBegin(), annotation.getEnd() );
+   }
+
+   /**
+    * @param annotation some annotation, usually a sentence
+    * @return assertion cue phrases covered by the annotation
+    */
+   public List<AssertionCuePhraseAnnotation> getCuePhrases( final Annotation annotation ) {
+      if ( !(annotation instanceof Sentence) ) {
+         return _cuePhrases.getCovered( annotation.getBegin(), annotation.getEnd() );
+      }
+      return _sentenceCuePhrases.computeIfAbsent( (Sentence)annotation,
+            s -> _cuePhrases.getCovered( s.getBegin(), s.getEnd() ) );
+   }
+
+   /**
+    * @param annotation1 -
+    * @param annotation2 -
+    * @return number of tokens between the annotations, 0 if the annotations overlap
+    */
+   public int getTokenCountBetween( final Annotation annotation1, final Annotation annotation2 ) {
+      final Annotation left;
+      final Annotation right;
+      if ( annotation1.getEnd() > annotation2.getBegin() ) {
+         left = annotation2;
+         right = annotation1;
+      } else {
+         left = annotation1;
+         right = annotation2;
+      }
+      return _tokens.countCovered( left.getEnd(), right.getBegin() );
+   }
+
+   /**
+    * @return the first index in the range at which the value is at least the key
+    */
+   static private int lowerBound( final int[] values, final int from, final int to, final int key ) {
+      int low = from;
+      int high = to;
+      while ( low < high ) {
+         final int mid = (low + high) >>> 1;
+         if ( values[ mid ] < key ) {
+            low = mid + 1;
+         } else {
+            high = mid;
+         }
+      }
+      return low;
+   }
+
+
+   /**
+    * Annotations of one type in index order, with their offsets in arrays.
+    * The index sorts by begin, so begins are always ascending.
+    */
+   static private final class Spans<T extends Annotation> {
+      private final List<T> _annotations;
+      private final int[] _begins;
+      private final int[] _ends;
+      // true if ends are also ascending, as they are for annotations that do not nest
+      private final boolean _endsAscend;
+
+      private Spans( final Collection<T> annotations ) {
+         _annotations = new ArrayList<>( annotations );
+         _begins = new int[ _annotations.size() ];
+         _ends = new int[ _annotations.size() ];
+         boolean endsAscend = true;
+         for ( int i = 0; i < _begins.length; i++ ) {
+            final T annotation = _annotations.get( i );
+            _begins[ i ] = annotation.getBegin();
+            _ends[ i ] = annotation.getEnd();
+            endsAscend &= i == 0 || _ends[ i ] >= _ends[ i - 1 ];
+         }
+         _endsAscend = endsAscend;
+      }
+
+      private int size() {
+         return _begins.length;
+      }
+
+      /**
+       * @return index of the first annotation that begins after the offset
+       */
+      private int upperBound( final int offset ) {
+         return lowerBound( _begins, 0, _begins.length, offset + 1 );
+      }
+
+      /**
+       * @return annotations that begin at or after the begin and end at or before the end, in index order
+       */
+      private List<T> getCovered( final int begin, final int end ) {
+         final int from = lowerBound( _begins, 0, _begins.length, begin );
+         final int to = upperBound( end );
+         if ( from >= to ) {
+            return new ArrayList<>( 0 );
+         }
+         if ( _endsAscend ) {
+            return new ArrayList<>( _annotations.subList( from, lowerBound( _ends, from, to, end + 1 ) ) );
+         }
+         final List<T> covered = new ArrayList<>();
+         for ( int i = from; i < to; i++ ) {
+            if ( _ends[ i ] <= end ) {
+               covered.add( _annotations.get( i ) );
+            }
+         }
+         return covered;
+      }
+
+      /**
+       * @return number of annotations that begin at or after the begin and end at or before the end
+       */
+      private int countCovered( final int begin, final int end ) {
+         final int from = lowerBound( _begins, 0, _begins.length, begin );
+         final int to = upperBound( end );
+         if ( from >= to ) {
+            return 0;
+         }
+         if ( _endsAscend ) {
+            return lowerBound( _ends, from, to, end + 1 ) - from;
+         }
+         int count = 0;
+         for ( int i = from; i < to; i++ ) {
+            if ( _ends[ i ] <= end ) {
+               count++;
+            }
+         }
+         return count;
+      }
+   }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.assertion.util;
+
+import org.apache.ctakes.typesystem.type.syntax.BaseToken;
+import org.apache.ctakes.typesystem.type.temporary.assertion.AssertionCuePhraseAnnotation;
+import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
+import org.apache.ctakes.typesystem.type.textspan.Sentence;
+import org.apache.uima.UIMAException;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Compares the lookups of {@link AssertionAnnotationIndex} with the uimafit selections that they replace,
+ * over random documents with nested, overlapping, identical and empty spans.
+ */
+public class AssertionAnnotationIndexTest {
+
+   static private final int TEXT_LENGTH = 400;
+   static private final int SEED_COUNT = 50;
+
+   @Test
+   public void testNestedTokens() throws UIMAException {
+      final JCas jCas = JCasFactory.createJCas();
+      for ( int seed = 0; seed < SEED_COUNT; seed++ ) {
+         jCas.reset();
+         fillJCas( jCas, new Random( seed ), true );
+         assertSameSelections( "Seed " + seed, jCas );
+      }
+   }
+
+   @Test
+   public void testFlatTokens() throws UIMAException {
+      final JCas jCas = JCasFactory.createJCas();
+      for ( int seed = 0; seed < SEED_COUNT; seed++ ) {
+         jCas.reset();
+         fillJCas( jCas, new Random( seed ), false );
+         assertSameSelections( "Seed " + seed, jCas );
+      }
+   }
+
+   @Test
+   public void testEmptyJCas() throws UIMAException {
+      final JCas jCas = JCasFactory.createJCas();
+      jCas.setDocumentText( "no annotations" );
+      final Annotation annotation = new Annotation( jCas, 3, 8 );
+      final AssertionAnnotationIndex index = new AssertionAnnotationIndex( jCas );
+      assertEquals( null, index.getCoveringSentence( annotation ) );
+      assertEquals( 0, index.getCoveredTokens( annotation ).size() );
+      assertEquals( 0, index.getCuePhrases( annotation ).size() );
+      assertEquals( 0, index.getTokenCountBetween( annotation, annotation ) );
+      assertEquals( 0, index.getSentencesByLocation().size() );
+   }
+
+   static private void assertSameSelections( final String message, final JCas jCas ) {
+      final AssertionAnnotationIndex index = new AssertionAnnotationIndex( jCas );
+      final Collection<Sentence> sentences = JCasUtil.select( jCas, Sentence.class );
+      final Collection<IdentifiedAnnotation> mentions = JCasUtil.select( jCas, IdentifiedAnnotation.class );
+      final Collection<AssertionCuePhraseAnnotation> cues
+            = JCasUtil.select( jCas, AssertionCuePhraseAnnotation.class );
+      assertFalse( message, mentions.isEmpty() );
+      for ( IdentifiedAnnotation mention : mentions ) {
+         final List<Sentence> covering
+               = JCasUtil.selectCovering( jCas, Sentence.class, mention.getBegin(), mention.getEnd() );
+         assertSame( message + " covering " + span( mention ),
+               covering.isEmpty() ? null : covering.get( 0 ), index.getCoveringSentence( mention ) );
+         assertSame( message + " covering " + span( mention ),
+               covering.isEmpty() ? null : covering.get( 0 ),
+               AssertionAnnotationIndex.getCoveringSentence( null, jCas, mention ) );
+         assertEquals( message + " tokens in " + span( mention ),
+               JCasUtil.selectCovered( jCas, BaseToken.class, mention ), index.getCoveredTokens( mention ) );
+         assertEquals( message + " cues in " + span( mention ),
+               JCasUtil.selectCovered( AssertionCuePhraseAnnotation.class, mention ),
+               index.getCuePhrases( mention ) );
+         for ( AssertionCuePhraseAnnotation cue : cues ) {
+            assertEquals( message + " tokens between " + span( cue ) + " and " + span( mention ),
+                  JCasUtil.selectBetween( BaseToken.class, cue, mention ).size(),
+                  index.getTokenCountBetween( cue, mention ) );
+            assertEquals( message + " tokens between " + span( mention ) + " and " + span( cue ),
+                  JCasUtil.selectBetween( BaseToken.class, mention, cue ).size(),
+                  index.getTokenCountBetween( mention, cue ) );
+         }
+      }
+      for ( Sentence sentence : sentences ) {
+         assertEquals( message + " tokens in " + span( sentence ),
+               JCasUtil.selectCovered( BaseToken.class, sentence ), index.getCoveredTokens( sentence ) );
+         // twice, the second time from the sentence cache
+         for ( int i = 0; i < 2; i++ ) {
+            assertEquals( message + " cues in " + span( sentence ),
+                  JCasUtil.selectCovered( AssertionCuePhraseAnnotation.class, sentence ),
+                  index.getCuePhrases( sentence ) );
+         }
+      }
+      final List<Sentence> byLocation = new ArrayList<>( sentences );
+      byLocation.sort( Comparator.comparingInt( Sentence::getBegin ).thenComparingInt( Sentence::getEnd ) );
+      assertEquals( message, byLocation, index.getSentencesByLocation() );
+      for ( Sentence sentence : sentences ) {
+         assertEquals( message + " location of " + span( sentence ),
+               byLocation.indexOf( sentence ), index.getLocationIndex( sentence ) );
+      }
+   }
+
+   /**
+    * Add sentences, tokens, cue phrases and mentions.  Some sentences nest and some are identical.
+    * Mentions are random spans and the spans of sentences, tokens and cue phrases.
+    *
+    * @param nestedTokens true to also add tokens that overlap and nest, false for tokens that follow one another
+    */
+   static private void fillJCas( final JCas jCas, final Random random, final boolean nestedTokens ) {
+      final StringBuilder sb = new StringBuilder();
+      while ( sb.length() < TEXT_LENGTH ) {
+         sb.append( random.nextInt( 5 ) == 0 ? ' ' : (char)('a' + random.nextInt( 26 )) );
+      }
+      jCas.setDocumentText( sb.toString() );
+      final List<Annotation> spans = new ArrayList<>();
+      for ( int i = 0; i < 12; i++ ) {
+         final int[] span = randomSpan( random, 80 );
+         spans.add( new Sentence( jCas, span[ 0 ], span[ 1 ] ) );
+      }
+      // nested, identical and empty sentences
+      final Annotation outer = spans.get( random.nextInt( spans.size() ) );
+      spans.add( new Sentence( jCas, outer.getBegin(), outer.getEnd() ) );
+      spans.add( new Sentence( jCas, Math.max( 0, outer.getBegin() - 5 ), outer.getEnd() ) );
+      spans.add( new Sentence( jCas, outer.getBegin(), Math.min( TEXT_LENGTH, outer.getEnd() + 5 ) ) );
+      spans.add( new Sentence( jCas, outer.getBegin(), outer.getBegin() ) );
+      int begin = 0;
+      while ( begin < TEXT_LENGTH ) {
+         final int end = Math.min( TEXT_LENGTH, begin + 1 + random.nextInt( 8 ) );
+         spans.add( new BaseToken( jCas, begin, end ) );
+         begin = end + random.nextInt( 2 );
+      }
+      if ( nestedTokens ) {
+         for ( int i = 0; i < 30; i++ ) {
+            final int[] span = randomSpan( random, 15 );
+            spans.add( new BaseToken( jCas, span[ 0 ], span[ 1 ] ) );
+         }
+         spans.add( new BaseToken( jCas, outer.getBegin(), outer.getEnd() ) );
+      }
+      for ( int i = 0; i < 10; i++ ) {
+         final int[] span = randomSpan( random, 12 );
+         spans.add( new AssertionCuePhraseAnnotation( jCas, span[ 0 ], span[ 1 ] ) );
+      }
+      spans.add( new AssertionCuePhraseAnnotation( jCas, outer.getBegin(), outer.getEnd() ) );
+      final List<IdentifiedAnnotation> mentions = new ArrayList<>();
+      for ( int i = 0; i < 20; i++ ) {
+         final int[] span = randomSpan( random, 20 );
+         mentions.add( new IdentifiedAnnotation( jCas, span[ 0 ], span[ 1 ] ) );
+      }
+      for ( int i = 0; i < 20; i++ ) {
+         final Annotation annotation = spans.get( random.nextInt( spans.size() ) );
+         mentions.add( new IdentifiedAnnotation( jCas, annotation.getBegin(), annotation.getEnd() ) );
+      }
+      spans.forEach( Annotation::addToIndexes );
+      mentions.forEach( Annotation::addToIndexes );
+   }
+
+   static private int[] randomSpan( final Random random, final int maxLength ) {
+      final int begin = random.nextInt( TEXT_LENGTH );
+      return new int[] { begin, Math.min( TEXT_LENGTH, begin + random.nextInt( maxLength + 1 ) ) };
+   }
+
+   static private String span( final Annotation annotation ) {
+      return annotation.getBegin() + "," + annotation.getEnd();
+   }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of this module with the iteration and fork settings shared by all of them.
+ * Benchmarks only declare their mode, time unit, state and parameters.
+ * <p/>
+ * From the cTAKES root directory:
+ * <pre>
+ *    mvn -Pbenchmark install -DskipTests
+ *    mvn -Pbenchmark -pl ctakes-benchmark exec:exec -Dbenchmark=CuiCollectionBenchmark
+ * </pre>
+ * Without -Dbenchmark every benchmark is run.
+ */
+final public class BenchmarkRunner {
+
+   static private final int WARMUP_ITERATIONS = 5;
+   static private final int MEASUREMENT_ITERATIONS = 5;
+   static private final int FORKS = 1;
+
+   private BenchmarkRunner() {
+   }
+
+   /**
+    * @param args regular expressions for the benchmarks to run.  All benchmarks are run if there are none
+    * @throws RunnerException if a benchmark cannot be run
+    */
+   public static void main( final String... args ) throws RunnerException {
+      final ChainedOptionsBuilder options = new OptionsBuilder()
+            .warmupIterations( WARMUP_ITERATIONS )
+            .measurementIterations( MEASUREMENT_ITERATIONS )
+            .forks( FORKS );
+      for ( String include : args ) {
+         if ( !include.trim().isEmpty() ) {
+            options.include( include.trim() );
+         }
+      }
+      new Runner( options.build() ).run();
+   }
+
+}
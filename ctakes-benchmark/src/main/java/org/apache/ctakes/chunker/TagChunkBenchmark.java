@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.chunker;
+
+import org.apache.ctakes.chunker.ae.Chunker;
+import org.apache.ctakes.postagger.POSTagger;
+import org.apache.ctakes.typesystem.type.syntax.WordToken;
+import org.apache.ctakes.typesystem.type.textspan.Sentence;
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-sentence latency of the {@link POSTagger} and {@link Chunker} over a long note,
+ * with the sentence by sentence path and with the batch path.
+ * <p/>
+ * Each benchmark processes a note of {@value #SENTENCE_COUNT} sentences, and scores are per sentence.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@State( Scope.Thread )
+public class TagChunkBenchmark {
+
+   static private final int SENTENCE_COUNT = 400;
+
+   static private final String[] WORDS = { "Patient", "is", "a", "67-year-old", "male", "with", "history", "of",
+                                           "CHF", "and", "type", "2", "diabetes", "mellitus", "presenting", "with",
+                                           "dyspnea", "for", "three", "days", ".", "Blood", "pressure", "was",
+                                           "elevated", "and", "he", "was", "started", "on", "furosemide", "40",
+                                           "mg", "IV", "twice", "daily", ",", "with", "follow-up", "in", "weeks" };
+
+   private String _text;
+   private List<int[]> _sentenceSpans;
+   private List<int[]> _tokenSpans;
+   private AnalysisEngine _tagger;
+   private AnalysisEngine _batchTagger;
+   private AnalysisEngine _chunker;
+   private AnalysisEngine _batchChunker;
+   private JCas _jcas;
+
+   @Setup
+   public void setup() throws UIMAException {
+      final Random random = new Random( 42 );
+      final StringBuilder sb = new StringBuilder();
+      _sentenceSpans = new ArrayList<>( SENTENCE_COUNT );
+      _tokenSpans = new ArrayList<>();
+      for ( int i = 0; i < SENTENCE_COUNT; i++ ) {
+         final int sentenceBegin = sb.length();
+         final int wordCount = 5 + random.nextInt( 30 );
+         for ( int w = 0; w < wordCount; w++ ) {
+            if ( w > 0 ) {
+               sb.append( ' ' );
+            }
+            final int tokenBegin = sb.length();
+            sb.append( WORDS[ random.nextInt( WORDS.length ) ] );
+            _tokenSpans.add( new int[] { tokenBegin, sb.length() } );
+         }
+         _sentenceSpans.add( new int[] { sentenceBegin, sb.length() } );
+         sb.append( '\n' );
+      }
+      _text = sb.toString();
+      _tagger = AnalysisEngineFactory.createEngine( POSTagger.class );
+      _batchTagger = AnalysisEngineFactory.createEngine( POSTagger.class, POSTagger.PARAM_BATCH_TAG, true );
+      _chunker = AnalysisEngineFactory.createEngine( Chunker.class );
+      _batchChunker = AnalysisEngineFactory.createEngine( Chunker.class, Chunker.PARAM_BATCH_CHUNK, true );
+      _jcas = JCasFactory.createJCas();
+   }
+
+   /**
+    * Tokens are tagged before each invocation so that the chunkers have parts of speech.
+    */
+   @Setup( Level.Invocation )
+   public void resetJCas() throws AnalysisEngineProcessException {
+      _jcas.reset();
+      _jcas.setDocumentText( _text );
+      for ( int[] span : _sentenceSpans ) {
+         new Sentence( _jcas, span[ 0 ], span[ 1 ] ).addToIndexes();
+      }
+      for ( int[] span : _tokenSpans ) {
+         new WordToken( _jcas, span[ 0 ], span[ 1 ] ).addToIndexes();
+      }
+      _tagger.process( _jcas );
+   }
+
+   @TearDown
+   public void tearDown() {
+      _tagger.destroy();
+      _batchTagger.destroy();
+      _chunker.destroy();
+      _batchChunker.destroy();
+   }
+
+   @Benchmark
+   @OperationsPerInvocation( SENTENCE_COUNT )
+   public void sentenceTagger() throws AnalysisEngineProcessException {
+      _tagger.process( _jcas );
+   }
+
+   @Benchmark
+   @OperationsPerInvocation( SENTENCE_COUNT )
+   public void batchTagger() throws AnalysisEngineProcessException {
+      _batchTagger.process( _jcas );
+   }
+
+   @Benchmark
+   @OperationsPerInvocation( SENTENCE_COUNT )
+   public void sentenceChunker() throws AnalysisEngineProcessException {
+      _chunker.process( _jcas );
+   }
+
+   @Benchmark
+   @OperationsPerInvocation( SENTENCE_COUNT )
+   public void batchChunker() throws AnalysisEngineProcessException {
+      _batchChunker.process( _jcas );
+   }
+
+}
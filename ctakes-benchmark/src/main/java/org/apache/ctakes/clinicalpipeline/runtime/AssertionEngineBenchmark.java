@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.clinicalpipeline.runtime;
+
+import org.apache.ctakes.assertion.medfacts.cleartk.CombinedAssertionCleartkAnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.jcas.JCas;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regression benchmark for the {@link CombinedAssertionCleartkAnalysisEngine}, compared with the six cleartk assertion
+ * attribute engines run one after another.
+ * <p/>
+ * The sample note of the {@link CombinedAssertionEngineTest} is tokenized, tagged and parsed once.
+ * The attributes of its mentions are reset before every run of the assertion engines.
+ * That test checks that both set the same attributes.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@State( Scope.Thread )
+public class AssertionEngineBenchmark {
+
+   private JCas _jcas;
+   private JCas _initialJcas;
+   private AnalysisEngine _separateEngine;
+   private AnalysisEngine _combinedEngine;
+
+   @Setup
+   public void setup() throws Exception {
+      _jcas = CombinedAssertionEngineTest.createSampleCas();
+      _initialJcas = CombinedAssertionEngineTest.createSampleCas();
+      _separateEngine = CombinedAssertionEngineTest.createSeparateEngine();
+      _combinedEngine
+            = AnalysisEngineFactory.createEngine( CombinedAssertionCleartkAnalysisEngine.createAnnotatorDescription() );
+   }
+
+   @Setup( Level.Invocation )
+   public void resetAttributes() {
+      CombinedAssertionEngineTest.copyAttributes( _initialJcas, _jcas );
+   }
+
+   @TearDown
+   public void tearDown() {
+      _separateEngine.destroy();
+      _combinedEngine.destroy();
+   }
+
+   @Benchmark
+   public void separateEngines() throws AnalysisEngineProcessException {
+      _separateEngine.process( _jcas );
+   }
+
+   @Benchmark
+   public void combinedEngine() throws AnalysisEngineProcessException {
+      _combinedEngine.process( _jcas );
+   }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.ae;
+
+import org.apache.ctakes.typesystem.type.textspan.Segment;
+import org.apache.ctakes.typesystem.type.textspan.Sentence;
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the {@link TokenizerAnnotatorPTB} over a long note with many sections.
+ * <p/>
+ * The segment scan benchmark runs the annotator as it was, walking all sentences and all tokens for every segment.
+ * The other benchmarks tokenize the note on one thread and on several threads with segment-scoped iteration.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@State( Scope.Thread )
+public class TokenizerAnnotatorPTBBenchmark {
+
+   static private final String[] WORDS = { "Patient", "is", "a", "67-year-old", "male", "with", "history", "of",
+                                           "CHF", "(EF", "35%)", "and", "type", "2", "diabetes", "mellitus,",
+                                           "presenting", "w/", "dyspnea", "x3", "days.", "BP", "142/88,", "HR",
+                                           "96.", "Started", "on", "furosemide", "40mg", "IV", "b.i.d.", "Dr.",
+                                           "Smith's", "follow-up", "in", "2-3", "weeks;", "call", "555-123-4567." };
+
+   // Number of sections in the note
+   @Param( { "10", "200" } )
+   public int _segmentCount;
+
+   // Number of sentences in each section
+   @Param( { "3", "30" } )
+   public int _sentencesPerSegment;
+
+   private String _text;
+   private int[][] _segmentSpans;
+   private int[][] _sentenceSpans;
+   private AnalysisEngine _segmentScanEngine;
+   private AnalysisEngine _serialEngine;
+   private AnalysisEngine _parallelEngine;
+   private JCas _jcas;
+
+   @Setup
+   public void setup() throws UIMAException {
+      final Random random = new Random( 42 );
+      final StringBuilder sb = new StringBuilder();
+      _segmentSpans = new int[ _segmentCount ][];
+      _sentenceSpans = new int[ _segmentCount * _sentencesPerSegment ][];
+      for ( int i = 0; i < _segmentCount; i++ ) {
+         final int segmentBegin = sb.length();
+         sb.append( "SECTION " ).append( i ).append( ":\r\n" );
+         for ( int j = 0; j < _sentencesPerSegment; j++ ) {
+            final int sentenceBegin = sb.length();
+            final int wordCount = 5 + random.nextInt( 20 );
+            for ( int w = 0; w < wordCount; w++ ) {
+               if ( w > 0 ) {
+                  sb.append( ' ' );
+               }
+               sb.append( WORDS[ random.nextInt( WORDS.length ) ] );
+            }
+            _sentenceSpans[ i * _sentencesPerSegment + j ] = new int[] { sentenceBegin, sb.length() };
+            sb.append( '\n' );
+         }
+         _segmentSpans[ i ] = new int[] { segmentBegin, sb.length() };
+         sb.append( '\n' );
+      }
+      _text = sb.toString();
+      _segmentScanEngine = AnalysisEngineFactory.createEngine( SegmentScanTokenizerAnnotatorPTB.class );
+      _serialEngine = AnalysisEngineFactory.createEngine( TokenizerAnnotatorPTB.class );
+      _parallelEngine = AnalysisEngineFactory.createEngine( TokenizerAnnotatorPTB.class,
+            TokenizerAnnotatorPTB.PARAM_PARALLEL_TOKENIZE, true );
+      _jcas = JCasFactory.createJCas();
+   }
+
+   @Setup( Level.Invocation )
+   public void resetJCas() {
+      _jcas.reset();
+      _jcas.setDocumentText( _text );
+      for ( int i = 0; i < _segmentSpans.length; i++ ) {
+         final Segment segment = new Segment( _jcas, _segmentSpans[ i ][ 0 ], _segmentSpans[ i ][ 1 ] );
+         segment.setId( "SECTION_" + i );
+         segment.addToIndexes();
+      }
+      for ( int[] span : _sentenceSpans ) {
+         new Sentence( _jcas, span[ 0 ], span[ 1 ] ).addToIndexes();
+      }
+   }
+
+   @TearDown
+   public void tearDown() {
+      _segmentScanEngine.destroy();
+      _serialEngine.destroy();
+      _parallelEngine.destroy();
+   }
+
+   @Benchmark
+   public void segmentScanTokenizer() throws AnalysisEngineProcessException {
+      _segmentScanEngine.process( _jcas );
+   }
+
+   @Benchmark
+   public void serialTokenizer() throws AnalysisEngineProcessException {
+      _serialEngine.process( _jcas );
+   }
+
+   @Benchmark
+   public void parallelTokenizer() throws AnalysisEngineProcessException {
+      _parallelEngine.process( _jcas );
+   }
+
+}
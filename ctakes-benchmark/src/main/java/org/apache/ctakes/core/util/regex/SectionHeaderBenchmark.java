@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.util.regex;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the per-pattern find loop that the RegexSectionizer used to run for every section type
+ * with a single pass of a {@link MultiPatternFinder}.  Each invocation finds all section headers in a corpus of notes.
+ * <p/>
+ * Header patterns are generated in the style of a sections bsv.  Notes are generated from those headers unless
+ * the system property {@value #NOTES_DIR_PROPERTY} is set to a directory of .txt notes.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@State( Scope.Thread )
+public class SectionHeaderBenchmark {
+
+   static public final String NOTES_DIR_PROPERTY = "ctakes.benchmark.notes";
+
+   static private final int FLAGS = Pattern.MULTILINE | Pattern.CASE_INSENSITIVE;
+   static private final int NOTE_COUNT = 100;
+   static private final String[] WORDS = { "history", "present", "illness", "family", "social", "medications",
+                                           "allergies", "review", "systems", "physical", "exam", "assessment",
+                                           "plan", "laboratory", "results", "imaging", "procedures", "discharge",
+                                           "admission", "diagnosis", "vital", "signs", "chief", "complaint" };
+
+   // Number of section types in the bsv
+   @Param( { "20", "200" } )
+   public int _sectionCount;
+
+   private List<Pattern> _patterns;
+   private MultiPatternFinder _finder;
+   private List<String> _notes;
+
+   @Setup
+   public void setup() throws IOException {
+      final Random random = new Random( 42 );
+      final List<String> headers = new ArrayList<>( _sectionCount );
+      _patterns = new ArrayList<>( _sectionCount );
+      final Set<String> used = new HashSet<>();
+      while ( headers.size() < _sectionCount ) {
+         final String header = WORDS[ random.nextInt( WORDS.length ) ] + " " + WORDS[ random.nextInt( WORDS.length ) ]
+                               + (random.nextBoolean() ? "" : " " + WORDS[ random.nextInt( WORDS.length ) ]);
+         if ( used.add( header ) ) {
+            headers.add( header );
+            _patterns.add( Pattern.compile( "^[\\t ]*(?:" + header.replace( " ", "\\s+" ) + ")[\\t ]*:", FLAGS ) );
+         }
+      }
+      _finder = new MultiPatternFinder( "Benchmark", _patterns );
+      final String notesDir = System.getProperty( NOTES_DIR_PROPERTY );
+      _notes = notesDir == null ? createNotes( headers, random ) : readNotes( new File( notesDir ) );
+   }
+
+   static private List<String> createNotes( final List<String> headers, final Random random ) {
+      final List<String> notes = new ArrayList<>( NOTE_COUNT );
+      for ( int i = 0; i < NOTE_COUNT; i++ ) {
+         final StringBuilder sb = new StringBuilder();
+         final int sectionCount = 5 + random.nextInt( 15 );
+         for ( int j = 0; j < sectionCount; j++ ) {
+            sb.append( headers.get( random.nextInt( headers.size() ) ) ).append( ":\n" );
+            final int lineCount = 1 + random.nextInt( 8 );
+            for ( int k = 0; k < lineCount; k++ ) {
+               final int wordCount = 3 + random.nextInt( 12 );
+               for ( int w = 0; w < wordCount; w++ ) {
+                  sb.append( WORDS[ random.nextInt( WORDS.length ) ] ).append( ' ' );
+               }
+               sb.append( "noted.\n" );
+            }
+         }
+         notes.add( sb.toString() );
+      }
+      return notes;
+   }
+
+   static private List<String> readNotes( final File notesDir ) throws IOException {
+      final File[] files = notesDir.listFiles( ( d, n ) -> n.endsWith( ".txt" ) );
+      if ( files == null || files.length == 0 ) {
+         throw new IOException( "No .txt notes in " + notesDir.getPath() );
+      }
+      final List<String> notes = new ArrayList<>( files.length );
+      for ( File file : files ) {
+         notes.add( new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 ) );
+      }
+      return notes;
+   }
+
+   @Benchmark
+   public int perPatternLoop() {
+      int count = 0;
+      for ( String note : _notes ) {
+         for ( Pattern pattern : _patterns ) {
+            final Matcher matcher = pattern.matcher( note );
+            while ( matcher.find() ) {
+               count += matcher.end() - matcher.start();
+            }
+         }
+      }
+      return count;
+   }
+
+   @Benchmark
+   public int multiPatternFinder() {
+      int count = 0;
+      for ( String note : _notes ) {
+         for ( List<Integer> lengths : _finder.findAll( note, m -> m.end() - m.start() ).values() ) {
+            for ( int length : lengths ) {
+               count += length;
+            }
+         }
+      }
+      return count;
+   }
+
+}
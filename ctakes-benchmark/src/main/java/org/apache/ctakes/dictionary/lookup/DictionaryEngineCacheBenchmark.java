@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.dictionary.lookup;
+
+import org.apache.ctakes.dictionary.lookup.lucene.LuceneDictionaryImpl;
+import org.apache.log4j.Logger;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Version;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-lookup latency of {@link DictionaryEngine#metaLookup(String)} on a Lucene dictionary,
+ * with lookup caching off and on, from one thread and from several threads sharing the engine.
+ * <p/>
+ * Lookup texts are drawn with a skewed distribution from the dictionary terms and from an equal number of
+ * texts that are not in the dictionary, as clinical notes repeat a small number of words and most lookups miss.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@State( Scope.Benchmark )
+public class DictionaryEngineCacheBenchmark {
+
+   static private final Logger LOGGER = Logger.getLogger( "DictionaryEngineCacheBenchmark" );
+
+   static private final int TERM_COUNT = 50000;
+   static private final int LOOKUP_COUNT = 1000;
+   static private final String LOOKUP_FIELD = "first_word";
+
+   @Param( { "0", "10000" } )
+   public int cacheSize;
+
+   private RAMDirectory _directory;
+   private DirectoryReader _reader;
+   private DictionaryEngine _engine;
+
+   /**
+    * Each thread has its own sequence of lookup texts
+    */
+   @State( Scope.Thread )
+   public static class Lookups {
+      private final String[] _texts = new String[ LOOKUP_COUNT ];
+
+      @Setup
+      public void setup() {
+         final Random random = new Random( Thread.currentThread().getId() );
+         for ( int i = 0; i < LOOKUP_COUNT; i++ ) {
+            // squaring a uniform value favors small ranks
+            final double uniform = random.nextDouble();
+            final int rank = (int)(uniform * uniform * TERM_COUNT);
+            _texts[ i ] = random.nextBoolean() ? "term" + rank : "miss" + rank;
+         }
+      }
+   }
+
+   @Setup
+   public void setup() throws IOException {
+      _directory = new RAMDirectory();
+      final IndexWriter writer
+            = new IndexWriter( _directory, new IndexWriterConfig( Version.LUCENE_40, new KeywordAnalyzer() ) );
+      for ( int i = 0; i < TERM_COUNT; i++ ) {
+         final Document document = new Document();
+         document.add( new StringField( LOOKUP_FIELD, "term" + i, Field.Store.YES ) );
+         document.add( new StringField( "cui", String.format( "C%07d", i ), Field.Store.YES ) );
+         writer.addDocument( document );
+      }
+      writer.close();
+      _reader = DirectoryReader.open( _directory );
+      final Dictionary dictionary = new LuceneDictionaryImpl( new IndexSearcher( _reader ), LOOKUP_FIELD, 100 );
+      dictionary.retainMetaData( "cui" );
+      _engine = new DictionaryEngine( dictionary, false, cacheSize );
+   }
+
+   @TearDown
+   public void tearDown() throws IOException {
+      LOGGER.info( _engine.getCacheStatistics() );
+      _reader.close();
+      _directory.close();
+   }
+
+   @Benchmark
+   @OperationsPerInvocation( LOOKUP_COUNT )
+   public void metaLookup( final Lookups lookups, final Blackhole blackhole ) throws Exception {
+      for ( String text : lookups._texts ) {
+         blackhole.consume( _engine.metaLookup( text ) );
+      }
+   }
+
+   @Benchmark
+   @Threads( 4 )
+   @OperationsPerInvocation( LOOKUP_COUNT )
+   public void metaLookupThreaded( final Lookups lookups, final Blackhole blackhole ) throws Exception {
+      for ( String text : lookups._texts ) {
+         blackhole.consume( _engine.metaLookup( text ) );
+      }
+   }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.dictionary.lookup;
+
+import org.apache.ctakes.dictionary.lookup.lucene.LuceneDictionaryImpl;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Version;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-text latency of {@link LuceneDictionaryImpl} lookups in the normal mode and the fast lookup mode,
+ * one text at a time and with all texts of a window at once.
+ * <p/>
+ * Each benchmark looks up a window of {@value #WINDOW_SIZE} texts, some of them hyphenated,
+ * and most of them not in the dictionary.  Scores are per text.
+ * Documents have stored fields that are not retained, which the fast mode does not load.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@State( Scope.Benchmark )
+public class LuceneDictionaryBenchmark {
+
+   static private final int TERM_COUNT = 50000;
+   static private final int WINDOW_SIZE = 40;
+   static private final String LOOKUP_FIELD = "first_word";
+
+   @Param( { "false", "true" } )
+   public boolean fastLookup;
+
+   private RAMDirectory _directory;
+   private DirectoryReader _reader;
+   private Dictionary _dictionary;
+   private List<String> _texts;
+
+   @Setup
+   public void setup() throws IOException {
+      _directory = new RAMDirectory();
+      final IndexWriter writer
+            = new IndexWriter( _directory, new IndexWriterConfig( Version.LUCENE_40, new KeywordAnalyzer() ) );
+      for ( int i = 0; i < TERM_COUNT; i++ ) {
+         final Document document = new Document();
+         document.add( new StringField( LOOKUP_FIELD, "term" + i, Field.Store.YES ) );
+         document.add( new StringField( "cui", String.format( "C%07d", i ), Field.Store.YES ) );
+         document.add( new StringField( "text", "term" + i + " of the concept", Field.Store.YES ) );
+         document.add( new StringField( "preferred_designation", "preferred term " + i, Field.Store.YES ) );
+         writer.addDocument( document );
+      }
+      writer.close();
+      _reader = DirectoryReader.open( _directory );
+      _dictionary = new LuceneDictionaryImpl( new IndexSearcher( _reader ), LOOKUP_FIELD, 100, fastLookup );
+      _dictionary.retainMetaData( "cui" );
+      _dictionary.retainMetaData( "text" );
+      final Random random = new Random( 42 );
+      _texts = new ArrayList<>( WINDOW_SIZE );
+      for ( int i = 0; i < WINDOW_SIZE; i++ ) {
+         final int rank = random.nextInt( TERM_COUNT );
+         switch ( random.nextInt( 4 ) ) {
+            case 0:
+               _texts.add( "term" + rank );
+               break;
+            case 1:
+               _texts.add( "term" + rank + "-miss" + rank );
+               break;
+            default:
+               _texts.add( "miss" + rank );
+         }
+      }
+   }
+
+   @TearDown
+   public void tearDown() throws IOException {
+      _reader.close();
+      _directory.close();
+   }
+
+   @Benchmark
+   @OperationsPerInvocation( WINDOW_SIZE )
+   public int getEntries() throws DictionaryException {
+      int count = 0;
+      for ( String text : _texts ) {
+         count += _dictionary.getEntries( text ).size();
+      }
+      return count;
+   }
+
+   @Benchmark
+   @OperationsPerInvocation( WINDOW_SIZE )
+   public int getWindowEntries() throws DictionaryException {
+      int count = 0;
+      for ( Collection<MetaDataHit> entries : _dictionary.getEntries( _texts ).values() ) {
+         count += entries.size();
+      }
+      return count;
+   }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.dictionary.lookup2.util.collection;
+
+import org.apache.ctakes.dictionary.lookup2.textspan.DefaultTextSpan;
+import org.apache.ctakes.dictionary.lookup2.textspan.TextSpan;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the boxed {@link HashSetMap} that used to hold the cui codes for each text span
+ * with the primitive {@link LongSetMap} that replaced it.
+ * Each invocation places the cuis for one simulated document, collects all cuis and walks them as the term consumers do.
+ * The concept lookups compare the boxed Map of cui codes to concepts with the primitive {@link LongKeyMap}.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@State( Scope.Thread )
+public class CuiCollectionBenchmark {
+
+   // Roughly the number of dictionary hits in a long clinical note
+   @Param( { "200", "2000" } )
+   public int _spanCount;
+
+   private TextSpan[] _textSpans;
+   private long[][] _cuiCodes;
+   private Map<Long, Collection<String>> _boxedConcepts;
+   private LongKeyMap<Collection<String>> _longKeyConcepts;
+
+   @Setup
+   public void setup() {
+      final Random random = new Random( 42 );
+      _textSpans = new TextSpan[ _spanCount ];
+      _cuiCodes = new long[ _spanCount ][];
+      for ( int i = 0; i < _spanCount; i++ ) {
+         // some spans share offsets, as overlapping dictionary hits do
+         final int begin = random.nextInt( _spanCount * 5 );
+         _textSpans[ i ] = new DefaultTextSpan( begin, begin + 1 + random.nextInt( 20 ) );
+         _cuiCodes[ i ] = new long[ 1 + random.nextInt( 3 ) ];
+         for ( int j = 0; j < _cuiCodes[ i ].length; j++ ) {
+            _cuiCodes[ i ][ j ] = random.nextInt( 5000000 );
+         }
+      }
+      _boxedConcepts = new HashMap<>();
+      _longKeyConcepts = new LongKeyMap<>();
+      for ( long[] cuiCodes : _cuiCodes ) {
+         for ( long cuiCode : cuiCodes ) {
+            // not every cui has a concept
+            if ( cuiCode % 3 != 0 ) {
+               final Collection<String> concepts = Collections.singletonList( "C" + cuiCode );
+               _boxedConcepts.put( cuiCode, concepts );
+               _longKeyConcepts.put( cuiCode, concepts );
+            }
+         }
+      }
+   }
+
+   @Benchmark
+   public long hashSetMap() {
+      final CollectionMap<TextSpan, Long, ? extends Collection<Long>> textSpanCuis = new HashSetMap<>();
+      for ( int i = 0; i < _spanCount; i++ ) {
+         for ( long cuiCode : _cuiCodes[ i ] ) {
+            textSpanCuis.placeValue( _textSpans[ i ], cuiCode );
+         }
+      }
+      final Collection<Long> allCuis = new HashSet<>();
+      for ( Collection<Long> cuiCodes : textSpanCuis.getAllCollections() ) {
+         allCuis.addAll( cuiCodes );
+      }
+      long sum = 0;
+      for ( Map.Entry<TextSpan, ? extends Collection<Long>> entry : textSpanCuis ) {
+         for ( Long cuiCode : entry.getValue() ) {
+            if ( allCuis.contains( cuiCode ) ) {
+               sum += cuiCode;
+            }
+         }
+      }
+      return sum;
+   }
+
+   @Benchmark
+   public long longSetMap() {
+      final LongSetMap<TextSpan> textSpanCuis = new LongSetMap<>();
+      for ( int i = 0; i < _spanCount; i++ ) {
+         for ( long cuiCode : _cuiCodes[ i ] ) {
+            textSpanCuis.placeValue( _textSpans[ i ], cuiCode );
+         }
+      }
+      final LongSet allCuis = textSpanCuis.getAllValues();
+      long sum = 0;
+      for ( Map.Entry<TextSpan, LongSet> entry : textSpanCuis ) {
+         final PrimitiveIterator.OfLong cuiCodes = entry.getValue().iterator();
+         while ( cuiCodes.hasNext() ) {
+            final long cuiCode = cuiCodes.nextLong();
+            if ( allCuis.contains( cuiCode ) ) {
+               sum += cuiCode;
+            }
+         }
+      }
+      return sum;
+   }
+
+   @Benchmark
+   public int boxedConceptLookup() {
+      int count = 0;
+      for ( long[] cuiCodes : _cuiCodes ) {
+         for ( long cuiCode : cuiCodes ) {
+            final Collection<String> concepts = _boxedConcepts.get( cuiCode );
+            if ( concepts != null ) {
+               count += concepts.size();
+            }
+         }
+      }
+      return count;
+   }
+
+   @Benchmark
+   public int longKeyConceptLookup() {
+      int count = 0;
+      for ( long[] cuiCodes : _cuiCodes ) {
+         for ( long cuiCode : cuiCodes ) {
+            final Collection<String> concepts = _longKeyConcepts.get( cuiCode );
+            if ( concepts != null ) {
+               count += concepts.size();
+            }
+         }
+      }
+      return count;
+   }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.drugner.fsm.machines.util;
+
+import org.apache.ctakes.core.fsm.token.BaseToken;
+import org.apache.ctakes.core.fsm.token.adapter.TokenConverter;
+import org.apache.ctakes.core.nlp.tokenizer.Tokenizer;
+import org.apache.ctakes.drugner.fsm.machines.elements.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the drug ner finite state machines over a medication list,
+ * run in the same order and with the same override sets as the DrugMentionAnnotator.
+ * <p/>
+ * Every machine runs through a {@link MachineRunner}.  Run against the previous revision to compare with the
+ * hand written execute loops.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@State( Scope.Thread )
+public class MachineRunnerBenchmark {
+
+   static private final String[] DRUGS = { "Lisinopril", "Metoprolol", "Aspirin", "Lasix", "Coumadin", "Insulin",
+                                           "Albuterol", "Prednisone", "Tylenol", "Heparin" };
+   static private final String[] SIGS = { "10 mg p.o. daily", "25 mg tablet by mouth twice a day",
+                                          "81-325 mg q.d.", "1/2 tab b.i.d. x 3 days", "2.5 mg every other day",
+                                          "0.5 ml subcutaneously q6h prn pain", "2 puffs inhaled q.i.d.",
+                                          "increase to 40 mg daily", "stop", "1-2 tablets at bedtime as needed",
+                                          "5000 units iv every 8 hours", "7.5 mg once per week for 2 weeks" };
+
+   // Number of lines in the medication list
+   @Param( { "20", "400" } )
+   public int _lineCount;
+
+   private List<BaseToken> _tokens;
+   private FractionStrengthFSM _fractionFsm;
+   private DecimalStrengthFSM _decimalFsm;
+   private DrugChangeStatusFSM _statusFsm;
+   private RangeStrengthFSM _rangeFsm;
+   private StrengthUnitFSM _strengthUnitFsm;
+   private FormFSM _formFsm;
+   private StrengthFSM _strengthFsm;
+   private DosagesFSM _dosagesFsm;
+   private SuffixStrengthFSM _suffixFsm;
+   private RouteFSM _routeFsm;
+   private FrequencyUnitFSM _frequencyUnitFsm;
+   private FrequencyFSM _frequencyFsm;
+   private DurationFSM _durationFsm;
+
+   @Setup
+   public void setup() throws Exception {
+      final Random random = new Random( 42 );
+      final StringBuilder sb = new StringBuilder();
+      for ( int i = 0; i < _lineCount; i++ ) {
+         sb.append( i + 1 ).append( ". " )
+           .append( DRUGS[ random.nextInt( DRUGS.length ) ] ).append( ' ' )
+           .append( SIGS[ random.nextInt( SIGS.length ) ] ).append( ".\n" );
+      }
+      _tokens = TokenConverter.convertTokens( new Tokenizer().tokenize( sb.toString() ) );
+      _fractionFsm = new FractionStrengthFSM();
+      _decimalFsm = new DecimalStrengthFSM();
+      _statusFsm = new DrugChangeStatusFSM();
+      _rangeFsm = new RangeStrengthFSM();
+      _strengthUnitFsm = new StrengthUnitFSM();
+      _formFsm = new FormFSM();
+      _strengthFsm = new StrengthFSM();
+      _dosagesFsm = new DosagesFSM();
+      _suffixFsm = new SuffixStrengthFSM();
+      _routeFsm = new RouteFSM();
+      _frequencyUnitFsm = new FrequencyUnitFSM();
+      _frequencyFsm = new FrequencyFSM();
+      _durationFsm = new DurationFSM();
+   }
+
+   @Benchmark
+   public int drugFsms() throws Exception {
+      final Set fractionSet = _fractionFsm.execute( _tokens );
+      final Set decimalSet = _decimalFsm.execute( _tokens );
+      final Set statusSet = _statusFsm.execute( _tokens );
+      final Set rangeSet = _rangeFsm.execute( _tokens );
+      final Set strengthUnitSet = _strengthUnitFsm.execute( _tokens, rangeSet );
+      final Set formSet = _formFsm.execute( _tokens, new HashSet() );
+      final Set strengthSet = _strengthFsm.execute( _tokens, strengthUnitSet, fractionSet );
+      final Set dosageSet = _dosagesFsm.execute( _tokens, formSet, strengthUnitSet );
+      final Set suffixSet = _suffixFsm.execute( _tokens, strengthUnitSet );
+      final Set routeSet = _routeFsm.execute( _tokens );
+      final Set frequencyUnitSet = _frequencyUnitFsm.execute( _tokens );
+      final Set frequencySet = _frequencyFsm.execute( _tokens, frequencyUnitSet, rangeSet );
+      final Set durationSet = _durationFsm.execute( _tokens, rangeSet );
+      return decimalSet.size() + statusSet.size() + strengthSet.size() + dosageSet.size() + suffixSet.size()
+             + routeSet.size() + frequencySet.size() + durationSet.size();
+   }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.lvg.ae;
+
+import org.apache.ctakes.typesystem.type.syntax.WordToken;
+import org.apache.ctakes.typesystem.type.textspan.Segment;
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regression benchmark for the {@link LvgAnnotator} over a long discharge summary with many segments.
+ * <p/>
+ * The index benchmarks compare the walk of the whole WordToken index for every segment that the annotator used to do
+ * with the covered iteration that replaced it.  The annotator benchmark runs lvg over the document,
+ * with and without the shared runtime cache.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@State( Scope.Thread )
+public class LvgAnnotatorBenchmark {
+
+   static private final int LINES_PER_SEGMENT = 12;
+   static private final String[] WORDS = { "patient", "admitted", "with", "worsening", "shortness", "of", "breath",
+                                           "chest", "pain", "denies", "fevers", "chills", "was", "given", "aspirin",
+                                           "and", "started", "on", "heparin", "drip", "echocardiogram", "showed",
+                                           "reduced", "ejection", "fraction", "discharged", "home", "in", "stable",
+                                           "condition", "follow", "up", "cardiology", "clinic", "weeks", "the",
+                                           "medications", "were", "reconciled", "tolerating", "diet", "ambulating" };
+
+   // Number of sections in the discharge summary
+   @Param( { "10", "60" } )
+   public int _segmentCount;
+
+   // Size of the shared lvg runtime cache, 0 for no cache
+   @Param( { "0", "100000" } )
+   public int _runtimeCacheSize;
+
+   private JCas _jcas;
+   private AnalysisEngine _engine;
+
+   @Setup
+   public void setup() throws UIMAException, IOException {
+      _jcas = JCasFactory.createJCas();
+      final Random random = new Random( 42 );
+      final StringBuilder sb = new StringBuilder();
+      for ( int i = 0; i < _segmentCount; i++ ) {
+         final int segmentBegin = sb.length();
+         for ( int j = 0; j < LINES_PER_SEGMENT; j++ ) {
+            final int wordCount = 5 + random.nextInt( 15 );
+            for ( int w = 0; w < wordCount; w++ ) {
+               final int begin = sb.length();
+               sb.append( WORDS[ random.nextInt( WORDS.length ) ] );
+               new WordToken( _jcas, begin, sb.length() ).addToIndexes();
+               sb.append( ' ' );
+            }
+            sb.append( '\n' );
+         }
+         final Segment segment = new Segment( _jcas, segmentBegin, sb.length() );
+         segment.setId( "SECTION_" + i );
+         segment.addToIndexes();
+      }
+      _jcas.setDocumentText( sb.toString() );
+      _engine = AnalysisEngineFactory.createEngine( LvgAnnotator.createAnnotatorDescription(),
+            LvgAnnotator.PARAM_USE_SEGMENTS, true,
+            LvgAnnotator.PARAM_RUNTIME_CACHE_SIZE, _runtimeCacheSize );
+   }
+
+   @TearDown
+   public void tearDown() {
+      _engine.destroy();
+   }
+
+   @Benchmark
+   public int segmentIndexScan() {
+      int count = 0;
+      for ( Segment segment : JCasUtil.select( _jcas, Segment.class ) ) {
+         for ( WordToken wordToken : JCasUtil.select( _jcas, WordToken.class ) ) {
+            if ( wordToken.getBegin() >= segment.getBegin() && wordToken.getEnd() <= segment.getEnd() ) {
+               count++;
+            }
+         }
+      }
+      return count;
+   }
+
+   @Benchmark
+   public int segmentCoveredIteration() {
+      int count = 0;
+      for ( Segment segment : JCasUtil.select( _jcas, Segment.class ) ) {
+         count += JCasUtil.selectCovered( _jcas, WordToken.class, segment.getBegin(), segment.getEnd() ).size();
+      }
+      return count;
+   }
+
+   @Benchmark
+   public void lvgAnnotator() throws AnalysisEngineProcessException {
+      _engine.process( _jcas );
+   }
+
+}
@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.ytex.uima.annotators;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ctakes.typesystem.type.refsem.OntologyConcept;
+import org.apache.ctakes.typesystem.type.textsem.EntityMention;
+import org.apache.ctakes.typesystem.type.textspan.Sentence;
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.FSArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Throughput of the {@link NegexAnnotator} over a note with several named
+ * entities in each sentence. Run against the previous revision to compare with
+ * the annotator that ran every rule for every entity.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class NegexAnnotatorBenchmark {
+
+	private static final String[] ENTITIES = { "pneumonia", "fever",
+			"chest pain", "effusion", "mass", "CHF", "cough", "edema" };
+	private static final String[] WORDS = { "patient", "denies", "no",
+			"with", "history", "of", "and", "but", "possible", "rule", "out",
+			"without", "evidence", "for", "was", "seen", "today", "likely",
+			"not", "ruled", "resolved", "free", "negative", "for", "r/o",
+			"the", "a", "mild", "severe", "," };
+
+	// Number of sentences in the note
+	@Param({ "200" })
+	public int sentenceCount;
+
+	// Number of named entities in each sentence
+	@Param({ "1", "8" })
+	public int entitiesPerSentence;
+
+	private String text;
+	private List<int[]> sentenceSpans;
+	private List<int[]> entitySpans;
+	private AnalysisEngine engine;
+	private JCas jCas;
+
+	@Setup
+	public void setup() throws UIMAException {
+		Random random = new Random(42);
+		StringBuilder sb = new StringBuilder();
+		sentenceSpans = new ArrayList<int[]>(sentenceCount);
+		entitySpans = new ArrayList<int[]>(sentenceCount * entitiesPerSentence);
+		for (int i = 0; i < sentenceCount; i++) {
+			int sentenceBegin = sb.length();
+			for (int e = 0; e < entitiesPerSentence; e++) {
+				int wordCount = 1 + random.nextInt(4);
+				for (int w = 0; w < wordCount; w++) {
+					sb.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+				}
+				int entityBegin = sb.length();
+				sb.append(ENTITIES[random.nextInt(ENTITIES.length)]);
+				entitySpans.add(new int[] { entityBegin, sb.length() });
+				sb.append(' ');
+			}
+			sb.append(WORDS[random.nextInt(WORDS.length)]).append('.');
+			sentenceSpans.add(new int[] { sentenceBegin, sb.length() });
+			sb.append('\n');
+		}
+		text = sb.toString();
+		engine = AnalysisEngineFactory.createEngine(NegexAnnotator.class);
+		jCas = JCasFactory.createJCas();
+	}
+
+	@Setup(Level.Invocation)
+	public void resetJCas() {
+		jCas.reset();
+		jCas.setDocumentText(text);
+		for (int[] span : sentenceSpans) {
+			new Sentence(jCas, span[0], span[1]).addToIndexes();
+		}
+		for (int[] span : entitySpans) {
+			EntityMention mention = new EntityMention(jCas, span[0], span[1]);
+			// the annotator only checks entities with concepts
+			FSArray concepts = new FSArray(jCas, 1);
+			concepts.set(0, new OntologyConcept(jCas));
+			mention.setOntologyConceptArr(concepts);
+			mention.addToIndexes();
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		engine.destroy();
+	}
+
+	@Benchmark
+	public void negex() throws AnalysisEngineProcessException {
+		engine.process(jCas);
+	}
+}
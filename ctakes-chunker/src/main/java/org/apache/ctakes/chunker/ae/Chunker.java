@@ -19,14 +19,21 @@
 package org.apache.ctakes.chunker.ae;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import opennlp.tools.chunker.ChunkerME;
 import opennlp.tools.chunker.ChunkerModel;
 // import opennlp.tools.lang.english.TreebankChunker; // no longer part of OpenNLP as of 1.5
 
-import org.apache.ctakes.core.resource.FileLocator;
+import org.apache.ctakes.core.resource.ModelRegistry;
+import org.apache.ctakes.core.util.CoveredAnnotationUtil;
 import org.apache.ctakes.typesystem.type.syntax.BaseToken;
 import org.apache.ctakes.typesystem.type.textspan.Sentence;
 import org.apache.log4j.Logger;
@@ -87,8 +94,35 @@ public class Chunker extends JCasAnnotator_ImplBase {
 	    )
   String chunkerCreatorClassName;
 
+	/**
+	 * Value is "BatchChunk".  This parameter specifies whether the tokens of all sentences are collected in one pass
+	 * over the token index and the sentences are chunked on several threads, each with its own chunker.
+	 * Each annotator has its own pool of up to 8 threads, which is shut down by destroy().
+	 * Chunks are always created on the processing thread.
+	 */
+	public static final String PARAM_BATCH_CHUNK = "BatchChunk";
+	@ConfigurationParameter(
+	    name = PARAM_BATCH_CHUNK,
+	    mandatory = false,
+	    defaultValue = "false",
+	    description = "Collect all sentences in one pass and chunk them on several threads"
+	    )
+  private boolean batchChunk;
+
+	private ChunkerModel chunkerModel;
+
 	private opennlp.tools.chunker.Chunker chunker;
 
+	// chunkers hold state while they chunk, so each pool thread has its own
+	private ThreadLocal<opennlp.tools.chunker.Chunker> threadChunkers;
+
+	// pool used to chunk sentences when BatchChunk is true, otherwise null
+	private ExecutorService chunkExecutor;
+	private int chunkThreadCount;
+
+	// number of chunk tasks per pool thread, to keep the pool busy when sentence lengths vary
+	private static final int TASKS_PER_THREAD = 4;
+
 	ChunkCreator chunkerCreator;
 
 	@Override
@@ -96,9 +130,10 @@ public class Chunker extends JCasAnnotator_ImplBase {
 		super.initialize(uimaContext);
 
     logger.info("Chunker model file: " + chunkerModelPath); 
-		try (InputStream fis = FileLocator.getAsStream(chunkerModelPath)) {
-			ChunkerModel model = new ChunkerModel(fis);
-			chunker = new opennlp.tools.chunker.ChunkerME(model);
+		try {
+			// the model is shared by all chunkers, the chunker is not
+			chunkerModel = ModelRegistry.getInstance().getModel(chunkerModelPath, ChunkerModel.class, ChunkerModel::new);
+			chunker = new ChunkerME(chunkerModel);
 
 		} catch (IOException e) {
 			logger.info("Chunker model: " + chunkerModelPath); 
@@ -113,6 +148,29 @@ public class Chunker extends JCasAnnotator_ImplBase {
       throw new ResourceInitializationException(e);
     }
     chunkerCreator.initialize(uimaContext);
+		if (batchChunk) {
+			threadChunkers = ThreadLocal.withInitial(() -> new ChunkerME(chunkerModel));
+			chunkThreadCount = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+			AtomicInteger threadNumber = new AtomicInteger();
+			chunkExecutor = Executors.newFixedThreadPool(chunkThreadCount, r -> {
+				Thread thread = new Thread(r, "Chunker-" + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+			logger.info("Chunking sentences on " + chunkThreadCount + " threads");
+		}
+	}
+
+	/**
+	 * Shuts down the pool used to chunk sentences in parallel.
+	 */
+	@Override
+	public void destroy() {
+		if (chunkExecutor != null) {
+			chunkExecutor.shutdownNow();
+			chunkExecutor = null;
+		}
+		super.destroy();
 	}
 
 	@Override
@@ -120,6 +178,11 @@ public class Chunker extends JCasAnnotator_ImplBase {
 
 		logger.info(" process(JCas)");
 
+		if (batchChunk) {
+			processBatch(jCas);
+			return;
+		}
+
 		Collection<Sentence> sentences = JCasUtil.select(jCas, Sentence.class);
 		
 		for(Sentence sentence : sentences){
@@ -133,38 +196,114 @@ public class Chunker extends JCasAnnotator_ImplBase {
 
 			String[] chunks = chunker.chunk(words, tags);
 
-			int chunkBegin = 0;
-			String chunkType = "";
-			int chunkEnd;
-
-			// The logic below may seem to be oversimplified. For example, it
-			// does not handle
-			// cases where you might see a O I-NP O. However, such sequences
-			// should never be
-			// generated because they are restricted by
-			// TreebankChunker.validOutcome()
-			// This code was directly modified from TreebankChunker.main()
-			for (int i = 0; i < chunks.length; i++) {
-
-			  if (i > 0 && !chunks[i].startsWith("I-")) { // && !chunks[i - 1].equals("O")) {
-			    chunkEnd = tokens.get(i - 1).getEnd();
-			    chunkerCreator.createChunk(jCas, chunkBegin, chunkEnd, chunkType);
-			  }
-
-			  if (chunks[i].startsWith("B-")) {
-			    chunkBegin = tokens.get(i).getBegin();
-			    chunkType = chunks[i].substring(2);
-			  } else if (chunks[i].equals("O")) { // O found  (her_PRP$ ear_O)
-			    chunkBegin = tokens.get(i).getBegin();
-			    chunkType = chunks[i];
-
-			  }
+			createChunks(jCas, tokens, chunks);
+		}
+	}
+
+	/**
+	 * Collects the tokens of every sentence in one pass, chunks the sentences in parallel
+	 * and then creates the chunks in one sequential pass.
+	 */
+	private void processBatch(JCas jCas) throws AnalysisEngineProcessException {
+		List<List<BaseToken>> sentenceTokens = new ArrayList<>();
+		List<String[][]> sentenceWordsTags = new ArrayList<>();
+		for (List<BaseToken> tokens : CoveredAnnotationUtil.selectCoveredLists(jCas, Sentence.class, BaseToken.class).values()) {
+			String[] words = new String[tokens.size()];
+			String[] tags = new String[tokens.size()];
+			for (int i = 0; i < tokens.size(); i++) {
+				words[i] = tokens.get(i).getCoveredText();
+				tags[i] = tokens.get(i).getPartOfSpeech();
+			}
+			sentenceTokens.add(tokens);
+			sentenceWordsTags.add(new String[][] { words, tags });
+		}
+
+		List<String[]> sentenceChunks = chunk(sentenceWordsTags);
+
+		for (int s = 0; s < sentenceTokens.size(); s++) {
+			createChunks(jCas, sentenceTokens.get(s), sentenceChunks.get(s));
+		}
+	}
+
+	/**
+	 * Chunks the sentences in groups on the pool.
+	 * @param sentenceWordsTags the words and part of speech tags of each sentence
+	 * @return the chunk tags of each sentence, in sentence order
+	 */
+	private List<String[]> chunk(List<String[][]> sentenceWordsTags) throws AnalysisEngineProcessException {
+		if (sentenceWordsTags.size() < 2) {
+			return chunk(sentenceWordsTags, chunker);
+		}
+		int chunkSize = Math.max(1, sentenceWordsTags.size() / (chunkThreadCount * TASKS_PER_THREAD));
+		List<Future<List<String[]>>> futures = new ArrayList<>();
+		for (int start = 0; start < sentenceWordsTags.size(); start += chunkSize) {
+			List<String[][]> part = sentenceWordsTags.subList(start, Math.min(start + chunkSize, sentenceWordsTags.size()));
+			futures.add(chunkExecutor.submit(() -> chunk(part, threadChunkers.get())));
+		}
+		List<String[]> sentenceChunks = new ArrayList<>(sentenceWordsTags.size());
+		try {
+			for (Future<List<String[]>> future : futures) {
+				sentenceChunks.addAll(future.get());
 			}
-			if (chunks.length > 0 && !chunks[chunks.length - 1].equals("O")) {
-			  chunkEnd = tokens.get(chunks.length - 1).getEnd();
-			  chunkerCreator.createChunk(jCas, chunkBegin, chunkEnd, chunkType);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AnalysisEngineProcessException(e);
+		} catch (ExecutionException e) {
+			throw new AnalysisEngineProcessException(e.getCause());
+		} finally {
+			for (Future<?> future : futures) {
+				future.cancel(true);
 			}
 		}
+		return sentenceChunks;
+	}
+
+	private static List<String[]> chunk(List<String[][]> sentenceWordsTags,
+			opennlp.tools.chunker.Chunker sentenceChunker) {
+		List<String[]> sentenceChunks = new ArrayList<>(sentenceWordsTags.size());
+		for (String[][] wordsTags : sentenceWordsTags) {
+			sentenceChunks.add(sentenceChunker.chunk(wordsTags[0], wordsTags[1]));
+		}
+		return sentenceChunks;
+	}
+
+	/**
+	 * Creates chunk annotations for the chunk tags of a sentence.
+	 * @param tokens the tokens of the sentence
+	 * @param chunks the chunk tag of each token
+	 */
+	private void createChunks(JCas jCas, List<BaseToken> tokens, String[] chunks) throws AnalysisEngineProcessException {
+		int chunkBegin = 0;
+		String chunkType = "";
+		int chunkEnd;
+
+		// The logic below may seem to be oversimplified. For example, it
+		// does not handle
+		// cases where you might see a O I-NP O. However, such sequences
+		// should never be
+		// generated because they are restricted by
+		// TreebankChunker.validOutcome()
+		// This code was directly modified from TreebankChunker.main()
+		for (int i = 0; i < chunks.length; i++) {
+
+		  if (i > 0 && !chunks[i].startsWith("I-")) { // && !chunks[i - 1].equals("O")) {
+		    chunkEnd = tokens.get(i - 1).getEnd();
+		    chunkerCreator.createChunk(jCas, chunkBegin, chunkEnd, chunkType);
+		  }
+
+		  if (chunks[i].startsWith("B-")) {
+		    chunkBegin = tokens.get(i).getBegin();
+		    chunkType = chunks[i].substring(2);
+		  } else if (chunks[i].equals("O")) { // O found  (her_PRP$ ear_O)
+		    chunkBegin = tokens.get(i).getBegin();
+		    chunkType = chunks[i];
+
+		  }
+		}
+		if (chunks.length > 0 && !chunks[chunks.length - 1].equals("O")) {
+		  chunkEnd = tokens.get(chunks.length - 1).getEnd();
+		  chunkerCreator.createChunk(jCas, chunkBegin, chunkEnd, chunkType);
+		}
 	}
 	
 	public static AnalysisEngineDescription createAnnotatorDescription() throws ResourceInitializationException{
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.chunker;
+
+import org.apache.ctakes.chunker.ae.Chunker;
+import org.apache.ctakes.postagger.POSTagger;
+import org.apache.ctakes.typesystem.type.syntax.BaseToken;
+import org.apache.ctakes.typesystem.type.syntax.Chunk;
+import org.apache.ctakes.typesystem.type.syntax.NewlineToken;
+import org.apache.ctakes.typesystem.type.syntax.WordToken;
+import org.apache.ctakes.typesystem.type.textspan.Sentence;
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Checks that the batch paths of the {@link POSTagger} and {@link Chunker} give the same parts of speech and
+ * chunks as the sentence by sentence paths.
+ */
+final public class BatchTagChunkTest {
+
+   static private final String[] WORDS = { "Patient", "is", "a", "67-year-old", "male", "with", "history", "of",
+                                           "CHF", "and", "type", "2", "diabetes", "mellitus", "presenting", "with",
+                                           "dyspnea", "for", "three", "days", ".", "Blood", "pressure", "was",
+                                           "elevated", "and", "he", "was", "started", "on", "furosemide", "40",
+                                           "mg", "IV", "twice", "daily", ",", "with", "follow-up", "in", "weeks" };
+
+   static private AnalysisEngine _tagger;
+   static private AnalysisEngine _batchTagger;
+   static private AnalysisEngine _chunker;
+   static private AnalysisEngine _batchChunker;
+
+   @BeforeClass
+   static public void createEngines() throws UIMAException {
+      _tagger = AnalysisEngineFactory.createEngine( POSTagger.class );
+      _batchTagger = AnalysisEngineFactory.createEngine( POSTagger.class, POSTagger.PARAM_BATCH_TAG, true );
+      _chunker = AnalysisEngineFactory.createEngine( Chunker.class );
+      _batchChunker = AnalysisEngineFactory.createEngine( Chunker.class, Chunker.PARAM_BATCH_CHUNK, true );
+   }
+
+   @AfterClass
+   static public void destroyEngines() {
+      _tagger.destroy();
+      _batchTagger.destroy();
+      _chunker.destroy();
+      _batchChunker.destroy();
+   }
+
+   @Test
+   public void testBatchMatchesSentences() throws UIMAException {
+      final Random random = new Random( 17 );
+      for ( int sentenceCount : new int[] { 1, 3, 200 } ) {
+         final String text = createText( random, sentenceCount );
+         final JCas sentenceJCas = createJCas( text );
+         _tagger.process( sentenceJCas );
+         _chunker.process( sentenceJCas );
+         final JCas batchJCas = createJCas( text );
+         _batchTagger.process( batchJCas );
+         _batchChunker.process( batchJCas );
+         final List<String> sentenceTags = getTags( sentenceJCas );
+         assertFalse( getChunks( sentenceJCas ).isEmpty() );
+         assertEquals( sentenceTags, getTags( batchJCas ) );
+         assertEquals( getChunks( sentenceJCas ), getChunks( batchJCas ) );
+      }
+   }
+
+   /**
+    * @return sentences of random words, one per line
+    */
+   static private String createText( final Random random, final int sentenceCount ) {
+      final StringBuilder sb = new StringBuilder();
+      for ( int i = 0; i < sentenceCount; i++ ) {
+         final int wordCount = 1 + random.nextInt( 30 );
+         for ( int w = 0; w < wordCount; w++ ) {
+            if ( w > 0 ) {
+               sb.append( ' ' );
+            }
+            sb.append( WORDS[ random.nextInt( WORDS.length ) ] );
+         }
+         sb.append( '\n' );
+      }
+      return sb.toString();
+   }
+
+   /**
+    * @return a jcas with a word token for each word, a newline token for each line end and a sentence for each line
+    */
+   static private JCas createJCas( final String text ) throws UIMAException {
+      final JCas jCas = JCasFactory.createJCas();
+      jCas.setDocumentText( text );
+      int lineBegin = 0;
+      int wordBegin = 0;
+      for ( int i = 0; i < text.length(); i++ ) {
+         final char c = text.charAt( i );
+         if ( c != ' ' && c != '\n' ) {
+            continue;
+         }
+         if ( i > wordBegin ) {
+            new WordToken( jCas, wordBegin, i ).addToIndexes();
+         }
+         wordBegin = i + 1;
+         if ( c == '\n' ) {
+            new Sentence( jCas, lineBegin, i ).addToIndexes();
+            new NewlineToken( jCas, i, i + 1 ).addToIndexes();
+            lineBegin = i + 1;
+         }
+      }
+      return jCas;
+   }
+
+   static private List<String> getTags( final JCas jCas ) {
+      final List<String> tags = new ArrayList<>();
+      for ( BaseToken token : JCasUtil.select( jCas, BaseToken.class ) ) {
+         tags.add( token.getBegin() + " " + token.getEnd() + " " + token.getPartOfSpeech() );
+      }
+      return tags;
+   }
+
+   static private List<String> getChunks( final JCas jCas ) {
+      final List<String> chunks = new ArrayList<>();
+      for ( Chunk chunk : JCasUtil.select( jCas, Chunk.class ) ) {
+         chunks.add( chunk.getBegin() + " " + chunk.getEnd() + " " + chunk.getChunkType() );
+      }
+      return chunks;
+   }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.clinicalpipeline.runtime;
+
+import org.apache.ctakes.assertion.medfacts.cleartk.*;
+import org.apache.ctakes.clinicalpipeline.ClinicalPipelineFactory;
+import org.apache.ctakes.dependency.parser.ae.ClearNLPDependencyParserAE;
+import org.apache.ctakes.typesystem.type.constants.CONST;
+import org.apache.ctakes.typesystem.type.textsem.DiseaseDisorderMention;
+import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
+import org.apache.ctakes.typesystem.type.textsem.MedicationMention;
+import org.apache.ctakes.typesystem.type.textsem.SignSymptomMention;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.AggregateBuilder;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.pipeline.SimplePipeline;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Runs the six cleartk assertion attribute engines and the {@link CombinedAssertionCleartkAnalysisEngine}
+ * on the same cas and checks that they set the same attributes on every mention.
+ */
+final public class CombinedAssertionEngineTest {
+
+   static final String SAMPLE_NOTE = "History of diabetes and hypertension."
+                                     + " Mother had breast cancer."
+                                     + " Sister with multiple sclerosis."
+                                     + " Recommend continuing use of aspirin, oxycodone, and coumadin."
+                                     + " Patient denies smoking and chest pain."
+                                     + " There is no sign of multiple sclerosis."
+                                     + " Mass is suspicious for breast cancer."
+                                     + " Cannot exclude stenosis."
+                                     + " Will return if pain continues.";
+
+   static private final String[] DISORDERS = { "diabetes", "hypertension", "breast cancer", "multiple sclerosis",
+                                               "stenosis" };
+   static private final String[] MEDICATIONS = { "aspirin", "oxycodone", "coumadin" };
+   static private final String[] SYMPTOMS = { "smoking", "chest pain", "pain" };
+
+   /**
+    * @return cas with sentences, tokens, parts of speech, dependency parses and the mentions of the sample note,
+    * as they are before assertion
+    */
+   static JCas createSampleCas() throws Exception {
+      final JCas jCas = JCasFactory.createJCas();
+      jCas.setDocumentText( SAMPLE_NOTE );
+      final AggregateBuilder builder = new AggregateBuilder();
+      builder.add( ClinicalPipelineFactory.getTokenProcessingPipeline() );
+      builder.add( ClearNLPDependencyParserAE.createAnnotatorDescription() );
+      SimplePipeline.runPipeline( jCas, builder.createAggregateDescription() );
+      for ( String disorder : DISORDERS ) {
+         for ( int begin = SAMPLE_NOTE.indexOf( disorder ); begin >= 0;
+               begin = SAMPLE_NOTE.indexOf( disorder, begin + 1 ) ) {
+            final IdentifiedAnnotation mention = new DiseaseDisorderMention( jCas, begin, begin + disorder.length() );
+            mention.setTypeID( CONST.NE_TYPE_ID_DISORDER );
+            mention.addToIndexes();
+         }
+      }
+      for ( String medication : MEDICATIONS ) {
+         final int begin = SAMPLE_NOTE.indexOf( medication );
+         final IdentifiedAnnotation mention = new MedicationMention( jCas, begin, begin + medication.length() );
+         mention.setTypeID( CONST.NE_TYPE_ID_DRUG );
+         mention.addToIndexes();
+      }
+      for ( String symptom : SYMPTOMS ) {
+         for ( int begin = SAMPLE_NOTE.indexOf( symptom ); begin >= 0;
+               begin = SAMPLE_NOTE.indexOf( symptom, begin + 1 ) ) {
+            final IdentifiedAnnotation mention = new SignSymptomMention( jCas, begin, begin + symptom.length() );
+            mention.setTypeID( CONST.NE_TYPE_ID_FINDING );
+            mention.addToIndexes();
+         }
+      }
+      return jCas;
+   }
+
+   /**
+    * @return engine that runs the six attribute engines one after another, in the order of the fast pipeline
+    */
+   static AnalysisEngine createSeparateEngine() throws Exception {
+      final AggregateBuilder builder = new AggregateBuilder();
+      builder.add( PolarityCleartkAnalysisEngine.createAnnotatorDescription() );
+      builder.add( UncertaintyCleartkAnalysisEngine.createAnnotatorDescription() );
+      builder.add( HistoryCleartkAnalysisEngine.createAnnotatorDescription() );
+      builder.add( ConditionalCleartkAnalysisEngine.createAnnotatorDescription() );
+      builder.add( GenericCleartkAnalysisEngine.createAnnotatorDescription() );
+      builder.add( SubjectCleartkAnalysisEngine.createAnnotatorDescription() );
+      return AnalysisEngineFactory.createEngine( builder.createAggregateDescription() );
+   }
+
+   /**
+    * @return polarity, uncertainty, conditional, generic, subject and historyOf of every mention, in index order
+    */
+   static List<String> getAttributes( final JCas jCas ) {
+      final List<String> attributes = new ArrayList<>();
+      for ( IdentifiedAnnotation mention : JCasUtil.select( jCas, IdentifiedAnnotation.class ) ) {
+         attributes.add( mention.getCoveredText() + "@" + mention.getBegin()
+                         + " polarity=" + mention.getPolarity()
+                         + " uncertainty=" + mention.getUncertainty()
+                         + " conditional=" + mention.getConditional()
+                         + " generic=" + mention.getGeneric()
+                         + " subject=" + mention.getSubject()
+                         + " historyOf=" + mention.getHistoryOf() );
+      }
+      return attributes;
+   }
+
+   /**
+    * Copies the attributes of the mentions in one cas to the same mentions in another cas with the same text.
+    */
+   static void copyAttributes( final JCas source, final JCas target ) {
+      final List<IdentifiedAnnotation> sourceMentions
+            = new ArrayList<>( JCasUtil.select( source, IdentifiedAnnotation.class ) );
+      int i = 0;
+      for ( IdentifiedAnnotation mention : JCasUtil.select( target, IdentifiedAnnotation.class ) ) {
+         final IdentifiedAnnotation sourceMention = sourceMentions.get( i );
+         mention.setPolarity( sourceMention.getPolarity() );
+         mention.setUncertainty( sourceMention.getUncertainty() );
+         mention.setConditional( sourceMention.getConditional() );
+         mention.setGeneric( sourceMention.getGeneric() );
+         mention.setSubject( sourceMention.getSubject() );
+         mention.setHistoryOf( sourceMention.getHistoryOf() );
+         i++;
+      }
+   }
+
+   @Test
+   public void testSameAttributes() throws Exception {
+      final JCas jCas = createSampleCas();
+      // keeps the attributes as they are before assertion
+      final JCas initialCas = createSampleCas();
+      assertFalse( JCasUtil.select( jCas, IdentifiedAnnotation.class ).isEmpty() );
+
+      final AnalysisEngine separateEngine = createSeparateEngine();
+      separateEngine.process( jCas );
+      separateEngine.destroy();
+      final List<String> separateAttributes = getAttributes( jCas );
+      assertFalse( separateAttributes.equals( getAttributes( initialCas ) ) );
+
+      copyAttributes( initialCas, jCas );
+      final AnalysisEngine combinedEngine
+            = AnalysisEngineFactory.createEngine( CombinedAssertionCleartkAnalysisEngine.createAnnotatorDescription() );
+      combinedEngine.process( jCas );
+      combinedEngine.destroy();
+      assertEquals( separateAttributes, getAttributes( jCas ) );
+   }
+
+}
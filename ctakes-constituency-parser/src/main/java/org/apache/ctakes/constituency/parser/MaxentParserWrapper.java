@@ -54,6 +54,13 @@ public class MaxentParserWrapper implements ParserWrapper {
 		}
 	}
 
+	/**
+	 * @param model parser model, which may be shared by several wrappers
+	 */
+	public MaxentParserWrapper(ParserModel model){
+		parser = new Parser(model, AbstractBottomUpParser.defaultBeamSize, AbstractBottomUpParser.defaultAdvancePercentage);
+	}
+
 	@Override
 	public String getParseString(FSIterator tokens) {
 		return parseStr;
@@ -18,11 +18,13 @@
  */
 package org.apache.ctakes.constituency.parser.ae;
 
-import java.io.FileNotFoundException;
+import java.io.IOException;
+
+import opennlp.tools.parser.ParserModel;
 
 import org.apache.ctakes.constituency.parser.MaxentParserWrapper;
 import org.apache.ctakes.constituency.parser.ParserWrapper;
-import org.apache.ctakes.core.resource.FileLocator;
+import org.apache.ctakes.core.resource.ModelRegistry;
 import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
@@ -54,8 +56,10 @@ public class ConstituencyParser extends JCasAnnotator_ImplBase {
 		super.initialize(aContext);
 		try {
 			logger.info("Initializing parser...");		
-			parser = new MaxentParserWrapper(FileLocator.getAsStream(modelFilename));
-		} catch (FileNotFoundException e) {
+			// the model is shared by all parsers, the parser is not
+			parser = new MaxentParserWrapper(
+					ModelRegistry.getInstance().getModel(modelFilename, ParserModel.class, ParserModel::new));
+		} catch (IOException e) {
 			e.printStackTrace();
 			logger.error("Error reading parser model file/directory: " + e.getMessage());
 			throw new ResourceInitializationException(e);
@@ -2,8 +2,9 @@ package org.apache.ctakes.core.ae;
 
 
 import org.apache.ctakes.core.util.Pair;
+import org.apache.ctakes.core.util.regex.MultiPatternFinder;
+import org.apache.ctakes.core.util.regex.RegexExecutor;
 import org.apache.ctakes.core.util.regex.RegexSpanFinder;
-import org.apache.ctakes.core.util.regex.TimeoutMatcher;
 import org.apache.ctakes.typesystem.type.textspan.Segment;
 import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
@@ -13,7 +14,6 @@ import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ResourceInitializationException;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -34,7 +34,7 @@ abstract public class RegexSectionizer extends JCasAnnotator_ImplBase {
    static public final String DIVIDER_LINE_NAME = "DIVIDER_LINE";
    static private final Pattern DIVIDER_LINE_PATTERN = Pattern.compile( "^[_\\-=]{4,}\\r?\\n" );
 
-   private enum TagType {
+   enum TagType {
       HEADER, FOOTER
    }
 
@@ -73,6 +73,10 @@ abstract public class RegexSectionizer extends JCasAnnotator_ImplBase {
          __typeName = typeName;
          __tagType = tagType;
       }
+
+      String getTypeName() {
+         return __typeName;
+      }
    }
 
    /**
@@ -88,16 +92,32 @@ abstract public class RegexSectionizer extends JCasAnnotator_ImplBase {
 
 
    // ugly, and I wouldn't normally do this, but ...
-   static private final Map<String, SectionType> _sectionTypes = new ConcurrentHashMap<>();
+   // kept in descriptor order so that the winner of overlapping tags does not change between runs
+   static private final Map<String, SectionType> _sectionTypes = Collections.synchronizedMap( new LinkedHashMap<>() );
+
+   // finders for all header and footer patterns, created when first needed after section types change
+   static private volatile MultiPatternFinder _headerFinder;
+   static private volatile MultiPatternFinder _footerFinder;
 
    static protected void addSectionType( final SectionType sectionType ) {
       _sectionTypes.put( sectionType.__name, sectionType );
+      _headerFinder = null;
+      _footerFinder = null;
    }
 
    static public Map<String, SectionType> getSectionTypes() {
       return Collections.unmodifiableMap( _sectionTypes );
    }
 
+   /**
+    * @return a snapshot of the section types in the order that they were added
+    */
+   static private List<SectionType> getOrderedSectionTypes() {
+      synchronized ( _sectionTypes ) {
+         return new ArrayList<>( _sectionTypes.values() );
+      }
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -142,15 +162,18 @@ abstract public class RegexSectionizer extends JCasAnnotator_ImplBase {
     * @return section tags mapped to index pairs
     */
    static private Map<Pair<Integer>, SectionTag> findHeaderTags( final String docText ) {
-      final Map<Pair<Integer>, SectionTag> headerTags = new HashMap<>();
-      for ( SectionType sectionType : _sectionTypes.values() ) {
-         if ( sectionType.__headerPattern == null ) {
-            continue;
+      final Map<Pattern, String> headerPatterns = new LinkedHashMap<>();
+      for ( SectionType sectionType : getOrderedSectionTypes() ) {
+         if ( sectionType.__headerPattern != null ) {
+            headerPatterns.put( sectionType.__headerPattern, sectionType.__name );
          }
-         headerTags
-               .putAll( findSectionTags( docText, sectionType.__name, sectionType.__headerPattern, TagType.HEADER ) );
       }
-      return headerTags;
+      MultiPatternFinder finder = _headerFinder;
+      if ( finder == null || finder.getPatterns().size() != headerPatterns.size() ) {
+         finder = new MultiPatternFinder( "Section Headers", headerPatterns.keySet() );
+         _headerFinder = finder;
+      }
+      return findSectionTags( docText, finder, headerPatterns, TagType.HEADER );
    }
 
    /**
@@ -160,53 +183,76 @@ abstract public class RegexSectionizer extends JCasAnnotator_ImplBase {
     * @return section tags mapped to index pairs
     */
    static private Map<Pair<Integer>, SectionTag> findFooterTags( final String docText ) {
-      final Map<Pair<Integer>, SectionTag> footerTags = new HashMap<>();
-      for ( SectionType sectionType : _sectionTypes.values() ) {
-         if ( sectionType.__footerPattern == null ) {
-            continue;
+      final Map<Pattern, String> footerPatterns = new LinkedHashMap<>();
+      for ( SectionType sectionType : getOrderedSectionTypes() ) {
+         if ( sectionType.__footerPattern != null ) {
+            footerPatterns.put( sectionType.__footerPattern, sectionType.__name );
          }
-         footerTags
-               .putAll( findSectionTags( docText, sectionType.__name, sectionType.__footerPattern, TagType.FOOTER ) );
       }
-      return footerTags;
+      MultiPatternFinder finder = _footerFinder;
+      if ( finder == null || finder.getPatterns().size() != footerPatterns.size() ) {
+         finder = new MultiPatternFinder( "Section Footers", footerPatterns.keySet() );
+         _footerFinder = finder;
+      }
+      return findSectionTags( docText, finder, footerPatterns, TagType.FOOTER );
    }
 
    /**
-    * @param docText    -
-    * @param typeName   section type name
-    * @param tagPattern regex pattern for section type
-    * @param tagType    header or footer
+    * All patterns are found in a single pass over the text.
+    * When the patterns of more than one section type match the same span, the section type whose pattern
+    * comes last in the type patterns wins.  This is the same as adding the tags of each type in turn.
+    *
+    * @param docText      -
+    * @param finder       multi-pattern finder for the type patterns
+    * @param typePatterns regex patterns for section types in descriptor order, mapped to the section type names
+    * @param tagType      header or footer
     * @return section tags mapped to index pairs
     */
    static Map<Pair<Integer>, SectionTag> findSectionTags( final String docText,
-                                                          final String typeName,
-                                                          final Pattern tagPattern,
+                                                          final MultiPatternFinder finder,
+                                                          final Map<Pattern, String> typePatterns,
                                                           final TagType tagType ) {
       final Map<Pair<Integer>, SectionTag> sectionTags = new HashMap<>();
-      try ( TimeoutMatcher finder = new TimeoutMatcher( tagPattern, docText ) ) {
-         Matcher tagMatcher = finder.nextMatch();
-         while ( tagMatcher != null ) {
-            String name;
-            // the start tag of this tag is the start of the current match
-            // the end tag of this tag is the end of the current match, exclusive
-            final Pair<Integer> tagBounds = new Pair<>( tagMatcher.start(), tagMatcher.end() );
-            try {
-               name = tagMatcher.group( SECTION_NAME_EX );
-               if ( name == null || name.isEmpty() ) {
-                  name = typeName;
-               }
-            } catch ( IllegalArgumentException iaE ) {
-               name = typeName;
-            }
-            sectionTags.put( tagBounds, new SectionTag( name, typeName, tagType ) );
-            tagMatcher = finder.nextMatch();
+      final Map<Pattern, List<Map.Entry<Pair<Integer>, SectionTag>>> patternTags
+            = RegexExecutor.getInstance().findAll( finder, docText,
+            RegexExecutor.DEFAULT_TIMEOUT_MILLIS,
+            m -> createSectionTag( m, typePatterns.get( m.pattern() ), tagType ) );
+      for ( Pattern pattern : typePatterns.keySet() ) {
+         final List<Map.Entry<Pair<Integer>, SectionTag>> tags = patternTags.get( pattern );
+         if ( tags == null ) {
+            continue;
+         }
+         for ( Map.Entry<Pair<Integer>, SectionTag> tag : tags ) {
+            sectionTags.put( tag.getKey(), tag.getValue() );
          }
-      } catch ( IllegalArgumentException iaE ) {
-         LOGGER.error( iaE.getMessage() );
       }
       return sectionTags;
    }
 
+   /**
+    * @param tagMatcher matcher in its found state
+    * @param typeName   section type name
+    * @param tagType    header or footer
+    * @return section tag mapped to its index pair
+    */
+   static private Map.Entry<Pair<Integer>, SectionTag> createSectionTag( final Matcher tagMatcher,
+                                                                         final String typeName,
+                                                                         final TagType tagType ) {
+      String name;
+      // the start tag of this tag is the start of the current match
+      // the end tag of this tag is the end of the current match, exclusive
+      final Pair<Integer> tagBounds = new Pair<>( tagMatcher.start(), tagMatcher.end() );
+      try {
+         name = tagMatcher.group( SECTION_NAME_EX );
+         if ( name == null || name.isEmpty() ) {
+            name = typeName;
+         }
+      } catch ( IllegalArgumentException iaE ) {
+         name = typeName;
+      }
+      return new AbstractMap.SimpleImmutableEntry<>( tagBounds, new SectionTag( name, typeName, tagType ) );
+   }
+
    /**
     * All tags are treated equally as segment bounds, whether header or footer
     *
@@ -23,7 +23,7 @@ import opennlp.tools.sentdetect.*;
 import opennlp.tools.util.ObjectStream;
 import opennlp.tools.util.PlainTextByLineStream;
 import opennlp.tools.util.TrainingParameters;
-import org.apache.ctakes.core.resource.FileLocator;
+import org.apache.ctakes.core.resource.ModelRegistry;
 import org.apache.ctakes.core.sentence.EndOfSentenceScannerImpl;
 import org.apache.ctakes.core.sentence.SentenceDetectorCtakes;
 import org.apache.ctakes.core.sentence.SentenceSpan;
@@ -87,9 +87,10 @@ public class SentenceDetector extends JCasAnnotator_ImplBase {
   public void initialize(UimaContext aContext)
 			throws ResourceInitializationException {
 		super.initialize(aContext);
-		try (InputStream is = FileLocator.getAsStream(sdModelPath)){
+		try {
 		  logger.info("Sentence detector model file: " + sdModelPath);
-		  sdmodel = new SentenceModel(is);
+		  // the model is shared by all sentence detectors, the detector is not
+		  sdmodel = ModelRegistry.getInstance().getModel(sdModelPath, SentenceModel.class, SentenceModel::new);
 		  EndOfSentenceScannerImpl eoss = new EndOfSentenceScannerImpl();
 		  DefaultSDContextGenerator cg = new DefaultSDContextGenerator(eoss.getEndOfSentenceCharacters());
 		  sentenceDetector = new SentenceDetectorCtakes(
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.ae;
+
+import org.apache.ctakes.core.pipeline.AnnotatorStatistics;
+import org.apache.ctakes.core.util.DocumentIDAnnotationUtil;
+import org.apache.log4j.Logger;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.OperationalProperties;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures the wall time, cpu time and allocated bytes of an annotator for each document,
+ * recording them in the {@link AnnotatorStatistics}.
+ * <p>
+ * Like the {@link StartFinishLogger} a start timer is placed before the annotator and a finish timer after it.
+ * Cpu time and allocation are those of the processing thread, as reported by the thread mx bean,
+ * so they do not include work that the annotator hands to other threads.
+ * Measures that the jvm does not support are recorded as -1.
+ * </p>
+ */
+public class StartFinishTimer extends JCasAnnotator_ImplBase {
+
+   static private final Logger LOGGER = Logger.getLogger( "StartFinishTimer" );
+
+   static private final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+   static private final com.sun.management.ThreadMXBean ALLOCATION_BEAN = getAllocationBean();
+   static private final boolean CPU_SUPPORTED = isCpuSupported();
+
+   // start measures of each annotator being timed on this thread : wall nanos, cpu nanos, allocated bytes
+   static private final ThreadLocal<Map<String, long[]>> START_MEASURES = ThreadLocal.withInitial( HashMap::new );
+
+   public static final String PARAM_ANNOTATOR_NAME = "ANNOTATOR_NAME";
+   @ConfigurationParameter(
+         name = PARAM_ANNOTATOR_NAME,
+         mandatory = true,
+         description = "provides the name of the Annotator Engine for which timing should be done."
+   )
+   private String _annotatorName;
+
+   public static final String PARAM_IS_START = "IS_START";
+   @ConfigurationParameter(
+         name = PARAM_IS_START,
+         mandatory = false,
+         description = "indicates whether this should start timing."
+   )
+   private Boolean _isStart;
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void process( final JCas jcas ) throws AnalysisEngineProcessException {
+      if ( _isStart ) {
+         START_MEASURES.get().put( _annotatorName, new long[]{ System.nanoTime(), getCpuNanos(), getAllocatedBytes() } );
+         return;
+      }
+      final long[] start = START_MEASURES.get().remove( _annotatorName );
+      if ( start == null ) {
+         LOGGER.warn( "No start time for " + _annotatorName );
+         return;
+      }
+      final long wallNanos = System.nanoTime() - start[ 0 ];
+      final long cpuNanos = start[ 1 ] < 0 ? -1 : getCpuNanos() - start[ 1 ];
+      final long allocatedBytes = start[ 2 ] < 0 ? -1 : getAllocatedBytes() - start[ 2 ];
+      AnnotatorStatistics.getInstance().record( _annotatorName, DocumentIDAnnotationUtil.getDocumentID( jcas ),
+            wallNanos, cpuNanos, allocatedBytes );
+   }
+
+   static private com.sun.management.ThreadMXBean getAllocationBean() {
+      if ( !(THREAD_BEAN instanceof com.sun.management.ThreadMXBean) ) {
+         return null;
+      }
+      final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean)THREAD_BEAN;
+      try {
+         if ( allocationBean.isThreadAllocatedMemorySupported() ) {
+            allocationBean.setThreadAllocatedMemoryEnabled( true );
+            return allocationBean;
+         }
+      } catch ( UnsupportedOperationException | SecurityException multE ) {
+         LOGGER.warn( "Cannot measure allocated bytes : " + multE.getMessage() );
+      }
+      return null;
+   }
+
+   static private boolean isCpuSupported() {
+      try {
+         if ( THREAD_BEAN.isCurrentThreadCpuTimeSupported() ) {
+            THREAD_BEAN.setThreadCpuTimeEnabled( true );
+            return true;
+         }
+      } catch ( UnsupportedOperationException | SecurityException multE ) {
+         LOGGER.warn( "Cannot measure cpu time : " + multE.getMessage() );
+      }
+      return false;
+   }
+
+   static private long getCpuNanos() {
+      return CPU_SUPPORTED ? THREAD_BEAN.getCurrentThreadCpuTime() : -1;
+   }
+
+   static private long getAllocatedBytes() {
+      return ALLOCATION_BEAN == null ? -1 : ALLOCATION_BEAN.getThreadAllocatedBytes( Thread.currentThread().getId() );
+   }
+
+   /**
+    * @param annotatorName name for the timing
+    * @param isStart       true to return an Engine that starts timing, false to return an Engine that finishes timing
+    * @return Simple Start/Finish Timer Engine
+    * @throws ResourceInitializationException if UimaFit has a problem
+    */
+   public static AnalysisEngineDescription createDescription( final String annotatorName, final boolean isStart )
+         throws ResourceInitializationException {
+      return AnalysisEngineFactory.createEngineDescription( StartFinishTimer.class,
+            PARAM_ANNOTATOR_NAME, annotatorName,
+            PARAM_IS_START, isStart );
+   }
+
+   /**
+    * @param mainDescription main component description
+    * @param annotatorName   name for the timing, unique within the pipeline
+    * @return Description that is wrapped with timer AEs that measure the process of the main component.
+    * The description has the name and deployment properties of the main component.
+    * @throws ResourceInitializationException if UimaFit has a problem
+    */
+   public static AnalysisEngineDescription createTimedDescription( final AnalysisEngineDescription mainDescription,
+                                                                   final String annotatorName )
+         throws ResourceInitializationException {
+      final AnalysisEngineDescription description = AnalysisEngineFactory.createEngineDescription(
+            createDescription( annotatorName, true ),
+            mainDescription,
+            createDescription( annotatorName, false ) );
+      description.getAnalysisEngineMetaData().setName( annotatorName );
+      final OperationalProperties mainProperties
+            = mainDescription.getAnalysisEngineMetaData().getOperationalProperties();
+      final OperationalProperties properties = description.getAnalysisEngineMetaData().getOperationalProperties();
+      if ( mainProperties != null && properties != null ) {
+         properties.setMultipleDeploymentAllowed( mainProperties.isMultipleDeploymentAllowed() );
+      }
+      return description;
+   }
+
+}
@@ -18,13 +18,20 @@
  */
 package org.apache.ctakes.core.ae;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.ctakes.core.nlp.tokenizer.TokenizerPTB;
+import org.apache.ctakes.core.nlp.tokenizer.TokenizerPTB.TokenSpan;
 import org.apache.ctakes.typesystem.type.syntax.BaseToken;
 import org.apache.ctakes.typesystem.type.syntax.NewlineToken;
 import org.apache.ctakes.typesystem.type.textspan.Segment;
@@ -33,7 +40,9 @@ import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.FSIterator;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
@@ -63,8 +72,29 @@ public class TokenizerAnnotatorPTB extends JCasAnnotator_ImplBase
   private String[] skipSegmentsArray;
   private Set<String> skipSegmentsSet;
 
+	/**
+	 * Value is "ParallelTokenize".  This parameter specifies whether the sentences of a document are tokenized
+	 * on several threads.  Each annotator has its own pool of up to 8 threads, which is shut down by destroy().
+	 * Tokens are always added to the CAS on the processing thread.
+	 */
+	public static final String PARAM_PARALLEL_TOKENIZE = "ParallelTokenize";
+  @ConfigurationParameter(
+      name = PARAM_PARALLEL_TOKENIZE,
+      mandatory = false,
+      defaultValue = "false",
+      description = "Tokenize the sentences of a document on several threads"
+      )
+  private boolean parallelTokenize;
+
 	private TokenizerPTB tokenizer;
 
+	// pool used to tokenize sentences when ParallelTokenize is true, otherwise null
+	private ExecutorService tokenizeExecutor;
+	private int tokenizeThreadCount;
+
+	// number of tokenize tasks per pool thread, to keep the pool busy when sentence lengths vary
+	private static final int TASKS_PER_THREAD = 4;
+
 	private int tokenCount = 0;
 
 	@Override
@@ -76,10 +106,35 @@ public class TokenizerAnnotatorPTB extends JCasAnnotator_ImplBase
     if(skipSegmentsArray != null){
       Collections.addAll(skipSegmentsSet, skipSegmentsArray);
     }
+		if (parallelTokenize) {
+			tokenizeThreadCount = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+			AtomicInteger threadNumber = new AtomicInteger();
+			tokenizeExecutor = Executors.newFixedThreadPool(tokenizeThreadCount, r -> {
+				Thread thread = new Thread(r, "TokenizerAnnotatorPTB-" + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+			logger.info("Tokenizing sentences on " + tokenizeThreadCount + " threads");
+		}
+	}
+
+	/**
+	 * Shuts down the pool used to tokenize sentences in parallel.
+	 */
+	@Override
+	public void destroy() {
+		if (tokenizeExecutor != null) {
+			tokenizeExecutor.shutdownNow();
+			tokenizeExecutor = null;
+		}
+		super.destroy();
 	}
 
 	/**
 	 * Entry point for processing.
+	 * The sentences of all segments are tokenized first, possibly in parallel,
+	 * and then the tokens of each segment are added to the CAS and numbered.
+	 * The sentences and tokens of a segment are the same as when every segment scanned the whole document.
 	 */
 	@Override
   public void process(JCas jcas) throws AnalysisEngineProcessException {
@@ -88,13 +143,29 @@ public class TokenizerAnnotatorPTB extends JCasAnnotator_ImplBase
 
 		tokenCount = 0;
 
-		Collection<Segment> segments = JCasUtil.select(jcas, Segment.class);
-		for(Segment sa : segments){
+		String docText = jcas.getDocumentText();
+		List<Segment> segments = new ArrayList<>();
+		List<Sentence> sentences = new ArrayList<>();
+		// index in sentences of the first sentence of each segment, followed by the sentence count
+		List<Integer> sentenceIndices = new ArrayList<>();
+		sentenceIndices.add(0);
+		Collection<Segment> allSegments = JCasUtil.select(jcas, Segment.class);
+		for(Segment sa : allSegments){
 			String segmentID = sa.getId();
 			if (!skipSegmentsSet.contains(segmentID)) { 
-				annotateRange(jcas, sa.getBegin(), sa.getEnd());
+				segments.add(sa);
+				sentences.addAll(selectSentences(jcas, sa.getBegin(), sa.getEnd()));
+				sentenceIndices.add(sentences.size());
 			}
 		}
+		List<List<TokenSpan>> sentenceSpans = findTokenSpans(docText, sentences, tokenizeExecutor);
+		for (int i = 0; i < segments.size(); i++) {
+			Segment sa = segments.get(i);
+			int fromIndex = sentenceIndices.get(i);
+			int toIndex = sentenceIndices.get(i + 1);
+			annotateRange(jcas, sa.getBegin(), sa.getEnd(), sentences.subList(fromIndex, toIndex),
+					sentenceSpans.subList(fromIndex, toIndex));
+		}
 	}
 
 
@@ -109,6 +180,100 @@ public class TokenizerAnnotatorPTB extends JCasAnnotator_ImplBase
 	 * @throws AnalysisEngineProcessException 
 	 */
 	protected void annotateRange(JCas jcas, int rangeBegin, int rangeEnd) throws AnalysisEngineProcessException {
+		List<Sentence> sentences = selectSentences(jcas, rangeBegin, rangeEnd);
+		annotateRange(jcas, rangeBegin, rangeEnd, sentences,
+				findTokenSpans(jcas.getDocumentText(), sentences, null));
+	}
+
+	/**
+	 * Selects the annotations of a type that begin within a range, in index order.
+	 * Annotations that begin in the range but end after it are included.
+	 * @param type the jcas type of the annotations, e.g. BaseToken.type
+	 */
+	private static List<Annotation> selectBeginningIn(JCas jcas, int type, int rangeBegin, int rangeEnd) {
+		List<Annotation> annotations = new ArrayList<>();
+		FSIterator<Annotation> iterator = jcas.getAnnotationIndex(type).iterator();
+		// annotations are ordered by begin and then by descending end, so all that begin at rangeBegin follow this key
+		iterator.moveTo(new Annotation(jcas, rangeBegin, Integer.MAX_VALUE));
+		// moving past the last annotation of a type with subtypes can leave the iterator at the first annotation
+		while (iterator.isValid() && iterator.get().getBegin() < rangeBegin) {
+			iterator.moveToNext();
+		}
+		while (iterator.isValid() && iterator.get().getBegin() < rangeEnd) {
+			annotations.add(iterator.get());
+			iterator.moveToNext();
+		}
+		return annotations;
+	}
+
+	/**
+	 * @return the sentences that lie completely within a range, in index order
+	 */
+	private static List<Sentence> selectSentences(JCas jcas, int rangeBegin, int rangeEnd) {
+		List<Sentence> sentences = new ArrayList<>();
+		for (Annotation sentence : selectBeginningIn(jcas, Sentence.type, rangeBegin, rangeEnd)) {
+			if (sentence.getEnd() <= rangeEnd) {
+				sentences.add((Sentence)sentence);
+			}
+		}
+		return sentences;
+	}
+
+	/**
+	 * Finds the token spans of sentences without using the CAS, so that it can be done on several threads.
+	 * @param executor pool in which to tokenize chunks of sentences, or null to tokenize on this thread
+	 * @return the token spans of each sentence, in sentence order
+	 * @throws AnalysisEngineProcessException if tokenization in the pool fails or is interrupted
+	 */
+	private List<List<TokenSpan>> findTokenSpans(String docText, List<Sentence> sentences, ExecutorService executor)
+			throws AnalysisEngineProcessException {
+		List<String> sentenceTexts = new ArrayList<>(sentences.size());
+		for (Sentence sentence : sentences) {
+			sentenceTexts.add(docText.substring(sentence.getBegin(), sentence.getEnd()));
+		}
+		if (executor == null || sentenceTexts.size() < 2) {
+			return findTokenSpans(sentenceTexts);
+		}
+		int chunkSize = Math.max(1, sentenceTexts.size() / (tokenizeThreadCount * TASKS_PER_THREAD));
+		List<Future<List<List<TokenSpan>>>> futures = new ArrayList<>();
+		for (int start = 0; start < sentenceTexts.size(); start += chunkSize) {
+			List<String> chunk = sentenceTexts.subList(start, Math.min(start + chunkSize, sentenceTexts.size()));
+			futures.add(executor.submit(() -> findTokenSpans(chunk)));
+		}
+		List<List<TokenSpan>> sentenceSpans = new ArrayList<>(sentenceTexts.size());
+		try {
+			for (Future<List<List<TokenSpan>>> future : futures) {
+				sentenceSpans.addAll(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AnalysisEngineProcessException(e);
+		} catch (ExecutionException e) {
+			throw new AnalysisEngineProcessException(e.getCause());
+		} finally {
+			for (Future<?> future : futures) {
+				future.cancel(true);
+			}
+		}
+		return sentenceSpans;
+	}
+
+	private List<List<TokenSpan>> findTokenSpans(List<String> sentenceTexts) {
+		List<List<TokenSpan>> sentenceSpans = new ArrayList<>(sentenceTexts.size());
+		for (String sentenceText : sentenceTexts) {
+			sentenceSpans.add(tokenizer.findTokenSpans(sentenceText));
+		}
+		return sentenceSpans;
+	}
+
+	/**
+	 * Adds newline tokens and the tokens of the given sentences in a range to the CAS,
+	 * then numbers the tokens in the range.
+	 * @param sentences the sentences covered by the range
+	 * @param sentenceSpans the token spans of each sentence
+	 */
+	private void annotateRange(JCas jcas, int rangeBegin, int rangeEnd, List<Sentence> sentences,
+			List<List<TokenSpan>> sentenceSpans) throws AnalysisEngineProcessException {
 
 		// int tokenCount = 0; // can't start with tokenCount=0 here because this method can be called multiple times
 
@@ -137,40 +302,31 @@ public class TokenizerAnnotatorPTB extends JCasAnnotator_ImplBase
 
 		}
 
-		// Now process each sentence
-		Collection<Sentence> sentences = JCasUtil.select(jcas, Sentence.class);
-		
-		// Tokenize each sentence, adding the tokens to the cas index
-		for(Sentence sentence : sentences){
-			if (sentence.getBegin() < rangeBegin || sentence.getEnd() > rangeEnd) {
-				continue;
-			}
-			List<?> tokens = tokenizer.tokenizeTextSegment(jcas, sentence.getCoveredText(), sentence.getBegin(), true);
+		// Create the tokens of each sentence, adding the tokens to the cas index
+		for (int s = 0; s < sentences.size(); s++) {
+			Sentence sentence = sentences.get(s);
+			String sentenceText = docText.substring(sentence.getBegin(), sentence.getEnd());
+			List<?> tokens = tokenizer.createTokens(jcas, sentenceText, sentence.getBegin(), sentenceSpans.get(s));
 			for (Object bta: tokens) {
 				if (bta==null) {
 					Exception e = new RuntimeException("bta==null tokenCount=" + tokenCount + " tokens.size()==" + tokens.size());
 					e.printStackTrace();
 				} else{
-					//logger.info("Token #" + tokenCount + " len = " + bta.getCoveredText().length() + " " + bta.getCoveredText());
 					// add the BaseToken to CAS index
 				  if(BaseToken.class.isAssignableFrom(bta.getClass())){
 				    BaseToken.class.cast(bta).addToIndexes();
 				  }else{
 				    throw new AnalysisEngineProcessException("Token returned cannot be cast as BaseToken", new Object[]{bta});
 				  }
-					//tokenCount++;
 				}
 			}
 
 		}
 
-		// Now add the tokenNumber in the order of offsets
-		Collection<BaseToken> tokens = JCasUtil.select(jcas, BaseToken.class);
-		for(BaseToken bta : tokens){
-			if (bta.getBegin()>=rangeBegin && bta.getBegin()<rangeEnd) {
-				bta.setTokenNumber(tokenCount);
-				tokenCount++;
-			}
+		// Now add the tokenNumber in the order of offsets to the tokens that begin in the range
+		for(Annotation bta : selectBeginningIn(jcas, BaseToken.type, rangeBegin, rangeEnd)){
+			((BaseToken)bta).setTokenNumber(tokenCount);
+			tokenCount++;
 		}
 
 	}
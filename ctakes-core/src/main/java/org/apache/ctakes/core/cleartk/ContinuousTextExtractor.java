@@ -4,11 +4,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.ctakes.core.resource.FileLocator;
+import org.apache.ctakes.core.resource.EmbeddingRegistry;
 import org.apache.ctakes.typesystem.type.syntax.BaseToken;
 import org.apache.ctakes.utils.distsem.WordEmbeddings;
 import org.apache.ctakes.utils.distsem.WordVector;
-import org.apache.ctakes.utils.distsem.WordVectorReader;
 import org.apache.uima.jcas.JCas;
 import org.cleartk.ml.feature.extractor.CleartkExtractorException;
 import org.cleartk.ml.feature.extractor.NamedFeatureExtractor1;
@@ -32,7 +31,7 @@ public class ContinuousTextExtractor implements NamedFeatureExtractor1<BaseToken
 		super();
 		try {
 			words =
-					WordVectorReader.getEmbeddings(FileLocator.getAsStream(vecFile));
+					EmbeddingRegistry.getInstance().getEmbeddings(vecFile);
 		} catch (IOException e) {
 			e.printStackTrace();
 			throw new CleartkExtractorException(e);
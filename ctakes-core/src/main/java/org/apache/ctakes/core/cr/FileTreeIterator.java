@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.cr;
+
+import org.apache.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Lazily iterates the files in a directory tree, in the same order as the {@link FileTreeReader} list:
+ * the files of a directory come before the files of its subdirectories, and subdirectories are descended depth first.
+ * <p>
+ * Only one directory stream is open at a time, and only the paths of directories that are still to be visited are held,
+ * so the iterator can walk a tree of millions of files without listing them first.
+ * Files can be split between several readers by a hash of their path relative to the root directory.
+ * </p>
+ */
+final class FileTreeIterator implements Iterator<File>, Closeable {
+
+   static private final Logger LOGGER = Logger.getLogger( "FileTreeIterator" );
+
+   private final Path _rootDir;
+   private final Collection<String> _validExtensions;
+   private final int _shardCount;
+   private final int _shardIndex;
+   // directories still to be read, the next directory to read is first
+   private final Deque<Path> _pendingDirs = new ArrayDeque<>();
+   // subdirectories of the directory being read, to be visited after its files
+   private final List<Path> _childDirs = new ArrayList<>();
+   private DirectoryStream<Path> _dirStream;
+   private Iterator<Path> _dirPaths;
+   private File _next;
+
+   /**
+    * @param rootDir         root of the directory tree
+    * @param validExtensions collection of valid extensions or empty collection if all extensions are valid
+    * @param shardCount      number of readers splitting the tree, 1 for all files
+    * @param shardIndex      index of this reader's share of the files, 0 to shardCount - 1
+    */
+   FileTreeIterator( final File rootDir, final Collection<String> validExtensions,
+                     final int shardCount, final int shardIndex ) {
+      if ( shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount ) {
+         throw new IllegalArgumentException( "Shard index " + shardIndex + " is not within shard count " + shardCount );
+      }
+      _rootDir = rootDir.toPath();
+      _validExtensions = validExtensions;
+      _shardCount = shardCount;
+      _shardIndex = shardIndex;
+      _pendingDirs.add( _rootDir );
+   }
+
+   /**
+    * @param rootDir    root of the directory tree
+    * @param file       some file in the tree
+    * @param shardCount number of readers splitting the tree
+    * @return index of the shard to which the file belongs
+    */
+   static int getShardIndex( final File rootDir, final File file, final int shardCount ) {
+      if ( shardCount <= 1 ) {
+         return 0;
+      }
+      // String hash codes are specified, so every reader process agrees upon the shard of a relative path
+      final String relativePath = rootDir.toPath().relativize( file.toPath() ).toString().replace( '\\', '/' );
+      return Math.floorMod( relativePath.hashCode(), shardCount );
+   }
+
+   /**
+    * {@inheritDoc}
+    *
+    * @throws UncheckedIOException if a directory cannot be read
+    */
+   @Override
+   public boolean hasNext() {
+      if ( _next == null ) {
+         _next = findNext();
+      }
+      return _next != null;
+   }
+
+   /**
+    * {@inheritDoc}
+    *
+    * @throws UncheckedIOException if a directory cannot be read
+    */
+   @Override
+   public File next() {
+      if ( !hasNext() ) {
+         throw new NoSuchElementException();
+      }
+      final File next = _next;
+      _next = null;
+      return next;
+   }
+
+   /**
+    * @return the next valid file in the tree or null if there are no more files
+    */
+   private File findNext() {
+      while ( true ) {
+         if ( _dirPaths == null && !openNextDir() ) {
+            return null;
+         }
+         while ( _dirPaths.hasNext() ) {
+            final Path path = _dirPaths.next();
+            if ( Files.isDirectory( path ) ) {
+               _childDirs.add( path );
+               continue;
+            }
+            final File file = path.toFile();
+            if ( FileTreeReader.isExtensionValid( file, _validExtensions ) && !file.isHidden()
+                 && getShardIndex( _rootDir.toFile(), file, _shardCount ) == _shardIndex ) {
+               return file;
+            }
+         }
+         closeDir();
+         // descend depth first, the first subdirectory read is the first visited
+         for ( int i = _childDirs.size() - 1; i >= 0; i-- ) {
+            _pendingDirs.addFirst( _childDirs.get( i ) );
+         }
+         _childDirs.clear();
+      }
+   }
+
+   /**
+    * @return true if a directory was opened, false if there are no more directories
+    */
+   private boolean openNextDir() {
+      while ( !_pendingDirs.isEmpty() ) {
+         final Path dir = _pendingDirs.removeFirst();
+         try {
+            _dirStream = Files.newDirectoryStream( dir );
+            _dirPaths = _dirStream.iterator();
+            return true;
+         } catch ( IOException ioE ) {
+            if ( dir.equals( _rootDir ) ) {
+               throw new UncheckedIOException( ioE );
+            }
+            LOGGER.warn( "Could not read directory " + dir + " : " + ioE.getMessage() );
+         }
+      }
+      return false;
+   }
+
+   private void closeDir() {
+      if ( _dirStream != null ) {
+         try {
+            _dirStream.close();
+         } catch ( IOException ioE ) {
+            LOGGER.warn( "Could not close directory stream : " + ioE.getMessage() );
+         }
+      }
+      _dirStream = null;
+      _dirPaths = null;
+   }
+
+   /**
+    * Closes any open directory stream and ends the iteration.
+    */
+   @Override
+   public void close() {
+      closeDir();
+      _pendingDirs.clear();
+      _childDirs.clear();
+      _next = null;
+   }
+
+}
@@ -17,16 +17,24 @@ import org.apache.uima.util.Progress;
 import org.apache.uima.util.ProgressImpl;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 
 /**
  * Recursively reads a directory tree of files, sorted by level (root first),
  * creating the DocumentID from the file name and the DocumentIdPrefix by the subdirectory path between
  * the root and the leaf file
+ * <p>
+ * By default all files are listed at initialization, which gives the total number of documents for progress.
+ * For very large trees the reader can instead stream the files as it goes with {@link #PARAM_STREAMING},
+ * read and decode the next files ahead on a background thread with {@link #PARAM_PREFETCH},
+ * and split a tree between several reader processes with {@link #PARAM_SHARD_COUNT} and {@link #PARAM_SHARD_INDEX}.
+ * Files are split by a hash of their path relative to the root directory, so no shared manifest is needed.
+ * </p>
  *
  * @author SPF , chip-nlp
  * @version %I%
@@ -56,7 +64,33 @@ final public class FileTreeReader extends CollectionReader_ImplBase {
     */
    public static final String PARAM_EXTENSIONS = "Extensions";
 
+   /**
+    * Name of optional configuration parameter that, when true, iterates the directory tree as documents are read
+    * instead of listing all files at initialization.  The total number of documents is then unknown.
+    */
+   public static final String PARAM_STREAMING = "Streaming";
+
+   /**
+    * Name of optional configuration parameter that specifies the number of files to read and decode ahead
+    * on a background thread.  0, the default, reads each file as it is requested.
+    */
+   public static final String PARAM_PREFETCH = "Prefetch";
+
+   /**
+    * Name of optional configuration parameter that specifies the number of reader processes splitting the tree.
+    * The default is 1, which reads all files.
+    */
+   public static final String PARAM_SHARD_COUNT = "ShardCount";
+
+   /**
+    * Name of optional configuration parameter that specifies the share of the tree read by this reader,
+    * from 0 to the shard count - 1.  The default is 0.
+    */
+   public static final String PARAM_SHARD_INDEX = "ShardIndex";
+
    private List<File> _files;
+   private Iterator<File> _fileIterator;
+   private FilePrefetcher _prefetcher;
    private String _encoding;
    private Collection<String> _validExtensions;
    private File _rootDir;
@@ -76,8 +110,42 @@ final public class FileTreeReader extends CollectionReader_ImplBase {
       final String[] explicitExtensions = (String[])getConfigParameterValue( PARAM_EXTENSIONS );
       _validExtensions = createValidExtensions( explicitExtensions );
 
+      final boolean streaming = Boolean.TRUE.equals( getConfigParameterValue( PARAM_STREAMING ) );
+      final int prefetch = getIntParameterValue( PARAM_PREFETCH, 0 );
+      final int shardCount = getIntParameterValue( PARAM_SHARD_COUNT, 1 );
+      final int shardIndex = getIntParameterValue( PARAM_SHARD_INDEX, 0 );
+      if ( shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount ) {
+         throw new ResourceInitializationException( new IllegalArgumentException(
+               PARAM_SHARD_INDEX + " " + shardIndex + " is not within " + PARAM_SHARD_COUNT + " " + shardCount ) );
+      }
+
       _currentIndex = 0;
-      _files = getDescendentFiles( _rootDir, _validExtensions );
+      if ( streaming ) {
+         _files = null;
+         _fileIterator = new FileTreeIterator( _rootDir, _validExtensions, shardCount, shardIndex );
+      } else {
+         _files = getDescendentFiles( _rootDir, _validExtensions );
+         if ( shardCount > 1 ) {
+            _files.removeIf( f -> FileTreeIterator.getShardIndex( _rootDir, f, shardCount ) != shardIndex );
+         }
+         _fileIterator = _files.iterator();
+      }
+      if ( shardCount > 1 ) {
+         LOGGER.info( "Reading shard " + shardIndex + " of " + shardCount + " in " + _rootDir.getPath() );
+      }
+      if ( prefetch > 0 ) {
+         _prefetcher = new FilePrefetcher( _fileIterator, _encoding, prefetch );
+      }
+   }
+
+   /**
+    * @param name         name of an Integer parameter
+    * @param defaultValue value if the parameter is not set
+    * @return value of the parameter or the default
+    */
+   private int getIntParameterValue( final String name, final int defaultValue ) {
+      final Object value = getConfigParameterValue( name );
+      return value == null ? defaultValue : (Integer)value;
    }
 
    /**
@@ -108,10 +176,10 @@ final public class FileTreeReader extends CollectionReader_ImplBase {
     * @param validExtensions collection of valid extensions or empty collection if all extensions are valid
     * @return List of files descending from the parent directory
     */
-   static private List<File> getDescendentFiles( final File parentDir, final Collection<String> validExtensions ) {
+   static List<File> getDescendentFiles( final File parentDir, final Collection<String> validExtensions ) {
       final File[] children = parentDir.listFiles();
       if ( children == null || children.length == 0 ) {
-         return Collections.emptyList();
+         return new ArrayList<>( 0 );
       }
       final Collection<File> childDirs = new ArrayList<>();
       final List<File> descendentFiles = new ArrayList<>();
@@ -194,10 +262,10 @@ final public class FileTreeReader extends CollectionReader_ImplBase {
     * collection reader.  This is not part of the general collection reader
     * interface.
     *
-    * @return the number of documents in the collection
+    * @return the number of documents in the collection, or -1 if the files are streamed
     */
    public int getNumberOfDocuments() {
-      return _files.size();
+      return _files == null ? -1 : _files.size();
    }
 
 
@@ -205,8 +273,12 @@ final public class FileTreeReader extends CollectionReader_ImplBase {
     * {@inheritDoc}
     */
    @Override
-   public boolean hasNext() {
-      return _currentIndex < _files.size();
+   public boolean hasNext() throws IOException {
+      try {
+         return _prefetcher != null ? _prefetcher.hasNext() : _fileIterator.hasNext();
+      } catch ( UncheckedIOException uioE ) {
+         throw uioE.getCause();
+      }
    }
 
    /**
@@ -218,31 +290,25 @@ final public class FileTreeReader extends CollectionReader_ImplBase {
       try {
          jcas = cas.getJCas();
       } catch ( CASException casE ) {
-         _currentIndex++;
+         skipFile();
          throw new IOException( casE );
       }
-      final File file = _files.get( _currentIndex );
+      if ( !hasNext() ) {
+         throw new CollectionException( new NoSuchElementException() );
+      }
       _currentIndex++;
-      // Use 8KB as the default buffer size
-      byte[] buffer = new byte[ 8192 ];
-      final StringBuilder sb = new StringBuilder();
-      try ( final InputStream inputStream = new BufferedInputStream( new FileInputStream( file ), buffer.length ) ) {
-         while ( true ) {
-            final int length = inputStream.read( buffer );
-            if ( length < 0 ) {
-               break;
-            }
-            if ( _encoding != null ) {
-               sb.append( new String( buffer, 0, length, _encoding ) );
-            } else {
-               sb.append( new String( buffer, 0, length ) );
-            }
-         }
-      } catch ( FileNotFoundException fnfE ) {
-         throw new IOException( fnfE );
+      final File file;
+      final String text;
+      if ( _prefetcher != null ) {
+         final FileText fileText = _prefetcher.next();
+         file = fileText.__file;
+         text = fileText.getText();
+      } else {
+         file = _fileIterator.next();
+         text = readFile( file, _encoding );
       }
       // put document text and id annotations in CAS (assume CAS)
-      jcas.setDocumentText( sb.toString() );
+      jcas.setDocumentText( text );
       final DocumentID documentId = new DocumentID( jcas );
       final String id = createDocumentID( file, _validExtensions );
       documentId.setDocumentID( id );
@@ -256,11 +322,32 @@ final public class FileTreeReader extends CollectionReader_ImplBase {
       documentPath.addToIndexes();
    }
 
+   /**
+    * Move past the next file without reading it
+    */
+   private void skipFile() throws IOException {
+      _currentIndex++;
+      if ( !hasNext() ) {
+         return;
+      }
+      if ( _prefetcher != null ) {
+         _prefetcher.next();
+      } else {
+         _fileIterator.next();
+      }
+   }
+
    /**
     * {@inheritDoc}
     */
    @Override
    public void close() throws IOException {
+      if ( _prefetcher != null ) {
+         // the prefetch thread closes the file iterator
+         _prefetcher.close();
+      } else if ( _fileIterator instanceof Closeable ) {
+         ((Closeable)_fileIterator).close();
+      }
    }
 
    /**
@@ -269,10 +356,24 @@ final public class FileTreeReader extends CollectionReader_ImplBase {
    @Override
    public Progress[] getProgress() {
       return new Progress[] {
-            new ProgressImpl( _currentIndex, _files.size(), Progress.ENTITIES )
+            new ProgressImpl( _currentIndex, getNumberOfDocuments(), Progress.ENTITIES )
       };
    }
 
+   /**
+    * @param file     -
+    * @param encoding character encoding of the file, or null for the default system encoding
+    * @return the text of the file
+    * @throws IOException if the file cannot be read
+    */
+   static String readFile( final File file, final String encoding ) throws IOException {
+      final byte[] bytes = Files.readAllBytes( file.toPath() );
+      if ( encoding != null ) {
+         return new String( bytes, encoding );
+      }
+      return new String( bytes, Charset.defaultCharset() );
+   }
+
 
    public static CollectionReader createReader( final String inputDirectory ) throws ResourceInitializationException {
       return CollectionReaderFactory.createReader( FileTreeReader.class,
@@ -280,4 +381,116 @@ final public class FileTreeReader extends CollectionReader_ImplBase {
             inputDirectory );
    }
 
+
+
+   /**
+    * A file and its text, or the exception thrown while reading it
+    */
+   static private final class FileText {
+      private final File __file;
+      private final String __text;
+      private final IOException __ioException;
+
+      private FileText( final File file, final String text, final IOException ioException ) {
+         __file = file;
+         __text = text;
+         __ioException = ioException;
+      }
+
+      private String getText() throws IOException {
+         if ( __ioException != null ) {
+            throw __ioException;
+         }
+         return __text;
+      }
+   }
+
+   /**
+    * Reads and decodes files ahead on a daemon thread, holding at most a given number of unread files.
+    */
+   static private final class FilePrefetcher implements Closeable {
+      // placed after the last file
+      static private final FileText END = new FileText( null, null, null );
+
+      private final BlockingQueue<FileText> __queue;
+      private final Thread __thread;
+      private volatile boolean __closed;
+      private volatile RuntimeException __iterationException;
+      private FileText __next;
+
+      private FilePrefetcher( final Iterator<File> fileIterator, final String encoding, final int prefetch ) {
+         __queue = new ArrayBlockingQueue<>( prefetch );
+         __thread = new Thread( () -> prefetch( fileIterator, encoding ), "FileTreeReader Prefetch" );
+         __thread.setDaemon( true );
+         __thread.start();
+      }
+
+      private void prefetch( final Iterator<File> fileIterator, final String encoding ) {
+         try {
+            while ( !__closed && fileIterator.hasNext() ) {
+               final File file = fileIterator.next();
+               FileText fileText;
+               try {
+                  fileText = new FileText( file, readFile( file, encoding ), null );
+               } catch ( IOException ioE ) {
+                  fileText = new FileText( file, null, ioE );
+               }
+               __queue.put( fileText );
+            }
+         } catch ( RuntimeException rtE ) {
+            __iterationException = rtE;
+         } catch ( InterruptedException intE ) {
+            return;
+         } finally {
+            if ( fileIterator instanceof Closeable ) {
+               try {
+                  ((Closeable)fileIterator).close();
+               } catch ( IOException ioE ) {
+                  LOGGER.warn( "Could not close file iterator : " + ioE.getMessage() );
+               }
+            }
+         }
+         try {
+            __queue.put( END );
+         } catch ( InterruptedException intE ) {
+            // closed
+         }
+      }
+
+      private boolean hasNext() {
+         if ( __next == null ) {
+            if ( __closed ) {
+               return false;
+            }
+            try {
+               __next = __queue.take();
+            } catch ( InterruptedException intE ) {
+               Thread.currentThread().interrupt();
+               return false;
+            }
+         }
+         if ( __next == END && __iterationException != null ) {
+            throw __iterationException;
+         }
+         return __next != END;
+      }
+
+      private FileText next() {
+         if ( !hasNext() ) {
+            throw new NoSuchElementException();
+         }
+         final FileText next = __next;
+         __next = null;
+         return next;
+      }
+
+      @Override
+      public void close() {
+         __closed = true;
+         __thread.interrupt();
+         __queue.clear();
+         __next = null;
+      }
+   }
+
 }
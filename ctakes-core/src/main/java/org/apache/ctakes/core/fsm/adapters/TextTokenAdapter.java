@@ -32,6 +32,8 @@ import org.apache.uima.jcas.tcas.Annotation;
 public class TextTokenAdapter extends BaseTokenAdapter implements TextToken
 {
 	private Annotation iv_annot;
+	// covered text is read by every machine condition, cached on first use
+	private String iv_text;
 	
 	public TextTokenAdapter(Annotation annot)
 	{	
@@ -42,6 +44,10 @@ public class TextTokenAdapter extends BaseTokenAdapter implements TextToken
 	
 	public String getText()
 	{
-		return iv_annot.getCoveredText();
+		if (iv_text == null)
+		{
+			iv_text = iv_annot.getCoveredText();
+		}
+		return iv_text;
 	}
 }
@@ -32,6 +32,7 @@ import static org.apache.ctakes.core.nlp.tokenizer.TokenizerHelper.PERIOD;
 import static org.apache.ctakes.core.nlp.tokenizer.TokenizerHelper.isPunctuation;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.uima.jcas.JCas;
@@ -77,18 +78,52 @@ public class TokenizerPTB {
 	 */
 	public List<?> tokenizeTextSegment(JCas jcas, String textSegment, int offsetAdjustment, boolean includeTextNotJustOffsets) {
 		
-	    String lowerCasedText = textSegment.toLowerCase();
-		ArrayList<Object> tokens = new ArrayList<Object>();
-		Class<? extends BaseToken> tokenClass = null; 
-		
 		// if input was null or empty, return empty token list
 		if (textSegment==null || textSegment.length()==0) return emptyTokenList;
 		
+		List<TokenSpan> spans = findTokenSpans(textSegment);
+		// if input contained only white space but not even any newlines, return empty token list 
+		if (spans.isEmpty()) return emptyTokenList;
+		return createTokens(jcas, textSegment, offsetAdjustment, spans);
+	}
+
+	/**
+	 * Create tokens for spans found in text that starts at offset offsetAdjustment within the complete text.
+	 * If jcas is not null the tokens are created in the jcas but are not added to its indexes.
+	 * @param jcas the jcas in which to create tokens, or null
+	 * @param textSegment the text in which the spans were found
+	 * @param offsetAdjustment what to add to all offsets within textSegment to make them be offsets from the start of the text for the jcas
+	 * @param spans token spans found by {@link #findTokenSpans(String)}
+	 * @return the list of new tokens
+	 */
+	public List<?> createTokens(JCas jcas, String textSegment, int offsetAdjustment, List<TokenSpan> spans) {
+		ArrayList<Object> tokens = new ArrayList<Object>(spans.size());
+		for (TokenSpan span : spans) {
+			tokens.add(createToken(span.getTokenClass(), textSegment, jcas, span.getBegin(), span.getEnd(), offsetAdjustment));
+		}
+		return tokens;
+	}
+
+	/**
+	 * Find the spans of tokens in text without creating any tokens.
+	 * This does not use any jcas or change the state of this tokenizer, so it may be called by several threads at once.
+	 * @param textSegment the text to tokenize
+	 * @return the list of token spans, with offsets within textSegment
+	 */
+	public List<TokenSpan> findTokenSpans(String textSegment) {
+		
+		// if input was null or empty, return empty span list
+		if (textSegment==null || textSegment.length()==0) return Collections.emptyList();
+		
+	    String lowerCasedText = textSegment.toLowerCase();
+		ArrayList<TokenSpan> tokens = new ArrayList<TokenSpan>();
+		Class<? extends BaseToken> tokenClass = null; 
+		
 		// find first character of a token
 		int currentPosition = 0;
 		currentPosition = findFirstCharOfNextToken(textSegment, currentPosition);
-		// if input contained only white space but not even any newlines, return empty token list 
-		if (currentPosition < 0) return emptyTokenList;
+		// if input contained only white space but not even any newlines, return empty span list 
+		if (currentPosition < 0) return Collections.emptyList();
 		
 		while ((currentPosition = findFirstCharOfNextToken(textSegment, currentPosition))>=0) {
 		
@@ -98,7 +133,6 @@ public class TokenizerPTB {
 			char firstCharOfToken = textSegment.charAt(currentPosition);
 			int NOT_SET_INDICATOR = -999;
 			int tokenLen = NOT_SET_INDICATOR; // should set it below to a real value
-			Object bta;
 			
 
 
@@ -280,8 +314,7 @@ public class TokenizerPTB {
 				    		// and create ContractionToken for other token(s)  
 				    tokenLen = len;
 				    tokenClass = WordToken.class;
-				    bta = createToken(tokenClass, textSegment, jcas, currentPosition, currentPosition+tokenLen, offsetAdjustment);
-				    tokens.add(bta);
+				    tokens.add(new TokenSpan(tokenClass, currentPosition, currentPosition+tokenLen));
 				    currentPosition+=tokenLen; // currentPosition
 				    
 				    len = ContractionsPTB.lenOfSecondTokenInContraction(lowerCasedSubstring);
@@ -291,8 +324,7 @@ public class TokenizerPTB {
 				    
 				    len = ContractionsPTB.lenOfThirdTokenInContraction(lowerCasedSubstring);
 				    if (len>0) { // if there is a 3rd, create the 2nd and set up for the 3rd to be created later
-					bta = createToken(tokenClass, textSegment, jcas, currentPosition, currentPosition+tokenLen, offsetAdjustment);
-					tokens.add(bta);
+					tokens.add(new TokenSpan(tokenClass, currentPosition, currentPosition+tokenLen));
 					currentPosition+=tokenLen; // currentPosition
 
 					tokenLen = len;
@@ -345,9 +377,7 @@ public class TokenizerPTB {
 			        	    if (tokenLen < 0) throw new RuntimeException("c = " + c + "tokenLen = " + tokenLen + " currentPosition = " + currentPosition);
 			        	    // First create the WordToken (no apostrophe)
 			        	    if(tokenLen > 0){
-			        	      bta = createToken(tokenClass, textSegment, jcas, currentPosition, currentPosition+tokenLen, offsetAdjustment);
-			        	      //System.out.println("bta = " + bta + " class = " + bta.getClass() + " tokenLen = " + tokenLen + " currentPosition = " + currentPosition);
-			        	      tokens.add(bta);
+			        	      tokens.add(new TokenSpan(tokenClass, currentPosition, currentPosition+tokenLen));
 			        	      currentPosition+=tokenLen; // currentPosition
 			        	    }
 			        	    // Set up to create the second token, for other contractions, the next token will start with an 
@@ -443,9 +473,7 @@ public class TokenizerPTB {
 			
 			// add the token created
 			if (tokenLen < 0) throw new RuntimeException("tokenLen = " + tokenLen + " currentPosition = " + currentPosition);
-			bta = createToken(tokenClass, textSegment, jcas, currentPosition, currentPosition+tokenLen, offsetAdjustment);
-			//System.out.println("bta = " + bta + " class = " + bta.getClass() + " tokenLen = " + tokenLen + " currentPosition = " + currentPosition);
-			tokens.add(bta);
+			tokens.add(new TokenSpan(tokenClass, currentPosition, currentPosition+tokenLen));
 			currentPosition+=tokenLen; // currentPosition
 
 		} // end while loop
@@ -1254,6 +1282,34 @@ public class TokenizerPTB {
 	static String [] testsForEmailAddress = {"masanz@mayo.edu", "masanz@mayo", "m@l", "m.@p", "m.n.@p", "3@4",
 	    "%@f", "R@@", "MASANZ@MAYO", "jk$jk@.m", "asdf@.m$", "masanz.james-mi@ibm.com.us", ".mn@p", ".@p", "@t",  };
 
+	/**
+	 * The span of a token within some text, and the class of token to create for it.
+	 * A null token class indicates that the class is determined from the text when the token is created.
+	 */
+	public static final class TokenSpan {
+		private final Class<? extends BaseToken> tokenClass;
+		private final int begin;
+		private final int end;
+
+		TokenSpan(Class<? extends BaseToken> tokenClass, int begin, int end) {
+			this.tokenClass = tokenClass;
+			this.begin = begin;
+			this.end = end;
+		}
+
+		public Class<? extends BaseToken> getTokenClass() {
+			return tokenClass;
+		}
+
+		public int getBegin() {
+			return begin;
+		}
+
+		public int getEnd() {
+			return end;
+		}
+	}
+
 	public static void main(String[] args) {
 
 	    runEmailTests();
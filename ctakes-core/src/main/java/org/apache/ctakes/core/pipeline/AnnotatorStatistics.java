@@ -0,0 +1,424 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.pipeline;
+
+
+import org.apache.ctakes.core.ae.StartFinishTimer;
+import org.apache.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Stores the wall time, cpu time and allocated bytes of each annotator for each document of a run,
+ * as recorded by {@link StartFinishTimer} engines.
+ * <p>
+ * Each measure is kept in a histogram with a precision of about 3%, so percentiles can be reported for any number
+ * of documents.  The slowest documents by wall time are kept for each annotator.
+ * </p>
+ * Statistics can be written to a file at the end of a run and are available through jmx as
+ * {@value #MBEAN_NAME} once {@link #registerMBean()} has been called.
+ */
+public enum AnnotatorStatistics implements AnnotatorStatisticsMBean {
+   INSTANCE;
+
+   static public AnnotatorStatistics getInstance() {
+      return INSTANCE;
+   }
+
+   static private final Logger LOGGER = Logger.getLogger( "AnnotatorStatistics" );
+
+   static public final String MBEAN_NAME = "org.apache.ctakes.core:type=AnnotatorStatistics";
+
+   static private final double[] REPORT_PERCENTILES = { 50, 95, 99 };
+
+   // key = annotator name, in the order that annotators were first timed
+   private final Map<String, AnnotatorTiming> _timings = Collections.synchronizedMap( new LinkedHashMap<>() );
+   private volatile int _slowestCount = 10;
+
+   /**
+    * @param slowestCount number of slowest documents to keep for each annotator
+    */
+   public void setSlowestCount( final int slowestCount ) {
+      _slowestCount = Math.max( 0, slowestCount );
+   }
+
+   /**
+    * Record the cost of an annotator processing a document.
+    *
+    * @param annotatorName  name of the annotator
+    * @param documentId     id of the document
+    * @param wallNanos      elapsed time
+    * @param cpuNanos       cpu time of the processing thread, or -1 if it could not be measured
+    * @param allocatedBytes bytes allocated by the processing thread, or -1 if they could not be measured
+    */
+   public void record( final String annotatorName, final String documentId,
+                       final long wallNanos, final long cpuNanos, final long allocatedBytes ) {
+      _timings.computeIfAbsent( annotatorName, AnnotatorTiming::new )
+              .record( documentId, wallNanos, cpuNanos, allocatedBytes, _slowestCount );
+   }
+
+   /**
+    * @param annotatorName name of a timed annotator
+    * @return timing for the annotator, or null if it has not been timed
+    */
+   public AnnotatorTiming getTiming( final String annotatorName ) {
+      return _timings.get( annotatorName );
+   }
+
+   /**
+    * @return timing for every annotator in the order that annotators were first timed
+    */
+   public List<AnnotatorTiming> getTimings() {
+      synchronized ( _timings ) {
+         return new ArrayList<>( _timings.values() );
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String[] getAnnotatorNames() {
+      synchronized ( _timings ) {
+         return _timings.keySet().toArray( new String[ _timings.size() ] );
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public double getWallMillisPercentile( final String annotatorName, final double percentile ) {
+      final AnnotatorTiming timing = getTiming( annotatorName );
+      return timing == null ? 0 : timing.getWallPercentile( percentile ) / 1e6;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void reset() {
+      _timings.clear();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String getReport() {
+      final StringBuilder sb = new StringBuilder();
+      sb.append( String.format( "%-60s %8s   %-32s   %-32s   %-32s%n", "Annotator", "Docs",
+            "Wall ms mean p50 p95 p99", "Cpu ms mean p50 p95 p99", "Allocated KB mean p50 p95 p99" ) );
+      for ( AnnotatorTiming timing : getTimings() ) {
+         synchronized ( timing ) {
+            sb.append( String.format( "%-60s %8d   %-32s   %-32s   %-32s%n", timing.getAnnotatorName(),
+                  timing.getDocumentCount(),
+                  formatPercentiles( timing._wall, 1e6 ),
+                  formatPercentiles( timing._cpu, 1e6 ),
+                  formatPercentiles( timing._allocated, 1024 ) ) );
+         }
+      }
+      return sb.toString();
+   }
+
+   /**
+    * @return the slowest documents for each annotator, slowest first
+    */
+   public String getSlowestReport() {
+      final StringBuilder sb = new StringBuilder();
+      for ( AnnotatorTiming timing : getTimings() ) {
+         final List<DocumentTiming> slowest = timing.getSlowestDocuments();
+         if ( slowest.isEmpty() ) {
+            continue;
+         }
+         sb.append( "Slowest documents for " ).append( timing.getAnnotatorName() ).append( '\n' );
+         for ( DocumentTiming document : slowest ) {
+            sb.append( "   " ).append( document ).append( '\n' );
+         }
+      }
+      return sb.toString();
+   }
+
+   /**
+    * Log the statistics and write them to a file.
+    *
+    * @param reportPath path of the report file, or an empty path to only log the statistics
+    */
+   public void writeReport( final String reportPath ) {
+      final String report = getReport();
+      LOGGER.info( "Annotator statistics :\n" + report );
+      if ( reportPath == null || reportPath.isEmpty() ) {
+         return;
+      }
+      final File file = new File( reportPath );
+      if ( file.getParentFile() != null ) {
+         file.getParentFile().mkdirs();
+      }
+      try ( Writer writer = new OutputStreamWriter( new FileOutputStream( file ), StandardCharsets.UTF_8 ) ) {
+         writer.write( report );
+         writer.write( '\n' );
+         writer.write( getSlowestReport() );
+      } catch ( IOException ioE ) {
+         LOGGER.error( "Could not write annotator statistics to " + reportPath + " : " + ioE.getMessage() );
+      }
+   }
+
+   /**
+    * Register the statistics with the platform mbean server as {@value #MBEAN_NAME}.
+    * Failure is logged but otherwise ignored.
+    */
+   public void registerMBean() {
+      try {
+         final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+         final ObjectName objectName = new ObjectName( MBEAN_NAME );
+         synchronized ( mBeanServer ) {
+            if ( !mBeanServer.isRegistered( objectName ) ) {
+               mBeanServer.registerMBean( this, objectName );
+            }
+         }
+      } catch ( JMException | SecurityException multE ) {
+         LOGGER.warn( "Could not register annotator statistics for management: " + multE.getMessage() );
+      }
+   }
+
+   static private String formatPercentiles( final Histogram histogram, final double divisor ) {
+      if ( histogram.getCount() == 0 ) {
+         return "-";
+      }
+      final StringBuilder sb = new StringBuilder();
+      sb.append( String.format( "%.2f", histogram.getMean() / divisor ) );
+      for ( double percentile : REPORT_PERCENTILES ) {
+         sb.append( String.format( " %.2f", histogram.getPercentile( percentile ) / divisor ) );
+      }
+      return sb.toString();
+   }
+
+
+   /**
+    * Wall time, cpu time and allocation of one annotator.
+    */
+   static public final class AnnotatorTiming {
+      private final String _annotatorName;
+      private final Histogram _wall = new Histogram();
+      private final Histogram _cpu = new Histogram();
+      private final Histogram _allocated = new Histogram();
+      // fastest of the slowest documents at the head
+      private final PriorityQueue<DocumentTiming> _slowest
+            = new PriorityQueue<>( Comparator.comparingLong( DocumentTiming::getWallNanos ) );
+
+      private AnnotatorTiming( final String annotatorName ) {
+         _annotatorName = annotatorName;
+      }
+
+      synchronized private void record( final String documentId, final long wallNanos, final long cpuNanos,
+                                        final long allocatedBytes, final int slowestCount ) {
+         _wall.record( wallNanos );
+         if ( cpuNanos >= 0 ) {
+            _cpu.record( cpuNanos );
+         }
+         if ( allocatedBytes >= 0 ) {
+            _allocated.record( allocatedBytes );
+         }
+         if ( slowestCount <= 0 ) {
+            return;
+         }
+         if ( _slowest.size() < slowestCount ) {
+            _slowest.add( new DocumentTiming( documentId, wallNanos, cpuNanos, allocatedBytes ) );
+         } else if ( wallNanos > _slowest.peek().getWallNanos() ) {
+            _slowest.poll();
+            _slowest.add( new DocumentTiming( documentId, wallNanos, cpuNanos, allocatedBytes ) );
+         }
+      }
+
+      public String getAnnotatorName() {
+         return _annotatorName;
+      }
+
+      synchronized public long getDocumentCount() {
+         return _wall.getCount();
+      }
+
+      /**
+       * @param percentile percentile between 0 and 100
+       * @return wall nanoseconds per document at the percentile
+       */
+      synchronized public long getWallPercentile( final double percentile ) {
+         return _wall.getPercentile( percentile );
+      }
+
+      /**
+       * @param percentile percentile between 0 and 100
+       * @return cpu nanoseconds per document at the percentile
+       */
+      synchronized public long getCpuPercentile( final double percentile ) {
+         return _cpu.getPercentile( percentile );
+      }
+
+      /**
+       * @param percentile percentile between 0 and 100
+       * @return allocated bytes per document at the percentile
+       */
+      synchronized public long getAllocatedPercentile( final double percentile ) {
+         return _allocated.getPercentile( percentile );
+      }
+
+      /**
+       * @return the slowest documents by wall time, slowest first
+       */
+      synchronized public List<DocumentTiming> getSlowestDocuments() {
+         final List<DocumentTiming> slowest = new ArrayList<>( _slowest );
+         slowest.sort( Comparator.comparingLong( DocumentTiming::getWallNanos ).reversed() );
+         return slowest;
+      }
+   }
+
+
+   /**
+    * Cost of an annotator processing one document.
+    */
+   static public final class DocumentTiming {
+      private final String _documentId;
+      private final long _wallNanos;
+      private final long _cpuNanos;
+      private final long _allocatedBytes;
+
+      private DocumentTiming( final String documentId, final long wallNanos, final long cpuNanos,
+                              final long allocatedBytes ) {
+         _documentId = documentId;
+         _wallNanos = wallNanos;
+         _cpuNanos = cpuNanos;
+         _allocatedBytes = allocatedBytes;
+      }
+
+      public String getDocumentId() {
+         return _documentId;
+      }
+
+      public long getWallNanos() {
+         return _wallNanos;
+      }
+
+      /**
+       * @return cpu time, or -1 if it could not be measured
+       */
+      public long getCpuNanos() {
+         return _cpuNanos;
+      }
+
+      /**
+       * @return allocated bytes, or -1 if they could not be measured
+       */
+      public long getAllocatedBytes() {
+         return _allocatedBytes;
+      }
+
+      @Override
+      public String toString() {
+         return String.format( "%s : wall %.2f ms, cpu %.2f ms, allocated %d KB", _documentId,
+               _wallNanos / 1e6, _cpuNanos / 1e6, _allocatedBytes / 1024 );
+      }
+   }
+
+
+   /**
+    * Log-linear histogram of non-negative values.  Values below 64 are counted exactly.  Above that every power of 2
+    * is divided into 32 buckets, so a percentile is within about 3% of the true value.
+    * Not thread safe.
+    */
+   static final class Histogram {
+      static private final int SUB_BUCKET_BITS = 5;
+      static private final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+      static private final int EXACT_LIMIT = SUB_BUCKETS * 2;
+      static private final int EXACT_BITS = SUB_BUCKET_BITS + 1;
+
+      private final long[] _counts = new long[ EXACT_LIMIT + (63 - EXACT_BITS) * SUB_BUCKETS ];
+      private long _count;
+      private long _sum;
+      private long _min = Long.MAX_VALUE;
+      private long _max;
+
+      void record( final long value ) {
+         final long positive = Math.max( 0, value );
+         _counts[ getIndex( positive ) ]++;
+         _count++;
+         _sum += positive;
+         _min = Math.min( _min, positive );
+         _max = Math.max( _max, positive );
+      }
+
+      long getCount() {
+         return _count;
+      }
+
+      double getMean() {
+         return _count == 0 ? 0 : (double)_sum / _count;
+      }
+
+      /**
+       * @param percentile percentile between 0 and 100
+       * @return the value at the percentile, the middle of its bucket and within the minimum and maximum
+       */
+      long getPercentile( final double percentile ) {
+         if ( _count == 0 ) {
+            return 0;
+         }
+         final long rank = Math.max( 1, (long)Math.ceil( Math.min( 100, percentile ) / 100 * _count ) );
+         if ( rank == 1 ) {
+            return _min;
+         } else if ( rank == _count ) {
+            return _max;
+         }
+         long seen = 0;
+         for ( int i = 0; i < _counts.length; i++ ) {
+            seen += _counts[ i ];
+            if ( seen >= rank ) {
+               return Math.max( _min, Math.min( _max, getMiddle( i ) ) );
+            }
+         }
+         return _max;
+      }
+
+      static private int getIndex( final long value ) {
+         if ( value < EXACT_LIMIT ) {
+            return (int)value;
+         }
+         final int exponent = 63 - Long.numberOfLeadingZeros( value );
+         final int subBucket = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+         return EXACT_LIMIT + (exponent - EXACT_BITS) * SUB_BUCKETS + subBucket;
+      }
+
+      static private long getMiddle( final int index ) {
+         if ( index < EXACT_LIMIT ) {
+            return index;
+         }
+         final int exponent = (index - EXACT_LIMIT) / SUB_BUCKETS + EXACT_BITS;
+         final int subBucket = (index - EXACT_LIMIT) % SUB_BUCKETS;
+         final int shift = exponent - SUB_BUCKET_BITS;
+         final long low = (long)(SUB_BUCKETS + subBucket) << shift;
+         return low + ((1L << shift) >>> 1);
+      }
+   }
+
+}
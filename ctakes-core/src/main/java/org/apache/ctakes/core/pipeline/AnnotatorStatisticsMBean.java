@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.pipeline;
+
+/**
+ * Management view of the {@link AnnotatorStatistics}, so that annotator timing can be watched with jconsole
+ * or other jmx clients.
+ */
+public interface AnnotatorStatisticsMBean {
+
+   /**
+    * @return names of the timed annotators in the order that they were first timed
+    */
+   public String[] getAnnotatorNames();
+
+   /**
+    * @return table of the document count and the percentiles of wall time, cpu time and allocation for each annotator
+    */
+   public String getReport();
+
+   /**
+    * @param annotatorName name of a timed annotator
+    * @param percentile    percentile between 0 and 100
+    * @return wall milliseconds per document at the percentile, or 0 if the annotator has not been timed
+    */
+   public double getWallMillisPercentile( String annotatorName, double percentile );
+
+   /**
+    * Discard all timing
+    */
+   public void reset();
+
+}
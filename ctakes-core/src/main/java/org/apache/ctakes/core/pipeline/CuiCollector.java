@@ -5,6 +5,7 @@ import org.apache.ctakes.core.util.DocumentIDAnnotationUtil;
 import org.apache.ctakes.core.util.OntologyConceptUtil;
 import org.apache.log4j.Logger;
 import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.fit.descriptor.OperationalProperties;
 import org.apache.uima.jcas.JCas;
 
 import java.util.*;
@@ -121,6 +122,7 @@ public enum CuiCollector {
    /**
     * Analysis Engine that stores collections of cuis by document id in the CuiCollector
     */
+   @OperationalProperties( multipleDeploymentAllowed = false )
    static public final class CuiCollectorEngine extends JCasAnnotator_ImplBase {
       @Override
       public void process( final JCas jCas ) {
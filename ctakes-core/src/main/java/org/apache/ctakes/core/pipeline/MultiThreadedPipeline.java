@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.pipeline;
+
+
+import org.apache.log4j.Logger;
+import org.apache.uima.UIMAException;
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.collection.CollectionReader;
+import org.apache.uima.resource.ResourceManager;
+import org.apache.uima.resource.metadata.OperationalProperties;
+import org.apache.uima.resource.metadata.ProcessingResourceMetaData;
+import org.apache.uima.util.CasPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a pipeline with a pool of cases, one collection reader thread and several replicas of the analysis engines.
+ * <p>
+ * The collection reader fills cases from the pool on the calling thread.  Each case is then processed by one of the
+ * replicas on a worker thread.  Components that do not allow multiple deployment, such as cas consumers and
+ * collectors, and every component after the first of them, are not replicated.  They run in a synchronized section,
+ * one document at a time and in pipeline order, but not necessarily in the order that documents were read.
+ * </p>
+ * <p>
+ * All replicas share one resource manager, so external resources are loaded once and used by all threads.
+ * Those resources and any static state of a replicated component must be safe for concurrent reads.
+ * A component that is not should declare {@code multipleDeploymentAllowed = false}.
+ * </p>
+ * Documents per second are logged at the end of the run, with the mean, median, 95th percentile and maximum time per
+ * document of every component and of each whole document, from being read until it is returned to the pool.
+ */
+final public class MultiThreadedPipeline {
+
+   static private final Logger LOGGER = Logger.getLogger( "MultiThreadedPipeline" );
+
+   private final CollectionReader _reader;
+   private final List<AnalysisEngineDescription> _descriptions;
+   private final int _threadCount;
+   // number of leading components that are replicated
+   private final int _replicatedCount;
+   private final List<String> _componentNames;
+   // nanoseconds per document of each component, each guarded by itself
+   private final AnnotatorStatistics.Histogram[] _componentNanos;
+   private final AnnotatorStatistics.Histogram _documentNanos = new AnnotatorStatistics.Histogram();
+   private final AtomicReference<Exception> _failure = new AtomicReference<>();
+
+   private MultiThreadedPipeline( final CollectionReader reader,
+                                  final List<AnalysisEngineDescription> descriptions,
+                                  final int threadCount ) {
+      _reader = reader;
+      _descriptions = descriptions;
+      _threadCount = threadCount;
+      int replicatedCount = 0;
+      while ( replicatedCount < descriptions.size() && isReplicable( descriptions.get( replicatedCount ) ) ) {
+         replicatedCount++;
+      }
+      _replicatedCount = replicatedCount;
+      _componentNames = new ArrayList<>( descriptions.size() );
+      _componentNanos = new AnnotatorStatistics.Histogram[ descriptions.size() ];
+      for ( int i = 0; i < descriptions.size(); i++ ) {
+         _componentNames.add( getComponentName( descriptions.get( i ) ) );
+         _componentNanos[ i ] = new AnnotatorStatistics.Histogram();
+      }
+   }
+
+   /**
+    * Run the pipeline over every document of the collection reader.
+    *
+    * @param reader       collection reader, used only by the calling thread
+    * @param threadCount  number of analysis replicas and worker threads
+    * @param descriptions ae and cc descriptions in pipeline order
+    * @throws IOException   if the pipeline could not be run
+    * @throws UIMAException if the pipeline could not be run
+    */
+   static public void runPipeline( final CollectionReader reader,
+                                   final int threadCount,
+                                   final List<AnalysisEngineDescription> descriptions )
+         throws IOException, UIMAException {
+      new MultiThreadedPipeline( reader, descriptions, Math.max( 1, threadCount ) ).run();
+   }
+
+   /**
+    * @param description ae or cc description
+    * @return the implementation class name, or for an aggregate the name in its metadata
+    */
+   static private String getComponentName( final AnalysisEngineDescription description ) {
+      final String name = description.getAnnotatorImplementationName();
+      if ( name != null && !name.isEmpty() ) {
+         return name;
+      }
+      return description.getAnalysisEngineMetaData().getName();
+   }
+
+   /**
+    * @param description ae or cc description
+    * @return true if the component may be deployed more than once
+    */
+   static private boolean isReplicable( final AnalysisEngineDescription description ) {
+      final OperationalProperties properties
+            = description.getAnalysisEngineMetaData().getOperationalProperties();
+      return properties == null || properties.isMultipleDeploymentAllowed();
+   }
+
+   private void run() throws IOException, UIMAException {
+      final ResourceManager resourceManager = UIMAFramework.newDefaultResourceManager();
+      final BlockingQueue<List<AnalysisEngine>> replicas = new ArrayBlockingQueue<>( _threadCount );
+      final List<List<AnalysisEngine>> allReplicas = new ArrayList<>( _threadCount );
+      final List<AnalysisEngine> consumers = new ArrayList<>();
+      final ExecutorService executor = Executors.newFixedThreadPool( _threadCount );
+      try {
+         LOGGER.info( "Creating " + _threadCount + " replicas of " + _replicatedCount + " components" );
+         for ( int i = 0; i < _threadCount; i++ ) {
+            final List<AnalysisEngine> replica = createEngines( 0, _replicatedCount, resourceManager );
+            allReplicas.add( replica );
+            replicas.add( replica );
+         }
+         consumers.addAll( createEngines( _replicatedCount, _descriptions.size(), resourceManager ) );
+         if ( !consumers.isEmpty() ) {
+            LOGGER.info( "Running " + String.join( ", ", _componentNames.subList( _replicatedCount,
+                  _componentNames.size() ) ) + " one document at a time" );
+         }
+         final Collection<ProcessingResourceMetaData> metaData = new ArrayList<>();
+         metaData.add( _reader.getProcessingResourceMetaData() );
+         allReplicas.get( 0 ).forEach( e -> metaData.add( e.getAnalysisEngineMetaData() ) );
+         consumers.forEach( e -> metaData.add( e.getAnalysisEngineMetaData() ) );
+         // one case for each replica to process and one for each to be filled by the reader
+         final CasPool casPool = new CasPool( _threadCount * 2, metaData, null, resourceManager );
+         final CAS firstCas = casPool.getCas( 0 );
+         _reader.typeSystemInit( firstCas.getTypeSystem() );
+         casPool.releaseCas( firstCas );
+
+         final long start = System.nanoTime();
+         while ( _failure.get() == null && _reader.hasNext() ) {
+            final CAS cas = casPool.getCas( 0 );
+            try {
+               _reader.getNext( cas );
+            } catch ( IOException | UIMAException | RuntimeException multE ) {
+               casPool.releaseCas( cas );
+               throw multE;
+            }
+            final long readNanos = System.nanoTime();
+            executor.execute( () -> process( cas, readNanos, replicas, consumers, casPool ) );
+         }
+         executor.shutdown();
+         awaitTermination( executor );
+         final Exception failure = _failure.get();
+         if ( failure != null ) {
+            throw new AnalysisEngineProcessException( failure );
+         }
+         for ( List<AnalysisEngine> replica : allReplicas ) {
+            for ( AnalysisEngine engine : replica ) {
+               engine.collectionProcessComplete();
+            }
+         }
+         for ( AnalysisEngine engine : consumers ) {
+            engine.collectionProcessComplete();
+         }
+         logStatistics( System.nanoTime() - start );
+      } finally {
+         executor.shutdownNow();
+         allReplicas.forEach( r -> r.forEach( AnalysisEngine::destroy ) );
+         consumers.forEach( AnalysisEngine::destroy );
+      }
+   }
+
+   /**
+    * @return engines for the descriptions in the range, sharing the resource manager
+    * @throws UIMAException if an engine could not be created
+    */
+   private List<AnalysisEngine> createEngines( final int from, final int to, final ResourceManager resourceManager )
+         throws UIMAException {
+      final List<AnalysisEngine> engines = new ArrayList<>( to - from );
+      for ( int i = from; i < to; i++ ) {
+         engines.add( UIMAFramework.produceAnalysisEngine( _descriptions.get( i ), resourceManager, null ) );
+      }
+      return engines;
+   }
+
+   /**
+    * Process the case with a free replica, then with the consumers, and return it to the pool.
+    * Runs on a worker thread.
+    *
+    * @param readNanos time at which the document was read
+    */
+   private void process( final CAS cas,
+                         final long readNanos,
+                         final BlockingQueue<List<AnalysisEngine>> replicas,
+                         final List<AnalysisEngine> consumers,
+                         final CasPool casPool ) {
+      try {
+         if ( _failure.get() != null ) {
+            return;
+         }
+         // there are as many replicas as threads, so one is always free
+         final List<AnalysisEngine> replica = replicas.take();
+         try {
+            process( cas, replica, 0 );
+         } finally {
+            replicas.put( replica );
+         }
+         synchronized ( consumers ) {
+            process( cas, consumers, _replicatedCount );
+         }
+         record( _documentNanos, System.nanoTime() - readNanos );
+      } catch ( AnalysisEngineProcessException | RuntimeException multE ) {
+         if ( _failure.compareAndSet( null, multE ) ) {
+            LOGGER.error( "Could not process document : " + multE.getMessage() );
+         }
+      } catch ( InterruptedException intE ) {
+         Thread.currentThread().interrupt();
+         _failure.compareAndSet( null, intE );
+      } finally {
+         casPool.releaseCas( cas );
+      }
+   }
+
+   /**
+    * Process the case with each engine in order, timing each.
+    *
+    * @param firstIndex pipeline index of the first engine
+    */
+   private void process( final CAS cas, final List<AnalysisEngine> engines, final int firstIndex )
+         throws AnalysisEngineProcessException {
+      for ( int i = 0; i < engines.size(); i++ ) {
+         final long start = System.nanoTime();
+         engines.get( i ).process( cas );
+         record( _componentNanos[ firstIndex + i ], System.nanoTime() - start );
+      }
+   }
+
+   static private void record( final AnnotatorStatistics.Histogram histogram, final long nanos ) {
+      synchronized ( histogram ) {
+         histogram.record( nanos );
+      }
+   }
+
+   static private void awaitTermination( final ExecutorService executor ) throws AnalysisEngineProcessException {
+      try {
+         while ( !executor.awaitTermination( 1, TimeUnit.MINUTES ) ) {
+            LOGGER.debug( "Waiting for documents to finish processing ..." );
+         }
+      } catch ( InterruptedException intE ) {
+         Thread.currentThread().interrupt();
+         throw new AnalysisEngineProcessException( intE );
+      }
+   }
+
+   /**
+    * Called after all workers have finished, so the histograms are no longer updated.
+    */
+   private void logStatistics( final long elapsedNanos ) {
+      final long documentCount = _documentNanos.getCount();
+      final double seconds = elapsedNanos / 1e9;
+      LOGGER.info( String.format( "Processed %d documents in %.1f seconds with %d threads, %.2f documents per second",
+            documentCount, seconds, _threadCount, seconds > 0 ? documentCount / seconds : 0d ) );
+      if ( documentCount == 0 ) {
+         return;
+      }
+      LOGGER.info( "ms per document    mean   median      p95      max" );
+      for ( int i = 0; i < _componentNames.size(); i++ ) {
+         logLatency( _componentNanos[ i ], _componentNames.get( i ) );
+      }
+      logLatency( _documentNanos, "Whole document" );
+   }
+
+   static private void logLatency( final AnnotatorStatistics.Histogram histogram, final String name ) {
+      LOGGER.info( String.format( "         %8.2f %8.2f %8.2f %8.2f : %s",
+            histogram.getMean() / 1e6, histogram.getPercentile( 50 ) / 1e6,
+            histogram.getPercentile( 95 ) / 1e6, histogram.getPercentile( 100 ) / 1e6, name ) );
+   }
+
+}
@@ -1,6 +1,7 @@
 package org.apache.ctakes.core.pipeline;
 
 
+import org.apache.ctakes.core.ae.StartFinishTimer;
 import org.apache.ctakes.core.cc.XmiWriterCasConsumerCtakes;
 import org.apache.ctakes.core.cr.FileTreeReader;
 import org.apache.ctakes.core.util.PropertyAeFactory;
@@ -19,7 +20,9 @@ import org.apache.uima.resource.ResourceInitializationException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Creates a pipeline using a small set of simple methods.
@@ -38,6 +41,9 @@ final public class PipelineBuilder {
    private final List<String> _aeNameList;
    private final List<AnalysisEngineDescription> _descList;
    private CollectionReader _reader;
+   private int _threadCount = 1;
+   private boolean _instrumented;
+   private String _instrumentReportPath = "";
 
    public PipelineBuilder() {
       _aeNameList = new ArrayList<>();
@@ -143,6 +149,49 @@ final public class PipelineBuilder {
       return this;
    }
 
+   /**
+    * Run the pipeline with a pool of cases and several replicas of the analysis engines.
+    * Use of this method is not order-specific.
+    *
+    * @param threadCount number of threads processing documents.  1 runs the pipeline on the calling thread.
+    * @return this PipelineBuilder
+    * @see MultiThreadedPipeline
+    */
+   public PipelineBuilder threads( final int threadCount ) {
+      if ( threadCount < 1 ) {
+         LOGGER.warn( "Thread count " + threadCount + " is less than 1, using 1." );
+      }
+      _threadCount = Math.max( 1, threadCount );
+      return this;
+   }
+
+   /**
+    *
+    * @return the number of threads processing documents
+    */
+   public int getThreadCount() {
+      return _threadCount;
+   }
+
+   /**
+    * Measure the wall time, cpu time and allocated bytes of every ae and cc for each document.
+    * Statistics are available through jmx while the pipeline runs, and are logged at the end of the run.
+    * Use of this method is not order-specific.
+    *
+    * @param reportPath   path of a file to which statistics and the slowest documents are written at the end of the run.
+    *                     May be empty.
+    * @param slowestCount number of slowest documents to report for each ae or cc
+    * @return this PipelineBuilder
+    * @see AnnotatorStatistics
+    */
+   public PipelineBuilder instrument( final String reportPath, final int slowestCount ) {
+      _instrumented = true;
+      _instrumentReportPath = reportPath == null ? "" : reportPath;
+      AnnotatorStatistics.getInstance().setSlowestCount( slowestCount );
+      AnnotatorStatistics.getInstance().registerMBean();
+      return this;
+   }
+
    /**
     *
     * @return an ordered list of the annotation engines in the pipeline
@@ -201,6 +250,7 @@ final public class PipelineBuilder {
 
    /**
     * Run the pipeline using some specified collection reader.
+    * If more than one thread has been specified the pipeline is run by a {@link MultiThreadedPipeline}.
     * Use of this method is order-specific.
     *
     * @return this PipelineBuilder
@@ -212,10 +262,16 @@ final public class PipelineBuilder {
          LOGGER.error( "No Collection Reader specified." );
          return this;
       }
-      final AggregateBuilder builder = new AggregateBuilder();
-      _descList.forEach( builder::add );
-      final AnalysisEngineDescription desc = builder.createAggregateDescription();
-      SimplePipeline.runPipeline( _reader, desc );
+      final List<AnalysisEngineDescription> descriptions = getRunDescriptions();
+      if ( _threadCount > 1 ) {
+         MultiThreadedPipeline.runPipeline( _reader, _threadCount, descriptions );
+      } else {
+         final AggregateBuilder builder = new AggregateBuilder();
+         descriptions.forEach( builder::add );
+         final AnalysisEngineDescription desc = builder.createAggregateDescription();
+         SimplePipeline.runPipeline( _reader, desc );
+      }
+      reportStatistics();
       return this;
    }
 
@@ -236,11 +292,38 @@ final public class PipelineBuilder {
       final JCas jcas = JCasFactory.createJCas();
       jcas.setDocumentText( text );
       final AggregateBuilder builder = new AggregateBuilder();
-      _descList.forEach( builder::add );
+      getRunDescriptions().forEach( builder::add );
       final AnalysisEngineDescription desc = builder.createAggregateDescription();
       SimplePipeline.runPipeline( jcas, desc );
+      reportStatistics();
       return this;
    }
 
+   /**
+    * @return descriptions of the ae and cc components, wrapped with timers if the pipeline is instrumented
+    * @throws ResourceInitializationException if a timer could not be created
+    */
+   private List<AnalysisEngineDescription> getRunDescriptions() throws ResourceInitializationException {
+      if ( !_instrumented ) {
+         return _descList;
+      }
+      final List<AnalysisEngineDescription> descriptions = new ArrayList<>( _descList.size() );
+      final Map<String, Integer> nameCounts = new HashMap<>();
+      for ( int i = 0; i < _descList.size(); i++ ) {
+         final String name = _aeNameList.get( i );
+         final int count = nameCounts.merge( name, 1, Integer::sum );
+         // the same component may be in the pipeline more than once
+         final String timerName = count == 1 ? name : name + " #" + count;
+         descriptions.add( StartFinishTimer.createTimedDescription( _descList.get( i ), timerName ) );
+      }
+      return descriptions;
+   }
+
+   private void reportStatistics() {
+      if ( _instrumented ) {
+         AnnotatorStatistics.getInstance().writeReport( _instrumentReportPath );
+      }
+   }
+
 
 }
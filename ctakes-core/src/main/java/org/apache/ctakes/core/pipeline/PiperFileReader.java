@@ -35,6 +35,11 @@ import java.util.regex.Pattern;
  * readFiles <i>input_directory</i>
  *    <i>input_directory</i> can be empty if
  *    {@link FilesInDirectoryCollectionReader#PARAM_INPUTDIR} ("InputDirectory") was specified
+ * threads <i>number_of_threads</i>
+ *    run the pipeline with several threads, see {@link MultiThreadedPipeline}
+ * instrument <i>report_file</i> <i>slowest_document_count</i>
+ *    measure each ae and cc for each document, see {@link PipelineBuilder#instrument(String, int)}.
+ *    Both parameters are optional.
  * add <i>ae_or_cc_class_name ae_parameter_name=ae_parameter_value e_parameter_name<=ae_parameter_value</i> ...
  * addLogged <i>ae_or_cc_class_name ae_parameter_name=ae_parameter_value e_parameter_name=ae_parameter_value</i> ...
  * addDescription <i>ae_or_cc_class_name</i>
@@ -80,6 +85,7 @@ final public class PiperFileReader {
              "template.filler" };
 
    static private final Object[] EMPTY_OBJECT_ARRAY = new Object[ 0 ];
+   static private final int DEFAULT_SLOWEST_COUNT = 10;
 
    static private final Pattern SPACE_PATTERN = Pattern.compile( "\\s+" );
    static private final Pattern KEY_VALUE_PATTERN = Pattern.compile( "=" );
@@ -176,6 +182,16 @@ final public class PiperFileReader {
                _builder.readFiles( parameter );
             }
             break;
+         case "threads":
+            try {
+               _builder.threads( Integer.parseInt( parameter ) );
+            } catch ( NumberFormatException nfE ) {
+               throw new ResourceInitializationException( "Invalid thread count " + parameter, EMPTY_OBJECT_ARRAY );
+            }
+            break;
+         case "instrument":
+            instrument( parameter );
+            break;
          case "add":
             if ( hasParameters( parameter ) ) {
                final String[] component_parameters = splitFromParameters( parameter );
@@ -227,6 +243,22 @@ final public class PiperFileReader {
       }
    }
 
+   /**
+    * @param parameter optional report file path followed by an optional number of slowest documents
+    * @throws ResourceInitializationException if the number of slowest documents is not a number
+    */
+   private void instrument( final String parameter ) throws ResourceInitializationException {
+      final String[] values = parameter.isEmpty() ? new String[ 0 ] : SPACE_PATTERN.split( parameter );
+      final String reportPath = values.length > 0 ? values[ 0 ] : "";
+      try {
+         final int slowestCount = values.length > 1 ? Integer.parseInt( values[ 1 ] ) : DEFAULT_SLOWEST_COUNT;
+         _builder.instrument( reportPath, slowestCount );
+      } catch ( NumberFormatException nfE ) {
+         throw new ResourceInitializationException( "Invalid slowest document count " + values[ 1 ],
+               EMPTY_OBJECT_ARRAY );
+      }
+   }
+
    /**
     * @param className fully-specified or simple name of an ae or cc component class
     * @return discovered class for ae or cc
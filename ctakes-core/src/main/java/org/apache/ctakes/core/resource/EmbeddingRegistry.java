@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.resource;
+
+import org.apache.ctakes.utils.distsem.EmbeddingStore;
+import org.apache.ctakes.utils.distsem.WordEmbeddings;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide registry of word embeddings that are loaded once and shared by every feature extractor
+ * that uses the same embedding file.
+ * <p>
+ * A binary embedding file written by {@link EmbeddingStore#convert(InputStream, File)} is used when the location
+ * ends with {@value EmbeddingStore#FILE_EXTENSION} or when there is one next to the text file,
+ * with the same name and the {@value EmbeddingStore#FILE_EXTENSION} extension.
+ * A binary file is memory-mapped, or read into one buffer when it is in a jar.
+ * Otherwise the text file is converted to a temporary binary file, which is mapped.
+ * </p>
+ * Shared embeddings are read only.
+ */
+public enum EmbeddingRegistry {
+   INSTANCE;
+
+   static public EmbeddingRegistry getInstance() {
+      return INSTANCE;
+   }
+
+   static private final Logger LOGGER = Logger.getLogger( "EmbeddingRegistry" );
+
+   private final Map<String, EmbeddingEntry> _embeddings = new ConcurrentHashMap<>();
+
+   /**
+    * @param location path of the text or binary embedding file, as used by {@link FileLocator#getAsStream(String)}
+    * @return the shared embeddings for the location, loaded if they have not been loaded before
+    * @throws IOException if the embedding file cannot be read
+    */
+   public WordEmbeddings getEmbeddings( final String location ) throws IOException {
+      final String resolvedLocation = resolveLocation( location );
+      final EmbeddingEntry entry
+            = _embeddings.computeIfAbsent( resolvedLocation, k -> new EmbeddingEntry( location, resolvedLocation ) );
+      return entry.getEmbeddings();
+   }
+
+   /**
+    * @return the location with the binary embedding file extension in place of its own extension
+    */
+   static private String getBinaryLocation( final String location ) {
+      if ( location.endsWith( EmbeddingStore.FILE_EXTENSION ) ) {
+         return location;
+      }
+      final int dot = location.lastIndexOf( '.' );
+      if ( dot > location.lastIndexOf( '/' ) && dot > location.lastIndexOf( File.separatorChar ) ) {
+         return location.substring( 0, dot ) + EmbeddingStore.FILE_EXTENSION;
+      }
+      return location + EmbeddingStore.FILE_EXTENSION;
+   }
+
+   /**
+    * @return the classpath url of the location as it is found by the FileLocator, or else its canonical file path
+    */
+   static private String resolveLocation( final String location ) {
+      final URL url = FileLocator.class.getClassLoader().getResource( location );
+      if ( url != null ) {
+         return url.toString();
+      }
+      try {
+         return new File( location ).getCanonicalPath();
+      } catch ( IOException ioE ) {
+         return new File( location ).getAbsolutePath();
+      }
+   }
+
+   /**
+    * Looks for the binary embedding file in the classpath and then in the file system,
+    * in the order used by {@link FileLocator#getAsStream(String)}.
+    *
+    * @return binary embeddings at the location, or null if there is no binary embedding file at the location
+    */
+   static private EmbeddingStore loadBinary( final String location ) throws IOException {
+      final URL url = FileLocator.class.getClassLoader().getResource( location );
+      if ( url != null && "file".equals( url.getProtocol() ) ) {
+         try {
+            return EmbeddingStore.map( new File( url.toURI() ) );
+         } catch ( URISyntaxException usE ) {
+            throw new IOException( usE );
+         }
+      }
+      if ( url != null ) {
+         // a resource in a jar can't be mapped
+         try ( InputStream stream = url.openStream() ) {
+            return EmbeddingStore.read( stream );
+         }
+      }
+      final File file = new File( location );
+      return file.isFile() ? EmbeddingStore.map( file ) : null;
+   }
+
+
+   /**
+    * Embeddings that are loaded once, by the first request for them.
+    */
+   static private final class EmbeddingEntry {
+      private final String _location;
+      private final String _resolvedLocation;
+      private WordEmbeddings _embeddings;
+
+      private EmbeddingEntry( final String location, final String resolvedLocation ) {
+         _location = location;
+         _resolvedLocation = resolvedLocation;
+      }
+
+      synchronized private WordEmbeddings getEmbeddings() throws IOException {
+         if ( _embeddings != null ) {
+            LOGGER.info( "Sharing word embeddings loaded from " + _resolvedLocation );
+            return _embeddings;
+         }
+         final long start = System.nanoTime();
+         final String binaryLocation = getBinaryLocation( _location );
+         EmbeddingStore store = loadBinary( binaryLocation );
+         final String source;
+         if ( store != null ) {
+            source = binaryLocation;
+         } else {
+            try ( InputStream stream = FileLocator.getAsStream( _location ) ) {
+               store = EmbeddingStore.readText( stream );
+            }
+            source = _resolvedLocation;
+         }
+         _embeddings = new WordEmbeddings( store );
+         LOGGER.info( "Loaded " + store.size() + " word embeddings of " + store.getDimensionality()
+                      + " dimensions from " + source + " in " + (System.nanoTime() - start) / 1000000 + " ms" );
+         return _embeddings;
+      }
+   }
+
+}
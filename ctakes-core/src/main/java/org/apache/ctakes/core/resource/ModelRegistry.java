@@ -0,0 +1,311 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.resource;
+
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Process-wide registry of immutable models, such as opennlp maxent models, that are loaded once and shared by every
+ * annotator that uses the same model file.
+ * <p>
+ * Models are keyed by model class and resolved location.  The size and last modified time of the model file are
+ * checked on every request, and a model whose file has changed is loaded again and replaces the stale model.
+ * The model file is only read, and its checksum computed, when the model is loaded.
+ * A shared model must not be changed by its users.  Each annotator creates its own tagger, chunker or decoder
+ * over the shared model, as those hold state while they process.
+ * </p>
+ * The load time, file size and approximate heap growth of each model are logged when it is loaded
+ * and are available from {@link #getModelInfos()}.
+ */
+public enum ModelRegistry {
+   INSTANCE;
+
+   static public ModelRegistry getInstance() {
+      return INSTANCE;
+   }
+
+   static private final Logger LOGGER = Logger.getLogger( "ModelRegistry" );
+
+   /**
+    * Creates a model from the contents of a model file.
+    *
+    * @param <M> type of model
+    */
+   @FunctionalInterface
+   public interface ModelLoader<M> {
+      M load( InputStream stream ) throws IOException;
+   }
+
+   private final Map<String, ModelEntry> _models = new ConcurrentHashMap<>();
+
+   /**
+    * @param location   path of the model file, as used by {@link FileLocator#getAsStream(String)}
+    * @param modelClass class of the model
+    * @param loader     creates the model from the file contents, for instance a model constructor
+    * @param <M>        type of model
+    * @return the shared model for the location, loaded if it has not been loaded before or if the file has changed
+    * @throws IOException if the model file cannot be read or the model cannot be loaded
+    */
+   public <M> M getModel( final String location,
+                          final Class<M> modelClass,
+                          final ModelLoader<? extends M> loader ) throws IOException {
+      final URL url = FileLocator.class.getClassLoader().getResource( location );
+      final String resolvedLocation = resolveLocation( location, url );
+      final FileStamp stamp = getFileStamp( location, url );
+      final ModelEntry entry = _models.compute( modelClass.getName() + '|' + resolvedLocation,
+            ( key, oldEntry ) -> oldEntry != null && oldEntry._stamp.equals( stamp )
+                                 ? oldEntry
+                                 : new ModelEntry( modelClass.getName(), location, resolvedLocation, stamp ) );
+      return modelClass.cast( entry.getModel( loader ) );
+   }
+
+   /**
+    * @return information on every model that has been loaded
+    */
+   public Collection<ModelInfo> getModelInfos() {
+      final Collection<ModelInfo> infos = new ArrayList<>( _models.size() );
+      for ( ModelEntry entry : _models.values() ) {
+         final ModelInfo info = entry.getInfo();
+         if ( info != null ) {
+            infos.add( info );
+         }
+      }
+      return infos;
+   }
+
+   /**
+    * @param url classpath url of the location, or null if it is not in the classpath
+    * @return the classpath url of the location as it is found by the FileLocator, or else its canonical file path
+    */
+   static private String resolveLocation( final String location, final URL url ) {
+      if ( url != null ) {
+         return url.toString();
+      }
+      try {
+         return new File( location ).getCanonicalPath();
+      } catch ( IOException ioE ) {
+         return new File( location ).getAbsolutePath();
+      }
+   }
+
+   /**
+    * @param url classpath url of the location, or null if it is not in the classpath
+    * @return size and last modified time of the model file, without reading it
+    * @throws IOException if a model in a jar cannot be opened
+    */
+   static private FileStamp getFileStamp( final String location, final URL url ) throws IOException {
+      File file = null;
+      if ( url == null ) {
+         file = new File( location );
+      } else if ( "file".equals( url.getProtocol() ) ) {
+         try {
+            file = new File( url.toURI() );
+         } catch ( URISyntaxException usE ) {
+            throw new IOException( usE );
+         }
+      }
+      if ( file != null ) {
+         return new FileStamp( file.length(), file.lastModified() );
+      }
+      final URLConnection connection = url.openConnection();
+      return new FileStamp( connection.getContentLengthLong(), connection.getLastModified() );
+   }
+
+   static private byte[] readFully( final InputStream stream ) throws IOException {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream( Math.max( 8192, stream.available() ) );
+      final byte[] buffer = new byte[ 65536 ];
+      int count;
+      while ( (count = stream.read( buffer )) >= 0 ) {
+         bytes.write( buffer, 0, count );
+      }
+      return bytes.toByteArray();
+   }
+
+   static private long getUsedHeap() {
+      final Runtime runtime = Runtime.getRuntime();
+      return runtime.totalMemory() - runtime.freeMemory();
+   }
+
+
+   /**
+    * Size and last modified time of a model file, compared to find a changed file without reading it.
+    */
+   static private final class FileStamp {
+      private final long _fileBytes;
+      private final long _lastModified;
+
+      private FileStamp( final long fileBytes, final long lastModified ) {
+         _fileBytes = fileBytes;
+         _lastModified = lastModified;
+      }
+
+      @Override
+      public boolean equals( final Object other ) {
+         return other instanceof FileStamp
+                && ((FileStamp)other)._fileBytes == _fileBytes
+                && ((FileStamp)other)._lastModified == _lastModified;
+      }
+
+      @Override
+      public int hashCode() {
+         return Long.hashCode( _fileBytes ) * 31 + Long.hashCode( _lastModified );
+      }
+   }
+
+
+   /**
+    * A model that is loaded once, by the first request for it.
+    */
+   static private final class ModelEntry {
+      private final String _modelClassName;
+      private final String _fileLocation;
+      private final String _location;
+      private final FileStamp _stamp;
+      private String _checksum;
+      private long _fileBytes;
+      private Object _model;
+      private long _loadMillis;
+      private long _heapBytes;
+      private int _requestCount;
+
+      private ModelEntry( final String modelClassName, final String fileLocation, final String location,
+                          final FileStamp stamp ) {
+         _modelClassName = modelClassName;
+         _fileLocation = fileLocation;
+         _location = location;
+         _stamp = stamp;
+      }
+
+      synchronized private Object getModel( final ModelLoader<?> loader ) throws IOException {
+         _requestCount++;
+         if ( _model != null ) {
+            LOGGER.info( "Sharing " + _modelClassName + " loaded from " + _location );
+            return _model;
+         }
+         final byte[] bytes;
+         try ( InputStream stream = FileLocator.getAsStream( _fileLocation ) ) {
+            bytes = readFully( stream );
+         }
+         final CRC32 crc = new CRC32();
+         crc.update( bytes );
+         _checksum = Long.toHexString( crc.getValue() );
+         _fileBytes = bytes.length;
+         final long heapBefore = getUsedHeap();
+         final long start = System.nanoTime();
+         _model = loader.load( new ByteArrayInputStream( bytes ) );
+         _loadMillis = (System.nanoTime() - start) / 1000000;
+         // other threads may be allocating, so this is only an estimate
+         _heapBytes = Math.max( 0, getUsedHeap() - heapBefore );
+         LOGGER.info( "Loaded " + _modelClassName + " from " + _location + " in " + _loadMillis + " ms.  File "
+                      + _fileBytes / 1024 + " KB, heap grew about " + _heapBytes / 1024 + " KB" );
+         return _model;
+      }
+
+      synchronized private ModelInfo getInfo() {
+         if ( _model == null ) {
+            return null;
+         }
+         return new ModelInfo( _modelClassName, _location, _checksum, _fileBytes, _loadMillis, _heapBytes,
+               _requestCount );
+      }
+   }
+
+
+   /**
+    * Load statistics of a model.
+    */
+   static public final class ModelInfo {
+      private final String _modelClassName;
+      private final String _location;
+      private final String _checksum;
+      private final long _fileBytes;
+      private final long _loadMillis;
+      private final long _heapBytes;
+      private final int _requestCount;
+
+      private ModelInfo( final String modelClassName, final String location, final String checksum,
+                         final long fileBytes, final long loadMillis, final long heapBytes,
+                         final int requestCount ) {
+         _modelClassName = modelClassName;
+         _location = location;
+         _checksum = checksum;
+         _fileBytes = fileBytes;
+         _loadMillis = loadMillis;
+         _heapBytes = heapBytes;
+         _requestCount = requestCount;
+      }
+
+      public String getModelClassName() {
+         return _modelClassName;
+      }
+
+      /**
+       * @return resolved location of the model file
+       */
+      public String getLocation() {
+         return _location;
+      }
+
+      /**
+       * @return crc32 of the model file contents, in hex
+       */
+      public String getChecksum() {
+         return _checksum;
+      }
+
+      public long getFileBytes() {
+         return _fileBytes;
+      }
+
+      public long getLoadMillis() {
+         return _loadMillis;
+      }
+
+      /**
+       * @return growth of the used heap while the model was loaded, an estimate of the resident size of the model
+       */
+      public long getHeapBytes() {
+         return _heapBytes;
+      }
+
+      /**
+       * @return number of times that the model has been requested, including the request that loaded it
+       */
+      public int getRequestCount() {
+         return _requestCount;
+      }
+
+      @Override
+      public String toString() {
+         return _modelClassName + " " + _location + " crc " + _checksum + " : loaded in " + _loadMillis + " ms, file "
+                + _fileBytes + " bytes, heap about " + _heapBytes + " bytes, requested " + _requestCount + " times";
+      }
+   }
+
+}
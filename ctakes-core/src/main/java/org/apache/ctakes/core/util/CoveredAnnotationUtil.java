@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.util;
+
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects the annotations covered by every annotation of a covering type with one ordered pass over the annotation
+ * index, instead of a JCasUtil.selectCovered for each covering annotation.
+ */
+final public class CoveredAnnotationUtil {
+
+   private CoveredAnnotationUtil() {
+   }
+
+   /**
+    * The covered lists are those returned by JCasUtil.selectCovered for each covering annotation, in index order.
+    *
+    * @param jCas         ye olde ...
+    * @param coveringType type of covering annotation, e.g. Sentence
+    * @param coveredType  type of covered annotation, e.g. BaseToken
+    * @param <C>          covering annotation type
+    * @param <T>          covered annotation type
+    * @return map of each covering annotation, in index order, to the annotations that it covers, in index order
+    */
+   static public <C extends Annotation, T extends Annotation> Map<C, List<T>> selectCoveredLists(
+         final JCas jCas, final Class<C> coveringType, final Class<T> coveredType ) {
+      return selectCoveredLists( JCasUtil.select( jCas, coveringType ), JCasUtil.select( jCas, coveredType ) );
+   }
+
+   /**
+    * @param coveringAnnotations covering annotations, sorted by begin offset as they are in the annotation index
+    * @param coveredAnnotations  covered annotations, sorted by begin offset as they are in the annotation index
+    * @param <C>                 covering annotation type
+    * @param <T>                 covered annotation type
+    * @return map of each covering annotation to the annotations that begin and end within it, in the given order
+    */
+   static public <C extends Annotation, T extends Annotation> Map<C, List<T>> selectCoveredLists(
+         final Collection<C> coveringAnnotations, final Collection<T> coveredAnnotations ) {
+      final List<T> covered = new ArrayList<>( coveredAnnotations );
+      final int[] begins = new int[ covered.size() ];
+      final int[] ends = new int[ covered.size() ];
+      for ( int i = 0; i < begins.length; i++ ) {
+         begins[ i ] = covered.get( i ).getBegin();
+         ends[ i ] = covered.get( i ).getEnd();
+      }
+      final Map<C, List<T>> coveredLists = new LinkedHashMap<>( coveringAnnotations.size() * 2 );
+      // first covered annotation that does not begin before the current covering annotation.
+      // Covering begins ascend, so this only moves forward.
+      int first = 0;
+      for ( C covering : coveringAnnotations ) {
+         final int begin = covering.getBegin();
+         final int end = covering.getEnd();
+         while ( first < begins.length && begins[ first ] < begin ) {
+            first++;
+         }
+         final List<T> coveredList = new ArrayList<>();
+         for ( int i = first; i < begins.length && begins[ i ] <= end; i++ ) {
+            if ( ends[ i ] <= end ) {
+               coveredList.add( covered.get( i ) );
+            }
+         }
+         coveredLists.put( covering, coveredList );
+      }
+      return coveredLists;
+   }
+
+}
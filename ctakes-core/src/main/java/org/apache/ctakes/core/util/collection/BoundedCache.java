@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.util.collection;
+
+import org.apache.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded cache that evicts the least recently used or the oldest entry when full.
+ * Keeps counts of hits and misses so that the usefulness of the cache can be reported,
+ * and can register itself with the platform mbean server to export those counts.
+ * Thread safe.
+ */
+final public class BoundedCache<K, V> implements BoundedCacheMBean {
+
+   static private final Logger LOGGER = Logger.getLogger( "BoundedCache" );
+
+   static public final String MBEAN_DOMAIN = "org.apache.ctakes";
+
+   /**
+    * Which entry to remove when the cache is full
+    */
+   public enum EvictionPolicy {
+      // least recently used
+      LRU,
+      // first in, first out
+      FIFO;
+
+      /**
+       * @param name          name of a policy, case insensitive
+       * @param defaultPolicy policy to use if the name is null or unknown
+       * @return the policy with the given name
+       */
+      static public EvictionPolicy getPolicy( final String name, final EvictionPolicy defaultPolicy ) {
+         if ( name == null ) {
+            return defaultPolicy;
+         }
+         for ( EvictionPolicy policy : values() ) {
+            if ( policy.name().equalsIgnoreCase( name.trim() ) ) {
+               return policy;
+            }
+         }
+         LOGGER.warn( "Unknown cache eviction policy " + name + " , using " + defaultPolicy );
+         return defaultPolicy;
+      }
+   }
+
+   final private int _maxSize;
+   final private EvictionPolicy _evictionPolicy;
+   final private Map<K, V> _cache;
+   final private AtomicLong _hitCount = new AtomicLong();
+   final private AtomicLong _missCount = new AtomicLong();
+
+   /**
+    * @param maxSize maximum number of entries to keep.  If 0 or less then nothing is cached but misses are counted
+    */
+   public BoundedCache( final int maxSize ) {
+      this( maxSize, EvictionPolicy.LRU );
+   }
+
+   /**
+    * @param maxSize        maximum number of entries to keep.  If 0 or less then nothing is cached but misses are counted
+    * @param evictionPolicy which entry to remove when the cache is full
+    */
+   public BoundedCache( final int maxSize, final EvictionPolicy evictionPolicy ) {
+      _maxSize = Math.max( 0, maxSize );
+      _evictionPolicy = evictionPolicy;
+      // with access order the iteration order is least to most recently used, otherwise it is insertion order
+      _cache = new LinkedHashMap<K, V>( Math.min( 1024, _maxSize ) * 4 / 3 + 1, 0.75f,
+            evictionPolicy == EvictionPolicy.LRU ) {
+         @Override
+         protected boolean removeEldestEntry( final Map.Entry<K, V> eldest ) {
+            return size() > _maxSize;
+         }
+      };
+   }
+
+   /**
+    * @param key -
+    * @return the cached value for the key or null if there is none.  Counts as a hit or a miss
+    */
+   public V get( final K key ) {
+      final V value;
+      synchronized ( _cache ) {
+         value = _cache.get( key );
+      }
+      if ( value == null ) {
+         _missCount.incrementAndGet();
+      } else {
+         _hitCount.incrementAndGet();
+      }
+      return value;
+   }
+
+   /**
+    * @param key   -
+    * @param value non-null value to cache
+    */
+   public void put( final K key, final V value ) {
+      if ( _maxSize == 0 || value == null ) {
+         return;
+      }
+      synchronized ( _cache ) {
+         _cache.put( key, value );
+      }
+   }
+
+   public int size() {
+      synchronized ( _cache ) {
+         return _cache.size();
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public int getSize() {
+      return size();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public int getMaxSize() {
+      return _maxSize;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String getEvictionPolicy() {
+      return _evictionPolicy.name();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public long getHitCount() {
+      return _hitCount.get();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public long getMissCount() {
+      return _missCount.get();
+   }
+
+   /**
+    * @return fraction of calls to get that were hits, or 0 if there have been no calls
+    */
+   @Override
+   public double getHitRate() {
+      final long hits = _hitCount.get();
+      final long total = hits + _missCount.get();
+      return total == 0 ? 0 : (double)hits / total;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void clear() {
+      synchronized ( _cache ) {
+         _cache.clear();
+      }
+      _hitCount.set( 0 );
+      _missCount.set( 0 );
+   }
+
+   /**
+    * Register this cache with the platform mbean server as {@value #MBEAN_DOMAIN}:type=type,name=name .
+    * A cache already registered under the same name is replaced.  Failure is logged but otherwise ignored.
+    *
+    * @param type type of cache, e.g. ConceptCache
+    * @param name name of the cache, e.g. the name of the concept factory
+    */
+   public void registerMBean( final String type, final String name ) {
+      try {
+         final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+         final ObjectName objectName = new ObjectName( MBEAN_DOMAIN + ":type=" + ObjectName.quote( type )
+                                                       + ",name=" + ObjectName.quote( name ) );
+         synchronized ( mBeanServer ) {
+            if ( mBeanServer.isRegistered( objectName ) ) {
+               mBeanServer.unregisterMBean( objectName );
+            }
+            mBeanServer.registerMBean( this, objectName );
+         }
+      } catch ( JMException | SecurityException multE ) {
+         LOGGER.warn( "Could not register " + type + " " + name + " for management: " + multE.getMessage() );
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString() {
+      return String.format( "%d of %d entries (%s), %d hits, %d misses, hit rate %.3f",
+            size(), _maxSize, _evictionPolicy, getHitCount(), getMissCount(), getHitRate() );
+   }
+
+}
@@ -0,0 +1,318 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.util.regex;
+
+
+import org.apache.log4j.Logger;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Finds the matches of many patterns with a single pass over text.
+ * <p>
+ * The patterns are compiled into a union alternation that is used as a prefilter.  The union locates each
+ * position at which any of the patterns can match, and only at those positions is each pattern checked.
+ * Patterns that begin with a line anchor share a single anchor in the union, so most positions in the text are
+ * rejected by one check instead of one check per pattern.
+ * The matches found for each pattern are exactly those that a {@link Matcher#find()} loop over the text would find.
+ * </p>
+ * <p>
+ * Patterns with constructs that cannot be combined (back references, \G, quoting) are run separately.
+ * Patterns are combined only with other patterns that have the same flags.
+ * </p>
+ * Use {@link RegexExecutor#findAll(MultiPatternFinder, CharSequence, int, Function)} to run the finder with a timeout.
+ * Instances are immutable and may be shared between threads.
+ */
+final public class MultiPatternFinder {
+
+   static private final Logger LOGGER = Logger.getLogger( "MultiPatternFinder" );
+
+   // a named group that is not escaped.  Names would collide in the union, and the union never uses its groups
+   static private final Pattern NAMED_GROUP = Pattern.compile( "(?<!\\\\)((?:\\\\\\\\)*)\\(\\?<[a-zA-Z][a-zA-Z0-9]*>" );
+   // back references are renumbered in a union, \G depends upon the previous match, quoting could swallow the union
+   static private final Pattern UNCOMBINABLE = Pattern.compile( "\\\\(?:[1-9]|k<|G|Q)" );
+   static private final String QUANTIFIERS = "?*+{";
+
+   private final String _name;
+   private final List<Pattern> _patterns;
+   private final List<Union> _unions;
+   private final List<Pattern> _separatePatterns;
+
+   /**
+    * @param name     name of the finder, used for timeout statistics
+    * @param patterns patterns to find
+    */
+   public MultiPatternFinder( final String name, final Collection<Pattern> patterns ) {
+      _name = name;
+      _patterns = Collections.unmodifiableList( new ArrayList<>( patterns ) );
+      final Map<Integer, List<Pattern>> flagPatterns = new LinkedHashMap<>();
+      final List<Pattern> separatePatterns = new ArrayList<>();
+      for ( Pattern pattern : _patterns ) {
+         if ( pattern == null ) {
+            throw new PatternSyntaxException( "Pattern cannot be null", "", -1 );
+         }
+         if ( getUnionSource( pattern ) == null ) {
+            separatePatterns.add( pattern );
+         } else {
+            flagPatterns.computeIfAbsent( pattern.flags(), f -> new ArrayList<>() ).add( pattern );
+         }
+      }
+      final List<Union> unions = new ArrayList<>( flagPatterns.size() );
+      for ( Map.Entry<Integer, List<Pattern>> entry : flagPatterns.entrySet() ) {
+         if ( entry.getValue().size() == 1 ) {
+            separatePatterns.addAll( entry.getValue() );
+            continue;
+         }
+         final Union union = createUnion( _name + " " + (unions.size() + 1), entry.getValue(), entry.getKey() );
+         if ( union == null ) {
+            separatePatterns.addAll( entry.getValue() );
+         } else {
+            unions.add( union );
+         }
+      }
+      _unions = Collections.unmodifiableList( unions );
+      _separatePatterns = Collections.unmodifiableList( separatePatterns );
+      LOGGER.debug( _name + " combined " + (_patterns.size() - _separatePatterns.size()) + " of "
+                    + _patterns.size() + " patterns into " + _unions.size() + " unions" );
+   }
+
+   /**
+    * @return name of the finder
+    */
+   public String getName() {
+      return _name;
+   }
+
+   /**
+    * @return all patterns found by this finder
+    */
+   public List<Pattern> getPatterns() {
+      return _patterns;
+   }
+
+   /**
+    * @return patterns that could not be combined and are run separately
+    */
+   List<Pattern> getSeparatePatterns() {
+      return _separatePatterns;
+   }
+
+   /**
+    * @return unions of combined patterns
+    */
+   List<Union> getUnions() {
+      return _unions;
+   }
+
+   /**
+    * Find all matches without any timeout.  Text given here should be known to be safe.
+    *
+    * @param text          text in which a find should be conducted
+    * @param matchFunction called for every find with the matcher in its found state.  Null results are dropped.
+    * @param <T>           type of value created for each find
+    * @return map of each pattern to the values created for its finds
+    */
+   public <T> Map<Pattern, List<T>> findAll( final CharSequence text, final Function<Matcher, T> matchFunction ) {
+      final Map<Pattern, List<T>> patternValues = new HashMap<>( _patterns.size() );
+      for ( Union union : _unions ) {
+         patternValues.putAll( union.findAll( text, matchFunction ) );
+      }
+      for ( Pattern pattern : _separatePatterns ) {
+         final List<T> values = new ArrayList<>();
+         final Matcher matcher = pattern.matcher( text );
+         while ( matcher.find() ) {
+            final T value = matchFunction.apply( matcher );
+            if ( value != null ) {
+               values.add( value );
+            }
+         }
+         patternValues.put( pattern, values );
+      }
+      return patternValues;
+   }
+
+   /**
+    * @param pattern -
+    * @return source that can be used in a union, or null if the pattern cannot be combined
+    */
+   static private String getUnionSource( final Pattern pattern ) {
+      final String source = pattern.pattern();
+      // remove escaped backslashes so that they cannot be mistaken for the start of an escape
+      if ( UNCOMBINABLE.matcher( source.replace( "\\\\", "" ) ).find() ) {
+         return null;
+      }
+      final String unionSource = NAMED_GROUP.matcher( source ).replaceAll( "$1(?:" );
+      try {
+         Pattern.compile( "(?:" + unionSource + ")", pattern.flags() );
+      } catch ( PatternSyntaxException psE ) {
+         return null;
+      }
+      return unionSource;
+   }
+
+   /**
+    * @param source -
+    * @return true if the source begins with a line anchor that is not quantified and applies to the whole pattern
+    */
+   static private boolean isAnchored( final String source ) {
+      return source.length() > 1 && source.charAt( 0 ) == '^' && QUANTIFIERS.indexOf( source.charAt( 1 ) ) < 0
+             && !hasTopLevelAlternation( source );
+   }
+
+   /**
+    * In ^a|b the anchor only applies to the first alternative, so it cannot be moved to a shared anchor.
+    *
+    * @param source -
+    * @return true if the source has an alternation that is not within a group or character class
+    */
+   static private boolean hasTopLevelAlternation( final String source ) {
+      int groupDepth = 0;
+      int classDepth = 0;
+      for ( int i = 0; i < source.length(); i++ ) {
+         final char c = source.charAt( i );
+         if ( c == '\\' ) {
+            i++;
+         } else if ( c == '[' ) {
+            classDepth++;
+         } else if ( classDepth > 0 ) {
+            if ( c == ']' ) {
+               classDepth--;
+            }
+         } else if ( c == '(' ) {
+            groupDepth++;
+         } else if ( c == ')' ) {
+            groupDepth--;
+         } else if ( c == '|' && groupDepth == 0 ) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * @return a union of the patterns, or null if the union cannot be compiled
+    */
+   static private Union createUnion( final String name, final List<Pattern> patterns, final int flags ) {
+      final StringBuilder anchored = new StringBuilder();
+      final StringBuilder unanchored = new StringBuilder();
+      for ( Pattern pattern : patterns ) {
+         final String source = getUnionSource( pattern );
+         if ( isAnchored( source ) ) {
+            anchored.append( anchored.length() == 0 ? "^(?:" : "|" )
+                    .append( "(?:" ).append( source.substring( 1 ) ).append( ')' );
+         } else {
+            unanchored.append( unanchored.length() == 0 ? "" : "|" )
+                      .append( "(?:" ).append( source ).append( ')' );
+         }
+      }
+      if ( anchored.length() > 0 ) {
+         anchored.append( ')' );
+         if ( unanchored.length() > 0 ) {
+            anchored.append( '|' );
+         }
+      }
+      try {
+         return new Union( name, Pattern.compile( anchored.toString() + unanchored, flags ), patterns );
+      } catch ( PatternSyntaxException psE ) {
+         LOGGER.warn( "Could not combine patterns for " + name + " : " + psE.getDescription() );
+         return null;
+      }
+   }
+
+
+   /**
+    * A single union prefilter and the patterns that it combines
+    */
+   static final class Union {
+      private final String __name;
+      private final Pattern __union;
+      private final Pattern[] __patterns;
+
+      private Union( final String name, final Pattern union, final Collection<Pattern> patterns ) {
+         __name = name;
+         __union = union;
+         __patterns = patterns.toArray( new Pattern[ patterns.size() ] );
+      }
+
+      String getName() {
+         return __name;
+      }
+
+      Pattern getPattern() {
+         return __union;
+      }
+
+      Pattern[] getPatterns() {
+         return __patterns;
+      }
+
+      /**
+       * @param text          text in which a find should be conducted
+       * @param matchFunction called for every find with the matcher in its found state
+       * @param <T>           type of value created for each find
+       * @return map of each pattern to the values created for its finds
+       */
+      <T> Map<Pattern, List<T>> findAll( final CharSequence text, final Function<Matcher, T> matchFunction ) {
+         final int length = text.length();
+         final Matcher unionMatcher = __union.matcher( text );
+         final Matcher[] matchers = new Matcher[ __patterns.length ];
+         // like a find loop, a pattern cannot match again until after the end of its previous match
+         final int[] nextStarts = new int[ __patterns.length ];
+         final List<List<T>> values = new ArrayList<>( __patterns.length );
+         for ( int i = 0; i < __patterns.length; i++ ) {
+            values.add( new ArrayList<>() );
+         }
+         int from = 0;
+         while ( from <= length && unionMatcher.find( from ) ) {
+            final int start = unionMatcher.start();
+            for ( int i = 0; i < __patterns.length; i++ ) {
+               if ( start < nextStarts[ i ] ) {
+                  continue;
+               }
+               if ( matchers[ i ] == null ) {
+                  // the pattern should see the whole text, with anchors and lookarounds acting as they would in a find
+                  matchers[ i ] = __patterns[ i ].matcher( text )
+                                                 .useTransparentBounds( true )
+                                                 .useAnchoringBounds( false );
+               }
+               final Matcher matcher = matchers[ i ];
+               matcher.region( start, length );
+               if ( matcher.lookingAt() ) {
+                  final T value = matchFunction.apply( matcher );
+                  if ( value != null ) {
+                     values.get( i ).add( value );
+                  }
+                  nextStarts[ i ] = matcher.end() > start ? matcher.end() : start + 1;
+               }
+            }
+            from = start + 1;
+         }
+         final Map<Pattern, List<T>> patternValues = new HashMap<>( __patterns.length );
+         for ( int i = 0; i < __patterns.length; i++ ) {
+            patternValues.put( __patterns[ i ], values.get( i ) );
+         }
+         return patternValues;
+      }
+   }
+
+}
@@ -0,0 +1,454 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.util.regex;
+
+
+import org.apache.ctakes.core.util.Pair;
+import org.apache.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Process-wide service that runs regular expression finds in a small bounded pool of daemon threads.
+ * <p>
+ * Finds are protected against runaway expressions in two ways.  The text is wrapped so that a find aborts
+ * once its timeout has passed, and the caller cancels (interrupts) any find that still has not completed.
+ * The caller's wait is bounded by a deadline set before submission, so time spent waiting for a free pool thread
+ * counts against the timeout.  A find that is still queued at the deadline is removed and never runs.
+ * </p>
+ * <p>
+ * Several patterns can be run over one text with a single submission to the pool, in which case each pattern
+ * still has its own timeout.  A {@link MultiPatternFinder} can be run to find many patterns in one pass.
+ * Per-pattern call, match and timeout counts are kept in {@link #getPatternStats()}.
+ * </p>
+ * The pool size can be set with the system property {@value #POOL_SIZE_PROPERTY}.
+ * The default is the number of available processors, between 2 and 8.
+ */
+public enum RegexExecutor {
+   INSTANCE;
+
+   static public RegexExecutor getInstance() {
+      return INSTANCE;
+   }
+
+   static private final Logger LOGGER = Logger.getLogger( "RegexExecutor" );
+
+   static public final String POOL_SIZE_PROPERTY = "ctakes.regex.threads";
+
+   static public final int DEFAULT_TIMEOUT_MILLIS = 1000;
+   static public final int MIN_TIMEOUT_MILLIS = 100;
+   static public final int MAX_TIMEOUT_MILLIS = 10000;
+
+   // Lets a find that aborts itself at its timeout return its results before the caller cancels it
+   static private final long CANCEL_GRACE_MILLIS = 50;
+
+   private final ThreadPoolExecutor _executor;
+   private final Map<String, PatternStats> _patternStats = new ConcurrentHashMap<>();
+
+   RegexExecutor() {
+      final int defaultSize = Math.max( 2, Math.min( 8, Runtime.getRuntime().availableProcessors() ) );
+      final int poolSize = Math.max( 1, Integer.getInteger( POOL_SIZE_PROPERTY, defaultSize ) );
+      final AtomicInteger threadCount = new AtomicInteger();
+      final ThreadPoolExecutor executor = new ThreadPoolExecutor( poolSize, poolSize,
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            r -> {
+               final Thread thread = new Thread( r, "RegexExecutor-" + threadCount.incrementAndGet() );
+               thread.setDaemon( true );
+               return thread;
+            } );
+      executor.allowCoreThreadTimeOut( true );
+      _executor = executor;
+   }
+
+   /**
+    * @param timeoutMillis milliseconds at which a regex match should abort
+    * @throws IllegalArgumentException if the timeout is not between 100 and 10000
+    */
+   static public void checkTimeout( final int timeoutMillis ) throws IllegalArgumentException {
+      if ( timeoutMillis < MIN_TIMEOUT_MILLIS || timeoutMillis > MAX_TIMEOUT_MILLIS ) {
+         throw new IllegalArgumentException( "Timeout must be between "
+                                             + MIN_TIMEOUT_MILLIS + " and " + MAX_TIMEOUT_MILLIS );
+      }
+   }
+
+   /**
+    * @param pattern       Pattern compiled from a regular expression
+    * @param text          text in which a find should be conducted
+    * @param timeoutMillis milliseconds at which the regex match should abort, between 100 and 10000
+    * @return List of Integer Pairs representing text span begin and end offsets, empty on timeout
+    */
+   public List<Pair<Integer>> findSpans( final Pattern pattern, final CharSequence text, final int timeoutMillis ) {
+      final int length = text == null ? 0 : text.length();
+      return findAll( pattern, text, timeoutMillis, m -> getBounds( m, length ) );
+   }
+
+   /**
+    * @param patterns      Patterns compiled from regular expressions
+    * @param text          text in which a find should be conducted
+    * @param timeoutMillis milliseconds at which the match of each pattern should abort, between 100 and 10000
+    * @return map of each pattern to its text span begin and end offsets, empty for a pattern that timed out
+    */
+   public Map<Pattern, List<Pair<Integer>>> findSpans( final Collection<Pattern> patterns,
+                                                      final CharSequence text,
+                                                      final int timeoutMillis ) {
+      final int length = text == null ? 0 : text.length();
+      return findAll( patterns, text, timeoutMillis, m -> getBounds( m, length ) );
+   }
+
+   /**
+    * @param pattern       Pattern compiled from a regular expression
+    * @param text          text in which a find should be conducted
+    * @param timeoutMillis milliseconds at which the regex match should abort, between 100 and 10000
+    * @param matchFunction called for every find with the matcher in its found state.  Null results are dropped.
+    * @param <T>           type of value created for each find
+    * @return values created for every find, empty on timeout
+    */
+   public <T> List<T> findAll( final Pattern pattern, final CharSequence text, final int timeoutMillis,
+                               final Function<Matcher, T> matchFunction ) {
+      if ( pattern == null ) {
+         throw new PatternSyntaxException( "Pattern cannot be null", "", -1 );
+      }
+      return findAll( Collections.singletonList( pattern ), text, timeoutMillis, matchFunction )
+            .getOrDefault( pattern, Collections.emptyList() );
+   }
+
+   /**
+    * Run all patterns over the text with a single submission to the pool.
+    *
+    * @param patterns      Patterns compiled from regular expressions
+    * @param text          text in which a find should be conducted
+    * @param timeoutMillis milliseconds at which the match of each pattern should abort, between 100 and 10000
+    * @param matchFunction called for every find with the matcher in its found state.  Null results are dropped.
+    * @param <T>           type of value created for each find
+    * @return map of each pattern to the values created for its finds, empty for a pattern that timed out
+    */
+   public <T> Map<Pattern, List<T>> findAll( final Collection<Pattern> patterns,
+                                             final CharSequence text,
+                                             final int timeoutMillis,
+                                             final Function<Matcher, T> matchFunction ) {
+      checkTimeout( timeoutMillis );
+      if ( text == null || text.length() == 0 || patterns.isEmpty() ) {
+         return Collections.emptyMap();
+      }
+      final ThreadString threadText = new ThreadString( text );
+      final RegexTask<Map<Pattern, List<T>>> task = new RegexTask<Map<Pattern, List<T>>>() {
+         @Override
+         protected Map<Pattern, List<T>> run() {
+            final Map<Pattern, List<T>> patternValues = new LinkedHashMap<>( patterns.size() );
+            for ( Pattern pattern : patterns ) {
+               findPattern( pattern, threadText, timeoutMillis, matchFunction, patternValues );
+               if ( Thread.currentThread().isInterrupted() ) {
+                  break;
+               }
+            }
+            return patternValues;
+         }
+      };
+      final Map<Pattern, List<T>> patternValues
+            = execute( task, (long)timeoutMillis * patterns.size(), patterns.size() + " patterns" );
+      return patternValues == null ? Collections.emptyMap() : patternValues;
+   }
+
+   /**
+    * Run all patterns of a multi-pattern finder over the text with a single submission to the pool.
+    * Each union of patterns has the timeout of a single pattern.  If a union times out then its patterns are
+    * run separately so that only the runaway pattern is lost.
+    *
+    * @param finder        multi-pattern finder
+    * @param text          text in which a find should be conducted
+    * @param timeoutMillis milliseconds at which the match of each pattern or union should abort, between 100 and 10000
+    * @param matchFunction called for every find with the matcher in its found state.  Null results are dropped.
+    * @param <T>           type of value created for each find
+    * @return map of each pattern to the values created for its finds, empty for a pattern that timed out
+    */
+   public <T> Map<Pattern, List<T>> findAll( final MultiPatternFinder finder,
+                                             final CharSequence text,
+                                             final int timeoutMillis,
+                                             final Function<Matcher, T> matchFunction ) {
+      checkTimeout( timeoutMillis );
+      if ( text == null || text.length() == 0 || finder.getPatterns().isEmpty() ) {
+         return Collections.emptyMap();
+      }
+      final ThreadString threadText = new ThreadString( text );
+      final RegexTask<Map<Pattern, List<T>>> task = new RegexTask<Map<Pattern, List<T>>>() {
+         @Override
+         protected Map<Pattern, List<T>> run() {
+            final Map<Pattern, List<T>> patternValues = new LinkedHashMap<>( finder.getPatterns().size() );
+            for ( MultiPatternFinder.Union union : finder.getUnions() ) {
+               final Map<Pattern, List<T>> unionValues = new HashMap<>();
+               final boolean completed = runFind( union.getName(), threadText, timeoutMillis, () -> {
+                  unionValues.putAll( union.findAll( threadText, matchFunction ) );
+                  return unionValues.values().stream().mapToInt( List::size ).sum();
+               } );
+               if ( Thread.currentThread().isInterrupted() ) {
+                  return patternValues;
+               }
+               if ( completed ) {
+                  patternValues.putAll( unionValues );
+               } else {
+                  for ( Pattern pattern : union.getPatterns() ) {
+                     findPattern( pattern, threadText, timeoutMillis, matchFunction, patternValues );
+                  }
+               }
+            }
+            for ( Pattern pattern : finder.getSeparatePatterns() ) {
+               findPattern( pattern, threadText, timeoutMillis, matchFunction, patternValues );
+               if ( Thread.currentThread().isInterrupted() ) {
+                  break;
+               }
+            }
+            return patternValues;
+         }
+      };
+      final Map<Pattern, List<T>> patternValues = execute( task,
+            (long)timeoutMillis * (finder.getUnions().size() + finder.getPatterns().size()), finder.getName() );
+      return patternValues == null ? Collections.emptyMap() : patternValues;
+   }
+
+   /**
+    * Used by {@link TimeoutMatcher} to run a single find on a matcher that holds its state between finds.
+    *
+    * @param matcher       matcher created on the given text
+    * @param text          text held by the matcher
+    * @param timeoutMillis milliseconds at which the regex match should abort
+    * @return the matcher if there was another find, else null
+    */
+   Matcher nextMatch( final Matcher matcher, final ThreadString text, final int timeoutMillis ) {
+      final RegexTask<Matcher> task = new RegexTask<Matcher>() {
+         @Override
+         protected Matcher run() {
+            final boolean[] found = { false };
+            runFind( matcher.pattern().pattern(), text, timeoutMillis, () -> {
+               found[ 0 ] = matcher.find();
+               return found[ 0 ] ? 1 : 0;
+            } );
+            return found[ 0 ] ? matcher : null;
+         }
+      };
+      return execute( task, timeoutMillis, matcher.pattern().pattern() );
+   }
+
+   /**
+    * @return a snapshot of the statistics for every pattern run by this service
+    */
+   public Collection<PatternStats> getPatternStats() {
+      return Collections.unmodifiableCollection( new ArrayList<>( _patternStats.values() ) );
+   }
+
+   /**
+    * Forget all pattern statistics
+    */
+   public void clearPatternStats() {
+      _patternStats.clear();
+   }
+
+   /**
+    * Runs in a pool thread.  Places the values for the pattern only if the find completes.
+    */
+   private <T> void findPattern( final Pattern pattern, final ThreadString text, final int timeoutMillis,
+                                 final Function<Matcher, T> matchFunction,
+                                 final Map<Pattern, List<T>> patternValues ) {
+      final List<T> values = new ArrayList<>();
+      final Matcher matcher = pattern.matcher( text );
+      final boolean completed = runFind( pattern.pattern(), text, timeoutMillis, () -> {
+         while ( matcher.find() ) {
+            final T value = matchFunction.apply( matcher );
+            if ( value != null ) {
+               values.add( value );
+            }
+         }
+         return values.size();
+      } );
+      if ( completed ) {
+         patternValues.put( pattern, values );
+      }
+   }
+
+   /**
+    * Runs in a pool thread.
+    *
+    * @param pattern       pattern (or other name) of the find, for statistics
+    * @param text          text being searched
+    * @param timeoutMillis milliseconds at which the find should abort
+    * @param find          the find, returning a number of matches
+    * @return true if the find completed, false if it timed out or was cancelled
+    */
+   private boolean runFind( final String pattern, final ThreadString text, final int timeoutMillis,
+                            final Callable<Integer> find ) {
+      final PatternStats stats = _patternStats.computeIfAbsent( pattern, PatternStats::new );
+      final long startNanos = System.nanoTime();
+      text.startDeadline( timeoutMillis );
+      try {
+         final int matchCount = find.call();
+         stats.record( System.nanoTime() - startNanos, matchCount, false );
+         return true;
+      } catch ( Exception e ) {
+         stats.record( System.nanoTime() - startNanos, 0, true );
+         if ( ThreadString.isAbort( e ) ) {
+            LOGGER.warn( "Timeout after " + timeoutMillis + " milliseconds for " + pattern );
+         } else {
+            LOGGER.error( "Could not complete find for " + pattern + " : " + e.getMessage() );
+         }
+         return false;
+      } finally {
+         text.clearDeadline();
+      }
+   }
+
+   /**
+    * @return the number of threads in the pool
+    */
+   int getPoolSize() {
+      return _executor.getMaximumPoolSize();
+   }
+
+   /**
+    * Submit the task and wait for its result until a deadline set before submission.
+    * If the task is still queued or running at the deadline then cancel it.
+    *
+    * @return the task result or null if it did not complete
+    */
+   private <T> T execute( final RegexTask<T> task, final long timeoutMillis, final String description ) {
+      final long deadlineNanos = System.nanoTime()
+                                 + TimeUnit.MILLISECONDS.toNanos( timeoutMillis + CANCEL_GRACE_MILLIS );
+      final Future<T> future = _executor.submit( task );
+      try {
+         return future.get( deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS );
+      } catch ( TimeoutException tE ) {
+         if ( task.__startNanos == 0 ) {
+            LOGGER.error( "No free thread before timeout, cancelling find for " + description );
+         } else {
+            // the find did not abort itself, which should only happen if it isn't reading the text
+            LOGGER.error( "Timed out, cancelling find for " + description );
+         }
+      } catch ( InterruptedException iE ) {
+         Thread.currentThread().interrupt();
+      } catch ( ExecutionException eE ) {
+         LOGGER.error( "Could not complete find for " + description + " : " + eE.getMessage() );
+      }
+      if ( !future.cancel( true ) && !future.isDone() ) {
+         LOGGER.error( "Timed out but could not be cancelled while detecting " + description );
+      }
+      // a cancelled task that never started would otherwise stay in the queue until a thread is free
+      _executor.remove( (Runnable)future );
+      return null;
+   }
+
+   static private Pair<Integer> getBounds( final Matcher matcher, final int textLength ) {
+      final int begin = matcher.start();
+      final int end = matcher.end();
+      if ( begin >= 0 && end > begin && end <= textLength ) {
+         return new Pair<>( begin, end );
+      }
+      return null;
+   }
+
+
+   /**
+    * Work submitted to the pool.  Marks its start so that a timeout can be logged as a wait for a free thread.
+    */
+   static private abstract class RegexTask<T> implements Callable<T> {
+      private volatile long __startNanos;
+
+      @Override
+      final public T call() {
+         __startNanos = System.nanoTime();
+         return run();
+      }
+
+      abstract protected T run();
+   }
+
+
+   /**
+    * Counts for a single regular expression
+    */
+   static public final class PatternStats {
+      private final String __pattern;
+      private final AtomicLong __callCount = new AtomicLong();
+      private final AtomicLong __matchCount = new AtomicLong();
+      private final AtomicLong __timeoutCount = new AtomicLong();
+      private final AtomicLong __totalNanos = new AtomicLong();
+
+      private PatternStats( final String pattern ) {
+         __pattern = pattern;
+      }
+
+      private void record( final long nanos, final int matchCount, final boolean timedOut ) {
+         __callCount.incrementAndGet();
+         __matchCount.addAndGet( matchCount );
+         __totalNanos.addAndGet( nanos );
+         if ( timedOut ) {
+            __timeoutCount.incrementAndGet();
+         }
+      }
+
+      /**
+       * @return the regular expression
+       */
+      public String getPattern() {
+         return __pattern;
+      }
+
+      /**
+       * @return number of times that the pattern was run on some text
+       */
+      public long getCallCount() {
+         return __callCount.get();
+      }
+
+      /**
+       * @return number of matches found
+       */
+      public long getMatchCount() {
+         return __matchCount.get();
+      }
+
+      /**
+       * @return number of times that the pattern timed out or was cancelled
+       */
+      public long getTimeoutCount() {
+         return __timeoutCount.get();
+      }
+
+      /**
+       * @return total milliseconds spent running the pattern
+       */
+      public long getTotalMillis() {
+         return TimeUnit.NANOSECONDS.toMillis( __totalNanos.get() );
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override
+      public String toString() {
+         return __pattern + " calls: " + getCallCount() + " matches: " + getMatchCount()
+                + " timeouts: " + getTimeoutCount() + " millis: " + getTotalMillis();
+      }
+   }
+
+}
@@ -1,21 +1,65 @@
 package org.apache.ctakes.core.util.regex;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * A representation of text that can check its container thread for interruptions.
  * This allows a break within tight charAt(..) calling loops, which can otherwise become infinite in a corrupt find.
+ * A deadline can also be set, after which charAt(..) aborts the find even if the thread is never interrupted.
  */
 final class ThreadString implements CharSequence {
+
+   static private final long NO_DEADLINE = Long.MAX_VALUE;
+   // System.nanoTime() is cheap but charAt(..) is called for nearly every character of every attempted match
+   static private final int DEADLINE_CHECK_INTERVAL = 1024;
+
    private final CharSequence _delegate;
+   private long _deadlineNanos = NO_DEADLINE;
+   private int _charCount;
 
    ThreadString( final CharSequence delegate ) {
       _delegate = delegate;
    }
 
+   /**
+    * Should be called by the thread that will run the find
+    *
+    * @param timeoutMillis milliseconds from now at which charAt(..) will abort
+    */
+   void startDeadline( final long timeoutMillis ) {
+      _deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( timeoutMillis );
+      _charCount = 0;
+   }
+
+   /**
+    * Remove the deadline so that the text may be read after a find
+    */
+   void clearDeadline() {
+      _deadlineNanos = NO_DEADLINE;
+   }
+
+   /**
+    * @param throwable some exception thrown by a find
+    * @return true if the exception was thrown by this class to abort a find
+    */
+   static boolean isAbort( final Throwable throwable ) {
+      return throwable instanceof RuntimeException
+             && (throwable.getCause() instanceof InterruptedException
+                 || throwable.getCause() instanceof TimeoutException);
+   }
+
    @Override
    public char charAt( final int index ) {
       if ( Thread.currentThread().isInterrupted() ) {
          throw new RuntimeException( new InterruptedException() );
       }
+      if ( _deadlineNanos != NO_DEADLINE && ++_charCount >= DEADLINE_CHECK_INTERVAL ) {
+         _charCount = 0;
+         if ( System.nanoTime() - _deadlineNanos > 0 ) {
+            throw new RuntimeException( new TimeoutException() );
+         }
+      }
       return _delegate.charAt( index );
    }
 
@@ -1,16 +1,14 @@
 package org.apache.ctakes.core.util.regex;
 
-import org.apache.log4j.Logger;
-
 import java.io.Closeable;
-import java.util.concurrent.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 /**
  * Class that can / should be used to find text spans using regular expressions.
- * It runs Matcher find {@link Matcher#find()} in a separate thread so that it may be interrupted at a set timeout.
+ * It runs Matcher find {@link Matcher#find()} in the shared {@link RegexExecutor} pool so that it may be interrupted
+ * at a set timeout.
  * This prevents infinite loop problems that can be caused by poorly-built expressions or unexpected text contents.
  * The timeout can be specified in milliseconds between 100 and 10,000.  Large timeouts are unadvised.  If a large
  * amount of text needs to be parsed then it is better to split up the text logically and use smaller timeouts.
@@ -36,14 +34,8 @@ import java.util.regex.PatternSyntaxException;
  */
 public class TimeoutMatcher implements Closeable {
 
-   static private final Logger LOGGER = Logger.getLogger( "TimeoutMatcher" );
-
-   static private final int DEFAULT_TIMEOUT_MILLIS = 1000;
-   static private final int MIN_TIMEOUT_MILLIS = 100;
-   static private final int MAX_TIMEOUT_MILLIS = 10000;
-
-   private final ExecutorService _executor;
    private final int _timeoutMillis;
+   private final ThreadString _text;
    private final Matcher _matcher;
 
 
@@ -77,7 +69,7 @@ public class TimeoutMatcher implements Closeable {
     * @throws IllegalArgumentException if the pattern is null or malformed
     */
    public TimeoutMatcher( final Pattern pattern, final String text ) throws IllegalArgumentException {
-      this( pattern, text, DEFAULT_TIMEOUT_MILLIS );
+      this( pattern, text, RegexExecutor.DEFAULT_TIMEOUT_MILLIS );
    }
 
    /**
@@ -93,13 +85,10 @@ public class TimeoutMatcher implements Closeable {
       if ( pattern == null ) {
          throw new PatternSyntaxException( "Pattern cannot be null", "", -1 );
       }
-      if ( timeoutMillis < MIN_TIMEOUT_MILLIS || timeoutMillis > MAX_TIMEOUT_MILLIS ) {
-         throw new IllegalArgumentException( "Timeout must be between "
-                                             + MIN_TIMEOUT_MILLIS + " and " + MAX_TIMEOUT_MILLIS );
-      }
-      _matcher = pattern.matcher( new ThreadString( text ) );
+      RegexExecutor.checkTimeout( timeoutMillis );
+      _text = new ThreadString( text );
+      _matcher = pattern.matcher( _text );
       _timeoutMillis = timeoutMillis;
-      _executor = Executors.newSingleThreadExecutor();
    }
 
 
@@ -107,55 +96,16 @@ public class TimeoutMatcher implements Closeable {
     * @return a matcher representing the next call to {@link Matcher#find()}
     */
    public Matcher nextMatch() {
-      final Callable<Matcher> callable = new RegexCallable();
-      final Future<Matcher> future = _executor.submit( callable );
-      try {
-         return future.get( _timeoutMillis, TimeUnit.MILLISECONDS );
-      } catch ( InterruptedException | ExecutionException | TimeoutException multE ) {
-         LOGGER.debug( "Timeout for " + _matcher.pattern() );
-         if ( !future.cancel( true ) ) {
-            LOGGER.error( "Timed out but could not be cancelled while detecting " + _matcher.pattern() );
-         }
-      }
-      if ( future.isCancelled() ) {
-         LOGGER.error( "Cancelled while detecting " + _matcher.pattern() );
-      } else if ( !future.isDone() ) {
-         LOGGER.error( "Not cancelled but didn't complete while detecting " + _matcher.pattern() );
-      }
-      return null;
+      return RegexExecutor.getInstance().nextMatch( _matcher, _text, _timeoutMillis );
    }
 
 
    /**
-    * shut down the executor
+    * The executor is shared, so there is nothing to shut down
     * {@inheritDoc}
     */
    @Override
    public void close() {
-      _executor.shutdownNow();
-   }
-
-
-   /**
-    * Simple Callable that runs a {@link Matcher} on text
-    */
-   private final class RegexCallable implements Callable<Matcher> {
-
-      private RegexCallable() {
-      }
-
-      /**
-       * {@inheritDoc}
-       *
-       * @return matcher if there is another find, else null
-       */
-      @Override
-      public Matcher call() {
-         if ( _matcher.find() ) {
-            return _matcher;
-         }
-         return null;
-      }
    }
 
 }
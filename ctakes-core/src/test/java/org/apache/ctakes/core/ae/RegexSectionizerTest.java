@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.ae;
+
+import org.apache.ctakes.core.util.Pair;
+import org.apache.ctakes.core.util.regex.MultiPatternFinder;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+final public class RegexSectionizerTest {
+
+   static private final String TEXT = "Medications:\n  aspirin\nAllergies:\n  NKDA\n";
+
+   static private final int FLAGS = Pattern.MULTILINE | Pattern.CASE_INSENSITIVE;
+
+   /**
+    * Both "Medications" types match the same header span.  The winner must follow the order of the types,
+    * not the hash order of the pattern objects.
+    */
+   @Test
+   public void testOverlappingHeaders() {
+      for ( int i = 0; i < 50; i++ ) {
+         assertEquals( "CurrentMeds", findTypeName( "PastMeds", "CurrentMeds" ) );
+         assertEquals( "PastMeds", findTypeName( "CurrentMeds", "PastMeds" ) );
+      }
+   }
+
+   static private String findTypeName( final String firstType, final String secondType ) {
+      final Map<Pattern, String> typePatterns = new LinkedHashMap<>();
+      typePatterns.put( Pattern.compile( "^Medications:", FLAGS ), firstType );
+      typePatterns.put( Pattern.compile( "^(?:Current )?Medications:", FLAGS ), secondType );
+      typePatterns.put( Pattern.compile( "^Allergies:", FLAGS ), "Allergies" );
+      final MultiPatternFinder finder = new MultiPatternFinder( "Test Headers", typePatterns.keySet() );
+      final Map<Pair<Integer>, RegexSectionizer.SectionTag> sectionTags
+            = RegexSectionizer.findSectionTags( TEXT, finder, typePatterns, RegexSectionizer.TagType.HEADER );
+      assertEquals( 2, sectionTags.size() );
+      assertEquals( "Allergies", sectionTags.get( new Pair<>( 23, 33 ) ).getTypeName() );
+      return sectionTags.get( new Pair<>( 0, 12 ) ).getTypeName();
+   }
+
+}
@@ -0,0 +1,181 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.ae;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.ctakes.core.nlp.tokenizer.TokenizerPTB;
+import org.apache.ctakes.typesystem.type.syntax.BaseToken;
+import org.apache.ctakes.typesystem.type.syntax.NewlineToken;
+import org.apache.ctakes.typesystem.type.textspan.Segment;
+import org.apache.ctakes.typesystem.type.textspan.Sentence;
+import org.apache.log4j.Logger;
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.util.JCasUtil;
+
+/**
+ * The {@link TokenizerAnnotatorPTB} as it was before segments were tokenized with scoped iteration.
+ * Every segment walks all sentences and all tokens in the document.
+ * Kept unchanged as the reference for equivalence tests and benchmarks.
+ */
+public class SegmentScanTokenizerAnnotatorPTB extends JCasAnnotator_ImplBase
+{
+	// LOG4J logger based on class name
+	private Logger logger = Logger.getLogger(getClass().getName());
+
+	/**
+	 * Value is "SegmentsToSkip".  This parameter specifies which segments to skip.  The parameter should be
+	 * of type String, should be multi-valued and optional. 
+	 */
+	public static final String PARAM_SEGMENTS_TO_SKIP = "SegmentsToSkip";
+  @ConfigurationParameter(
+      name = PARAM_SEGMENTS_TO_SKIP,
+      mandatory = false,
+      description = "Set of segments that can be skipped"
+      )
+  private String[] skipSegmentsArray;
+  private Set<String> skipSegmentsSet;
+
+	private TokenizerPTB tokenizer;
+
+	private int tokenCount = 0;
+
+	@Override
+  public void initialize(UimaContext aContext) throws ResourceInitializationException {
+		super.initialize(aContext);
+		logger.info("Initializing " + this.getClass().getName());
+		tokenizer = new TokenizerPTB();
+		skipSegmentsSet = new HashSet<>();
+    if(skipSegmentsArray != null){
+      Collections.addAll(skipSegmentsSet, skipSegmentsArray);
+    }
+	}
+
+	/**
+	 * Entry point for processing.
+	 */
+	@Override
+  public void process(JCas jcas) throws AnalysisEngineProcessException {
+
+		logger.info("process(JCas) in " + this.getClass().getName());
+
+		tokenCount = 0;
+
+		Collection<Segment> segments = JCasUtil.select(jcas, Segment.class);
+		for(Segment sa : segments){
+			String segmentID = sa.getId();
+			if (!skipSegmentsSet.contains(segmentID)) { 
+				annotateRange(jcas, sa.getBegin(), sa.getEnd());
+			}
+		}
+	}
+
+
+	static char CR = '\r';
+	static char LF = '\n';
+
+	/**
+	 * Tokenizes a range of text, adding the tokens to the CAS
+	 * Tokenizes one sentence at a time. Only tokenizes what is within Sentence annotation.
+	 * There must have been Sentence annotations created beforehand in order for this method
+	 * to tokenize anything.
+	 * @throws AnalysisEngineProcessException 
+	 */
+	protected void annotateRange(JCas jcas, int rangeBegin, int rangeEnd) throws AnalysisEngineProcessException {
+
+		// int tokenCount = 0; // can't start with tokenCount=0 here because this method can be called multiple times
+
+	  // First look for all newlines and carriage returns (which are not contained within sentences)
+		String docText = jcas.getDocumentText();
+		for (int i = rangeBegin; i<rangeEnd; i++) {
+
+			if (docText.charAt(i)==CR) {
+
+				NewlineToken nta;
+				if (i+1<rangeEnd && docText.charAt(i+1)==LF) {
+					// single NewlineToken for the 2 characters
+					nta = new NewlineToken(jcas, i, i+2);
+					i++; // skip past the LF
+				} else {
+					nta = new NewlineToken(jcas, i, i+1);
+				}
+				nta.addToIndexes();
+
+			} else if (docText.charAt(i)==LF) {
+
+				NewlineToken nta = new NewlineToken(jcas, i, i+1);
+				nta.addToIndexes();
+
+			}
+
+		}
+
+		// Now process each sentence
+		Collection<Sentence> sentences = JCasUtil.select(jcas, Sentence.class);
+		
+		// Tokenize each sentence, adding the tokens to the cas index
+		for(Sentence sentence : sentences){
+			if (sentence.getBegin() < rangeBegin || sentence.getEnd() > rangeEnd) {
+				continue;
+			}
+			List<?> tokens = tokenizer.tokenizeTextSegment(jcas, sentence.getCoveredText(), sentence.getBegin(), true);
+			for (Object bta: tokens) {
+				if (bta==null) {
+					Exception e = new RuntimeException("bta==null tokenCount=" + tokenCount + " tokens.size()==" + tokens.size());
+					e.printStackTrace();
+				} else{
+					//logger.info("Token #" + tokenCount + " len = " + bta.getCoveredText().length() + " " + bta.getCoveredText());
+					// add the BaseToken to CAS index
+				  if(BaseToken.class.isAssignableFrom(bta.getClass())){
+				    BaseToken.class.cast(bta).addToIndexes();
+				  }else{
+				    throw new AnalysisEngineProcessException("Token returned cannot be cast as BaseToken", new Object[]{bta});
+				  }
+					//tokenCount++;
+				}
+			}
+
+		}
+
+		// Now add the tokenNumber in the order of offsets
+		Collection<BaseToken> tokens = JCasUtil.select(jcas, BaseToken.class);
+		for(BaseToken bta : tokens){
+			if (bta.getBegin()>=rangeBegin && bta.getBegin()<rangeEnd) {
+				bta.setTokenNumber(tokenCount);
+				tokenCount++;
+			}
+		}
+
+	}
+	
+	public static AnalysisEngineDescription createAnnotatorDescription() throws ResourceInitializationException{
+	  return AnalysisEngineFactory.createEngineDescription(SegmentScanTokenizerAnnotatorPTB.class);
+	}
+}	
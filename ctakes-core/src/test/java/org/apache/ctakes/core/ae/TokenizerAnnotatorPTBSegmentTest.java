@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.ae;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.ctakes.typesystem.type.syntax.BaseToken;
+import org.apache.ctakes.typesystem.type.syntax.WordToken;
+import org.apache.ctakes.typesystem.type.textspan.Segment;
+import org.apache.ctakes.typesystem.type.textspan.Sentence;
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.junit.Test;
+
+/**
+ * Compares the tokens created and numbered by the {@link TokenizerAnnotatorPTB}
+ * with those of the {@link SegmentScanTokenizerAnnotatorPTB} that walked the whole document for every segment.
+ * Segments overlap, do not follow sentence bounds and cut through existing tokens.
+ */
+public class TokenizerAnnotatorPTBSegmentTest {
+
+	private static final String[] WORDS = { "Patient", "is", "a", "67-year-old", "male", "with", "CHF", "(EF",
+			"35%)", "can't", "walk,", "BP", "142/88,", "Started", "furosemide", "40mg", "b.i.d.", "Dr.", "Smith's",
+			"follow-up", "in", "2-3", "weeks;", "call", "555-123-4567." };
+
+	private static final int SENTENCE_COUNT = 40;
+	private static final int SEGMENT_COUNT = 12;
+
+	@Test
+	public void testSerialTokenizer() throws UIMAException {
+		assertSameTokens(false);
+	}
+
+	@Test
+	public void testParallelTokenizer() throws UIMAException {
+		assertSameTokens(true);
+	}
+
+	private static void assertSameTokens(boolean parallel) throws UIMAException {
+		AnalysisEngine referenceEngine = AnalysisEngineFactory.createEngine(SegmentScanTokenizerAnnotatorPTB.class,
+				SegmentScanTokenizerAnnotatorPTB.PARAM_SEGMENTS_TO_SKIP, new String[] { "S3" });
+		AnalysisEngine engine = AnalysisEngineFactory.createEngine(TokenizerAnnotatorPTB.class,
+				TokenizerAnnotatorPTB.PARAM_SEGMENTS_TO_SKIP, new String[] { "S3" },
+				TokenizerAnnotatorPTB.PARAM_PARALLEL_TOKENIZE, parallel);
+		try {
+			for (int seed = 0; seed < 20; seed++) {
+				JCas referenceJCas = createJCas(seed);
+				referenceEngine.process(referenceJCas);
+				JCas jcas = createJCas(seed);
+				engine.process(jcas);
+				List<String> expected = getTokens(referenceJCas);
+				assertFalse(expected.isEmpty());
+				assertEquals("Seed " + seed, expected, getTokens(jcas));
+			}
+		} finally {
+			referenceEngine.destroy();
+			engine.destroy();
+		}
+	}
+
+	/**
+	 * @return a cas with sentences of random words on lines, random segments, and some existing word tokens
+	 */
+	private static JCas createJCas(int seed) throws UIMAException {
+		Random random = new Random(seed);
+		JCas jcas = JCasFactory.createJCas();
+		StringBuilder sb = new StringBuilder();
+		List<int[]> sentenceSpans = new ArrayList<>();
+		for (int i = 0; i < SENTENCE_COUNT; i++) {
+			int begin = sb.length();
+			int wordCount = 1 + random.nextInt(12);
+			for (int w = 0; w < wordCount; w++) {
+				if (w > 0) {
+					sb.append(' ');
+				}
+				sb.append(WORDS[random.nextInt(WORDS.length)]);
+			}
+			sentenceSpans.add(new int[] { begin, sb.length() });
+			sb.append(random.nextBoolean() ? "\n" : "\r\n");
+		}
+		String text = sb.toString();
+		jcas.setDocumentText(text);
+		for (int[] span : sentenceSpans) {
+			new Sentence(jcas, span[0], span[1]).addToIndexes();
+		}
+		// a sentence that runs over several lines
+		int[] first = sentenceSpans.get(random.nextInt(SENTENCE_COUNT - 3));
+		new Sentence(jcas, first[0], sentenceSpans.get(SENTENCE_COUNT - 1)[1]).addToIndexes();
+		for (int i = 0; i < SEGMENT_COUNT; i++) {
+			int begin = random.nextInt(text.length() - 1);
+			int end = begin + 1 + random.nextInt(text.length() - begin);
+			Segment segment = new Segment(jcas, begin, end);
+			segment.setId("S" + i);
+			segment.addToIndexes();
+		}
+		// tokens from an earlier annotator, some of which cross segment bounds
+		for (int i = 0; i < 10; i++) {
+			int begin = random.nextInt(text.length() - 10);
+			new WordToken(jcas, begin, begin + 1 + random.nextInt(10)).addToIndexes();
+		}
+		return jcas;
+	}
+
+	/**
+	 * @return the type, span and number of every token in index order
+	 */
+	private static List<String> getTokens(JCas jcas) {
+		List<String> tokens = new ArrayList<>();
+		for (BaseToken token : JCasUtil.select(jcas, BaseToken.class)) {
+			tokens.add(token.getClass().getSimpleName() + " " + token.getBegin() + "," + token.getEnd()
+					+ " #" + token.getTokenNumber());
+		}
+		return tokens;
+	}
+
+}
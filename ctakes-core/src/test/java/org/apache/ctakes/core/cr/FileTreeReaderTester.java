@@ -4,9 +4,11 @@ import org.apache.log4j.Logger;
 import org.junit.Test;
 
 import java.io.File;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
 
 import static org.junit.Assert.*;
 
@@ -128,4 +130,95 @@ public class FileTreeReaderTester {
 
    // TODO createDocumentIdPrefix(..)
 
+   //
+   //    Streaming and sharding
+   //
+
+   @Test
+   public void testStreamedFiles() throws IOException {
+      final File rootDir = createTree();
+      try {
+         final List<File> listed = FileTreeReader.getDescendentFiles( rootDir, TXT_BSV_EXTENSIONS );
+         final List<File> streamed = new ArrayList<>();
+         try ( FileTreeIterator iterator = new FileTreeIterator( rootDir, TXT_BSV_EXTENSIONS, 1, 0 ) ) {
+            iterator.forEachRemaining( streamed::add );
+         }
+         assertEquals( "Streamed files should be the listed files", new HashSet<>( listed ), new HashSet<>( streamed ) );
+         assertEquals( "Streamed files should not repeat", listed.size(), streamed.size() );
+         assertEquals( "Files with valid extensions should be streamed", 12, streamed.size() );
+         final int rootDepth = rootDir.toPath().getNameCount();
+         for ( int i = 0; i < 4; i++ ) {
+            assertEquals( "Root files should be streamed first",
+                  rootDepth + 1, streamed.get( i ).toPath().getNameCount() );
+         }
+      } finally {
+         deleteTree( rootDir );
+      }
+   }
+
+   @Test
+   public void testShards() throws IOException {
+      final File rootDir = createTree();
+      try {
+         final Set<File> sharded = new HashSet<>();
+         int shardedCount = 0;
+         for ( int shard = 0; shard < 3; shard++ ) {
+            try ( FileTreeIterator iterator = new FileTreeIterator( rootDir, TXT_BSV_EXTENSIONS, 3, shard ) ) {
+               while ( iterator.hasNext() ) {
+                  final File file = iterator.next();
+                  assertEquals( "File should be in its shard",
+                        shard, FileTreeIterator.getShardIndex( rootDir, file, 3 ) );
+                  sharded.add( file );
+                  shardedCount++;
+               }
+            }
+         }
+         assertEquals( "Shards should not overlap", sharded.size(), shardedCount );
+         assertEquals( "Shards should cover all files",
+               new HashSet<>( FileTreeReader.getDescendentFiles( rootDir, TXT_BSV_EXTENSIONS ) ), sharded );
+      } finally {
+         deleteTree( rootDir );
+      }
+   }
+
+   @Test
+   public void testReadFile() throws IOException {
+      final File rootDir = createTree();
+      try {
+         assertEquals( "File text should be read", "Text of note 0",
+               FileTreeReader.readFile( new File( rootDir, "note0.txt" ), "UTF-8" ) );
+      } finally {
+         deleteTree( rootDir );
+      }
+   }
+
+   /**
+    * @return a tree with 4 valid files in the root and in each of 2 subdirectories, one of which is nested
+    */
+   static private File createTree() throws IOException {
+      final Path rootDir = Files.createTempDirectory( "FileTreeReaderTester" );
+      final Path childDir = Files.createDirectories( rootDir.resolve( PREFIX_LONG ) );
+      final Path parentDir = childDir.getParent();
+      for ( Path dir : Arrays.asList( rootDir, parentDir, childDir ) ) {
+         for ( int i = 0; i < 4; i++ ) {
+            Files.write( dir.resolve( "note" + i + (i % 2 == 0 ? ".txt" : ".bsv") ),
+                  ("Text of note " + i).getBytes( StandardCharsets.UTF_8 ) );
+         }
+         Files.write( dir.resolve( "image.jpg" ), new byte[ 1 ] );
+      }
+      return rootDir.toFile();
+   }
+
+   static private void deleteTree( final File dir ) {
+      final File[] children = dir.listFiles();
+      if ( children != null ) {
+         for ( File child : children ) {
+            deleteTree( child );
+         }
+      }
+      if ( !dir.delete() ) {
+         LOGGER.warn( "Could not delete " + dir.getPath() );
+      }
+   }
+
 }
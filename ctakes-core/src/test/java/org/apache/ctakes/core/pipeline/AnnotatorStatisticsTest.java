@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.pipeline;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+final public class AnnotatorStatisticsTest {
+
+   @Test
+   public void testPercentiles() {
+      final AnnotatorStatistics statistics = AnnotatorStatistics.getInstance();
+      final String name = "PercentileAnnotator";
+      for ( int i = 1; i <= 1000; i++ ) {
+         statistics.record( name, "doc" + i, i * 1000000L, i * 500000L, i * 2048L );
+      }
+      final AnnotatorStatistics.AnnotatorTiming timing = statistics.getTiming( name );
+      assertEquals( 1000, timing.getDocumentCount() );
+      assertEquals( 500000000d, timing.getWallPercentile( 50 ), 500000000d * 0.03 );
+      assertEquals( 950000000d, timing.getWallPercentile( 95 ), 950000000d * 0.03 );
+      assertEquals( 990000000d, timing.getWallPercentile( 99 ), 990000000d * 0.03 );
+      assertEquals( 1000000000L, timing.getWallPercentile( 100 ) );
+      assertEquals( 1000000L, timing.getWallPercentile( 0 ) );
+      assertEquals( 250000000d, timing.getCpuPercentile( 50 ), 250000000d * 0.03 );
+      assertEquals( 1024000d, timing.getAllocatedPercentile( 50 ), 1024000d * 0.03 );
+      assertEquals( 500d, statistics.getWallMillisPercentile( name, 50 ), 500d * 0.03 );
+   }
+
+   @Test
+   public void testSmallValuesAreExact() {
+      final AnnotatorStatistics statistics = AnnotatorStatistics.getInstance();
+      final String name = "SmallValueAnnotator";
+      for ( int i = 0; i < 10; i++ ) {
+         statistics.record( name, "doc" + i, i, -1, -1 );
+      }
+      final AnnotatorStatistics.AnnotatorTiming timing = statistics.getTiming( name );
+      assertEquals( 4, timing.getWallPercentile( 50 ) );
+      assertEquals( 9, timing.getWallPercentile( 99 ) );
+      // unmeasured cpu and allocation are not recorded
+      assertEquals( 0, timing.getCpuPercentile( 50 ) );
+   }
+
+   @Test
+   public void testSlowestDocuments() {
+      final AnnotatorStatistics statistics = AnnotatorStatistics.getInstance();
+      statistics.setSlowestCount( 3 );
+      final String name = "SlowestAnnotator";
+      final long[] wallNanos = { 50, 10, 70, 30, 90, 20, 60 };
+      for ( int i = 0; i < wallNanos.length; i++ ) {
+         statistics.record( name, "doc" + i, wallNanos[ i ], 0, 0 );
+      }
+      final List<AnnotatorStatistics.DocumentTiming> slowest = statistics.getTiming( name ).getSlowestDocuments();
+      assertEquals( 3, slowest.size() );
+      assertEquals( "doc4", slowest.get( 0 ).getDocumentId() );
+      assertEquals( "doc2", slowest.get( 1 ).getDocumentId() );
+      assertEquals( "doc6", slowest.get( 2 ).getDocumentId() );
+      assertTrue( statistics.getSlowestReport().contains( "doc4" ) );
+      assertTrue( statistics.getReport().contains( name ) );
+      statistics.setSlowestCount( 10 );
+   }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.pipeline;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.collection.CollectionException;
+import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.fit.component.JCasCollectionReader_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.fit.descriptor.OperationalProperties;
+import org.apache.uima.fit.factory.CollectionReaderFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.util.Progress;
+import org.apache.uima.util.ProgressImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+final public class MultiThreadedPipelineTest {
+
+   static private final int DOCUMENT_COUNT = 40;
+
+   // key = document text, value = annotation spans written by the word annotator
+   static private final Map<String, String> OUTPUT = new ConcurrentHashMap<>();
+   static private final Set<Object> WORD_ANNOTATORS = Collections.newSetFromMap( new ConcurrentHashMap<>() );
+   static private final Set<Object> CONSUMERS = Collections.newSetFromMap( new ConcurrentHashMap<>() );
+   static private final AtomicInteger ACTIVE_CONSUMERS = new AtomicInteger();
+   static private final AtomicInteger MAX_ACTIVE_CONSUMERS = new AtomicInteger();
+
+   @Before
+   public void reset() {
+      OUTPUT.clear();
+      WORD_ANNOTATORS.clear();
+      CONSUMERS.clear();
+      ACTIVE_CONSUMERS.set( 0 );
+      MAX_ACTIVE_CONSUMERS.set( 0 );
+   }
+
+   @Test( timeout = 60000 )
+   public void testThreadsMatchSingleThread() throws IOException, UIMAException {
+      final Map<String, String> singleThreadOutput = runPipeline( 1 );
+      assertEquals( DOCUMENT_COUNT, singleThreadOutput.size() );
+      reset();
+      final Map<String, String> multiThreadOutput = runPipeline( 4 );
+      assertEquals( singleThreadOutput, multiThreadOutput );
+      assertEquals( 4, WORD_ANNOTATORS.size() );
+   }
+
+   @Test( timeout = 60000 )
+   public void testConsumerIsNotReplicated() throws IOException, UIMAException {
+      runPipeline( 4 );
+      assertEquals( DOCUMENT_COUNT, OUTPUT.size() );
+      assertEquals( 1, CONSUMERS.size() );
+      assertEquals( 1, MAX_ACTIVE_CONSUMERS.get() );
+   }
+
+   @Test( timeout = 60000 )
+   public void testReplicaFailurePropagates() throws IOException, UIMAException {
+      try {
+         new PipelineBuilder()
+               .reader( CollectionReaderFactory.createReader( NumberedReader.class ) )
+               .add( WordAnnotator.class )
+               .add( FailingAnnotator.class )
+               .add( RecordingConsumer.class )
+               .threads( 4 )
+               .run();
+         fail( "Pipeline should have failed" );
+      } catch ( AnalysisEngineProcessException aeE ) {
+         // expected
+      }
+      assertTrue( OUTPUT.size() < DOCUMENT_COUNT );
+   }
+
+   static private Map<String, String> runPipeline( final int threadCount ) throws IOException, UIMAException {
+      new PipelineBuilder()
+            .reader( CollectionReaderFactory.createReader( NumberedReader.class ) )
+            .add( WordAnnotator.class )
+            .add( RecordingConsumer.class )
+            .threads( threadCount )
+            .run();
+      return new HashMap<>( OUTPUT );
+   }
+
+
+   /**
+    * Reads {@link #DOCUMENT_COUNT} documents of different lengths.
+    */
+   static public final class NumberedReader extends JCasCollectionReader_ImplBase {
+      private int _index;
+
+      @Override
+      public boolean hasNext() {
+         return _index < DOCUMENT_COUNT;
+      }
+
+      @Override
+      public void getNext( final JCas jCas ) throws IOException, CollectionException {
+         final StringBuilder sb = new StringBuilder( "Document " ).append( _index );
+         for ( int i = 0; i < _index % 7; i++ ) {
+            sb.append( " word" ).append( i );
+         }
+         jCas.setDocumentText( sb.toString() );
+         _index++;
+      }
+
+      @Override
+      public Progress[] getProgress() {
+         return new Progress[] { new ProgressImpl( _index, DOCUMENT_COUNT, Progress.ENTITIES ) };
+      }
+   }
+
+   /**
+    * Annotates each word, slowly enough that replicas overlap.
+    */
+   static public final class WordAnnotator extends JCasAnnotator_ImplBase {
+      static private final Pattern WORD_PATTERN = Pattern.compile( "\\S+" );
+
+      public WordAnnotator() {
+         WORD_ANNOTATORS.add( this );
+      }
+
+      @Override
+      public void process( final JCas jCas ) throws AnalysisEngineProcessException {
+         final Matcher matcher = WORD_PATTERN.matcher( jCas.getDocumentText() );
+         while ( matcher.find() ) {
+            new Annotation( jCas, matcher.start(), matcher.end() ).addToIndexes();
+         }
+         try {
+            Thread.sleep( 2 );
+         } catch ( InterruptedException intE ) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisEngineProcessException( intE );
+         }
+      }
+   }
+
+   /**
+    * Fails on one document.
+    */
+   static public final class FailingAnnotator extends JCasAnnotator_ImplBase {
+      @Override
+      public void process( final JCas jCas ) throws AnalysisEngineProcessException {
+         if ( jCas.getDocumentText().startsWith( "Document 5 " ) ) {
+            throw new AnalysisEngineProcessException( new IllegalStateException( "Failing on document 5" ) );
+         }
+      }
+   }
+
+   /**
+    * Records the annotations of each document and how many instances process documents at the same time.
+    */
+   @OperationalProperties( multipleDeploymentAllowed = false )
+   static public final class RecordingConsumer extends JCasAnnotator_ImplBase {
+      public RecordingConsumer() {
+         CONSUMERS.add( this );
+      }
+
+      @Override
+      public void process( final JCas jCas ) throws AnalysisEngineProcessException {
+         final int active = ACTIVE_CONSUMERS.incrementAndGet();
+         MAX_ACTIVE_CONSUMERS.accumulateAndGet( active, Math::max );
+         try {
+            final StringBuilder sb = new StringBuilder();
+            for ( Annotation annotation : JCasUtil.select( jCas, Annotation.class ) ) {
+               sb.append( annotation.getType().getShortName() ).append( ' ' )
+                 .append( annotation.getBegin() ).append( '-' ).append( annotation.getEnd() ).append( ';' );
+            }
+            OUTPUT.put( jCas.getDocumentText(), sb.toString() );
+            Thread.sleep( 1 );
+         } catch ( InterruptedException intE ) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisEngineProcessException( intE );
+         } finally {
+            ACTIVE_CONSUMERS.decrementAndGet();
+         }
+      }
+   }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.resource;
+
+import org.apache.ctakes.utils.distsem.EmbeddingStore;
+import org.apache.ctakes.utils.distsem.WordEmbeddings;
+import org.apache.ctakes.utils.distsem.WordVector;
+import org.apache.ctakes.utils.distsem.WordVectorReader;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that embeddings in the binary store match the text embeddings and that the registry shares them.
+ */
+final public class EmbeddingRegistryTest {
+
+   static private final String VECTORS = "4 5\n"
+                                         + "pain 0.1 0.2 0.3 0.4 0.5\n"
+                                         + "ache 0.1 0.25 0.3 0.35 0.5\n"
+                                         + "\u00e7a -1 0 1 0 -1\n"
+                                         + "fever 2 -1 0.5 0 3\n";
+
+   static private File createVectorFile( final String suffix ) throws IOException {
+      final File file = File.createTempFile( "EmbeddingRegistryTest", suffix );
+      file.deleteOnExit();
+      Files.write( file.toPath(), VECTORS.getBytes( StandardCharsets.UTF_8 ) );
+      return file;
+   }
+
+   static private WordEmbeddings readText() throws IOException {
+      return WordVectorReader.getEmbeddings( new ByteArrayInputStream( VECTORS.getBytes( StandardCharsets.UTF_8 ) ) );
+   }
+
+   @Test
+   public void testStoreMatchesText() throws IOException {
+      final WordEmbeddings text = readText();
+      final WordEmbeddings stored = new WordEmbeddings(
+            EmbeddingStore.readText( new ByteArrayInputStream( VECTORS.getBytes( StandardCharsets.UTF_8 ) ) ) );
+      assertEquals( 5, stored.getDimensionality() );
+      assertTrue( stored.containsKey( "\u00e7a" ) );
+      for ( String word : Arrays.asList( "pain", "ache", "fever" ) ) {
+         assertTrue( stored.containsKey( word ) );
+         final WordVector textVector = text.getVector( word );
+         final WordVector storedVector = stored.getVector( word );
+         for ( int i = 0; i < 5; i++ ) {
+            assertEquals( textVector.getValue( i ), storedVector.getValue( i ), 1e-6 );
+         }
+         for ( String other : Arrays.asList( "pain", "ache", "fever" ) ) {
+            assertEquals( text.getSimilarity( word, other ), stored.getSimilarity( word, other ), 1e-6 );
+         }
+      }
+      assertFalse( stored.containsKey( "chills" ) );
+      assertNull( stored.getVector( "chills" ) );
+      assertEquals( text.getSimilarWords( "pain", 2 ), stored.getSimilarWords( "pain", 2 ) );
+      final WordVector textMean = text.getMeanVector();
+      final WordVector storedMean = stored.getMeanVector();
+      for ( int i = 0; i < 5; i++ ) {
+         assertEquals( textMean.getValue( i ), storedMean.getValue( i ), 1e-6 );
+      }
+   }
+
+   @Test
+   public void testEmbeddingsAreShared() throws IOException {
+      final File file = createVectorFile( ".txt" );
+      final WordEmbeddings embeddings1 = EmbeddingRegistry.getInstance().getEmbeddings( file.getPath() );
+      final WordEmbeddings embeddings2 = EmbeddingRegistry.getInstance().getEmbeddings( file.getPath() );
+      assertSame( embeddings1, embeddings2 );
+      assertTrue( embeddings1.containsKey( "fever" ) );
+   }
+
+   @Test
+   public void testBinaryFileIsPreferred() throws IOException {
+      final File file = createVectorFile( ".txt" );
+      final String path = file.getPath();
+      final File binary = new File( path.substring( 0, path.length() - 4 ) + EmbeddingStore.FILE_EXTENSION );
+      binary.deleteOnExit();
+      try ( InputStream stream = new ByteArrayInputStream( "1 2\nbinary 1 0\n".getBytes( StandardCharsets.UTF_8 ) ) ) {
+         EmbeddingStore.convert( stream, binary );
+      }
+      final WordEmbeddings embeddings = EmbeddingRegistry.getInstance().getEmbeddings( path );
+      assertEquals( 2, embeddings.getDimensionality() );
+      assertTrue( embeddings.containsKey( "binary" ) );
+      assertFalse( embeddings.containsKey( "fever" ) );
+   }
+
+}
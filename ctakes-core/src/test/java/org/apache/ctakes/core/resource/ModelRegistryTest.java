@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.resource;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+final public class ModelRegistryTest {
+
+   /**
+    * Stand-in for a model, holding the contents of the model file
+    */
+   static private final class TextModel {
+      private final String _text;
+
+      private TextModel( final InputStream stream ) throws IOException {
+         final BufferedReader reader = new BufferedReader( new InputStreamReader( stream, StandardCharsets.UTF_8 ) );
+         _text = reader.readLine();
+      }
+   }
+
+   static private File createModelFile( final String text ) throws IOException {
+      final File file = File.createTempFile( "ModelRegistryTest", ".txt" );
+      file.deleteOnExit();
+      Files.write( file.toPath(), text.getBytes( StandardCharsets.UTF_8 ) );
+      return file;
+   }
+
+   @Test
+   public void testModelIsShared() throws IOException {
+      final File file = createModelFile( "shared model" );
+      final AtomicInteger loadCount = new AtomicInteger();
+      final ModelRegistry.ModelLoader<TextModel> loader = stream -> {
+         loadCount.incrementAndGet();
+         return new TextModel( stream );
+      };
+      final TextModel model1 = ModelRegistry.getInstance().getModel( file.getPath(), TextModel.class, loader );
+      final TextModel model2 = ModelRegistry.getInstance().getModel( file.getPath(), TextModel.class, loader );
+      assertSame( model1, model2 );
+      assertEquals( "shared model", model1._text );
+      assertEquals( 1, loadCount.get() );
+
+      final String location = file.getCanonicalPath();
+      final ModelRegistry.ModelInfo info = ModelRegistry.getInstance().getModelInfos().stream()
+                                                        .filter( i -> i.getLocation().equals( location ) )
+                                                        .findFirst()
+                                                        .orElse( null );
+      assertNotNull( info );
+      assertEquals( TextModel.class.getName(), info.getModelClassName() );
+      assertEquals( "shared model".length(), info.getFileBytes() );
+      assertEquals( 2, info.getRequestCount() );
+   }
+
+   @Test
+   public void testChangedFileIsLoaded() throws IOException {
+      final File file = createModelFile( "first model" );
+      final TextModel model1 = ModelRegistry.getInstance().getModel( file.getPath(), TextModel.class, TextModel::new );
+      Files.write( file.toPath(), "second model".getBytes( StandardCharsets.UTF_8 ) );
+      final TextModel model2 = ModelRegistry.getInstance().getModel( file.getPath(), TextModel.class, TextModel::new );
+      assertNotSame( model1, model2 );
+      assertEquals( "first model", model1._text );
+      assertEquals( "second model", model2._text );
+   }
+
+   @Test
+   public void testModifiedFileReplacesModel() throws IOException {
+      final File file = createModelFile( "model one" );
+      final TextModel model1 = ModelRegistry.getInstance().getModel( file.getPath(), TextModel.class, TextModel::new );
+      // same size, so only the modified time tells that the file has changed
+      Files.write( file.toPath(), "model two".getBytes( StandardCharsets.UTF_8 ) );
+      assertTrue( file.setLastModified( file.lastModified() + 10000 ) );
+      final TextModel model2 = ModelRegistry.getInstance().getModel( file.getPath(), TextModel.class, TextModel::new );
+      final TextModel model3 = ModelRegistry.getInstance().getModel( file.getPath(), TextModel.class, TextModel::new );
+      assertEquals( "model one", model1._text );
+      assertEquals( "model two", model2._text );
+      assertSame( model2, model3 );
+
+      final String location = file.getCanonicalPath();
+      final long infoCount = ModelRegistry.getInstance().getModelInfos().stream()
+                                          .filter( i -> i.getLocation().equals( location ) )
+                                          .count();
+      assertEquals( 1, infoCount );
+   }
+
+}
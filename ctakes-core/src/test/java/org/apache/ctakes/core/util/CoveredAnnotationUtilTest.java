@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.util;
+
+import org.apache.ctakes.typesystem.type.syntax.BaseToken;
+import org.apache.ctakes.typesystem.type.syntax.WordToken;
+import org.apache.ctakes.typesystem.type.textspan.Sentence;
+import org.apache.uima.UIMAException;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+final public class CoveredAnnotationUtilTest {
+
+   static private final String TEXT = "No acute distress. Lungs are clear.  Heart rate regular.";
+
+   @Test
+   public void testSameAsSelectCovered() throws UIMAException {
+      final JCas jCas = JCasFactory.createJCas();
+      jCas.setDocumentText( TEXT );
+      addSentence( jCas, 0, 18 );
+      addSentence( jCas, 19, 35 );
+      // a sentence nested in another and one that crosses a token
+      addSentence( jCas, 19, 24 );
+      addSentence( jCas, 31, 48 );
+      addSentence( jCas, 37, 56 );
+      int begin = -1;
+      for ( int i = 0; i <= TEXT.length(); i++ ) {
+         final boolean boundary = i == TEXT.length() || TEXT.charAt( i ) == ' ' || TEXT.charAt( i ) == '.';
+         if ( boundary && begin >= 0 ) {
+            new WordToken( jCas, begin, i ).addToIndexes();
+            begin = -1;
+         } else if ( !boundary && begin < 0 ) {
+            begin = i;
+         }
+         if ( i < TEXT.length() && TEXT.charAt( i ) == '.' ) {
+            new BaseToken( jCas, i, i + 1 ).addToIndexes();
+         }
+      }
+
+      final Map<Sentence, List<BaseToken>> coveredLists
+            = CoveredAnnotationUtil.selectCoveredLists( jCas, Sentence.class, BaseToken.class );
+      final List<Sentence> sentences = new ArrayList<>( JCasUtil.select( jCas, Sentence.class ) );
+      assertEquals( sentences, new ArrayList<>( coveredLists.keySet() ) );
+      for ( Sentence sentence : sentences ) {
+         assertEquals( JCasUtil.selectCovered( BaseToken.class, sentence ), coveredLists.get( sentence ) );
+      }
+   }
+
+   static private void addSentence( final JCas jCas, final int begin, final int end ) {
+      new Sentence( jCas, begin, end ).addToIndexes();
+   }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.util.collection;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BoundedCacheTest {
+
+   @Test
+   public void testEviction() {
+      final BoundedCache<String, String> cache = new BoundedCache<>( 2 );
+      cache.put( "a", "A" );
+      cache.put( "b", "B" );
+      // touch a so that b is the least recently used
+      assertEquals( "A", cache.get( "a" ) );
+      cache.put( "c", "C" );
+      assertEquals( 2, cache.size() );
+      assertNull( cache.get( "b" ) );
+      assertEquals( "A", cache.get( "a" ) );
+      assertEquals( "C", cache.get( "c" ) );
+      assertEquals( 3, cache.getHitCount() );
+      assertEquals( 1, cache.getMissCount() );
+      assertEquals( 0.75, cache.getHitRate(), 0.0001 );
+   }
+
+   @Test
+   public void testFifoEviction() {
+      final BoundedCache<String, String> cache = new BoundedCache<>( 2, BoundedCache.EvictionPolicy.FIFO );
+      cache.put( "a", "A" );
+      cache.put( "b", "B" );
+      // access does not change the order, so a is still the first in
+      assertEquals( "A", cache.get( "a" ) );
+      cache.put( "c", "C" );
+      assertEquals( 2, cache.size() );
+      assertNull( cache.get( "a" ) );
+      assertEquals( "B", cache.get( "b" ) );
+      assertEquals( "C", cache.get( "c" ) );
+      // replacing a value does not change the order either
+      cache.put( "b", "B2" );
+      cache.put( "d", "D" );
+      assertNull( cache.get( "b" ) );
+      assertEquals( "C", cache.get( "c" ) );
+      assertEquals( "D", cache.get( "d" ) );
+      assertEquals( BoundedCache.EvictionPolicy.FIFO.name(), cache.getEvictionPolicy() );
+   }
+
+   @Test
+   public void testPolicyName() {
+      assertEquals( BoundedCache.EvictionPolicy.FIFO,
+            BoundedCache.EvictionPolicy.getPolicy( " fifo ", BoundedCache.EvictionPolicy.LRU ) );
+      assertEquals( BoundedCache.EvictionPolicy.LRU,
+            BoundedCache.EvictionPolicy.getPolicy( "random", BoundedCache.EvictionPolicy.LRU ) );
+      assertEquals( BoundedCache.EvictionPolicy.LRU,
+            BoundedCache.EvictionPolicy.getPolicy( null, BoundedCache.EvictionPolicy.LRU ) );
+   }
+
+   @Test
+   public void testDisabled() {
+      final BoundedCache<String, String> cache = new BoundedCache<>( 0 );
+      cache.put( "a", "A" );
+      assertNull( cache.get( "a" ) );
+      assertEquals( 0, cache.size() );
+      assertEquals( 1, cache.getMissCount() );
+   }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.util.regex;
+
+import org.apache.ctakes.core.util.Pair;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+final public class MultiPatternFinderTest {
+
+   static private final int FLAGS = Pattern.MULTILINE | Pattern.CASE_INSENSITIVE;
+
+   static private final String TEXT = "History of Present Illness:\n"
+                                      + "  The patient reports chest pain.  Past history: none.\n"
+                                      + "MEDICATIONS: aspirin\n"
+                                      + "Allergies : NKDA\n"
+                                      + "Assessment and Plan:\n"
+                                      + "  aa bb aa cc Plan: follow up\n"
+                                      + "==========\n"
+                                      + "medications: none";
+
+   static private List<Pattern> createPatterns() {
+      return Arrays.asList(
+            Pattern.compile( "^(?<name>History of Present Illness)\\s*:", FLAGS ),
+            Pattern.compile( "^(?<name>Medications)\\s*:", FLAGS ),
+            Pattern.compile( "^[\\t ]*(?<name>Allergies)[\\t ]*:", FLAGS ),
+            Pattern.compile( "^Assessment and Plan\\s*:", FLAGS ),
+            // not anchored, overlaps the assessment header
+            Pattern.compile( "Plan\\s*:", FLAGS ),
+            Pattern.compile( "(?<=\\s)history(?=:)", FLAGS ),
+            // back reference, cannot be combined
+            Pattern.compile( "(a+) bb \\1", FLAGS ),
+            // escaped parenthesis is not a named group
+            Pattern.compile( "\\(?<x>", FLAGS ),
+            // different flags
+            Pattern.compile( "^medications:" ),
+            Pattern.compile( "^=+$", FLAGS ),
+            Pattern.compile( "x*", FLAGS ) );
+   }
+
+   static private Map<Pattern, List<Pair<Integer>>> findEach( final Collection<Pattern> patterns,
+                                                              final String text ) {
+      final Map<Pattern, List<Pair<Integer>>> patternSpans = new HashMap<>();
+      for ( Pattern pattern : patterns ) {
+         final List<Pair<Integer>> spans = new ArrayList<>();
+         final Matcher matcher = pattern.matcher( text );
+         while ( matcher.find() ) {
+            spans.add( new Pair<>( matcher.start(), matcher.end() ) );
+         }
+         patternSpans.put( pattern, spans );
+      }
+      return patternSpans;
+   }
+
+   @Test
+   public void testMatchesFindLoop() {
+      final List<Pattern> patterns = createPatterns();
+      final MultiPatternFinder finder = new MultiPatternFinder( "Test", patterns );
+      assertFalse( "Patterns should be combined", finder.getUnions().isEmpty() );
+      assertEquals( findEach( patterns, TEXT ),
+            finder.findAll( TEXT, m -> new Pair<>( m.start(), m.end() ) ) );
+   }
+
+   @Test
+   public void testSeparatePatterns() {
+      final List<Pattern> patterns = createPatterns();
+      final MultiPatternFinder finder = new MultiPatternFinder( "Test", patterns );
+      assertTrue( "Back reference should not be combined", finder.getSeparatePatterns().contains( patterns.get( 6 ) ) );
+      assertTrue( "Single flag pattern should not be combined", finder.getSeparatePatterns().contains( patterns.get( 8 ) ) );
+      assertFalse( finder.getSeparatePatterns().contains( patterns.get( 0 ) ) );
+   }
+
+   @Test
+   public void testAnchoredAlternation() {
+      // the anchor only applies to the first alternative, so plan: is found within a line
+      final List<Pattern> patterns = Arrays.asList(
+            Pattern.compile( "^Assessment and Plan\\s*:|Plan\\s*:", FLAGS ),
+            Pattern.compile( "^(?:Allergies|Medications)\\s*:", FLAGS ),
+            Pattern.compile( "^[|=]+$", FLAGS ) );
+      final MultiPatternFinder finder = new MultiPatternFinder( "Test", patterns );
+      assertFalse( "Patterns should be combined", finder.getUnions().isEmpty() );
+      final Map<Pattern, List<Pair<Integer>>> expected = findEach( patterns, TEXT );
+      assertEquals( 2, expected.get( patterns.get( 0 ) ).size() );
+      assertEquals( expected, finder.findAll( TEXT, m -> new Pair<>( m.start(), m.end() ) ) );
+   }
+
+   @Test
+   public void testNamedGroups() {
+      final List<Pattern> patterns = createPatterns().subList( 0, 3 );
+      final MultiPatternFinder finder = new MultiPatternFinder( "Test", patterns );
+      final Map<Pattern, List<String>> names = finder.findAll( TEXT, m -> m.group( "name" ) );
+      assertEquals( Collections.singletonList( "History of Present Illness" ), names.get( patterns.get( 0 ) ) );
+      assertEquals( Arrays.asList( "MEDICATIONS", "medications" ), names.get( patterns.get( 1 ) ) );
+      assertEquals( Collections.singletonList( "Allergies" ), names.get( patterns.get( 2 ) ) );
+   }
+
+   @Test
+   public void testRandomText() {
+      final List<Pattern> patterns = createPatterns();
+      final MultiPatternFinder finder = new MultiPatternFinder( "Test", patterns );
+      final String[] pieces = { "history", " ", "\n", ":", "plan", "Medications", "aa", " bb ", "(", "<x>", "==" };
+      final Random random = new Random( 11 );
+      for ( int i = 0; i < 50; i++ ) {
+         final StringBuilder sb = new StringBuilder();
+         for ( int j = 0; j < 200; j++ ) {
+            sb.append( pieces[ random.nextInt( pieces.length ) ] );
+         }
+         final String text = sb.toString();
+         assertEquals( findEach( patterns, text ), finder.findAll( text, m -> new Pair<>( m.start(), m.end() ) ) );
+      }
+   }
+
+   @Test
+   public void testExecutor() {
+      final List<Pattern> patterns = createPatterns();
+      final MultiPatternFinder finder = new MultiPatternFinder( "Test", patterns );
+      assertEquals( findEach( patterns, TEXT ), RegexExecutor.getInstance()
+            .findAll( finder, TEXT, RegexExecutor.DEFAULT_TIMEOUT_MILLIS, m -> new Pair<>( m.start(), m.end() ) ) );
+   }
+
+}
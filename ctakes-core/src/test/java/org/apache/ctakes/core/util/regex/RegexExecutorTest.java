@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.core.util.regex;
+
+import org.apache.ctakes.core.util.Pair;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertTrue;
+
+final public class RegexExecutorTest {
+
+   /**
+    * A find that cannot get a pool thread must give up at its timeout instead of waiting in the queue.
+    */
+   @Test( timeout = 30000 )
+   public void testSaturatedPool() throws InterruptedException {
+      final RegexExecutor executor = RegexExecutor.getInstance();
+      final int poolSize = executor.getPoolSize();
+      final CountDownLatch started = new CountDownLatch( poolSize );
+      final CountDownLatch release = new CountDownLatch( 1 );
+      final Collection<Thread> blockers = new ArrayList<>( poolSize );
+      for ( int i = 0; i < poolSize; i++ ) {
+         final Thread blocker = new Thread( () -> executor.findAll( Pattern.compile( "a" ), "a",
+               RegexExecutor.MAX_TIMEOUT_MILLIS, m -> {
+                  started.countDown();
+                  try {
+                     release.await();
+                  } catch ( InterruptedException iE ) {
+                     Thread.currentThread().interrupt();
+                  }
+                  return m.group();
+               } ) );
+         blocker.start();
+         blockers.add( blocker );
+      }
+      try {
+         assertTrue( "Pool threads did not start", started.await( 5, TimeUnit.SECONDS ) );
+         final long startNanos = System.nanoTime();
+         final List<Pair<Integer>> spans
+               = executor.findSpans( Pattern.compile( "b" ), "abc", RegexExecutor.MIN_TIMEOUT_MILLIS );
+         final long waitMillis = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - startNanos );
+         assertTrue( "Find ran without a free thread", spans.isEmpty() );
+         assertTrue( "Waited " + waitMillis + " milliseconds", waitMillis < 2000 );
+      } finally {
+         release.countDown();
+         for ( Thread blocker : blockers ) {
+            blocker.join();
+         }
+      }
+      // the queued find was removed and the pool is usable again
+      assertTrue( executor.findSpans( Pattern.compile( "b" ), "abc", RegexExecutor.DEFAULT_TIMEOUT_MILLIS )
+                          .contains( new Pair<>( 1, 2 ) ) );
+   }
+
+}
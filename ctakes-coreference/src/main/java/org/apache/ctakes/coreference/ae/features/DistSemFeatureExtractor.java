@@ -7,7 +7,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
-import org.apache.ctakes.core.resource.FileLocator;
+import org.apache.ctakes.core.resource.EmbeddingRegistry;
 import org.apache.ctakes.dependency.parser.util.DependencyUtility;
 import org.apache.ctakes.relationextractor.ae.features.RelationFeaturesExtractor;
 import org.apache.ctakes.typesystem.type.syntax.BaseToken;
@@ -15,7 +15,6 @@ import org.apache.ctakes.typesystem.type.syntax.ConllDependencyNode;
 import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
 import org.apache.ctakes.utils.distsem.WordEmbeddings;
 import org.apache.ctakes.utils.distsem.WordVector;
-import org.apache.ctakes.utils.distsem.WordVectorReader;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.jcas.JCas;
 import org.cleartk.ml.Feature;
@@ -29,7 +28,7 @@ public class DistSemFeatureExtractor implements RelationFeaturesExtractor<Identi
   private WordEmbeddings words = null;
   
   public DistSemFeatureExtractor() throws FileNotFoundException, IOException{
-    words = WordVectorReader.getEmbeddings(FileLocator.getAsStream("org/apache/ctakes/coreference/distsem/mimic_vectors.txt"));
+    words = EmbeddingRegistry.getInstance().getEmbeddings("org/apache/ctakes/coreference/distsem/mimic_vectors.txt");
   }
   
   @Override
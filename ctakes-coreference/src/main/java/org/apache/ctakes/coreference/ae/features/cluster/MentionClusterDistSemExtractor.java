@@ -5,7 +5,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.ctakes.core.resource.FileLocator;
+import org.apache.ctakes.core.resource.EmbeddingRegistry;
 import org.apache.ctakes.core.util.ListIterable;
 import org.apache.ctakes.coreference.ae.features.StringMatchingFeatureExtractor;
 import org.apache.ctakes.dependency.parser.util.DependencyUtility;
@@ -17,7 +17,6 @@ import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
 import org.apache.ctakes.typesystem.type.textsem.Markable;
 import org.apache.ctakes.utils.distsem.WordEmbeddings;
 import org.apache.ctakes.utils.distsem.WordVector;
-import org.apache.ctakes.utils.distsem.WordVectorReader;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
@@ -36,7 +35,7 @@ public class MentionClusterDistSemExtractor implements
   }
   
   public MentionClusterDistSemExtractor(String embeddingsPath) throws FileNotFoundException, IOException{
-    words = WordVectorReader.getEmbeddings(FileLocator.getAsStream(embeddingsPath));
+    words = EmbeddingRegistry.getInstance().getEmbeddings(embeddingsPath);
   }
 
   @Override
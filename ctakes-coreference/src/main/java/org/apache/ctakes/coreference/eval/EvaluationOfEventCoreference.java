@@ -23,7 +23,7 @@ import org.apache.ctakes.assertion.medfacts.cleartk.HistoryCleartkAnalysisEngine
 import org.apache.ctakes.assertion.medfacts.cleartk.PolarityCleartkAnalysisEngine;
 import org.apache.ctakes.assertion.medfacts.cleartk.SubjectCleartkAnalysisEngine;
 import org.apache.ctakes.assertion.medfacts.cleartk.UncertaintyCleartkAnalysisEngine;
-import org.apache.ctakes.core.resource.FileLocator;
+import org.apache.ctakes.core.resource.EmbeddingRegistry;
 import org.apache.ctakes.core.util.DocumentIDAnnotationUtil;
 import org.apache.ctakes.core.util.ListFactory;
 import org.apache.ctakes.coreference.ae.CoreferenceChainScoringOutput;
@@ -60,7 +60,6 @@ import org.apache.ctakes.typesystem.type.textsem.SignSymptomMention;
 import org.apache.ctakes.typesystem.type.textspan.Paragraph;
 import org.apache.ctakes.utils.distsem.WordEmbeddings;
 import org.apache.ctakes.utils.distsem.WordVector;
-import org.apache.ctakes.utils.distsem.WordVectorReader;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
@@ -648,7 +647,7 @@ public class EvaluationOfEventCoreference extends EvaluationOfTemporalRelations_
     @Override
     public void initialize(final UimaContext context) throws ResourceInitializationException{
       try {
-        words = WordVectorReader.getEmbeddings(FileLocator.getAsStream("org/apache/ctakes/coreference/distsem/mimic_vectors.txt"));
+        words = EmbeddingRegistry.getInstance().getEmbeddings("org/apache/ctakes/coreference/distsem/mimic_vectors.txt");
       } catch (IOException e) {
         e.printStackTrace();
         throw new ResourceInitializationException(e);
@@ -9,11 +9,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 
-import org.apache.ctakes.core.resource.FileLocator;
+import org.apache.ctakes.core.resource.EmbeddingRegistry;
 import org.apache.ctakes.typesystem.type.syntax.BaseToken;
 import org.apache.ctakes.utils.distsem.WordEmbeddings;
 import org.apache.ctakes.utils.distsem.WordVector;
-import org.apache.ctakes.utils.distsem.WordVectorReader;
 import org.apache.uima.jcas.JCas;
 import org.cleartk.ml.Feature;
 import org.cleartk.ml.feature.extractor.CleartkExtractorException;
@@ -26,7 +25,7 @@ public class ContinuousTextExtractor implements NamedFeatureExtractor1<BaseToken
   public ContinuousTextExtractor(String vecFile) throws CleartkExtractorException {
     super();
     try {
-      words = WordVectorReader.getEmbeddings(FileLocator.getAsStream(vecFile));
+      words = EmbeddingRegistry.getInstance().getEmbeddings(vecFile);
     } catch (IOException e) {
       e.printStackTrace();
       throw new CleartkExtractorException(e);
@@ -25,11 +25,13 @@ import org.apache.ctakes.dictionary.lookup2.concept.Concept;
 import org.apache.ctakes.dictionary.lookup2.concept.ConceptFactory;
 import org.apache.ctakes.dictionary.lookup2.dictionary.DictionaryDescriptorParser;
 import org.apache.ctakes.dictionary.lookup2.dictionary.RareWordDictionary;
+import org.apache.ctakes.dictionary.lookup2.term.RareWordTerm;
 import org.apache.ctakes.dictionary.lookup2.textspan.TextSpan;
 import org.apache.ctakes.dictionary.lookup2.util.DictionarySpec;
 import org.apache.ctakes.dictionary.lookup2.util.FastLookupToken;
-import org.apache.ctakes.dictionary.lookup2.util.collection.CollectionMap;
-import org.apache.ctakes.dictionary.lookup2.util.collection.HashSetMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongKeyMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSet;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSetMap;
 import org.apache.ctakes.typesystem.type.syntax.*;
 import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
@@ -46,11 +48,18 @@ import org.apache.uima.resource.ResourceInitializationException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Performs the basic initialization with uima context, including the parse of the dictionary specifications file.
  * Has a
  * <p/>
+ * With the parameter {@value JCasTermAnnotator#PARAM_PARALLEL_LOOKUP_KEY} set to true windows are not processed with
+ * {@link #processWindow(JCas, Annotation, Map)}.  Instead the tokens of all windows are gathered first and
+ * {@link #findTerms(RareWordDictionary, List, List, LongSetMap)} is run over windows and dictionaries in parallel.
+ * The discovered terms are the same as those of serial lookup.
+ * <p/>
  * Author: SPF
  * Affiliation: CHIP-NLP
  * Date: 12/6/13
@@ -84,6 +93,24 @@ abstract public class AbstractJCasTermAnnotator extends org.apache.uima.fit.comp
          description = "Minimum number of characters for a term" )
    protected int _minimumLookupSpan = DEFAULT_MINIMUM_SPAN;
 
+   // look up windows and dictionaries in parallel.  Dictionaries and findTerms(..) must then be thread safe
+   @ConfigurationParameter( name = JCasTermAnnotator.PARAM_PARALLEL_LOOKUP_KEY, mandatory = false,
+         description = "Look up windows and dictionaries in parallel", defaultValue = "false" )
+   private boolean _parallelLookup;
+
+   /**
+    * Fork join pool shared by all annotators that use parallel lookup, created upon first use
+    */
+   static private final class LookupPoolHolder {
+      static private final ForkJoinPool LOOKUP_POOL
+            = new ForkJoinPool( Runtime.getRuntime().availableProcessors() );
+   }
+
+   /**
+    * Number of window lookup tasks per pool thread, to keep the pool busy when window sizes vary
+    */
+   static private final int TASKS_PER_THREAD = 4;
+
    /**
     * {@inheritDoc}
     */
@@ -110,6 +137,9 @@ abstract public class AbstractJCasTermAnnotator extends org.apache.uima.fit.comp
          _minimumLookupSpan = parseInt( minimumSpan, PARAM_MIN_SPAN_KEY, _minimumLookupSpan );
       }
       LOGGER.info( "Using minimum term text span: " + _minimumLookupSpan );
+      if ( _parallelLookup ) {
+         LOGGER.info( "Using parallel lookup" );
+      }
       LOGGER.info( "Using Dictionary Descriptor: " + _descriptorFilePath );
       try ( InputStream descriptorStream = FileLocator.getAsStream( _descriptorFilePath ) ) {
          _dictionarySpec = DictionaryDescriptorParser.parseDescriptor( descriptorStream, uimaContext );
@@ -130,16 +160,21 @@ abstract public class AbstractJCasTermAnnotator extends org.apache.uima.fit.comp
       if ( lookupWindows == null ) {  // I don't trust AnnotationIndex.size(), so don't check
          return;
       }
-      final Map<RareWordDictionary, CollectionMap<TextSpan, Long, ? extends Collection<Long>>> dictionaryTermsMap
-            = new HashMap<>( getDictionaries().size() );
+      // terms are consumed in dictionary order, which decides the order of annotations with the same span
+      final Map<RareWordDictionary, LongSetMap<TextSpan>> dictionaryTermsMap
+            = new LinkedHashMap<>( getDictionaries().size() );
       for ( RareWordDictionary dictionary : getDictionaries() ) {
-         final CollectionMap<TextSpan, Long, ? extends Collection<Long>> textSpanCuis = new HashSetMap<>();
+         final LongSetMap<TextSpan> textSpanCuis = new LongSetMap<>();
          dictionaryTermsMap.put( dictionary, textSpanCuis );
       }
       try {
-         for ( Object window : lookupWindows ) {
-            if ( isWindowOk( (Annotation)window ) ) {
-               processWindow( jcas, (Annotation)window, dictionaryTermsMap );
+         if ( _parallelLookup ) {
+            processWindowsParallel( jcas, lookupWindows, dictionaryTermsMap );
+         } else {
+            for ( Object window : lookupWindows ) {
+               if ( isWindowOk( (Annotation)window ) ) {
+                  processWindow( jcas, (Annotation)window, dictionaryTermsMap );
+               }
             }
          }
       } catch ( ArrayIndexOutOfBoundsException iobE ) {
@@ -147,22 +182,25 @@ abstract public class AbstractJCasTermAnnotator extends org.apache.uima.fit.comp
          LOGGER.warn( iobE.getMessage() );
       }
       // Let the consumer handle uniqueness and ordering - some may not care
-      final Collection<Long> allDictionaryCuis = new HashSet<>();
-      final CollectionMap<Long, Concept, ? extends Collection<Concept>> allConceptsMap = new HashSetMap<>();
-      for ( Map.Entry<RareWordDictionary, CollectionMap<TextSpan, Long, ? extends Collection<Long>>> dictionaryCuis : dictionaryTermsMap
+      final LongKeyMap<Collection<Concept>> allConceptsMap = new LongKeyMap<>();
+      for ( Map.Entry<RareWordDictionary, LongSetMap<TextSpan>> dictionaryCuis : dictionaryTermsMap
             .entrySet() ) {
-         allDictionaryCuis.clear();
          final RareWordDictionary dictionary = dictionaryCuis.getKey();
-         final CollectionMap<TextSpan, Long, ? extends Collection<Long>> textSpanCuis = dictionaryCuis.getValue();
-         for ( Collection<Long> cuiCodes : textSpanCuis.getAllCollections() ) {
-            allDictionaryCuis.addAll( cuiCodes );
-         }
+         final LongSetMap<TextSpan> textSpanCuis = dictionaryCuis.getValue();
+         final LongSet allDictionaryCuis = textSpanCuis.getAllValues();
          final Collection<ConceptFactory> conceptFactories
                = _dictionarySpec.getPairedConceptFactories( dictionary.getName() );
          allConceptsMap.clear();
          for ( ConceptFactory conceptFactory : conceptFactories ) {
-            final Map<Long, Concept> conceptMap = conceptFactory.createConcepts( allDictionaryCuis );
-            allConceptsMap.placeMap( conceptMap );
+            final LongKeyMap<Concept> conceptMap = conceptFactory.createConcepts( allDictionaryCuis );
+            for ( long cuiCode : conceptMap.keys() ) {
+               Collection<Concept> concepts = allConceptsMap.get( cuiCode );
+               if ( concepts == null ) {
+                  concepts = new HashSet<>();
+                  allConceptsMap.put( cuiCode, concepts );
+               }
+               concepts.add( conceptMap.get( cuiCode ) );
+            }
          }
          _dictionarySpec.getConsumer().consumeHits( jcas, dictionary, textSpanCuis, allConceptsMap );
       }
@@ -170,6 +208,20 @@ abstract public class AbstractJCasTermAnnotator extends org.apache.uima.fit.comp
    }
 
 
+   /**
+    * Closes the dictionaries, releasing their database connections
+    * {@inheritDoc}
+    */
+   @Override
+   public void destroy() {
+      if ( _dictionarySpec != null ) {
+         for ( RareWordDictionary dictionary : getDictionaries() ) {
+            dictionary.close();
+         }
+      }
+      super.destroy();
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -198,13 +250,73 @@ abstract public class AbstractJCasTermAnnotator extends org.apache.uima.fit.comp
     */
    @Override
    public void processWindow( final JCas jcas, final Annotation window,
-                              final Map<RareWordDictionary, CollectionMap<TextSpan, Long, ? extends Collection<Long>>> dictionaryTerms ) {
+                              final Map<RareWordDictionary, LongSetMap<TextSpan>> dictionaryTerms ) {
       final List<FastLookupToken> allTokens = new ArrayList<>();
       final List<Integer> lookupTokenIndices = new ArrayList<>();
       getAnnotationsInWindow( jcas, window, allTokens, lookupTokenIndices );
       findTerms( getDictionaries(), allTokens, lookupTokenIndices, dictionaryTerms );
    }
 
+   /**
+    * Tokens for all windows are collected on the calling thread, which is the only thread to access the cas.
+    * Terms are then found for chunks of windows and each dictionary in the shared fork join pool,
+    * and the terms for each dictionary are merged in window order.
+    *
+    * @param jcas               -
+    * @param lookupWindows      all lookup windows in the cas
+    * @param dictionaryTermsMap map of dictionaries and terms discovered in all windows
+    * @throws AnalysisEngineProcessException if a lookup fails
+    */
+   private void processWindowsParallel( final JCas jcas, final Iterable<?> lookupWindows,
+                                        final Map<RareWordDictionary, LongSetMap<TextSpan>> dictionaryTermsMap )
+         throws AnalysisEngineProcessException {
+      final List<List<FastLookupToken>> windowTokens = new ArrayList<>();
+      final List<List<Integer>> windowLookupIndices = new ArrayList<>();
+      for ( Object window : lookupWindows ) {
+         if ( !isWindowOk( (Annotation)window ) ) {
+            continue;
+         }
+         final List<FastLookupToken> allTokens = new ArrayList<>();
+         final List<Integer> lookupTokenIndices = new ArrayList<>();
+         getAnnotationsInWindow( jcas, (Annotation)window, allTokens, lookupTokenIndices );
+         if ( !lookupTokenIndices.isEmpty() ) {
+            windowTokens.add( allTokens );
+            windowLookupIndices.add( lookupTokenIndices );
+         }
+      }
+      if ( windowTokens.isEmpty() ) {
+         return;
+      }
+      final ForkJoinPool pool = LookupPoolHolder.LOOKUP_POOL;
+      final int chunkSize = Math.max( 1, windowTokens.size() / (pool.getParallelism() * TASKS_PER_THREAD) );
+      final List<RareWordDictionary> taskDictionaries = new ArrayList<>();
+      final List<ForkJoinTask<LongSetMap<TextSpan>>> tasks = new ArrayList<>();
+      for ( RareWordDictionary dictionary : getDictionaries() ) {
+         for ( int start = 0; start < windowTokens.size(); start += chunkSize ) {
+            final int chunkStart = start;
+            final int chunkEnd = Math.min( start + chunkSize, windowTokens.size() );
+            taskDictionaries.add( dictionary );
+            tasks.add( pool.submit( () -> {
+               final LongSetMap<TextSpan> textSpanCuis = new LongSetMap<>();
+               for ( int i = chunkStart; i < chunkEnd; i++ ) {
+                  findTerms( dictionary, windowTokens.get( i ), windowLookupIndices.get( i ), textSpanCuis );
+               }
+               return textSpanCuis;
+            } ) );
+         }
+      }
+      try {
+         for ( int i = 0; i < tasks.size(); i++ ) {
+            dictionaryTermsMap.get( taskDictionaries.get( i ) ).placeMap( tasks.get( i ).join() );
+         }
+      } catch ( RuntimeException rtE ) {
+         for ( ForkJoinTask<LongSetMap<TextSpan>> task : tasks ) {
+            task.cancel( true );
+         }
+         throw new AnalysisEngineProcessException( rtE );
+      }
+   }
+
    /**
     * Given a set of dictionaries, tokens, and lookup token indices, populate a terms map with discovered terms
     *
@@ -215,9 +327,9 @@ abstract public class AbstractJCasTermAnnotator extends org.apache.uima.fit.comp
     */
    private void findTerms( final Iterable<RareWordDictionary> dictionaries,
                            final List<FastLookupToken> allTokens, final List<Integer> lookupTokenIndices,
-                           final Map<RareWordDictionary, CollectionMap<TextSpan, Long, ? extends Collection<Long>>> dictionaryTermsMap ) {
+                           final Map<RareWordDictionary, LongSetMap<TextSpan>> dictionaryTermsMap ) {
       for ( RareWordDictionary dictionary : dictionaries ) {
-         CollectionMap<TextSpan, Long, ? extends Collection<Long>> termsFromDictionary = dictionaryTermsMap
+         LongSetMap<TextSpan> termsFromDictionary = dictionaryTermsMap
                .get( dictionary );
          findTerms( dictionary, allTokens, lookupTokenIndices, termsFromDictionary );
       }
@@ -260,6 +372,27 @@ abstract public class AbstractJCasTermAnnotator extends org.apache.uima.fit.comp
    }
 
 
+   /**
+    * Get the rare word hits for all lookup tokens in a window with a single call to the dictionary,
+    * which allows a dictionary backed by a database to make a single round trip
+    *
+    * @param dictionary         -
+    * @param allTokens          all tokens in a window
+    * @param lookupTokenIndices indices of tokens in the window to be used for lookup
+    * @return map of lookup tokens to the terms that contain them
+    */
+   static protected Map<FastLookupToken, Collection<RareWordTerm>> getWindowHits(
+         final RareWordDictionary dictionary,
+         final List<FastLookupToken> allTokens,
+         final List<Integer> lookupTokenIndices ) {
+      final List<FastLookupToken> lookupTokens = new ArrayList<>( lookupTokenIndices.size() );
+      for ( Integer lookupTokenIndex : lookupTokenIndices ) {
+         lookupTokens.add( allTokens.get( lookupTokenIndex ) );
+      }
+      return dictionary.getRareWordHits( lookupTokens );
+   }
+
+
    static protected int parseInt( final Object value, final String name, final int defaultValue ) {
       if ( value instanceof Integer ) {
          return (Integer)value;
@@ -23,13 +23,14 @@ import org.apache.ctakes.dictionary.lookup2.term.RareWordTerm;
 import org.apache.ctakes.dictionary.lookup2.textspan.DefaultTextSpan;
 import org.apache.ctakes.dictionary.lookup2.textspan.TextSpan;
 import org.apache.ctakes.dictionary.lookup2.util.FastLookupToken;
-import org.apache.ctakes.dictionary.lookup2.util.collection.CollectionMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSetMap;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
 import org.apache.uima.fit.factory.AnalysisEngineFactory;
 import org.apache.uima.resource.ResourceInitializationException;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A direct string match using phrase permutations
@@ -46,11 +47,16 @@ final public class DefaultJCasTermAnnotator extends AbstractJCasTermAnnotator {
    public void findTerms( final RareWordDictionary dictionary,
                           final List<FastLookupToken> allTokens,
                           final List<Integer> lookupTokenIndices,
-                          final CollectionMap<TextSpan, Long, ? extends Collection<Long>> termsFromDictionary ) {
+                          final LongSetMap<TextSpan> termsFromDictionary ) {
+      final Map<FastLookupToken, Collection<RareWordTerm>> windowHits
+            = getWindowHits( dictionary, allTokens, lookupTokenIndices );
+      if ( windowHits.isEmpty() ) {
+         return;
+      }
       Collection<RareWordTerm> rareWordHits;
       for ( Integer lookupTokenIndex : lookupTokenIndices ) {
          final FastLookupToken lookupToken = allTokens.get( lookupTokenIndex );
-         rareWordHits = dictionary.getRareWordHits( lookupToken );
+         rareWordHits = windowHits.get( lookupToken );
          if ( rareWordHits == null || rareWordHits.isEmpty() ) {
             continue;
          }
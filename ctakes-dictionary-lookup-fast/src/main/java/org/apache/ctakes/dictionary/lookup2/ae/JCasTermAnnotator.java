@@ -21,7 +21,7 @@ package org.apache.ctakes.dictionary.lookup2.ae;
 import org.apache.ctakes.dictionary.lookup2.dictionary.RareWordDictionary;
 import org.apache.ctakes.dictionary.lookup2.textspan.TextSpan;
 import org.apache.ctakes.dictionary.lookup2.util.FastLookupToken;
-import org.apache.ctakes.dictionary.lookup2.util.collection.CollectionMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSetMap;
 import org.apache.uima.analysis_component.AnalysisComponent;
 
 import java.util.Collection;
@@ -50,6 +50,10 @@ public interface JCasTermAnnotator extends AnalysisComponent {
     * optional minimum span for tokens that should not be used for lookup
     */
    static final String PARAM_MIN_SPAN_KEY = "minimumSpan";
+   /**
+    * optional flag to look up windows and dictionaries in parallel
+    */
+   static final String PARAM_PARALLEL_LOOKUP_KEY = "parallelLookup";
 
 
    static final String DEFAULT_LOOKUP_WINDOW = "org.apache.ctakes.typesystem.type.textspan.Sentence";
@@ -74,6 +78,6 @@ public interface JCasTermAnnotator extends AnalysisComponent {
    void findTerms( RareWordDictionary dictionary,
                    List<FastLookupToken> allTokens,
                    List<Integer> lookupTokenIndices,
-                   CollectionMap<TextSpan, Long, ? extends Collection<Long>> termsFromDictionary );
+                   LongSetMap<TextSpan> termsFromDictionary );
 
 }
@@ -24,7 +24,7 @@ import org.apache.ctakes.dictionary.lookup2.textspan.DefaultTextSpan;
 import org.apache.ctakes.dictionary.lookup2.textspan.MultiTextSpan;
 import org.apache.ctakes.dictionary.lookup2.textspan.TextSpan;
 import org.apache.ctakes.dictionary.lookup2.util.FastLookupToken;
-import org.apache.ctakes.dictionary.lookup2.util.collection.CollectionMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSetMap;
 import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
@@ -35,6 +35,7 @@ import org.apache.uima.resource.ResourceInitializationException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Checks for terms that overlap a window.  All tokens of the term must exist in the window in order,
@@ -86,11 +87,16 @@ final public class OverlapJCasTermAnnotator extends AbstractJCasTermAnnotator {
    public void findTerms( final RareWordDictionary dictionary,
                           final List<FastLookupToken> allTokens,
                           final List<Integer> lookupTokenIndices,
-                          final CollectionMap<TextSpan, Long, ? extends Collection<Long>> termsFromDictionary ) {
+                          final LongSetMap<TextSpan> termsFromDictionary ) {
+      final Map<FastLookupToken, Collection<RareWordTerm>> windowHits
+            = getWindowHits( dictionary, allTokens, lookupTokenIndices );
+      if ( windowHits.isEmpty() ) {
+         return;
+      }
       Collection<RareWordTerm> rareWordHits;
       for ( Integer lookupTokenIndex : lookupTokenIndices ) {
          final FastLookupToken lookupToken = allTokens.get( lookupTokenIndex );
-         rareWordHits = dictionary.getRareWordHits( lookupToken );
+         rareWordHits = windowHits.get( lookupToken );
          if ( rareWordHits == null || rareWordHits.isEmpty() ) {
             continue;
          }
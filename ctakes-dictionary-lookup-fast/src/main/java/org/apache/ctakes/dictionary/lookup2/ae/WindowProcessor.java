@@ -20,11 +20,10 @@ package org.apache.ctakes.dictionary.lookup2.ae;
 
 import org.apache.ctakes.dictionary.lookup2.dictionary.RareWordDictionary;
 import org.apache.ctakes.dictionary.lookup2.textspan.TextSpan;
-import org.apache.ctakes.dictionary.lookup2.util.collection.CollectionMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSetMap;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
 
-import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -54,7 +53,7 @@ public interface WindowProcessor {
     */
    void processWindow( JCas jcas,
                        Annotation window,
-                       Map<RareWordDictionary, CollectionMap<TextSpan, Long, ? extends Collection<Long>>> dictionaryTerms );
+                       Map<RareWordDictionary, LongSetMap<TextSpan>> dictionaryTerms );
 
 
 }
@@ -1,9 +1,10 @@
 package org.apache.ctakes.dictionary.lookup2.concept;
 
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongKeyMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSet;
+
+import java.util.PrimitiveIterator;
 
 /**
  * Author: SPF
@@ -31,9 +32,11 @@ abstract public class AbstractConceptFactory implements ConceptFactory {
     * {@inheritDoc}
     */
    @Override
-   public Map<Long, Concept> createConcepts( final Collection<Long> cuiCodes ) {
-      final Map<Long, Concept> conceptMap = new HashMap<>( cuiCodes.size() );
-      for ( Long cuiCode : cuiCodes ) {
+   public LongKeyMap<Concept> createConcepts( final LongSet cuiCodes ) {
+      final LongKeyMap<Concept> conceptMap = new LongKeyMap<>( cuiCodes.size() );
+      final PrimitiveIterator.OfLong cuiCodeIterator = cuiCodes.iterator();
+      while ( cuiCodeIterator.hasNext() ) {
+         final long cuiCode = cuiCodeIterator.nextLong();
          final Concept concept = createConcept( cuiCode );
          if ( concept != null && !concept.isEmpty() ) {
             conceptMap.put( cuiCode, concept );
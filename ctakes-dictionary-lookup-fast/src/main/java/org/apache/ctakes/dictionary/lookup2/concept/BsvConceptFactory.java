@@ -6,6 +6,8 @@ import org.apache.ctakes.dictionary.lookup2.util.LookupUtil;
 import org.apache.ctakes.dictionary.lookup2.util.TuiCodeUtil;
 import org.apache.ctakes.dictionary.lookup2.util.collection.CollectionMap;
 import org.apache.ctakes.dictionary.lookup2.util.collection.HashSetMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongKeyMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSet;
 import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
 
@@ -58,7 +60,7 @@ final public class BsvConceptFactory implements ConceptFactory {
     * {@inheritDoc}
     */
    @Override
-   public Concept createConcept( final Long cuiCode ) {
+   public Concept createConcept( final long cuiCode ) {
       return _delegateFactory.createConcept( cuiCode );
    }
 
@@ -66,7 +68,7 @@ final public class BsvConceptFactory implements ConceptFactory {
     * {@inheritDoc}
     */
    @Override
-   public Map<Long, Concept> createConcepts( final Collection<Long> cuiCodes ) {
+   public LongKeyMap<Concept> createConcepts( final LongSet cuiCodes ) {
       return _delegateFactory.createConcepts( cuiCodes );
    }
 
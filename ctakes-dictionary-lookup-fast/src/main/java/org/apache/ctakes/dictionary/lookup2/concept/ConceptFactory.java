@@ -1,8 +1,8 @@
 package org.apache.ctakes.dictionary.lookup2.concept;
 
 
-import java.util.Collection;
-import java.util.Map;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongKeyMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSet;
 
 /**
  * Term Attribute Repository used to lookup term attributes by the cui of the term
@@ -24,12 +24,12 @@ public interface ConceptFactory {
     * @param cuiCode concept unique identifier
     * @return the information about the concept that exists in the repository.
     */
-   public Concept createConcept( final Long cuiCode );
+   public Concept createConcept( final long cuiCode );
 
    /**
     * @param cuiCodes concept unique identifiers
     * @return the information about the concepts that exist in the repository.
     */
-   public Map<Long, Concept> createConcepts( final Collection<Long> cuiCodes );
+   public LongKeyMap<Concept> createConcepts( final LongSet cuiCodes );
 
 }
@@ -1,10 +1,13 @@
 package org.apache.ctakes.dictionary.lookup2.concept;
 
+import org.apache.ctakes.core.util.collection.BoundedCache;
 import org.apache.ctakes.dictionary.lookup2.util.CuiCodeUtil;
 import org.apache.ctakes.dictionary.lookup2.util.JdbcConnectionFactory;
 import org.apache.ctakes.dictionary.lookup2.util.TuiCodeUtil;
 import org.apache.ctakes.dictionary.lookup2.util.collection.CollectionMap;
 import org.apache.ctakes.dictionary.lookup2.util.collection.HashSetMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongKeyMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSet;
 import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
 
@@ -14,6 +17,18 @@ import java.util.*;
 import static org.apache.ctakes.dictionary.lookup2.util.JdbcConnectionFactory.*;
 
 /**
+ * Creates concepts with codes from one or more database tables.
+ * <p/>
+ * Concepts for a collection of cuis are selected from each table in batches with {@code WHERE CUI IN (...)}
+ * instead of one query per cui per table.
+ * Created concepts, including concepts without any codes, are kept in a bounded cache that is shared
+ * by all factories using the same database and tables, so the cache persists across documents and annotators.
+ * The cache is registered for management as {@value BoundedCache#MBEAN_DOMAIN}:type=ConceptCache,name=factory name
+ * so that hit rates can be watched.
+ * <p/>
+ * Optional properties are {@value #CONCEPT_CACHE_SIZE} (default {@value #DEFAULT_CACHE_SIZE}, 0 to disable),
+ * {@value #CONCEPT_CACHE_EVICTION} (LRU or FIFO, default LRU)
+ * and {@value #LOOKUP_BATCH_SIZE} (default {@value #DEFAULT_BATCH_SIZE}).
  * Author: SPF
  * Affiliation: CHIP-NLP
  * Date: 11/20/13
@@ -30,8 +45,22 @@ public class JdbcConceptFactory extends AbstractConceptFactory {
    static private final String TUI_CLASS = Concept.TUI;
    static private final String PREFTERM_CLASS = Concept.PREFTERM;
 
+   static public final String CONCEPT_CACHE_SIZE = "conceptCacheSize";
+   static public final String CONCEPT_CACHE_EVICTION = "conceptCacheEviction";
+   static public final String LOOKUP_BATCH_SIZE = "lookupBatchSize";
+
+   static public final int DEFAULT_CACHE_SIZE = 20000;
+   static public final int DEFAULT_BATCH_SIZE = 64;
+
+   // Caches shared by factories with the same database url and tables
+   static private final Map<String, BoundedCache<Long, Concept>> CONCEPT_CACHES = new HashMap<>();
+
 
    private final Collection<ConceptTableInfo> _conceptTableInfos;
+   // jdbc statements are not thread safe
+   private final Object _selectLock = new Object();
+   private final BoundedCache<Long, Concept> _conceptCache;
+   private final int _batchSize;
 
 
    static private class ConceptTableInfo {
@@ -39,13 +68,15 @@ public class JdbcConceptFactory extends AbstractConceptFactory {
       private final String __conceptName;
       private final String __classType;
       private final PreparedStatement __preparedStatement;
+      private final PreparedStatement __batchStatement;
 
       private ConceptTableInfo( final String tableName, final String conceptName, final String classType,
-                                final PreparedStatement preparedStatement ) {
+                                final PreparedStatement preparedStatement, final PreparedStatement batchStatement ) {
 //         __tableName = tableName;
          __conceptName = conceptName;
          __classType = classType;
          __preparedStatement = preparedStatement;
+         __batchStatement = batchStatement;
       }
    }
 
@@ -110,7 +141,11 @@ public class JdbcConceptFactory extends AbstractConceptFactory {
       this( name,
             properties.getProperty( JDBC_DRIVER ), properties.getProperty( JDBC_URL ),
             properties.getProperty( JDBC_USER ), properties.getProperty( JDBC_PASS ),
-            getConceptTables( properties ) );
+            getConceptTables( properties ),
+            parseInt( properties, CONCEPT_CACHE_SIZE, DEFAULT_CACHE_SIZE ),
+            BoundedCache.EvictionPolicy.getPolicy( properties.getProperty( CONCEPT_CACHE_EVICTION ),
+                  BoundedCache.EvictionPolicy.LRU ),
+            parseInt( properties, LOOKUP_BATCH_SIZE, DEFAULT_BATCH_SIZE ) );
    }
 
    public JdbcConceptFactory( final String name,
@@ -118,7 +153,33 @@ public class JdbcConceptFactory extends AbstractConceptFactory {
                               final String jdbcUser, final String jdbcPass,
                               final Map<String, String> conceptTables )
          throws SQLException {
+      this( name, jdbcDriver, jdbcUrl, jdbcUser, jdbcPass, conceptTables,
+            DEFAULT_CACHE_SIZE, BoundedCache.EvictionPolicy.LRU, DEFAULT_BATCH_SIZE );
+   }
+
+   /**
+    * @param name           simple name for the concept factory
+    * @param jdbcDriver     -
+    * @param jdbcUrl        -
+    * @param jdbcUser       -
+    * @param jdbcPass       -
+    * @param conceptTables  map of table names to table value types
+    * @param cacheSize      maximum number of concepts to cache, 0 for no cache.
+    *                       Ignored if a factory with the same database and tables has already created the cache
+    * @param evictionPolicy which concept to remove when the cache is full
+    * @param batchSize      maximum number of cuis to select with one sql call
+    * @throws SQLException if the sql calls could not be created
+    */
+   public JdbcConceptFactory( final String name,
+                              final String jdbcDriver, final String jdbcUrl,
+                              final String jdbcUser, final String jdbcPass,
+                              final Map<String, String> conceptTables,
+                              final int cacheSize,
+                              final BoundedCache.EvictionPolicy evictionPolicy,
+                              final int batchSize )
+         throws SQLException {
       super( name );
+      _batchSize = Math.max( 1, batchSize );
       boolean connected = false;
       try {
          // DO NOT use try with resources here.
@@ -126,7 +187,7 @@ public class JdbcConceptFactory extends AbstractConceptFactory {
          final Connection connection
                = JdbcConnectionFactory.getInstance().getConnection( jdbcDriver, jdbcUrl, jdbcUser, jdbcPass );
          connected = connection != null;
-         _conceptTableInfos = createTableInfos( connection, conceptTables );
+         _conceptTableInfos = createTableInfos( connection, conceptTables, _batchSize );
       } catch ( SQLException sqlE ) {
          if ( !connected ) {
             LOGGER.error( "Could not Connect to Concept Factory " + name );
@@ -135,13 +196,160 @@ public class JdbcConceptFactory extends AbstractConceptFactory {
          }
          throw sqlE;
       }
+      final String cacheKey = jdbcUrl + " " + (conceptTables == null ? "" : new TreeMap<>( conceptTables ));
+      _conceptCache = getSharedCache( cacheKey, cacheSize, evictionPolicy );
+      _conceptCache.registerMBean( "ConceptCache", name );
+      LOGGER.info( "Concept Factory " + name + " using batches of " + _batchSize
+                   + " and a concept cache of " + _conceptCache.getMaxSize() );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public Concept createConcept( final long cuiCode ) {
+      final Concept cachedConcept = _conceptCache.get( cuiCode );
+      if ( cachedConcept != null ) {
+         return cachedConcept;
+      }
+      final Concept concept;
+      synchronized ( _selectLock ) {
+         concept = selectConcept( cuiCode );
+      }
+      _conceptCache.put( cuiCode, concept );
+      return concept;
    }
 
    /**
+    * Only creates non-empty concepts; Cuis for which additional info does not exist don't create concepts.
+    * Cuis that are not cached are selected in batches.
     * {@inheritDoc}
     */
    @Override
-   public Concept createConcept( final Long cuiCode ) {
+   public LongKeyMap<Concept> createConcepts( final LongSet cuiCodes ) {
+      final LongKeyMap<Concept> conceptMap = new LongKeyMap<>( cuiCodes.size() );
+      final LongSet uncachedCuiCodes = new LongSet();
+      final PrimitiveIterator.OfLong cuiCodeIterator = cuiCodes.iterator();
+      while ( cuiCodeIterator.hasNext() ) {
+         final long cuiCode = cuiCodeIterator.nextLong();
+         final Concept concept = _conceptCache.get( cuiCode );
+         if ( concept == null ) {
+            uncachedCuiCodes.add( cuiCode );
+         } else if ( !concept.isEmpty() ) {
+            conceptMap.put( cuiCode, concept );
+         }
+      }
+      if ( uncachedCuiCodes.isEmpty() ) {
+         return conceptMap;
+      }
+      final LongKeyMap<Concept> selectedConcepts;
+      synchronized ( _selectLock ) {
+         selectedConcepts = selectConcepts( uncachedCuiCodes.toArray() );
+      }
+      for ( long cuiCode : selectedConcepts.keys() ) {
+         final Concept concept = selectedConcepts.get( cuiCode );
+         if ( !concept.isEmpty() ) {
+            conceptMap.put( cuiCode, concept );
+         }
+      }
+      return conceptMap;
+   }
+
+   /**
+    * @return the concept cache, shared with factories that use the same database and tables
+    */
+   public BoundedCache<Long, Concept> getConceptCache() {
+      return _conceptCache;
+   }
+
+   /**
+    * Select codes for cuis in batches, one table at a time.
+    * Concepts are only cached if the selection from every table succeeded
+    *
+    * @param cuiCodes unique cui codes
+    * @return concepts for all the cui codes, some may be empty
+    */
+   private LongKeyMap<Concept> selectConcepts( final long[] cuiCodes ) {
+      final LongKeyMap<CollectionMap<String, String, ? extends Collection<String>>> cuiCodesMap
+            = new LongKeyMap<>( cuiCodes.length );
+      for ( long cuiCode : cuiCodes ) {
+         cuiCodesMap.put( cuiCode, new HashSetMap<>() );
+      }
+      Map<Long, String> prefTerms = null;
+      boolean selected = true;
+      for ( ConceptTableInfo conceptTableInfo : _conceptTableInfos ) {
+         final Map<Long, String> tablePrefTerms = new HashMap<>();
+         try {
+            for ( int start = 0; start < cuiCodes.length; start += _batchSize ) {
+               final int end = Math.min( cuiCodes.length, start + _batchSize );
+               fillBatchSelectCall( conceptTableInfo.__batchStatement, cuiCodes, start, end, _batchSize );
+               final ResultSet resultSet = conceptTableInfo.__batchStatement.executeQuery();
+               while ( resultSet.next() ) {
+                  final long cuiCode = resultSet.getLong( 1 );
+                  if ( conceptTableInfo.__classType.equals( PREFTERM_CLASS ) ) {
+                     if ( !tablePrefTerms.containsKey( cuiCode ) ) {
+                        tablePrefTerms.put( cuiCode, resultSet.getString( 2 ) );
+                     }
+                     continue;
+                  }
+                  final CollectionMap<String, String, ? extends Collection<String>> codes
+                        = cuiCodesMap.get( cuiCode );
+                  if ( codes != null ) {
+                     codes.placeValue( conceptTableInfo.__conceptName,
+                           getCode( conceptTableInfo.__classType, resultSet ) );
+                  }
+               }
+               // Though the ResultSet interface documentation states that there are automatic closures,
+               // it is up to the driver to implement this behavior ...  historically some drivers have not done so
+               resultSet.close();
+            }
+         } catch ( SQLException e ) {
+            LOGGER.error( e.getMessage() );
+            selected = false;
+         }
+         if ( conceptTableInfo.__classType.equals( PREFTERM_CLASS ) ) {
+            // As with single selection, the last preferred term table wins and a missing term is empty
+            prefTerms = new HashMap<>( cuiCodes.length );
+            for ( long cuiCode : cuiCodes ) {
+               prefTerms.put( cuiCode, tablePrefTerms.containsKey( cuiCode ) ? tablePrefTerms.get( cuiCode ) : "" );
+            }
+         }
+      }
+      final LongKeyMap<Concept> concepts = new LongKeyMap<>( cuiCodes.length );
+      for ( long cuiCode : cuiCodes ) {
+         final Concept concept = new DefaultConcept( CuiCodeUtil.getInstance().getAsCui( cuiCode ),
+               prefTerms == null ? null : prefTerms.get( cuiCode ), cuiCodesMap.get( cuiCode ) );
+         concepts.put( cuiCode, concept );
+         if ( selected ) {
+            _conceptCache.put( cuiCode, concept );
+         }
+      }
+      return concepts;
+   }
+
+   /**
+    * @param classType  class type of the table
+    * @param resultSet  result set positioned at a row
+    * @return the code in the row as text
+    * @throws SQLException if the code could not be read
+    */
+   static private String getCode( final String classType, final ResultSet resultSet ) throws SQLException {
+      switch ( classType ) {
+         case TUI_CLASS:
+            return TuiCodeUtil.getAsTui( resultSet.getInt( 2 ) );
+         case INT_CLASS:
+            return Integer.toString( resultSet.getInt( 2 ) );
+         case LONG_CLASS:
+            return Long.toString( resultSet.getLong( 2 ) );
+      }
+      return resultSet.getString( 2 );
+   }
+
+   /**
+    * @param cuiCode cui of interest
+    * @return a concept for the cui with codes from each table
+    */
+   private Concept selectConcept( final long cuiCode ) {
       final CollectionMap<String, String, ? extends Collection<String>> codes = new HashSetMap<>();
       String prefTerm = null;
       for ( ConceptTableInfo conceptTableInfo : _conceptTableInfos ) {
@@ -180,7 +388,7 @@ public class JdbcConceptFactory extends AbstractConceptFactory {
     * @param cuiCode    cui of interest
     * @return collection of tuis that are related to cui as obtained with the selectCall
     */
-   static private Collection<String> getTuiCodes( PreparedStatement selectCall, final Long cuiCode ) {
+   static private Collection<String> getTuiCodes( PreparedStatement selectCall, final long cuiCode ) {
       final Collection<String> codes = new HashSet<>();
       try {
          fillSelectCall( selectCall, cuiCode );
@@ -202,7 +410,7 @@ public class JdbcConceptFactory extends AbstractConceptFactory {
     * @param cuiCode    cui of interest
     * @return preferred term for the cui as obtained with the selectCall
     */
-   static private String getPreferredTerm( PreparedStatement selectCall, final Long cuiCode ) {
+   static private String getPreferredTerm( PreparedStatement selectCall, final long cuiCode ) {
       String preferredName = "";
       try {
          fillSelectCall( selectCall, cuiCode );
@@ -224,7 +432,7 @@ public class JdbcConceptFactory extends AbstractConceptFactory {
     * @param cuiCode    cui of interest
     * @return collection of ints (as strings) that are related to cui as obtained with the selectCall
     */
-   static private Collection<String> getIntegerCodes( PreparedStatement selectCall, final Long cuiCode ) {
+   static private Collection<String> getIntegerCodes( PreparedStatement selectCall, final long cuiCode ) {
       final Collection<String> codes = new HashSet<>();
       try {
          fillSelectCall( selectCall, cuiCode );
@@ -246,7 +454,7 @@ public class JdbcConceptFactory extends AbstractConceptFactory {
     * @param cuiCode    cui of interest
     * @return collection of longs (as strings) that are related to cui as obtained with the selectCall
     */
-   static private Collection<String> getLongCodes( PreparedStatement selectCall, final Long cuiCode ) {
+   static private Collection<String> getLongCodes( PreparedStatement selectCall, final long cuiCode ) {
       final Collection<String> codes = new HashSet<>();
       try {
          fillSelectCall( selectCall, cuiCode );
@@ -268,7 +476,7 @@ public class JdbcConceptFactory extends AbstractConceptFactory {
     * @param cuiCode    cui of interest
     * @return collection of strings that are related to cui as obtained with the selectCall
     */
-   static private Collection<String> getStringCodes( PreparedStatement selectCall, final Long cuiCode ) {
+   static private Collection<String> getStringCodes( PreparedStatement selectCall, final long cuiCode ) {
       final Collection<String> codes = new HashSet<>();
       try {
          fillSelectCall( selectCall, cuiCode );
@@ -289,11 +497,13 @@ public class JdbcConceptFactory extends AbstractConceptFactory {
     * Creates table information objects with table name, concept name, jdbc prepared statement call
     * @param connection -
     * @param conceptTables map of table names to table value types
+    * @param batchSize number of cuis in a batch selection call
     * @return table information objects with table name, concept name, jdbc prepared statement call
     * @throws SQLException
     */
    static private Collection<ConceptTableInfo> createTableInfos( final Connection connection,
-                                                                 final Map<String,String> conceptTables )
+                                                                 final Map<String,String> conceptTables,
+                                                                 final int batchSize )
          throws SQLException {
       if ( conceptTables == null || conceptTables.isEmpty() ) {
          return Collections.emptyList();
@@ -326,7 +536,14 @@ public class JdbcConceptFactory extends AbstractConceptFactory {
          conceptName = conceptName.substring( 0, conceptName.length() - 5 );
          final String lookupSql = "SELECT * FROM " + tableName + " WHERE CUI = ?";
          final PreparedStatement statement = connection.prepareStatement( lookupSql );
-         tableInfos.add( new ConceptTableInfo( tableName, conceptName, tableClass, statement ) );
+         final StringBuilder batchSql = new StringBuilder( "SELECT * FROM " );
+         batchSql.append( tableName ).append( " WHERE CUI IN (?" );
+         for ( int i = 1; i < batchSize; i++ ) {
+            batchSql.append( ",?" );
+         }
+         batchSql.append( ')' );
+         final PreparedStatement batchStatement = connection.prepareStatement( batchSql.toString() );
+         tableInfos.add( new ConceptTableInfo( tableName, conceptName, tableClass, statement, batchStatement ) );
          LOGGER.info( "Connected to concept table " + tableName + " with class " + tableClass );
       }
       return tableInfos;
@@ -354,10 +571,60 @@ public class JdbcConceptFactory extends AbstractConceptFactory {
     * @param cuiCode -
     * @throws SQLException if the {@code PreparedStatement} could not be created or changed
     */
-   static private void fillSelectCall( final PreparedStatement selectCall, final Long cuiCode ) throws SQLException {
+   static private void fillSelectCall( final PreparedStatement selectCall, final long cuiCode ) throws SQLException {
       selectCall.clearParameters();
       selectCall.setLong( 1, cuiCode );
    }
 
+   /**
+    * Unused parameters are filled with the last cui, which has no effect on the result
+    *
+    * @param selectCall batch selection call
+    * @param cuiCodes   all cui codes
+    * @param start      index of the first cui code for this batch
+    * @param end        index after the last cui code for this batch
+    * @param batchSize  number of parameters in the selection call
+    * @throws SQLException if the {@code PreparedStatement} could not be created or changed
+    */
+   static private void fillBatchSelectCall( final PreparedStatement selectCall, final long[] cuiCodes,
+                                            final int start, final int end, final int batchSize )
+         throws SQLException {
+      selectCall.clearParameters();
+      for ( int i = 0; i < batchSize; i++ ) {
+         selectCall.setLong( i + 1, cuiCodes[ Math.min( start + i, end - 1 ) ] );
+      }
+   }
+
+   /**
+    * @param cacheKey       database url and tables
+    * @param cacheSize      maximum number of concepts to cache
+    * @param evictionPolicy which concept to remove when the cache is full
+    * @return a cache shared by all factories with the same key
+    */
+   static private BoundedCache<Long, Concept> getSharedCache( final String cacheKey, final int cacheSize,
+                                                              final BoundedCache.EvictionPolicy evictionPolicy ) {
+      synchronized ( CONCEPT_CACHES ) {
+         BoundedCache<Long, Concept> cache = CONCEPT_CACHES.get( cacheKey );
+         if ( cache == null ) {
+            cache = new BoundedCache<>( cacheSize, evictionPolicy );
+            CONCEPT_CACHES.put( cacheKey, cache );
+         }
+         return cache;
+      }
+   }
+
+   static private int parseInt( final Properties properties, final String name, final int defaultValue ) {
+      final String value = properties.getProperty( name );
+      if ( value == null ) {
+         return defaultValue;
+      }
+      try {
+         return Integer.parseInt( value.trim() );
+      } catch ( NumberFormatException nfE ) {
+         LOGGER.warn( "Could not parse " + name + " " + value + " as an integer" );
+         return defaultValue;
+      }
+   }
+
 
 }
@@ -1,8 +1,8 @@
 package org.apache.ctakes.dictionary.lookup2.concept;
 
 import org.apache.ctakes.dictionary.lookup2.util.CuiCodeUtil;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongKeyMap;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -13,19 +13,22 @@ import java.util.Map;
 final public class MemConceptFactory extends AbstractConceptFactory {
 
    // Map of rare tokens to terms that contain those tokens.  Used like "First Word Token Lookup" but faster
-   final private Map<Long, Concept> _conceptMap;
+   final private LongKeyMap<Concept> _conceptMap;
 
 
    public MemConceptFactory( final String name, final Map<Long, Concept> conceptMap ) {
       super( name );
-      _conceptMap = new HashMap<>( conceptMap );
+      _conceptMap = new LongKeyMap<>( conceptMap.size() );
+      for ( Map.Entry<Long, Concept> entry : conceptMap.entrySet() ) {
+         _conceptMap.put( entry.getKey(), entry.getValue() );
+      }
    }
 
    /**
     * {@inheritDoc}
     */
    @Override
-   public Concept createConcept( final Long cuiCode ) {
+   public Concept createConcept( final long cuiCode ) {
       Concept concept = _conceptMap.get( cuiCode );
       if ( concept == null ) {
          concept = new DefaultConcept( CuiCodeUtil.getInstance().getAsCui( cuiCode ) );
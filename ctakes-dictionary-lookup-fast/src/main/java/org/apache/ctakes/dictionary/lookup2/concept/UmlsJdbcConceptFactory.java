@@ -1,12 +1,12 @@
 package org.apache.ctakes.dictionary.lookup2.concept;
 
 import org.apache.ctakes.dictionary.lookup2.util.UmlsUserApprover;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongKeyMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSet;
 import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
 
 import java.sql.SQLException;
-import java.util.Collection;
-import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -43,7 +43,7 @@ final public class UmlsJdbcConceptFactory implements ConceptFactory {
     * {@inheritDoc}
     */
    @Override
-   public Concept createConcept( final Long cuiCode ) {
+   public Concept createConcept( final long cuiCode ) {
       return _delegateConceptFactory.createConcept( cuiCode );
    }
 
@@ -51,7 +51,7 @@ final public class UmlsJdbcConceptFactory implements ConceptFactory {
     * {@inheritDoc}
     */
    @Override
-   public Map<Long, Concept> createConcepts( final Collection<Long> cuiCodes ) {
+   public LongKeyMap<Concept> createConcepts( final LongSet cuiCodes ) {
       return _delegateConceptFactory.createConcepts( cuiCodes );
    }
 
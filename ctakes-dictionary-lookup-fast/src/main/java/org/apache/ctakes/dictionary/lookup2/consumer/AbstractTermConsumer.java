@@ -21,8 +21,9 @@ package org.apache.ctakes.dictionary.lookup2.consumer;
 import org.apache.ctakes.dictionary.lookup2.concept.Concept;
 import org.apache.ctakes.dictionary.lookup2.dictionary.RareWordDictionary;
 import org.apache.ctakes.dictionary.lookup2.textspan.TextSpan;
-import org.apache.ctakes.dictionary.lookup2.util.collection.CollectionMap;
-import org.apache.ctakes.dictionary.lookup2.util.collection.HashSetMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongKeyMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSet;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSetMap;
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.jcas.JCas;
@@ -30,6 +31,7 @@ import org.apache.uima.jcas.JCas;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.PrimitiveIterator;
 import java.util.Properties;
 
 /**
@@ -55,18 +57,20 @@ abstract public class AbstractTermConsumer implements TermConsumer {
    @Override
    public void consumeHits( final JCas jcas,
                             final RareWordDictionary dictionary,
-                            final CollectionMap<TextSpan, Long, ? extends Collection<Long>> textSpanCuis,
-                            final CollectionMap<Long, Concept, ? extends Collection<Concept>> cuiConcepts )
+                            final LongSetMap<TextSpan> textSpanCuis,
+                            final LongKeyMap<Collection<Concept>> cuiConcepts )
          throws AnalysisEngineProcessException {
       final String codingScheme = getCodingScheme();
       final Collection<Integer> usedcTakesSemantics = getUsedcTakesSemantics( cuiConcepts );
       // The dictionary may have more than one type, create a map of types to terms and use them all
-      final CollectionMap<TextSpan, Long, ? extends Collection<Long>> semanticCuis = new HashSetMap<>();
+      final LongSetMap<TextSpan> semanticCuis = new LongSetMap<>();
       for ( Integer cTakesSemantic : usedcTakesSemantics ) {
          semanticCuis.clear();
-         for ( Map.Entry<TextSpan, ? extends Collection<Long>> spanCuis : textSpanCuis ) {
-            for ( Long cuiCode : spanCuis.getValue() ) {
-               final Collection<Concept> concepts = cuiConcepts.getCollection( cuiCode );
+         for ( Map.Entry<TextSpan, LongSet> spanCuis : textSpanCuis ) {
+            final PrimitiveIterator.OfLong cuiCodes = spanCuis.getValue().iterator();
+            while ( cuiCodes.hasNext() ) {
+               final long cuiCode = cuiCodes.nextLong();
+               final Collection<Concept> concepts = cuiConcepts.get( cuiCode );
                if ( hascTakesSemantic( cTakesSemantic, concepts ) ) {
                   semanticCuis.placeValue( spanCuis.getKey(), cuiCode );
                }
@@ -82,9 +86,9 @@ abstract public class AbstractTermConsumer implements TermConsumer {
 
 
    static protected Collection<Integer> getUsedcTakesSemantics(
-         final CollectionMap<Long, Concept, ? extends Collection<Concept>> cuiConcepts ) {
+         final LongKeyMap<Collection<Concept>> cuiConcepts ) {
       final Collection<Integer> usedSemanticTypes = new HashSet<>();
-      for ( Collection<Concept> concepts : cuiConcepts.getAllCollections() ) {
+      for ( Collection<Concept> concepts : cuiConcepts.values() ) {
          for ( Concept concept : concepts ) {
             usedSemanticTypes.addAll( concept.getCtakesSemantics() );
          }
@@ -93,6 +97,9 @@ abstract public class AbstractTermConsumer implements TermConsumer {
    }
 
    static protected boolean hascTakesSemantic( final Integer cTakesSemantic, final Iterable<Concept> concepts ) {
+      if ( concepts == null ) {
+         return false;
+      }
       for ( Concept concept : concepts ) {
          if ( concept.getCtakesSemantics().contains( cTakesSemantic ) ) {
             return true;
@@ -22,7 +22,9 @@ import org.apache.ctakes.dictionary.lookup2.concept.Concept;
 import org.apache.ctakes.dictionary.lookup2.textspan.TextSpan;
 import org.apache.ctakes.dictionary.lookup2.util.CuiCodeUtil;
 import org.apache.ctakes.dictionary.lookup2.util.SemanticUtil;
-import org.apache.ctakes.dictionary.lookup2.util.collection.CollectionMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongKeyMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSet;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSetMap;
 import org.apache.ctakes.typesystem.type.constants.CONST;
 import org.apache.ctakes.typesystem.type.refsem.UmlsConcept;
 import org.apache.ctakes.typesystem.type.textsem.*;
@@ -62,17 +64,18 @@ final public class DefaultTermConsumer extends AbstractTermConsumer {
     */
    @Override
    public void consumeTypeIdHits( final JCas jcas, final String codingScheme, final int cTakesSemantic,
-                                  final CollectionMap<TextSpan, Long, ? extends Collection<Long>> textSpanCuis,
-                                  final CollectionMap<Long, Concept, ? extends Collection<Concept>> cuiConcepts )
+                                  final LongSetMap<TextSpan> textSpanCuis,
+                                  final LongKeyMap<Collection<Concept>> cuiConcepts )
          throws AnalysisEngineProcessException {
       // Collection of UmlsConcept objects
       final Collection<UmlsConcept> umlsConceptList = new ArrayList<>();
       try {
-         for ( Map.Entry<TextSpan, ? extends Collection<Long>> spanCuis : textSpanCuis ) {
+         for ( Map.Entry<TextSpan, LongSet> spanCuis : textSpanCuis ) {
             umlsConceptList.clear();
-            for ( Long cuiCode : spanCuis.getValue() ) {
+            final PrimitiveIterator.OfLong cuiCodes = spanCuis.getValue().iterator();
+            while ( cuiCodes.hasNext() ) {
                umlsConceptList.addAll(
-                     createUmlsConcepts( jcas, codingScheme, cTakesSemantic, cuiCode, cuiConcepts ) );
+                     createUmlsConcepts( jcas, codingScheme, cTakesSemantic, cuiCodes.nextLong(), cuiConcepts ) );
             }
             final FSArray conceptArr = new FSArray( jcas, umlsConceptList.size() );
             int arrIdx = 0;
@@ -121,9 +124,9 @@ final public class DefaultTermConsumer extends AbstractTermConsumer {
    private Collection<UmlsConcept> createUmlsConcepts( final JCas jcas,
                                                        final String codingScheme,
                                                        final int cTakesSemantic,
-                                                       final Long cuiCode,
-                                                       final CollectionMap<Long, Concept, ? extends Collection<Concept>> conceptMap ) {
-      final Collection<Concept> concepts = conceptMap.getCollection( cuiCode );
+                                                       final long cuiCode,
+                                                       final LongKeyMap<Collection<Concept>> conceptMap ) {
+      final Collection<Concept> concepts = conceptMap.get( cuiCode );
       if ( concepts == null || concepts.isEmpty() ) {
          return Collections.singletonList( createSimpleUmlsConcept( jcas, codingScheme,
                CuiCodeUtil.getInstance().getAsCui( cuiCode ) ) );
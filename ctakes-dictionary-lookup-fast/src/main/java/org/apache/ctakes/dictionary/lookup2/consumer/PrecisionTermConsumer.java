@@ -21,8 +21,9 @@ package org.apache.ctakes.dictionary.lookup2.consumer;
 import org.apache.ctakes.dictionary.lookup2.concept.Concept;
 import org.apache.ctakes.dictionary.lookup2.textspan.MultiTextSpan;
 import org.apache.ctakes.dictionary.lookup2.textspan.TextSpan;
-import org.apache.ctakes.dictionary.lookup2.util.collection.CollectionMap;
-import org.apache.ctakes.dictionary.lookup2.util.collection.HashSetMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongKeyMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSet;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSetMap;
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.jcas.JCas;
@@ -59,10 +60,10 @@ final public class PrecisionTermConsumer extends AbstractTermConsumer {
     */
    @Override
    public void consumeTypeIdHits( final JCas jcas, final String defaultScheme, final int cTakesSemantic,
-                                  final CollectionMap<TextSpan, Long, ? extends Collection<Long>> semanticTerms,
-                                  final CollectionMap<Long, Concept, ? extends Collection<Concept>> conceptMap )
+                                  final LongSetMap<TextSpan> semanticTerms,
+                                  final LongKeyMap<Collection<Concept>> conceptMap )
          throws AnalysisEngineProcessException {
-      final CollectionMap<TextSpan, Long, ? extends Collection<Long>> preciseTerms
+      final LongSetMap<TextSpan> preciseTerms
             = createPreciseTerms( semanticTerms );
       _idHitConsumer.consumeTypeIdHits( jcas, defaultScheme, cTakesSemantic, preciseTerms, conceptMap );
    }
@@ -75,8 +76,8 @@ final public class PrecisionTermConsumer extends AbstractTermConsumer {
     * @param semanticTerms terms in the dictionary
     * @return terms with the longest spans
     */
-   static public CollectionMap<TextSpan, Long, ? extends Collection<Long>> createPreciseTerms(
-         final CollectionMap<TextSpan, Long, ? extends Collection<Long>> semanticTerms ) {
+   static public LongSetMap<TextSpan> createPreciseTerms(
+         final LongSetMap<TextSpan> semanticTerms ) {
       final Collection<TextSpan> discardSpans = new HashSet<>();
       final List<TextSpan> textSpans = new ArrayList<>( semanticTerms.keySet() );
       final int count = textSpans.size();
@@ -132,9 +133,9 @@ final public class PrecisionTermConsumer extends AbstractTermConsumer {
             }
          }
       }
-      final CollectionMap<TextSpan, Long, ? extends Collection<Long>> preciseHitMap = new HashSetMap<>(
+      final LongSetMap<TextSpan> preciseHitMap = new LongSetMap<>(
             textSpans.size() - discardSpans.size() );
-      for ( Map.Entry<TextSpan, ? extends Collection<Long>> entry : semanticTerms ) {
+      for ( Map.Entry<TextSpan, LongSet> entry : semanticTerms ) {
          if ( !discardSpans.contains( entry.getKey() ) ) {
             preciseHitMap.addAllValues( entry.getKey(), entry.getValue() );
          }
@@ -3,8 +3,9 @@ package org.apache.ctakes.dictionary.lookup2.consumer;
 import org.apache.ctakes.dictionary.lookup2.concept.Concept;
 import org.apache.ctakes.dictionary.lookup2.dictionary.RareWordDictionary;
 import org.apache.ctakes.dictionary.lookup2.textspan.TextSpan;
-import org.apache.ctakes.dictionary.lookup2.util.collection.CollectionMap;
-import org.apache.ctakes.dictionary.lookup2.util.collection.HashSetMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongKeyMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSet;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSetMap;
 import org.apache.ctakes.typesystem.type.constants.CONST;
 import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
@@ -51,19 +52,21 @@ public class SemanticCleanupTermConsumer extends AbstractTermConsumer {
    @Override
    public void consumeHits( final JCas jcas,
                             final RareWordDictionary dictionary,
-                            final CollectionMap<TextSpan, Long, ? extends Collection<Long>> textSpanCuis,
-                            final CollectionMap<Long, Concept, ? extends Collection<Concept>> cuiConcepts )
+                            final LongSetMap<TextSpan> textSpanCuis,
+                            final LongKeyMap<Collection<Concept>> cuiConcepts )
          throws AnalysisEngineProcessException {
       final String codingScheme = getCodingScheme();
       final Collection<Integer> usedcTakesSemantics = getUsedcTakesSemantics( cuiConcepts );
-      final Map<Integer, CollectionMap<TextSpan, Long, ? extends Collection<Long>>> groupedSemanticCuis
+      final Map<Integer, LongSetMap<TextSpan>> groupedSemanticCuis
             = new HashMap<>();
       // The dictionary may have more than one type, create a map of types to terms and use them all
       for ( Integer cTakesSemantic : usedcTakesSemantics ) {
-         final CollectionMap<TextSpan, Long, ? extends Collection<Long>> semanticTerms = new HashSetMap<>();
-         for ( Map.Entry<TextSpan, ? extends Collection<Long>> spanCuis : textSpanCuis ) {
-            for ( Long cuiCode : spanCuis.getValue() ) {
-               final Collection<Concept> concepts = cuiConcepts.getCollection( cuiCode );
+         final LongSetMap<TextSpan> semanticTerms = new LongSetMap<>();
+         for ( Map.Entry<TextSpan, LongSet> spanCuis : textSpanCuis ) {
+            final PrimitiveIterator.OfLong cuiCodes = spanCuis.getValue().iterator();
+            while ( cuiCodes.hasNext() ) {
+               final long cuiCode = cuiCodes.nextLong();
+               final Collection<Concept> concepts = cuiConcepts.get( cuiCode );
                if ( hascTakesSemantic( cTakesSemantic, concepts ) ) {
                   semanticTerms.placeValue( spanCuis.getKey(), cuiCode );
                }
@@ -78,21 +81,21 @@ public class SemanticCleanupTermConsumer extends AbstractTermConsumer {
       if ( groupedSemanticCuis.containsKey( CONST.NE_TYPE_ID_FINDING )
            && groupedSemanticCuis.containsKey( CONST.NE_TYPE_ID_DISORDER ) ) {
          removeUnwantedSpans( CONST.NE_TYPE_ID_DISORDER, CONST.NE_TYPE_ID_FINDING, groupedSemanticCuis );
-         final CollectionMap<TextSpan, Long, ? extends Collection<Long>> copiedTerms = new HashSetMap<>();
+         final LongSetMap<TextSpan> copiedTerms = new LongSetMap<>();
          copyTerms( CONST.NE_TYPE_ID_DISORDER, groupedSemanticCuis, copiedTerms );
          copyTerms( CONST.NE_TYPE_ID_FINDING, groupedSemanticCuis, copiedTerms );
          // We just created a collection with only the largest Textspans.
          // Any smaller Finding textspans are therefore within a larger d/d textspan and should be removed.
-         final CollectionMap<TextSpan, Long, ? extends Collection<Long>> preciseTerms
+         final LongSetMap<TextSpan> preciseTerms
                = PrecisionTermConsumer.createPreciseTerms( copiedTerms );
-         final CollectionMap<TextSpan, Long, ? extends Collection<Long>> findingSpanCuis
+         final LongSetMap<TextSpan> findingSpanCuis
                = groupedSemanticCuis.get( CONST.NE_TYPE_ID_FINDING );
          final Collection<TextSpan> findingSpans = new ArrayList<>( findingSpanCuis.keySet() );
          findingSpans.stream()
                .filter( fs -> !preciseTerms.containsKey( fs ) )
                .forEach( findingSpanCuis::remove );
       }
-      for ( Map.Entry<Integer, CollectionMap<TextSpan, Long, ? extends Collection<Long>>> group : groupedSemanticCuis
+      for ( Map.Entry<Integer, LongSetMap<TextSpan>> group : groupedSemanticCuis
             .entrySet() ) {
          consumeTypeIdHits( jcas, codingScheme, group.getKey(),
                PrecisionTermConsumer.createPreciseTerms( group.getValue() ), cuiConcepts );
@@ -101,13 +104,12 @@ public class SemanticCleanupTermConsumer extends AbstractTermConsumer {
 
    static private void removeUnwantedSpans( final int wantedTypeId, final int unwantedTypeId,
                                             final Map<Integer,
-                                                  CollectionMap<TextSpan,
-                                                        Long, ? extends Collection<Long>>> groupedSemanticCuis ) {
+                                                  LongSetMap<TextSpan>> groupedSemanticCuis ) {
       if ( !groupedSemanticCuis.containsKey( wantedTypeId ) || !groupedSemanticCuis.containsKey( unwantedTypeId ) ) {
          return;
       }
       final Iterable<TextSpan> wantedSpans = groupedSemanticCuis.get( wantedTypeId ).keySet();
-      final CollectionMap<TextSpan, Long, ? extends Collection<Long>> typeTextSpanCuis
+      final LongSetMap<TextSpan> typeTextSpanCuis
             = groupedSemanticCuis.get( unwantedTypeId );
       for ( TextSpan wantedSpan : wantedSpans ) {
          typeTextSpanCuis.remove( wantedSpan );
@@ -115,12 +117,11 @@ public class SemanticCleanupTermConsumer extends AbstractTermConsumer {
    }
 
    static private void copyTerms( final int typeId,
-                                  final Map<Integer, CollectionMap<TextSpan,
-                                        Long, ? extends Collection<Long>>> groupedSemanticCuis,
-                                  final CollectionMap<TextSpan, Long, ? extends Collection<Long>> copyTermsMap ) {
-      final CollectionMap<TextSpan, Long, ? extends Collection<Long>> spanCuis
+                                  final Map<Integer, LongSetMap<TextSpan>> groupedSemanticCuis,
+                                  final LongSetMap<TextSpan> copyTermsMap ) {
+      final LongSetMap<TextSpan> spanCuis
             = groupedSemanticCuis.get( typeId );
-      for ( Map.Entry<TextSpan, ? extends Collection<Long>> spanCui : spanCuis ) {
+      for ( Map.Entry<TextSpan, LongSet> spanCui : spanCuis ) {
          copyTermsMap.addAllValues( spanCui.getKey(), spanCui.getValue() );
       }
    }
@@ -130,8 +131,8 @@ public class SemanticCleanupTermConsumer extends AbstractTermConsumer {
     */
    @Override
    public void consumeTypeIdHits( final JCas jcas, final String defaultScheme, final int cTakesSemantic,
-                                  final CollectionMap<TextSpan, Long, ? extends Collection<Long>> semanticTerms,
-                                  final CollectionMap<Long, Concept, ? extends Collection<Concept>> conceptMap )
+                                  final LongSetMap<TextSpan> semanticTerms,
+                                  final LongKeyMap<Collection<Concept>> conceptMap )
          throws AnalysisEngineProcessException {
       _idHitConsumer.consumeTypeIdHits( jcas, defaultScheme, cTakesSemantic, semanticTerms, conceptMap );
    }
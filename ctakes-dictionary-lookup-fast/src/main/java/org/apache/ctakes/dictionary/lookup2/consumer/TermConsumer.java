@@ -21,7 +21,8 @@ package org.apache.ctakes.dictionary.lookup2.consumer;
 import org.apache.ctakes.dictionary.lookup2.concept.Concept;
 import org.apache.ctakes.dictionary.lookup2.dictionary.RareWordDictionary;
 import org.apache.ctakes.dictionary.lookup2.textspan.TextSpan;
-import org.apache.ctakes.dictionary.lookup2.util.collection.CollectionMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongKeyMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSetMap;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.jcas.JCas;
 
@@ -45,8 +46,8 @@ public interface TermConsumer {
     */
    void consumeHits( final JCas jcas,
                      final RareWordDictionary dictionary,
-                     final CollectionMap<TextSpan, Long, ? extends Collection<Long>> textSpanCuis,
-                     final CollectionMap<Long, Concept, ? extends Collection<Concept>> cuiConcepts )
+                     final LongSetMap<TextSpan> textSpanCuis,
+                     final LongKeyMap<Collection<Concept>> cuiConcepts )
          throws AnalysisEngineProcessException;
 
    /**
@@ -56,8 +57,8 @@ public interface TermConsumer {
     * @throws org.apache.uima.analysis_engine.AnalysisEngineProcessException
     */
    void consumeTypeIdHits( final JCas jcas, final String codingScheme, final int cTakesSemantic,
-                           final CollectionMap<TextSpan, Long, ? extends Collection<Long>> textSpanCuis,
-                           final CollectionMap<Long, Concept, ? extends Collection<Concept>> cuiConcepts )
+                           final LongSetMap<TextSpan> textSpanCuis,
+                           final LongKeyMap<Collection<Concept>> cuiConcepts )
          throws AnalysisEngineProcessException;
 
 }
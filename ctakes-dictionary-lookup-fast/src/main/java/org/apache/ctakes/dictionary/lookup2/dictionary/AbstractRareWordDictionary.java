@@ -24,6 +24,8 @@ import org.apache.ctakes.dictionary.lookup2.util.FastLookupToken;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Author: SPF
@@ -64,4 +66,21 @@ abstract public class AbstractRareWordDictionary implements RareWordDictionary {
       return terms;
    }
 
+   /**
+    * Looks up each token in turn.  Override if the dictionary can do better with a batch
+    * {@inheritDoc}
+    */
+   @Override
+   public Map<FastLookupToken, Collection<RareWordTerm>> getRareWordHits(
+         final Collection<FastLookupToken> fastLookupTokens ) {
+      final Map<FastLookupToken, Collection<RareWordTerm>> tokenTerms = new HashMap<>( fastLookupTokens.size() );
+      for ( FastLookupToken fastLookupToken : fastLookupTokens ) {
+         final Collection<RareWordTerm> terms = getRareWordHits( fastLookupToken );
+         if ( terms != null && !terms.isEmpty() ) {
+            tokenTerms.put( fastLookupToken, terms );
+         }
+      }
+      return tokenTerms;
+   }
+
 }
@@ -31,6 +31,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Properties;
 
 import static org.apache.ctakes.dictionary.lookup2.dictionary.RareWordTermMapCreator.CuiTerm;
@@ -89,6 +90,15 @@ final public class BsvRareWordDictionary implements RareWordDictionary {
       return _delegateDictionary.getRareWordHits( rareWordText );
    }
 
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public Map<FastLookupToken, Collection<RareWordTerm>> getRareWordHits(
+         final Collection<FastLookupToken> fastLookupTokens ) {
+      return _delegateDictionary.getRareWordHits( fastLookupTokens );
+   }
+
 
    /**
     * Create a collection of {@link org.apache.ctakes.dictionary.lookup2.dictionary.RareWordTermMapCreator.CuiTerm} Objects
@@ -110,7 +120,7 @@ final public class BsvRareWordDictionary implements RareWordDictionary {
     * @param bsvFilePath path to file containing term rows and bsv columns
     * @return collection of all valid terms read from the bsv file
     */
-   static private Collection<CuiTerm> parseBsvFile( final String bsvFilePath ) {
+   static Collection<CuiTerm> parseBsvFile( final String bsvFilePath ) {
       final Collection<CuiTerm> cuiTerms = new ArrayList<>();
       try ( final BufferedReader reader
                   = new BufferedReader( new InputStreamReader( FileLocator.getAsStream( bsvFilePath ) ) ) ) {
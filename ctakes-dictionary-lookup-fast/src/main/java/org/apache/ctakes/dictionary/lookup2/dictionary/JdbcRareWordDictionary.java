@@ -18,7 +18,9 @@
  */
 package org.apache.ctakes.dictionary.lookup2.dictionary;
 
+import org.apache.ctakes.core.util.collection.BoundedCache;
 import org.apache.ctakes.dictionary.lookup2.term.RareWordTerm;
+import org.apache.ctakes.dictionary.lookup2.util.FastLookupToken;
 import org.apache.ctakes.dictionary.lookup2.util.JdbcConnectionFactory;
 import org.apache.log4j.Logger;
 import org.apache.uima.UimaContext;
@@ -27,10 +29,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Properties;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import static org.apache.ctakes.dictionary.lookup2.util.JdbcConnectionFactory.*;
 
@@ -38,6 +39,18 @@ import static org.apache.ctakes.dictionary.lookup2.util.JdbcConnectionFactory.*;
  * Preferred dictionary to use for large collections of terms.
  * Column indices within the database are constant and not configurable: CUI TUI RINDEX TCOUNT TEXT RWORD
  * If a configurable implementation is desired then create an extension.
+ * <p/>
+ * Thread safe.  Lookups borrow sql calls from a pool, so several threads or annotators can share one dictionary.
+ * The first pooled call uses the shared Connection from the {@link JdbcConnectionFactory},
+ * any others use their own Connection so that they can run in parallel.
+ * {@link #close()} closes the calls and the Connections that the dictionary opened itself.
+ * Terms for recently used rare words, including rare words without terms, are kept in a bounded lru cache
+ * that is registered for management as {@value BoundedCache#MBEAN_DOMAIN}:type=RareWordCache,name=dictionary name.
+ * Lookup of the tokens in a window is done in batches with {@code WHERE RWORD IN (...)}.
+ * <p/>
+ * Optional properties are {@value #STATEMENT_POOL_SIZE} (default {@value #DEFAULT_POOL_SIZE}),
+ * {@value #RARE_WORD_CACHE_SIZE} (default {@value #DEFAULT_CACHE_SIZE}, 0 to disable)
+ * and {@value #LOOKUP_BATCH_SIZE} (default {@value #DEFAULT_BATCH_SIZE}).
  * Author: SPF
  * Affiliation: CHIP-NLP
  * Date: 3/26/13
@@ -62,9 +75,21 @@ final public class JdbcRareWordDictionary extends AbstractRareWordDictionary {
 
 
    static public final String RARE_WORD_TABLE = "rareWordTable";
+   static public final String STATEMENT_POOL_SIZE = "statementPoolSize";
+   static public final String RARE_WORD_CACHE_SIZE = "rareWordCacheSize";
+   static public final String LOOKUP_BATCH_SIZE = "lookupBatchSize";
 
+   static public final int DEFAULT_POOL_SIZE = 1;
+   static public final int DEFAULT_CACHE_SIZE = 50000;
+   static public final int DEFAULT_BATCH_SIZE = 32;
 
-   private PreparedStatement _selectTermCall;
+
+   final private BlockingQueue<LookupCalls> _lookupCallPool;
+   // Connections made for this dictionary's pool, not shared through the JdbcConnectionFactory
+   final private Collection<Connection> _ownedConnections;
+   private volatile boolean _closed;
+   final private BoundedCache<String, Collection<RareWordTerm>> _rareWordCache;
+   final private int _batchSize;
 
 
    public JdbcRareWordDictionary( final String name, final UimaContext uimaContext, final Properties properties )
@@ -72,7 +97,10 @@ final public class JdbcRareWordDictionary extends AbstractRareWordDictionary {
       this( name,
             properties.getProperty( JDBC_DRIVER ), properties.getProperty( JDBC_URL ),
             properties.getProperty( JDBC_USER ), properties.getProperty( JDBC_PASS ),
-            properties.getProperty( RARE_WORD_TABLE ) );
+            properties.getProperty( RARE_WORD_TABLE ),
+            parseInt( properties, STATEMENT_POOL_SIZE, DEFAULT_POOL_SIZE ),
+            parseInt( properties, RARE_WORD_CACHE_SIZE, DEFAULT_CACHE_SIZE ),
+            parseInt( properties, LOOKUP_BATCH_SIZE, DEFAULT_BATCH_SIZE ) );
    }
 
 
@@ -83,23 +111,74 @@ final public class JdbcRareWordDictionary extends AbstractRareWordDictionary {
                                   final String jdbcPass,
                                   final String tableName )
          throws SQLException {
+      this( name, jdbcDriver, jdbcUrl, jdbcUser, jdbcPass, tableName,
+            DEFAULT_POOL_SIZE, DEFAULT_CACHE_SIZE, DEFAULT_BATCH_SIZE );
+   }
+
+   /**
+    * @param name      simple name for the dictionary
+    * @param jdbcDriver -
+    * @param jdbcUrl    -
+    * @param jdbcUser   -
+    * @param jdbcPass   -
+    * @param tableName  rare word table
+    * @param poolSize   number of sql calls that can run at the same time
+    * @param cacheSize  maximum number of rare words to cache, 0 for no cache
+    * @param batchSize  maximum number of rare words to select with one sql call
+    * @throws SQLException if the sql calls could not be created
+    */
+   public JdbcRareWordDictionary( final String name,
+                                  final String jdbcDriver,
+                                  final String jdbcUrl,
+                                  final String jdbcUser,
+                                  final String jdbcPass,
+                                  final String tableName,
+                                  final int poolSize,
+                                  final int cacheSize,
+                                  final int batchSize )
+         throws SQLException {
       super( name );
+      final int truePoolSize = Math.max( 1, poolSize );
+      _batchSize = Math.max( 1, batchSize );
+      _lookupCallPool = new ArrayBlockingQueue<>( truePoolSize );
+      _ownedConnections = new ArrayList<>( truePoolSize - 1 );
       boolean connected = false;
       try {
-         // DO NOT use try with resources here.  Try with resources uses a closable and closes it when exiting the try
-         final Connection connection = JdbcConnectionFactory.getInstance()
-               .getConnection( jdbcDriver, jdbcUrl, jdbcUser, jdbcPass );
-         connected = connection != null;
-         _selectTermCall = createSelectCall( connection, tableName );
+         for ( int i = 0; i < truePoolSize; i++ ) {
+            // DO NOT use try with resources here.  Try with resources uses a closable and closes it when exiting the try
+            final Connection connection;
+            if ( i == 0 ) {
+               connection = JdbcConnectionFactory.getInstance()
+                     .getConnection( jdbcDriver, jdbcUrl, jdbcUser, jdbcPass );
+            } else {
+               connection = JdbcConnectionFactory.getInstance()
+                     .createConnection( jdbcDriver, jdbcUrl, jdbcUser, jdbcPass );
+               _ownedConnections.add( connection );
+            }
+            connected = connection != null;
+            final PreparedStatement selectCall = createSelectCall( connection, tableName );
+            try {
+               _lookupCallPool.add( new LookupCalls( selectCall,
+                     createBatchSelectCall( connection, tableName, _batchSize ) ) );
+            } catch ( SQLException sqlE ) {
+               closeQuietly( selectCall );
+               throw sqlE;
+            }
+         }
       } catch ( SQLException sqlE ) {
          if ( !connected ) {
             LOGGER.error( "Could not Connect to Dictionary " + name );
          } else {
             LOGGER.error( "Could not create Term Data Selection Call", sqlE );
          }
+         close();
          throw sqlE;
       }
-      LOGGER.info( "Connected to cui and term table " + tableName.toUpperCase() );
+      _rareWordCache = new BoundedCache<>( cacheSize );
+      _rareWordCache.registerMBean( "RareWordCache", name );
+      LOGGER.info( "Connected to cui and term table " + tableName.toUpperCase()
+                   + " with " + truePoolSize + " sql calls, batches of " + _batchSize
+                   + " and a cache of " + _rareWordCache.getMaxSize() + " rare words" );
    }
 
 
@@ -108,25 +187,221 @@ final public class JdbcRareWordDictionary extends AbstractRareWordDictionary {
     */
    @Override
    public Collection<RareWordTerm> getRareWordHits( final String rareWordText ) {
+      final Collection<RareWordTerm> cachedTerms = _rareWordCache.get( rareWordText );
+      if ( cachedTerms != null ) {
+         return cachedTerms;
+      }
       final List<RareWordTerm> rareWordTerms = new ArrayList<>();
+      final LookupCalls lookupCalls = borrowLookupCalls();
+      if ( lookupCalls == null ) {
+         return rareWordTerms;
+      }
       try {
-         fillSelectCall( rareWordText );
-         final ResultSet resultSet = _selectTermCall.executeQuery();
+         fillSelectCall( lookupCalls.__selectTermCall, rareWordText );
+         final ResultSet resultSet = lookupCalls.__selectTermCall.executeQuery();
          while ( resultSet.next() ) {
-            final RareWordTerm rareWordTerm = new RareWordTerm( resultSet.getString( FIELD_INDEX.TEXT.__index ),
-                  resultSet.getLong( FIELD_INDEX.CUI.__index ),
-                  resultSet.getString( FIELD_INDEX.RWORD.__index ),
-                  resultSet.getInt( FIELD_INDEX.RINDEX.__index ),
-                  resultSet.getInt( FIELD_INDEX.TCOUNT.__index ) );
-            rareWordTerms.add( rareWordTerm );
+            rareWordTerms.add( createRareWordTerm( resultSet ) );
          }
          // Though the ResultSet interface documentation states that there are automatic closures,
          // it is up to the driver to implement this behavior ...  historically some drivers have not done so
          resultSet.close();
       } catch ( SQLException e ) {
          LOGGER.error( e.getMessage() );
+         return rareWordTerms;
+      } finally {
+         _lookupCallPool.add( lookupCalls );
+      }
+      final Collection<RareWordTerm> terms = Collections.unmodifiableList( rareWordTerms );
+      _rareWordCache.put( rareWordText, terms );
+      return terms;
+   }
+
+   /**
+    * Rare words that are not in the cache are selected in batches
+    * {@inheritDoc}
+    */
+   @Override
+   public Map<FastLookupToken, Collection<RareWordTerm>> getRareWordHits(
+         final Collection<FastLookupToken> fastLookupTokens ) {
+      final Map<String, Collection<RareWordTerm>> rareWordTerms = new HashMap<>();
+      final Collection<String> uncachedWords = new LinkedHashSet<>();
+      for ( FastLookupToken fastLookupToken : fastLookupTokens ) {
+         findCachedTerms( fastLookupToken.getText(), rareWordTerms, uncachedWords );
+         if ( fastLookupToken.getVariant() != null ) {
+            findCachedTerms( fastLookupToken.getVariant(), rareWordTerms, uncachedWords );
+         }
+      }
+      if ( !uncachedWords.isEmpty() ) {
+         selectRareWordTerms( uncachedWords, rareWordTerms );
+      }
+      final Map<FastLookupToken, Collection<RareWordTerm>> tokenTerms = new HashMap<>();
+      for ( FastLookupToken fastLookupToken : fastLookupTokens ) {
+         final Collection<RareWordTerm> textTerms = rareWordTerms.get( fastLookupToken.getText() );
+         final Collection<RareWordTerm> variantTerms = fastLookupToken.getVariant() == null
+                                                       ? null : rareWordTerms.get( fastLookupToken.getVariant() );
+         if ( variantTerms == null || variantTerms.isEmpty() ) {
+            if ( textTerms != null && !textTerms.isEmpty() ) {
+               tokenTerms.put( fastLookupToken, textTerms );
+            }
+            continue;
+         }
+         final Collection<RareWordTerm> terms = new ArrayList<>( variantTerms.size()
+                                                                 + (textTerms == null ? 0 : textTerms.size()) );
+         if ( textTerms != null ) {
+            terms.addAll( textTerms );
+         }
+         terms.addAll( variantTerms );
+         tokenTerms.put( fastLookupToken, terms );
       }
-      return rareWordTerms;
+      return tokenTerms;
+   }
+
+   /**
+    * @return number of rare word lookups answered by the cache
+    */
+   public long getCacheHitCount() {
+      return _rareWordCache.getHitCount();
+   }
+
+   /**
+    * @return number of rare word lookups that went to the database
+    */
+   public long getCacheMissCount() {
+      return _rareWordCache.getMissCount();
+   }
+
+   /**
+    * Closes the sql calls of the pool and the Connections opened for this dictionary.
+    * The shared Connection from the {@link JdbcConnectionFactory} is left open for other users.
+    * Lookups must be finished before the dictionary is closed, afterwards they find no terms.
+    * {@inheritDoc}
+    */
+   @Override
+   public void close() {
+      _closed = true;
+      final Collection<LookupCalls> lookupCallsList = new ArrayList<>();
+      _lookupCallPool.drainTo( lookupCallsList );
+      for ( LookupCalls lookupCalls : lookupCallsList ) {
+         closeQuietly( lookupCalls.__selectTermCall );
+         closeQuietly( lookupCalls.__selectBatchCall );
+      }
+      for ( Connection connection : _ownedConnections ) {
+         if ( connection != null ) {
+            try {
+               connection.close();
+            } catch ( SQLException sqlE ) {
+               LOGGER.warn( "Could not close Connection for Dictionary " + getName() + ": " + sqlE.getMessage() );
+            }
+         }
+      }
+      _ownedConnections.clear();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString() {
+      return getName() + " rare word cache: " + _rareWordCache;
+   }
+
+   private void findCachedTerms( final String rareWordText,
+                                 final Map<String, Collection<RareWordTerm>> rareWordTerms,
+                                 final Collection<String> uncachedWords ) {
+      if ( rareWordTerms.containsKey( rareWordText ) || uncachedWords.contains( rareWordText ) ) {
+         return;
+      }
+      final Collection<RareWordTerm> cachedTerms = _rareWordCache.get( rareWordText );
+      if ( cachedTerms != null ) {
+         rareWordTerms.put( rareWordText, cachedTerms );
+      } else {
+         uncachedWords.add( rareWordText );
+      }
+   }
+
+   /**
+    * Select the terms for rare words in batches, adding them to the map and the cache
+    *
+    * @param rareWordTexts text of rare words, all unique
+    * @param rareWordTerms map to fill with rare words and their terms
+    */
+   private void selectRareWordTerms( final Collection<String> rareWordTexts,
+                                     final Map<String, Collection<RareWordTerm>> rareWordTerms ) {
+      final LookupCalls lookupCalls = borrowLookupCalls();
+      if ( lookupCalls == null ) {
+         return;
+      }
+      final Map<String, List<RareWordTerm>> batchTerms = new HashMap<>( _batchSize * 2 );
+      final List<String> batch = new ArrayList<>( _batchSize );
+      try {
+         final Iterator<String> iterator = rareWordTexts.iterator();
+         while ( iterator.hasNext() ) {
+            batch.add( iterator.next() );
+            if ( batch.size() < _batchSize && iterator.hasNext() ) {
+               continue;
+            }
+            fillBatchSelectCall( lookupCalls.__selectBatchCall, batch );
+            final ResultSet resultSet = lookupCalls.__selectBatchCall.executeQuery();
+            while ( resultSet.next() ) {
+               final RareWordTerm rareWordTerm = createRareWordTerm( resultSet );
+               List<RareWordTerm> terms = batchTerms.get( rareWordTerm.getRareWord() );
+               if ( terms == null ) {
+                  terms = new ArrayList<>();
+                  batchTerms.put( rareWordTerm.getRareWord(), terms );
+               }
+               terms.add( rareWordTerm );
+            }
+            resultSet.close();
+            for ( String rareWord : batch ) {
+               final List<RareWordTerm> terms = batchTerms.get( rareWord );
+               final Collection<RareWordTerm> cacheTerms = terms == null
+                                                           ? Collections.<RareWordTerm>emptyList()
+                                                           : Collections.unmodifiableList( terms );
+               rareWordTerms.put( rareWord, cacheTerms );
+               _rareWordCache.put( rareWord, cacheTerms );
+            }
+            batchTerms.clear();
+            batch.clear();
+         }
+      } catch ( SQLException e ) {
+         LOGGER.error( e.getMessage() );
+      } finally {
+         _lookupCallPool.add( lookupCalls );
+      }
+   }
+
+   /**
+    * @return sql calls that are not in use by another thread,
+    * or null if the dictionary is closed or the thread was interrupted while waiting
+    */
+   private LookupCalls borrowLookupCalls() {
+      if ( _closed ) {
+         LOGGER.warn( "Dictionary " + getName() + " is closed" );
+         return null;
+      }
+      try {
+         return _lookupCallPool.take();
+      } catch ( InterruptedException intE ) {
+         Thread.currentThread().interrupt();
+         LOGGER.warn( "Interrupted while waiting for a Term Data Selection Call" );
+         return null;
+      }
+   }
+
+   static private void closeQuietly( final PreparedStatement statement ) {
+      try {
+         statement.close();
+      } catch ( SQLException sqlE ) {
+         LOGGER.warn( "Could not close Term Data Selection Call: " + sqlE.getMessage() );
+      }
+   }
+
+   static private RareWordTerm createRareWordTerm( final ResultSet resultSet ) throws SQLException {
+      return new RareWordTerm( resultSet.getString( FIELD_INDEX.TEXT.__index ),
+            resultSet.getLong( FIELD_INDEX.CUI.__index ),
+            resultSet.getString( FIELD_INDEX.RWORD.__index ),
+            resultSet.getInt( FIELD_INDEX.RINDEX.__index ),
+            resultSet.getInt( FIELD_INDEX.TCOUNT.__index ) );
    }
 
    /**
@@ -140,15 +415,77 @@ final public class JdbcRareWordDictionary extends AbstractRareWordDictionary {
    }
 
    /**
+    * @return an sql call to use for lookup of several rare words.
+    * The number of parameters is fixed so that the statement can be reused
+    * @throws SQLException if the {@code PreparedStatement} could not be created or changed
+    */
+   static private PreparedStatement createBatchSelectCall( final Connection connection, final String tableName,
+                                                           final int batchSize )
+         throws SQLException {
+      final StringBuilder sb = new StringBuilder( "SELECT * FROM " );
+      sb.append( tableName ).append( " WHERE RWORD IN (?" );
+      for ( int i = 1; i < batchSize; i++ ) {
+         sb.append( ",?" );
+      }
+      sb.append( ')' );
+      return connection.prepareStatement( sb.toString() );
+   }
+
+   /**
+    * @param selectCall   sql call to fill
     * @param rareWordText text of the rare word to use for term lookup
     * @return an sql call to use for term lookup
     * @throws SQLException if the {@code PreparedStatement} could not be created or changed
     */
-   private PreparedStatement fillSelectCall( final String rareWordText ) throws SQLException {
-      _selectTermCall.clearParameters();
-      _selectTermCall.setString( 1, rareWordText );
-      return _selectTermCall;
+   static private PreparedStatement fillSelectCall( final PreparedStatement selectCall,
+                                                    final String rareWordText ) throws SQLException {
+      selectCall.clearParameters();
+      selectCall.setString( 1, rareWordText );
+      return selectCall;
    }
 
+   /**
+    * Unused parameters are filled with the last rare word, which has no effect on the result
+    *
+    * @param selectCall    sql call to fill
+    * @param rareWordTexts text of one to batch size rare words to use for term lookup
+    * @return an sql call to use for term lookup
+    * @throws SQLException if the {@code PreparedStatement} could not be created or changed
+    */
+   private PreparedStatement fillBatchSelectCall( final PreparedStatement selectCall,
+                                                  final List<String> rareWordTexts ) throws SQLException {
+      selectCall.clearParameters();
+      final String lastText = rareWordTexts.get( rareWordTexts.size() - 1 );
+      for ( int i = 0; i < _batchSize; i++ ) {
+         selectCall.setString( i + 1, i < rareWordTexts.size() ? rareWordTexts.get( i ) : lastText );
+      }
+      return selectCall;
+   }
+
+   static private int parseInt( final Properties properties, final String name, final int defaultValue ) {
+      final String value = properties.getProperty( name );
+      if ( value == null ) {
+         return defaultValue;
+      }
+      try {
+         return Integer.parseInt( value.trim() );
+      } catch ( NumberFormatException nfE ) {
+         LOGGER.warn( "Could not parse " + name + " " + value + " as an integer" );
+         return defaultValue;
+      }
+   }
+
+   /**
+    * A single term lookup call and a batch lookup call on the same Connection
+    */
+   static private final class LookupCalls {
+      final private PreparedStatement __selectTermCall;
+      final private PreparedStatement __selectBatchCall;
+
+      private LookupCalls( final PreparedStatement selectTermCall, final PreparedStatement selectBatchCall ) {
+         __selectTermCall = selectTermCall;
+         __selectBatchCall = selectBatchCall;
+      }
+   }
 
 }
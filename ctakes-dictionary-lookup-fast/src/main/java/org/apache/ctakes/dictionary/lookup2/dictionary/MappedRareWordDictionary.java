@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.dictionary.lookup2.dictionary;
+
+import org.apache.ctakes.core.resource.FileLocator;
+import org.apache.ctakes.dictionary.lookup2.term.RareWordTerm;
+import org.apache.ctakes.dictionary.lookup2.util.CuiCodeUtil;
+import org.apache.log4j.Logger;
+import org.apache.uima.UimaContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * A RareWordDictionary that reads terms directly from a memory-mapped rare word index file
+ * written by {@link RareWordIndexCompiler}.
+ * Nothing but the small file header is read onto the heap, so startup is nearly instant and several jvms on one host
+ * share the same pages of the operating system file cache.
+ * {@link RareWordTerm} objects are only created for the hits of a lookup.
+ * <p/>
+ * The index file is laid out as (all values big-endian):
+ * <pre>
+ * int     magic number
+ * int     format version
+ * int     cui prefix count P
+ * P *     ( int prefix index, int byte count, utf8 bytes of a sample cui with that prefix )
+ * int     rare word count R
+ * int     term count T
+ * int     string pool size in bytes
+ * R *     int string pool offset of the rare word, sorted by unsigned utf8 byte order
+ * R+1 *   int index of the first term record for the rare word
+ * T *     ( long cui code, int string pool offset of the term text, short rare word index, short token count )
+ * pool    ( int byte count, utf8 bytes ) for each unique string
+ * </pre>
+ */
+final public class MappedRareWordDictionary extends AbstractRareWordDictionary {
+
+   static private final Logger LOGGER = Logger.getLogger( "MappedRareWordDictionary" );
+
+   static private final String INDEX_FILE_PATH = "indexPath";
+
+   static final int MAGIC_NUMBER = 0x52574458;
+   static final int FORMAT_VERSION = 1;
+   static final int TERM_RECORD_SIZE = 16;
+
+   final private ByteBuffer _buffer;
+   final private int _rareWordCount;
+   final private int _rareWordStart;
+   final private int _termStartStart;
+   final private int _termRecordStart;
+   final private int _poolStart;
+   // cui code offset for each prefix index in the file, matching the prefix index in this jvm's CuiCodeUtil
+   final private long[] _cuiCodeOffsets;
+
+
+   public MappedRareWordDictionary( final String name, final UimaContext uimaContext, final Properties properties )
+         throws IOException {
+      this( name, FileLocator.locateFile( properties.getProperty( INDEX_FILE_PATH ) ) );
+   }
+
+   /**
+    * @param name      simple name for the dictionary
+    * @param indexFile rare word index file written by {@link RareWordIndexCompiler}
+    * @throws IOException if the file could not be mapped or is not a valid rare word index
+    */
+   public MappedRareWordDictionary( final String name, final File indexFile ) throws IOException {
+      super( name );
+      LOGGER.info( "Mapping rare word index " + indexFile.getPath() );
+      try ( RandomAccessFile randomAccessFile = new RandomAccessFile( indexFile, "r" );
+            FileChannel channel = randomAccessFile.getChannel() ) {
+         if ( channel.size() > Integer.MAX_VALUE ) {
+            throw new IOException( "Rare word index " + indexFile.getPath() + " is larger than 2GB" );
+         }
+         // The mapping remains valid after the channel is closed
+         _buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+      }
+      if ( _buffer.getInt() != MAGIC_NUMBER ) {
+         throw new IOException( indexFile.getPath() + " is not a rare word index" );
+      }
+      final int version = _buffer.getInt();
+      if ( version != FORMAT_VERSION ) {
+         throw new IOException( "Unsupported rare word index version " + version + " in " + indexFile.getPath() );
+      }
+      _cuiCodeOffsets = readCuiCodeOffsets( _buffer );
+      _rareWordCount = _buffer.getInt();
+      final int termCount = _buffer.getInt();
+      final int poolSize = _buffer.getInt();
+      _rareWordStart = _buffer.position();
+      _termStartStart = _rareWordStart + 4 * _rareWordCount;
+      _termRecordStart = _termStartStart + 4 * (_rareWordCount + 1);
+      _poolStart = _termRecordStart + TERM_RECORD_SIZE * termCount;
+      if ( (long)_poolStart + poolSize != _buffer.limit() ) {
+         throw new IOException( "Rare word index " + indexFile.getPath() + " is truncated or corrupt" );
+      }
+      LOGGER.info( "Mapped " + _rareWordCount + " rare words for " + termCount + " terms" );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public Collection<RareWordTerm> getRareWordHits( final String rareWordText ) {
+      final int rareWordIndex = findRareWord( rareWordText.getBytes( StandardCharsets.UTF_8 ) );
+      if ( rareWordIndex < 0 ) {
+         return Collections.emptyList();
+      }
+      final int firstTerm = _buffer.getInt( _termStartStart + 4 * rareWordIndex );
+      final int lastTerm = _buffer.getInt( _termStartStart + 4 * (rareWordIndex + 1) );
+      final List<RareWordTerm> rareWordTerms = new ArrayList<>( lastTerm - firstTerm );
+      for ( int i = firstTerm; i < lastTerm; i++ ) {
+         final int record = _termRecordStart + TERM_RECORD_SIZE * i;
+         final long cuiCode = getCuiCode( _buffer.getLong( record ) );
+         final String text = getPoolString( _buffer.getInt( record + 8 ) );
+         final int wordIndex = _buffer.getShort( record + 12 );
+         final int tokenCount = _buffer.getShort( record + 14 );
+         rareWordTerms.add( new RareWordTerm( text, cuiCode, rareWordText, wordIndex, tokenCount ) );
+      }
+      return rareWordTerms;
+   }
+
+   /**
+    * Binary search of the sorted rare words.  Only absolute reads are performed on the buffer, so this is thread safe
+    *
+    * @param rareWordBytes utf8 bytes of the rare word
+    * @return index of the rare word or -1 if it is not in the index
+    */
+   private int findRareWord( final byte[] rareWordBytes ) {
+      int low = 0;
+      int high = _rareWordCount - 1;
+      while ( low <= high ) {
+         final int middle = (low + high) >>> 1;
+         final int comparison = comparePoolBytes( _buffer.getInt( _rareWordStart + 4 * middle ), rareWordBytes );
+         if ( comparison < 0 ) {
+            low = middle + 1;
+         } else if ( comparison > 0 ) {
+            high = middle - 1;
+         } else {
+            return middle;
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * @param poolOffset offset of a string in the pool
+    * @param bytes      utf8 bytes to compare against
+    * @return negative, zero or positive as the pooled string is before, equal to or after the given bytes
+    */
+   private int comparePoolBytes( final int poolOffset, final byte[] bytes ) {
+      final int start = _poolStart + poolOffset;
+      final int length = _buffer.getInt( start );
+      final int count = Math.min( length, bytes.length );
+      for ( int i = 0; i < count; i++ ) {
+         final int difference = (_buffer.get( start + 4 + i ) & 0xff) - (bytes[ i ] & 0xff);
+         if ( difference != 0 ) {
+            return difference;
+         }
+      }
+      return length - bytes.length;
+   }
+
+   /**
+    * @param poolOffset offset of a string in the pool
+    * @return the decoded string
+    */
+   private String getPoolString( final int poolOffset ) {
+      final int start = _poolStart + poolOffset;
+      final byte[] bytes = new byte[ _buffer.getInt( start ) ];
+      for ( int i = 0; i < bytes.length; i++ ) {
+         bytes[ i ] = _buffer.get( start + 4 + i );
+      }
+      return new String( bytes, StandardCharsets.UTF_8 );
+   }
+
+   /**
+    * @param fileCuiCode cui code as written by the compiler
+    * @return cui code for the same cui in this jvm
+    */
+   private long getCuiCode( final long fileCuiCode ) {
+      final int prefixIndex = (int)(fileCuiCode / CuiCodeUtil.PREFIX_MULTIPLIER);
+      if ( prefixIndex < 0 || prefixIndex >= _cuiCodeOffsets.length ) {
+         return fileCuiCode;
+      }
+      return fileCuiCode + _cuiCodeOffsets[ prefixIndex ];
+   }
+
+   /**
+    * Custom cui prefixes are numbered by {@link CuiCodeUtil} in the order that they are encountered,
+    * which may differ between the compiler run and this jvm.  The sample cui for each prefix is registered here
+    * and the difference between the compiled and current codes is kept for each prefix.
+    *
+    * @param buffer buffer positioned at the prefix count
+    * @return cui code offset for each prefix index in the file
+    */
+   static private long[] readCuiCodeOffsets( final ByteBuffer buffer ) {
+      final int prefixCount = buffer.getInt();
+      final int[] prefixIndices = new int[ prefixCount ];
+      final long[] runtimeCodes = new long[ prefixCount ];
+      int maxPrefixIndex = -1;
+      for ( int i = 0; i < prefixCount; i++ ) {
+         prefixIndices[ i ] = buffer.getInt();
+         final byte[] sampleBytes = new byte[ buffer.getInt() ];
+         buffer.get( sampleBytes );
+         final String sampleCui = new String( sampleBytes, StandardCharsets.UTF_8 );
+         runtimeCodes[ i ] = CuiCodeUtil.getInstance().getCuiCode( sampleCui );
+         maxPrefixIndex = Math.max( maxPrefixIndex, prefixIndices[ i ] );
+      }
+      final long[] cuiCodeOffsets = new long[ maxPrefixIndex + 1 ];
+      for ( int i = 0; i < prefixCount; i++ ) {
+         cuiCodeOffsets[ prefixIndices[ i ] ]
+               = runtimeCodes[ i ] - prefixIndices[ i ] * CuiCodeUtil.PREFIX_MULTIPLIER;
+      }
+      return cuiCodeOffsets;
+   }
+
+}
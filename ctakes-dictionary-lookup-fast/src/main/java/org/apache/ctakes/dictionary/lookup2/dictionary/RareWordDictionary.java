@@ -22,6 +22,7 @@ import org.apache.ctakes.dictionary.lookup2.term.RareWordTerm;
 import org.apache.ctakes.dictionary.lookup2.util.FastLookupToken;
 
 import java.util.Collection;
+import java.util.Map;
 
 /**
  * Dictionary used to lookup terms by the most rare word within them
@@ -56,4 +57,21 @@ public interface RareWordDictionary {
     */
    public Collection<RareWordTerm> getRareWordHits( final String rareWordText );
 
+   /**
+    * Get the terms for several tokens at once, for instance all lookup tokens in a lookup window.
+    * A dictionary backed by a database can use this to fetch terms for all the tokens in one round trip.
+    *
+    * @param fastLookupTokens single-word tokens
+    * @return map of each lookup token to the terms that contain it.  Tokens without terms may be absent
+    */
+   public Map<FastLookupToken, Collection<RareWordTerm>> getRareWordHits(
+         final Collection<FastLookupToken> fastLookupTokens );
+
+   /**
+    * Release resources held by the dictionary, such as database connections.
+    * The dictionary should not be used after it is closed.  By default there is nothing to release.
+    */
+   default public void close() {
+   }
+
 }
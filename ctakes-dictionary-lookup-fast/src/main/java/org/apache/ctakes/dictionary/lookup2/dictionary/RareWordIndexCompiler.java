@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.dictionary.lookup2.dictionary;
+
+import org.apache.ctakes.dictionary.lookup2.term.RareWordTerm;
+import org.apache.ctakes.dictionary.lookup2.util.CuiCodeUtil;
+import org.apache.ctakes.dictionary.lookup2.util.JdbcConnectionFactory;
+import org.apache.ctakes.dictionary.lookup2.util.collection.ArrayListMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.CollectionMap;
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+import static org.apache.ctakes.dictionary.lookup2.dictionary.MappedRareWordDictionary.*;
+import static org.apache.ctakes.dictionary.lookup2.dictionary.RareWordTermMapCreator.CuiTerm;
+
+/**
+ * Offline compiler that writes a bsv file or jdbc rare word table as a rare word index file
+ * that can be used by a {@link MappedRareWordDictionary}.
+ * <p/>
+ * Usage:
+ * <pre>
+ *    RareWordIndexCompiler -bsv bsvPath outputFile
+ *    RareWordIndexCompiler -jdbc jdbcDriver jdbcUrl jdbcUser jdbcPass rareWordTable outputFile
+ * </pre>
+ */
+final public class RareWordIndexCompiler {
+
+   static private final Logger LOGGER = Logger.getLogger( "RareWordIndexCompiler" );
+
+   /**
+    * Column indices in the rare word table, as in {@link JdbcRareWordDictionary}
+    */
+   static private final int CUI_INDEX = 1;
+   static private final int RINDEX_INDEX = 2;
+   static private final int TCOUNT_INDEX = 3;
+   static private final int TEXT_INDEX = 4;
+   static private final int RWORD_INDEX = 5;
+
+   private RareWordIndexCompiler() {
+   }
+
+   /**
+    * @param bsvFilePath path to a bsv file as read by {@link BsvRareWordDictionary}
+    * @param indexFile   rare word index file to write
+    * @throws IOException if the index could not be written
+    */
+   static public void compileBsv( final String bsvFilePath, final File indexFile ) throws IOException {
+      final Collection<CuiTerm> cuiTerms = BsvRareWordDictionary.parseBsvFile( bsvFilePath );
+      writeIndex( RareWordTermMapCreator.createRareWordTermMap( cuiTerms ), indexFile );
+   }
+
+   /**
+    * @param jdbcDriver -
+    * @param jdbcUrl    -
+    * @param jdbcUser   -
+    * @param jdbcPass   -
+    * @param tableName  rare word table with the columns used by {@link JdbcRareWordDictionary}
+    * @param indexFile  rare word index file to write
+    * @throws SQLException if the table could not be read
+    * @throws IOException  if the index could not be written
+    */
+   static public void compileJdbc( final String jdbcDriver, final String jdbcUrl,
+                                   final String jdbcUser, final String jdbcPass,
+                                   final String tableName, final File indexFile ) throws SQLException, IOException {
+      final Connection connection = JdbcConnectionFactory.getInstance()
+            .getConnection( jdbcDriver, jdbcUrl, jdbcUser, jdbcPass );
+      final CollectionMap<String, RareWordTerm, List<RareWordTerm>> rareWordTermMap = new ArrayListMap<>();
+      try ( Statement statement = connection.createStatement();
+            ResultSet resultSet = statement.executeQuery( "SELECT * FROM " + tableName ) ) {
+         while ( resultSet.next() ) {
+            final String rareWord = resultSet.getString( RWORD_INDEX );
+            rareWordTermMap.placeValue( rareWord, new RareWordTerm( resultSet.getString( TEXT_INDEX ),
+                  resultSet.getLong( CUI_INDEX ),
+                  rareWord,
+                  resultSet.getInt( RINDEX_INDEX ),
+                  resultSet.getInt( TCOUNT_INDEX ) ) );
+         }
+      }
+      writeIndex( rareWordTermMap, indexFile );
+   }
+
+   /**
+    * @param rareWordTermMap map of rare words to the terms that contain them
+    * @param indexFile       rare word index file to write
+    * @throws IOException if the index could not be written
+    */
+   static public void writeIndex( final CollectionMap<String, RareWordTerm, ? extends Collection<RareWordTerm>> rareWordTermMap,
+                                  final File indexFile ) throws IOException {
+      final List<byte[]> rareWords = new ArrayList<>( rareWordTermMap.size() );
+      for ( String rareWord : rareWordTermMap.keySet() ) {
+         rareWords.add( rareWord.getBytes( StandardCharsets.UTF_8 ) );
+      }
+      Collections.sort( rareWords, new Comparator<byte[]>() {
+         @Override
+         public int compare( final byte[] bytes1, final byte[] bytes2 ) {
+            return compareBytes( bytes1, bytes2 );
+         }
+      } );
+      final StringPool stringPool = new StringPool();
+      final int[] rareWordOffsets = new int[ rareWords.size() ];
+      final int[] termStarts = new int[ rareWords.size() + 1 ];
+      final ByteArrayOutputStream termRecordBytes = new ByteArrayOutputStream();
+      final DataOutputStream termRecords = new DataOutputStream( termRecordBytes );
+      final Set<Long> prefixIndices = new HashSet<>();
+      int termCount = 0;
+      for ( int i = 0; i < rareWords.size(); i++ ) {
+         final String rareWord = new String( rareWords.get( i ), StandardCharsets.UTF_8 );
+         rareWordOffsets[ i ] = stringPool.getOffset( rareWord );
+         termStarts[ i ] = termCount;
+         for ( RareWordTerm term : rareWordTermMap.getCollection( rareWord ) ) {
+            if ( term.getRareWordIndex() > Short.MAX_VALUE || term.getTokenCount() > Short.MAX_VALUE ) {
+               LOGGER.warn( "Too many tokens in " + term.getText() );
+               continue;
+            }
+            termRecords.writeLong( term.getCuiCode() );
+            termRecords.writeInt( stringPool.getOffset( term.getText() ) );
+            termRecords.writeShort( term.getRareWordIndex() );
+            termRecords.writeShort( term.getTokenCount() );
+            prefixIndices.add( term.getCuiCode() / CuiCodeUtil.PREFIX_MULTIPLIER );
+            termCount++;
+         }
+      }
+      termStarts[ rareWords.size() ] = termCount;
+      termRecords.flush();
+      try ( DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream( new FileOutputStream( indexFile ) ) ) ) {
+         output.writeInt( MAGIC_NUMBER );
+         output.writeInt( FORMAT_VERSION );
+         output.writeInt( prefixIndices.size() );
+         for ( Long prefixIndex : prefixIndices ) {
+            final String sampleCui = CuiCodeUtil.getInstance().getAsCui( prefixIndex * CuiCodeUtil.PREFIX_MULTIPLIER );
+            final byte[] sampleBytes = sampleCui.getBytes( StandardCharsets.UTF_8 );
+            output.writeInt( prefixIndex.intValue() );
+            output.writeInt( sampleBytes.length );
+            output.write( sampleBytes );
+         }
+         output.writeInt( rareWords.size() );
+         output.writeInt( termCount );
+         output.writeInt( stringPool.size() );
+         for ( int offset : rareWordOffsets ) {
+            output.writeInt( offset );
+         }
+         for ( int termStart : termStarts ) {
+            output.writeInt( termStart );
+         }
+         termRecordBytes.writeTo( output );
+         stringPool.writeTo( output );
+      }
+      LOGGER.info( "Wrote " + rareWords.size() + " rare words for " + termCount + " terms to " + indexFile.getPath() );
+   }
+
+   /**
+    * Unsigned byte order, which for utf8 is also code point order
+    */
+   static private int compareBytes( final byte[] bytes1, final byte[] bytes2 ) {
+      final int count = Math.min( bytes1.length, bytes2.length );
+      for ( int i = 0; i < count; i++ ) {
+         final int difference = (bytes1[ i ] & 0xff) - (bytes2[ i ] & 0xff);
+         if ( difference != 0 ) {
+            return difference;
+         }
+      }
+      return bytes1.length - bytes2.length;
+   }
+
+   /**
+    * Unique length-prefixed utf8 strings
+    */
+   static private final class StringPool {
+      final private Map<String, Integer> __offsets = new HashMap<>();
+      final private ByteArrayOutputStream __bytes = new ByteArrayOutputStream();
+      final private DataOutputStream __output = new DataOutputStream( __bytes );
+
+      private int getOffset( final String text ) throws IOException {
+         final Integer offset = __offsets.get( text );
+         if ( offset != null ) {
+            return offset;
+         }
+         final int newOffset = __output.size();
+         final byte[] textBytes = text.getBytes( StandardCharsets.UTF_8 );
+         __output.writeInt( textBytes.length );
+         __output.write( textBytes );
+         __offsets.put( text, newOffset );
+         return newOffset;
+      }
+
+      private int size() {
+         return __output.size();
+      }
+
+      private void writeTo( final OutputStream output ) throws IOException {
+         __output.flush();
+         __bytes.writeTo( output );
+      }
+   }
+
+
+   public static void main( final String... args ) {
+      try {
+         if ( args.length == 3 && args[ 0 ].equals( "-bsv" ) ) {
+            compileBsv( args[ 1 ], new File( args[ 2 ] ) );
+         } else if ( args.length == 7 && args[ 0 ].equals( "-jdbc" ) ) {
+            compileJdbc( args[ 1 ], args[ 2 ], args[ 3 ], args[ 4 ], args[ 5 ], new File( args[ 6 ] ) );
+         } else {
+            LOGGER.error( "Usage: RareWordIndexCompiler -bsv bsvPath outputFile" );
+            LOGGER.error( "   or: RareWordIndexCompiler -jdbc jdbcDriver jdbcUrl jdbcUser jdbcPass table outputFile" );
+            System.exit( 1 );
+         }
+      } catch ( IOException | SQLException multE ) {
+         LOGGER.error( multE.getMessage(), multE );
+         System.exit( 1 );
+      }
+   }
+
+}
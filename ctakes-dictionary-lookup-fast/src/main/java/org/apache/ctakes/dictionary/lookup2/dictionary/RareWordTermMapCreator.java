@@ -356,7 +356,7 @@ final public class RareWordTermMapCreator {
    static public class CuiTerm {
 
       final private String __term;
-      final private Long __cui;
+      final private long __cui;
       final private int __hashcode;
 
       public CuiTerm( final String cui, final String term ) {
@@ -365,7 +365,7 @@ final public class RareWordTermMapCreator {
          __hashcode = (__cui + "_" + __term).hashCode();
       }
 
-      public Long getCui() {
+      public long getCui() {
          return __cui;
       }
 
@@ -376,7 +376,7 @@ final public class RareWordTermMapCreator {
       public boolean equals( final Object value ) {
          return value instanceof CuiTerm
                 && __term.equals( ((CuiTerm)value).__term )
-                && __cui.equals( ((CuiTerm)value).__cui );
+                && __cui == ((CuiTerm)value).__cui;
       }
 
       public int hashCode() {
@@ -8,6 +8,7 @@ import org.apache.uima.UimaContext;
 
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -56,5 +57,21 @@ final public class UmlsJdbcRareWordDictionary implements RareWordDictionary {
       return _delegateDictionary.getRareWordHits( rareWordText );
    }
 
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public Map<FastLookupToken, Collection<RareWordTerm>> getRareWordHits(
+         final Collection<FastLookupToken> fastLookupTokens ) {
+      return _delegateDictionary.getRareWordHits( fastLookupTokens );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void close() {
+      _delegateDictionary.close();
+   }
 
 }
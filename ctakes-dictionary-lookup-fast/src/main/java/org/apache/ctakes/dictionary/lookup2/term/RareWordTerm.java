@@ -30,7 +30,7 @@ import javax.annotation.concurrent.Immutable;
 final public class RareWordTerm {
 
    final private String _text;
-   final private Long _cuiCode;
+   final private long _cuiCode;
    final private String _rareWord;
    final private int _rareWordIndex;
    final private int _tokenCount;
@@ -43,7 +43,7 @@ final public class RareWordTerm {
     * @param rareWordIndex index of the rare word within the term
     * @param tokenCount    number of tokens within the term
     */
-   public RareWordTerm( final String text, final Long cuiCode,
+   public RareWordTerm( final String text, final long cuiCode,
                         final String rareWord, final int rareWordIndex,
                         final int tokenCount ) {
       _text = text;
@@ -64,7 +64,7 @@ final public class RareWordTerm {
    /**
     * @return umls cui for the term
     */
-   public Long getCuiCode() {
+   public long getCuiCode() {
       return _cuiCode;
    }
 
@@ -118,7 +118,7 @@ final public class RareWordTerm {
          return false;
       }
       final RareWordTerm other = (RareWordTerm)value;
-      return other.getCuiCode().equals( _cuiCode ) && other.getText().equals( _text );
+      return other.getCuiCode() == _cuiCode && other.getText().equals( _text );
    }
 
    /**
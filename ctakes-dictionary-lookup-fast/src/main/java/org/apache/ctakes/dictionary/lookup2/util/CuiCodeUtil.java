@@ -19,7 +19,8 @@ public enum CuiCodeUtil {
    }
 
    static private final Logger LOGGER = Logger.getLogger( "CuiCodeUtil" );
-   static private final long PREFIX_MULTIPLIER = 100000000;
+   // Codes for each custom prefix occupy a block of this size, the prefix index being the block number
+   static public final long PREFIX_MULTIPLIER = 100000000;
 
    final private List<PrefixerPair> _prefixerPairList = new ArrayList<>();
 
@@ -28,7 +29,7 @@ public enum CuiCodeUtil {
       _prefixerPairList.add( new PrefixerPair( "C0000000" ) );
    }
 
-   public String getAsCui( final Long code ) {
+   public String getAsCui( final long code ) {
       final long multiplier = code / PREFIX_MULTIPLIER;
       if ( code < 0 || multiplier < 0 || multiplier >= _prefixerPairList.size() ) {
          LOGGER.error( "Could not create Cui String for " + code );
@@ -38,7 +39,7 @@ public enum CuiCodeUtil {
    }
 
 
-   public Long getCuiCode( final String cui ) {
+   public long getCuiCode( final String cui ) {
       final PrefixerPair prefixerPair = new PrefixerPair( cui );
       int prefixerIndex = _prefixerPairList.indexOf( prefixerPair );
       if ( prefixerIndex < 0 ) {
@@ -67,7 +68,7 @@ public enum CuiCodeUtil {
          __hashCode = digitCount + Arrays.hashCode( __prefix );
       }
 
-      private Long getCuiCode( final String cui, final int multiplier ) {
+      private long getCuiCode( final String cui, final int multiplier ) {
          final String cuiNum = cui.substring( cui.length() - __digitCount, cui.length() );
          try {
             return PREFIX_MULTIPLIER * multiplier + Long.parseLong( cuiNum );
@@ -77,7 +78,7 @@ public enum CuiCodeUtil {
          return -1l;
       }
 
-      private String getAsCui( final Long code ) {
+      private String getAsCui( final long code ) {
          final char[] codeChars = String.valueOf( code ).toCharArray();
          if ( codeChars.length > __digitCount ) {
             LOGGER.error( "Invalid code " + code + " for prefix " + __prefix
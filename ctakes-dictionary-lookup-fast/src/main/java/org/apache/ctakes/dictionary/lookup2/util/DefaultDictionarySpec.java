@@ -24,11 +24,14 @@ import org.apache.ctakes.dictionary.lookup2.concept.DefaultConcept;
 import org.apache.ctakes.dictionary.lookup2.consumer.TermConsumer;
 import org.apache.ctakes.dictionary.lookup2.dictionary.RareWordDictionary;
 import org.apache.ctakes.dictionary.lookup2.term.RareWordTerm;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongKeyMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.LongSet;
 
 import javax.annotation.concurrent.Immutable;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 
 /**
@@ -49,6 +52,11 @@ final public class DefaultDictionarySpec implements DictionarySpec {
       public Collection<RareWordTerm> getRareWordHits( final String rareWordText ) {
          return Collections.emptySet();
       }
+
+      public Map<FastLookupToken, Collection<RareWordTerm>> getRareWordHits(
+            final Collection<FastLookupToken> fastLookupTokens ) {
+         return Collections.emptyMap();
+      }
    };
 
    static private final ConceptFactory EMPTY_CONCEPT_FACTORY = new ConceptFactory() {
@@ -56,12 +64,12 @@ final public class DefaultDictionarySpec implements DictionarySpec {
          return "Empty Concept Factory";
       }
 
-      public Concept createConcept( final Long cuiCode ) {
+      public Concept createConcept( final long cuiCode ) {
          return new DefaultConcept( CuiCodeUtil.getInstance().getAsCui( cuiCode ) );
       }
 
-      public Map<Long, Concept> createConcepts( final Collection<Long> cuiCodes ) {
-         return Collections.emptyMap();
+      public LongKeyMap<Concept> createConcepts( final LongSet cuiCodes ) {
+         return new LongKeyMap<>();
       }
    };
 
@@ -163,7 +171,8 @@ final public class DefaultDictionarySpec implements DictionarySpec {
     */
    @Override
    public Collection<RareWordDictionary> getDictionaries() {
-      return new HashSet<>( _dictionaries.values() );
+      // keep the order of the dictionary map so that every annotator looks up and consumes in the same order
+      return new LinkedHashSet<>( _dictionaries.values() );
    }
 
    /**
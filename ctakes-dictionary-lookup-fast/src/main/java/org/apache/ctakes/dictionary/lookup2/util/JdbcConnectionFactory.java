@@ -57,6 +57,28 @@ public enum JdbcConnectionFactory {
       if ( connection != null ) {
          return connection;
       }
+      connection = createConnection( jdbcDriver, jdbcUrl, jdbcUser, jdbcPass );
+      CONNECTIONS.put( jdbcUrl, connection );
+      return connection;
+   }
+
+   /**
+    * Create a new Connection that is not shared.  Useful when statements must run in parallel.
+    * The caller is responsible for closing the Connection.
+    *
+    * @param jdbcDriver -
+    * @param jdbcUrl    -
+    * @param jdbcUser   -
+    * @param jdbcPass   -
+    * @return a new Connection
+    * @throws SQLException if a JDBC Driver could not be created or registered,
+    *                      or if a Connection could not be made to the given <code>jdbcUrl</code>
+    */
+   public Connection createConnection( final String jdbcDriver,
+                                       final String jdbcUrl,
+                                       final String jdbcUser,
+                                       final String jdbcPass ) throws SQLException {
+      Connection connection;
       String trueJdbcUrl = jdbcUrl;
       if ( jdbcUrl.startsWith( HSQL_FILE_PREFIX ) ) {
          // Hack for hsqldb file needing to be absolute or relative to current working directory
@@ -91,7 +113,6 @@ public enum JdbcConnectionFactory {
       timer.cancel();
       EOL_LOGGER.info( "" );
       LOGGER.info( " Database connected" );
-      CONNECTIONS.put( jdbcUrl, connection );
       return connection;
    }
 
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.dictionary.lookup2.util.collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Map of primitive long keys to values using open addressing with linear probing.
+ * Used for cui codes so that concept lookup does not create a boxed Long for every hit.
+ * Null values are not allowed.
+ * Not thread safe.
+ */
+final public class LongKeyMap<V> {
+
+   static private final int MIN_CAPACITY = 4;
+
+   private long[] _keys;
+   // a null value marks an unused slot
+   private Object[] _values;
+   private int _size;
+
+   public LongKeyMap() {
+      this( MIN_CAPACITY );
+   }
+
+   /**
+    * @param expectedSize number of keys that can be added without a resize
+    */
+   public LongKeyMap( final int expectedSize ) {
+      final int capacity = Integer.highestOneBit( Math.max( MIN_CAPACITY, expectedSize * 2 - 1 ) ) << 1;
+      _keys = new long[ capacity ];
+      _values = new Object[ capacity ];
+   }
+
+   /**
+    * @param key -
+    * @return the value for the key, or null if there is none
+    */
+   @SuppressWarnings( "unchecked" )
+   public V get( final long key ) {
+      final int mask = _keys.length - 1;
+      int slot = getSlot( key, mask );
+      while ( _values[ slot ] != null ) {
+         if ( _keys[ slot ] == key ) {
+            return (V)_values[ slot ];
+         }
+         slot = (slot + 1) & mask;
+      }
+      return null;
+   }
+
+   /**
+    * @param key   -
+    * @param value not null
+    * @return the previous value for the key, or null if there was none
+    */
+   @SuppressWarnings( "unchecked" )
+   public V put( final long key, final V value ) {
+      if ( value == null ) {
+         throw new NullPointerException( "LongKeyMap does not accept null values" );
+      }
+      final int mask = _keys.length - 1;
+      int slot = getSlot( key, mask );
+      while ( _values[ slot ] != null ) {
+         if ( _keys[ slot ] == key ) {
+            final V oldValue = (V)_values[ slot ];
+            _values[ slot ] = value;
+            return oldValue;
+         }
+         slot = (slot + 1) & mask;
+      }
+      _keys[ slot ] = key;
+      _values[ slot ] = value;
+      _size++;
+      // keep the load factor at or below one half
+      if ( _size * 2 > _keys.length ) {
+         resize( _keys.length * 2 );
+      }
+      return null;
+   }
+
+   public boolean containsKey( final long key ) {
+      return get( key ) != null;
+   }
+
+   public int size() {
+      return _size;
+   }
+
+   public boolean isEmpty() {
+      return _size == 0;
+   }
+
+   /**
+    * Empty the map, keeping the current capacity
+    */
+   public void clear() {
+      Arrays.fill( _values, null );
+      _size = 0;
+   }
+
+   /**
+    * @return the keys of the map in no particular order
+    */
+   public long[] keys() {
+      final long[] keys = new long[ _size ];
+      int index = 0;
+      for ( int slot = 0; slot < _keys.length; slot++ ) {
+         if ( _values[ slot ] != null ) {
+            keys[ index ] = _keys[ slot ];
+            index++;
+         }
+      }
+      return keys;
+   }
+
+   /**
+    * @return a new collection of the values of the map in no particular order
+    */
+   @SuppressWarnings( "unchecked" )
+   public Collection<V> values() {
+      final Collection<V> values = new ArrayList<>( _size );
+      for ( Object value : _values ) {
+         if ( value != null ) {
+            values.add( (V)value );
+         }
+      }
+      return values;
+   }
+
+   private void resize( final int capacity ) {
+      final long[] oldKeys = _keys;
+      final Object[] oldValues = _values;
+      _keys = new long[ capacity ];
+      _values = new Object[ capacity ];
+      final int mask = capacity - 1;
+      for ( int i = 0; i < oldKeys.length; i++ ) {
+         if ( oldValues[ i ] != null ) {
+            int slot = getSlot( oldKeys[ i ], mask );
+            while ( _values[ slot ] != null ) {
+               slot = (slot + 1) & mask;
+            }
+            _keys[ slot ] = oldKeys[ i ];
+            _values[ slot ] = oldValues[ i ];
+         }
+      }
+   }
+
+   /**
+    * Cui codes are sequential, so spread the bits before masking
+    */
+   static private int getSlot( final long key, final int mask ) {
+      final long mixed = key * 0x9E3779B97F4A7C15L;
+      return (int)(mixed ^ (mixed >>> 32)) & mask;
+   }
+
+}
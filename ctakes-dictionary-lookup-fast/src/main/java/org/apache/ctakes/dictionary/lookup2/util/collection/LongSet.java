@@ -0,0 +1,311 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.dictionary.lookup2.util.collection;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Set of primitive longs used for cui codes so that lookup does not create a boxed Long for every hit.
+ * Values are chained in power of two buckets exactly as they are in a {@link java.util.HashSet} of Longs,
+ * so iteration follows the same order that a HashSet would give.  That order decides the order of
+ * UmlsConcepts in the ontology concept arrays written by the term consumers.
+ * HashSet converts a bucket to a tree after eight collisions in a table of at least 64 buckets,
+ * which can change the order within that one bucket.  That is not mirrored here.
+ * Not thread safe.
+ */
+final public class LongSet {
+
+   // Same defaults as java.util.HashMap
+   static private final int DEFAULT_CAPACITY = 16;
+   static private final int MAXIMUM_CAPACITY = 1 << 30;
+   static private final float LOAD_FACTOR = 0.75f;
+   // HashMap grows a small table instead of converting a long bucket to a tree
+   static private final int TREEIFY_THRESHOLD = 8;
+   static private final int MIN_TREEIFY_CAPACITY = 64;
+   static private final int NONE = -1;
+
+   static private final LongSet EMPTY_SET = new LongSet( DEFAULT_CAPACITY, true );
+
+   // values in order of addition, with the index of the next value in the same bucket
+   private long[] _values;
+   private int[] _next;
+   // index of the first value in each bucket
+   private int[] _buckets;
+   private int _size;
+   private int _threshold;
+   final private boolean _immutable;
+
+   /**
+    * @return an immutable empty set
+    */
+   static public LongSet emptySet() {
+      return EMPTY_SET;
+   }
+
+   public LongSet() {
+      this( DEFAULT_CAPACITY, false );
+   }
+
+   /**
+    * @param initialCapacity initial capacity, as for a {@link java.util.HashSet}
+    */
+   public LongSet( final int initialCapacity ) {
+      this( tableSizeFor( initialCapacity ), false );
+   }
+
+   private LongSet( final int capacity, final boolean immutable ) {
+      _buckets = new int[ capacity ];
+      Arrays.fill( _buckets, NONE );
+      _threshold = (int)(capacity * LOAD_FACTOR);
+      _values = new long[ Math.max( 1, _threshold ) ];
+      _next = new int[ _values.length ];
+      _immutable = immutable;
+   }
+
+   /**
+    * @param value -
+    * @return true if the value was not already in the set
+    */
+   public boolean add( final long value ) {
+      if ( _immutable ) {
+         throw new UnsupportedOperationException( "Empty LongSet cannot be modified" );
+      }
+      final int bucket = hash( value ) & (_buckets.length - 1);
+      int index = _buckets[ bucket ];
+      int last = NONE;
+      int chainLength = 0;
+      while ( index != NONE ) {
+         if ( _values[ index ] == value ) {
+            return false;
+         }
+         last = index;
+         index = _next[ index ];
+         chainLength++;
+      }
+      if ( _size == _values.length ) {
+         final int length = _values.length * 2;
+         _values = Arrays.copyOf( _values, length );
+         _next = Arrays.copyOf( _next, length );
+      }
+      _values[ _size ] = value;
+      _next[ _size ] = NONE;
+      if ( last == NONE ) {
+         _buckets[ bucket ] = _size;
+      } else {
+         _next[ last ] = _size;
+      }
+      _size++;
+      if ( chainLength >= TREEIFY_THRESHOLD && _buckets.length < MIN_TREEIFY_CAPACITY ) {
+         resize();
+      }
+      if ( _size > _threshold ) {
+         resize();
+      }
+      return true;
+   }
+
+   /**
+    * @param values values to add
+    * @return the number of new values added
+    */
+   public int addAll( final LongSet values ) {
+      final int oldSize = _size;
+      final PrimitiveIterator.OfLong iterator = values.iterator();
+      while ( iterator.hasNext() ) {
+         add( iterator.nextLong() );
+      }
+      return _size - oldSize;
+   }
+
+   /**
+    * @param value -
+    * @return true if the value is in the set
+    */
+   public boolean contains( final long value ) {
+      int index = _buckets[ hash( value ) & (_buckets.length - 1) ];
+      while ( index != NONE ) {
+         if ( _values[ index ] == value ) {
+            return true;
+         }
+         index = _next[ index ];
+      }
+      return false;
+   }
+
+   public int size() {
+      return _size;
+   }
+
+   public boolean isEmpty() {
+      return _size == 0;
+   }
+
+   /**
+    * Empty the set, keeping the current capacity
+    */
+   public void clear() {
+      if ( _immutable ) {
+         throw new UnsupportedOperationException( "Empty LongSet cannot be modified" );
+      }
+      Arrays.fill( _buckets, NONE );
+      _size = 0;
+   }
+
+   /**
+    * @return the values of the set in iteration order
+    */
+   public long[] toArray() {
+      final long[] array = new long[ _size ];
+      int arrayIndex = 0;
+      for ( int bucketIndex : _buckets ) {
+         for ( int index = bucketIndex; index != NONE; index = _next[ index ] ) {
+            array[ arrayIndex ] = _values[ index ];
+            arrayIndex++;
+         }
+      }
+      return array;
+   }
+
+   /**
+    * @return iterator over the values of the set in the order of a HashSet.  Values are not boxed by nextLong()
+    */
+   public PrimitiveIterator.OfLong iterator() {
+      return new PrimitiveIterator.OfLong() {
+         private int __bucket = -1;
+         private int __index = nextBucket();
+
+         private int nextBucket() {
+            __bucket++;
+            while ( __bucket < _buckets.length && _buckets[ __bucket ] == NONE ) {
+               __bucket++;
+            }
+            return __bucket < _buckets.length ? _buckets[ __bucket ] : NONE;
+         }
+
+         @Override
+         public boolean hasNext() {
+            return __index != NONE;
+         }
+
+         @Override
+         public long nextLong() {
+            if ( __index == NONE ) {
+               throw new NoSuchElementException();
+            }
+            final long value = _values[ __index ];
+            __index = _next[ __index ];
+            if ( __index == NONE ) {
+               __index = nextBucket();
+            }
+            return value;
+         }
+      };
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public boolean equals( final Object value ) {
+      if ( !(value instanceof LongSet) || ((LongSet)value)._size != _size ) {
+         return false;
+      }
+      final PrimitiveIterator.OfLong iterator = ((LongSet)value).iterator();
+      while ( iterator.hasNext() ) {
+         if ( !contains( iterator.nextLong() ) ) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * @return hashCode equal to that of a java.util.Set of the same values as Longs
+    */
+   @Override
+   public int hashCode() {
+      int hashCode = 0;
+      for ( int i = 0; i < _size; i++ ) {
+         hashCode += Long.hashCode( _values[ i ] );
+      }
+      return hashCode;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString() {
+      return Arrays.toString( toArray() );
+   }
+
+   /**
+    * Double the buckets.  As in HashMap, values keep their relative order within each new bucket
+    */
+   private void resize() {
+      if ( _buckets.length >= MAXIMUM_CAPACITY ) {
+         return;
+      }
+      final long[] oldValues = toArray();
+      final int capacity = _buckets.length * 2;
+      _buckets = new int[ capacity ];
+      Arrays.fill( _buckets, NONE );
+      _threshold = (int)(capacity * LOAD_FACTOR);
+      if ( _values.length < _threshold ) {
+         _values = new long[ _threshold ];
+         _next = new int[ _threshold ];
+      }
+      final int[] tails = new int[ capacity ];
+      final int mask = capacity - 1;
+      for ( int i = 0; i < oldValues.length; i++ ) {
+         final long value = oldValues[ i ];
+         final int bucket = hash( value ) & mask;
+         _values[ i ] = value;
+         _next[ i ] = NONE;
+         if ( _buckets[ bucket ] == NONE ) {
+            _buckets[ bucket ] = i;
+         } else {
+            _next[ tails[ bucket ] ] = i;
+         }
+         tails[ bucket ] = i;
+      }
+   }
+
+   /**
+    * The bucket hash used by HashMap for a Long key
+    */
+   static private int hash( final long value ) {
+      final int hashCode = Long.hashCode( value );
+      return hashCode ^ (hashCode >>> 16);
+   }
+
+   /**
+    * The table size used by HashMap for an initial capacity
+    */
+   static private int tableSizeFor( final int initialCapacity ) {
+      if ( initialCapacity < 0 ) {
+         throw new IllegalArgumentException( "Illegal initial capacity: " + initialCapacity );
+      }
+      final int size = initialCapacity <= 1 ? 1 : Integer.highestOneBit( initialCapacity - 1 ) << 1;
+      return Math.min( size, MAXIMUM_CAPACITY );
+   }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.dictionary.lookup2.util.collection;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Map of keys to {@link LongSet}s.  The primitive equivalent of a {@link HashSetMap} with Long values,
+ * used to hold the cui codes discovered for each text span.
+ * Not thread safe.
+ */
+final public class LongSetMap<K> implements Iterable<Map.Entry<K, LongSet>> {
+
+   private final Map<K, LongSet> _delegate;
+
+
+   public LongSetMap() {
+      _delegate = new HashMap<>();
+   }
+
+   /**
+    * @param size initial size of the LongSetMap
+    */
+   public LongSetMap( final int size ) {
+      _delegate = new HashMap<>( size );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public Iterator<Map.Entry<K, LongSet>> iterator() {
+      return _delegate.entrySet().iterator();
+   }
+
+   /**
+    * gets a set mapped with key.  If one does not exist then an immutable empty set is returned
+    *
+    * @param key key for internal set
+    * @return set mapped with key or an empty set if there is none
+    */
+   public LongSet getCollection( final K key ) {
+      final LongSet values = _delegate.get( key );
+      if ( values != null ) {
+         return values;
+      }
+      return LongSet.emptySet();
+   }
+
+   /**
+    * obtains a set mapped with key.  If one does not exist then one is added to this LongSetMap
+    *
+    * @param key key for internal set
+    * @return (possibly new) set mapped with key
+    */
+   public LongSet obtainCollection( final K key ) {
+      LongSet values = _delegate.get( key );
+      if ( values == null ) {
+         values = new LongSet();
+         _delegate.put( key, values );
+      }
+      return values;
+   }
+
+   /**
+    * @param key   key for internal set
+    * @param value value to check in internal set
+    * @return <tt>true</tt> if this LongSetMap contains the value for the given key
+    */
+   public boolean containsValue( final K key, final long value ) {
+      final LongSet values = _delegate.get( key );
+      return values != null && values.contains( value );
+   }
+
+   /**
+    * @param key   key for internal set
+    * @param value value to place in internal set
+    * @return <tt>true</tt> if the internal set did not already contain the value
+    */
+   public boolean placeValue( final K key, final long value ) {
+      return obtainCollection( key ).add( value );
+   }
+
+   /**
+    * @param key    key for internal set
+    * @param values values to place in internal set
+    * @return the number of new values added
+    */
+   public int addAllValues( final K key, final LongSet values ) {
+      if ( values == null || values.isEmpty() ) {
+         return 0;
+      }
+      return obtainCollection( key ).addAll( values );
+   }
+
+   /**
+    * @param map all keys and values to place in this LongSetMap
+    */
+   public void placeMap( final LongSetMap<K> map ) {
+      for ( Map.Entry<K, LongSet> entry : map ) {
+         addAllValues( entry.getKey(), entry.getValue() );
+      }
+   }
+
+   /**
+    * @return a new set containing the values for all keys
+    */
+   public LongSet getAllValues() {
+      final LongSet allValues = new LongSet();
+      for ( LongSet values : _delegate.values() ) {
+         allValues.addAll( values );
+      }
+      return allValues;
+   }
+
+   public boolean containsKey( final Object key ) {
+      return _delegate.containsKey( key );
+   }
+
+   public LongSet remove( final Object key ) {
+      return _delegate.remove( key );
+   }
+
+   public Set<K> keySet() {
+      return _delegate.keySet();
+   }
+
+   public int size() {
+      return _delegate.size();
+   }
+
+   public boolean isEmpty() {
+      return _delegate.isEmpty();
+   }
+
+   public void clear() {
+      _delegate.clear();
+   }
+
+}
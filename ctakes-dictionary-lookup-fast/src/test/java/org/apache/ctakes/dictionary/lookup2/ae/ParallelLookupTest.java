@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.dictionary.lookup2.ae;
+
+import org.apache.ctakes.typesystem.type.refsem.UmlsConcept;
+import org.apache.ctakes.typesystem.type.syntax.WordToken;
+import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
+import org.apache.ctakes.typesystem.type.textspan.Sentence;
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.FSArray;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Runs the term annotators over the same cas with serial and with parallel lookup.
+ * Both must create the same identified annotations with the same concepts, in the same order.
+ */
+final public class ParallelLookupTest {
+
+   static private final String[] SYLLABLES = { "ka", "lo", "mi", "nu", "pe", "ra", "si", "tu" };
+   static private final String[] TUIS = { "T047", "T184", "T061", "T121", "T023", "T033" };
+   static private final int TERM_COUNT = 300;
+   static private final int CUI_COUNT = 120;
+   static private final int SENTENCE_COUNT = 400;
+
+   @Rule
+   public TemporaryFolder _folder = new TemporaryFolder();
+
+   @Test
+   public void testDefaultAnnotator() throws Exception {
+      assertSameAnnotations( DefaultJCasTermAnnotator.class );
+   }
+
+   @Test
+   public void testOverlapAnnotator() throws Exception {
+      assertSameAnnotations( OverlapJCasTermAnnotator.class );
+   }
+
+   private void assertSameAnnotations( final Class<? extends AbstractJCasTermAnnotator> annotatorClass )
+         throws UIMAException, IOException {
+      final Random random = new Random( 13 );
+      final List<String> words = createWords();
+      final String descriptorPath = writeDescriptor( words, random );
+      final List<String> sentences = createSentences( words, random );
+      final List<String> serialAnnotations = runLookup( annotatorClass, descriptorPath, sentences, false );
+      final List<String> parallelAnnotations = runLookup( annotatorClass, descriptorPath, sentences, true );
+      assertFalse( "No terms were found", serialAnnotations.isEmpty() );
+      assertEquals( serialAnnotations, parallelAnnotations );
+   }
+
+   static private List<String> createWords() {
+      final List<String> words = new ArrayList<>();
+      for ( String first : SYLLABLES ) {
+         for ( String second : SYLLABLES ) {
+            for ( String third : SYLLABLES ) {
+               words.add( first + second + third );
+            }
+         }
+      }
+      return words;
+   }
+
+   /**
+    * Writes two bsv dictionaries of one, two and three word terms, each paired with a concept factory.
+    * Some cuis are in both dictionaries.
+    *
+    * @return path to the dictionary descriptor
+    */
+   private String writeDescriptor( final List<String> words, final Random random ) throws IOException {
+      final List<List<String>> bsvLines = Arrays.asList( new ArrayList<>(), new ArrayList<>() );
+      for ( int i = 0; i < TERM_COUNT; i++ ) {
+         final int cui = 1 + random.nextInt( CUI_COUNT );
+         final StringBuilder text = new StringBuilder( words.get( random.nextInt( 64 ) ) );
+         final int wordCount = random.nextInt( 3 );
+         for ( int j = 0; j < wordCount; j++ ) {
+            text.append( ' ' ).append( words.get( random.nextInt( words.size() ) ) );
+         }
+         bsvLines.get( random.nextInt( 2 ) )
+                 .add( String.format( "C%07d|%s|%s", cui, TUIS[ cui % TUIS.length ], text ) );
+      }
+      final StringBuilder descriptor = new StringBuilder( "<lookupSpecification>\n" );
+      descriptor.append( "<dictionaries>\n" );
+      for ( int i = 0; i < bsvLines.size(); i++ ) {
+         final File bsvFile = _folder.newFile( "terms" + i + ".bsv" );
+         Files.write( bsvFile.toPath(), bsvLines.get( i ), StandardCharsets.UTF_8 );
+         descriptor.append( "<dictionary><name>Terms" ).append( i ).append( "</name>" )
+                   .append( "<implementationName>org.apache.ctakes.dictionary.lookup2.dictionary.BsvRareWordDictionary" )
+                   .append( "</implementationName><properties><property key=\"bsvPath\" value=\"" )
+                   .append( bsvFile.getAbsolutePath() ).append( "\"/></properties></dictionary>\n" );
+      }
+      descriptor.append( "</dictionaries>\n<conceptFactories>\n" );
+      for ( int i = 0; i < bsvLines.size(); i++ ) {
+         descriptor.append( "<conceptFactory><name>Concepts" ).append( i ).append( "</name>" )
+                   .append( "<implementationName>org.apache.ctakes.dictionary.lookup2.concept.BsvConceptFactory" )
+                   .append( "</implementationName><properties><property key=\"bsvPath\" value=\"" )
+                   .append( new File( _folder.getRoot(), "terms" + i + ".bsv" ).getAbsolutePath() )
+                   .append( "\"/></properties></conceptFactory>\n" );
+      }
+      descriptor.append( "</conceptFactories>\n<dictionaryConceptPairs>\n" );
+      for ( int i = 0; i < bsvLines.size(); i++ ) {
+         descriptor.append( "<dictionaryConceptPair><name>Pair" ).append( i ).append( "</name>" )
+                   .append( "<dictionaryName>Terms" ).append( i ).append( "</dictionaryName>" )
+                   .append( "<conceptFactoryName>Concepts" ).append( i ).append( "</conceptFactoryName>" )
+                   .append( "</dictionaryConceptPair>\n" );
+      }
+      descriptor.append( "</dictionaryConceptPairs>\n" )
+                .append( "<rareWordConsumer><name>Term Consumer</name>" )
+                .append( "<implementationName>org.apache.ctakes.dictionary.lookup2.consumer.DefaultTermConsumer" )
+                .append( "</implementationName><properties><property key=\"codingScheme\" value=\"CTAKES\"/>" )
+                .append( "</properties></rareWordConsumer>\n" )
+                .append( "</lookupSpecification>\n" );
+      final File descriptorFile = _folder.newFile( "lookup.xml" );
+      Files.write( descriptorFile.toPath(), descriptor.toString().getBytes( StandardCharsets.UTF_8 ) );
+      return descriptorFile.getAbsolutePath();
+   }
+
+   /**
+    * @return sentences of words, mostly the first words of terms so that there are many partial matches
+    */
+   static private List<String> createSentences( final List<String> words, final Random random ) {
+      final List<String> sentences = new ArrayList<>( SENTENCE_COUNT );
+      for ( int i = 0; i < SENTENCE_COUNT; i++ ) {
+         final StringBuilder sentence = new StringBuilder();
+         final int wordCount = 3 + random.nextInt( 15 );
+         for ( int j = 0; j < wordCount; j++ ) {
+            if ( j > 0 ) {
+               sentence.append( ' ' );
+            }
+            sentence.append( words.get( random.nextInt( random.nextBoolean() ? 64 : words.size() ) ) );
+         }
+         sentences.add( sentence.toString() );
+      }
+      return sentences;
+   }
+
+   /**
+    * @return type, span, cuis and tuis of every identified annotation in index order
+    */
+   static private List<String> runLookup( final Class<? extends AbstractJCasTermAnnotator> annotatorClass,
+                                          final String descriptorPath,
+                                          final List<String> sentences,
+                                          final boolean parallel ) throws UIMAException {
+      final JCas jcas = JCasFactory.createJCas();
+      final StringBuilder text = new StringBuilder();
+      for ( String sentence : sentences ) {
+         final int sentenceBegin = text.length();
+         for ( String word : sentence.split( " " ) ) {
+            final WordToken token = new WordToken( jcas, text.length(), text.length() + word.length() );
+            token.addToIndexes();
+            text.append( word ).append( ' ' );
+         }
+         new Sentence( jcas, sentenceBegin, text.length() - 1 ).addToIndexes();
+         text.append( '\n' );
+      }
+      jcas.setDocumentText( text.toString() );
+      final AnalysisEngine engine = AnalysisEngineFactory.createEngine( annotatorClass,
+            JCasTermAnnotator.DICTIONARY_DESCRIPTOR_KEY, descriptorPath,
+            JCasTermAnnotator.PARAM_PARALLEL_LOOKUP_KEY, parallel );
+      try {
+         engine.process( jcas );
+      } finally {
+         engine.destroy();
+      }
+      final List<String> annotations = new ArrayList<>();
+      for ( IdentifiedAnnotation annotation : JCasUtil.select( jcas, IdentifiedAnnotation.class ) ) {
+         final StringBuilder sb = new StringBuilder();
+         sb.append( annotation.getClass().getSimpleName() ).append( ' ' )
+           .append( annotation.getBegin() ).append( ',' ).append( annotation.getEnd() );
+         final FSArray concepts = annotation.getOntologyConceptArr();
+         for ( int i = 0; concepts != null && i < concepts.size(); i++ ) {
+            final UmlsConcept concept = (UmlsConcept)concepts.get( i );
+            sb.append( ' ' ).append( concept.getCui() ).append( '/' ).append( concept.getTui() );
+         }
+         annotations.add( sb.toString() );
+      }
+      return annotations;
+   }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.dictionary.lookup2.dictionary;
+
+import org.apache.ctakes.dictionary.lookup2.term.RareWordTerm;
+import org.apache.ctakes.dictionary.lookup2.util.JdbcConnectionFactory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+final public class JdbcRareWordDictionaryTest {
+
+   static private final String DRIVER = "org.hsqldb.jdbcDriver";
+   static private final String URL = "jdbc:hsqldb:mem:JdbcRareWordDictionaryTest";
+   static private final String USER = "sa";
+   static private final String PASS = "";
+
+   static private Connection _sharedConnection;
+
+   @BeforeClass
+   static public void createTable() throws SQLException {
+      _sharedConnection = JdbcConnectionFactory.getInstance().getConnection( DRIVER, URL, USER, PASS );
+      try ( Statement statement = _sharedConnection.createStatement() ) {
+         statement.execute( "CREATE TABLE RAREWORDS ( CUI BIGINT, RINDEX INTEGER, TCOUNT INTEGER,"
+                            + " TEXT VARCHAR(100), RWORD VARCHAR(50) )" );
+         statement.execute( "INSERT INTO RAREWORDS VALUES ( 123, 1, 2, 'little lamb', 'lamb' )" );
+         statement.execute( "INSERT INTO RAREWORDS VALUES ( 124, 0, 1, 'lamb', 'lamb' )" );
+      }
+   }
+
+   static private int getSessionCount() throws SQLException {
+      try ( Statement statement = _sharedConnection.createStatement();
+            ResultSet resultSet = statement.executeQuery(
+                  "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SYSTEM_SESSIONS" ) ) {
+         resultSet.next();
+         return resultSet.getInt( 1 );
+      }
+   }
+
+   @Test
+   public void testCloseReleasesConnections() throws SQLException {
+      final int sessionCount = getSessionCount();
+      final JdbcRareWordDictionary dictionary
+            = new JdbcRareWordDictionary( "Test", DRIVER, URL, USER, PASS, "RAREWORDS", 3, 10, 4 );
+      assertEquals( "Pool did not open its own connections", sessionCount + 2, getSessionCount() );
+      final Collection<RareWordTerm> terms = dictionary.getRareWordHits( "lamb" );
+      assertEquals( "Wrong hits for lamb", 2, terms.size() );
+      dictionary.close();
+      assertEquals( "Pool connections were not closed", sessionCount, getSessionCount() );
+      assertTrue( "Shared connection was closed", !_sharedConnection.isClosed() );
+      assertTrue( "Closed dictionary found terms", dictionary.getRareWordHits( "fox" ).isEmpty() );
+   }
+
+   @Test
+   public void testFailedConstructionReleasesConnections() {
+      FailingDriver.reset();
+      try {
+         // the calls for the third connection cannot be prepared
+         new JdbcRareWordDictionary( "Test", FailingDriver.class.getName(), FailingDriver.URL, USER, PASS,
+               "RAREWORDS", 4, 10, 4 );
+         fail( "Dictionary created without all of its sql calls" );
+      } catch ( SQLException sqlE ) {
+         // expected
+      }
+      assertEquals( "Wrong number of connections made", 3, FailingDriver.CONNECTIONS.size() );
+      assertTrue( "Shared connection was closed", !isClosed( FailingDriver.CONNECTIONS.get( 0 ) ) );
+      for ( int i = 1; i < FailingDriver.CONNECTIONS.size(); i++ ) {
+         assertTrue( "Pool connection leaked", isClosed( FailingDriver.CONNECTIONS.get( i ) ) );
+      }
+      assertEquals( "Sql calls leaked", 0, FailingDriver.OPEN_STATEMENTS.get() );
+   }
+
+   static private boolean isClosed( final Connection connection ) {
+      try {
+         return connection.isClosed();
+      } catch ( SQLException sqlE ) {
+         return false;
+      }
+   }
+
+   /**
+    * Jdbc driver with connections whose calls can be prepared, apart from the third connection
+    */
+   static public final class FailingDriver implements Driver {
+      static private final String URL = "jdbc:failing:JdbcRareWordDictionaryTest";
+      static private final List<Connection> CONNECTIONS = new ArrayList<>();
+      static private final AtomicInteger OPEN_STATEMENTS = new AtomicInteger();
+
+      static private void reset() {
+         CONNECTIONS.clear();
+         OPEN_STATEMENTS.set( 0 );
+      }
+
+      @Override
+      public Connection connect( final String url, final Properties info ) throws SQLException {
+         if ( !acceptsURL( url ) ) {
+            return null;
+         }
+         final boolean failing = CONNECTIONS.size() == 2;
+         final AtomicBoolean closed = new AtomicBoolean();
+         final Connection connection = (Connection)Proxy.newProxyInstance( Connection.class.getClassLoader(),
+               new Class<?>[] { Connection.class }, ( proxy, method, args ) -> {
+                  switch ( method.getName() ) {
+                     case "prepareStatement":
+                        if ( failing ) {
+                           throw new SQLException( "No calls for this connection" );
+                        }
+                        return createStatement();
+                     case "close":
+                        closed.set( true );
+                        return null;
+                     case "isClosed":
+                        return closed.get();
+                     case "hashCode":
+                        return System.identityHashCode( proxy );
+                     case "equals":
+                        return proxy == args[ 0 ];
+                  }
+                  return null;
+               } );
+         CONNECTIONS.add( connection );
+         return connection;
+      }
+
+      static private PreparedStatement createStatement() {
+         OPEN_STATEMENTS.incrementAndGet();
+         final AtomicBoolean closed = new AtomicBoolean();
+         return (PreparedStatement)Proxy.newProxyInstance( PreparedStatement.class.getClassLoader(),
+               new Class<?>[] { PreparedStatement.class }, ( proxy, method, args ) -> {
+                  if ( method.getName().equals( "close" ) && !closed.getAndSet( true ) ) {
+                     OPEN_STATEMENTS.decrementAndGet();
+                  }
+                  return null;
+               } );
+      }
+
+      @Override
+      public boolean acceptsURL( final String url ) {
+         return url.equals( URL );
+      }
+
+      @Override
+      public DriverPropertyInfo[] getPropertyInfo( final String url, final Properties info ) {
+         return new DriverPropertyInfo[ 0 ];
+      }
+
+      @Override
+      public int getMajorVersion() {
+         return 1;
+      }
+
+      @Override
+      public int getMinorVersion() {
+         return 0;
+      }
+
+      @Override
+      public boolean jdbcCompliant() {
+         return false;
+      }
+
+      @Override
+      public Logger getParentLogger() {
+         return Logger.getGlobal();
+      }
+   }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.dictionary.lookup2.dictionary;
+
+import org.apache.ctakes.dictionary.lookup2.term.RareWordTerm;
+import org.apache.ctakes.dictionary.lookup2.util.CuiCodeUtil;
+import org.apache.ctakes.dictionary.lookup2.util.collection.ArrayListMap;
+import org.apache.ctakes.dictionary.lookup2.util.collection.CollectionMap;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+final public class MappedRareWordDictionaryTest {
+
+   static private RareWordDictionary createDictionary( final CollectionMap<String, RareWordTerm, List<RareWordTerm>> map )
+         throws IOException {
+      final File indexFile = File.createTempFile( "RareWordIndex", ".rwi" );
+      indexFile.deleteOnExit();
+      RareWordIndexCompiler.writeIndex( map, indexFile );
+      return new MappedRareWordDictionary( "Test", indexFile );
+   }
+
+   @Test
+   public void testRareWordHits() throws IOException {
+      final CollectionMap<String, RareWordTerm, List<RareWordTerm>> map = new ArrayListMap<>();
+      map.placeValue( "lamb", new RareWordTerm( "little lamb", 123l, "lamb", 1, 2 ) );
+      map.placeValue( "lamb", new RareWordTerm( "lamb", 124l, "lamb", 0, 1 ) );
+      map.placeValue( "fox", new RareWordTerm( "quick red fox", 125l, "fox", 2, 3 ) );
+      map.placeValue( "\u00f1and\u00fa", new RareWordTerm( "\u00f1and\u00fa", 126l, "\u00f1and\u00fa", 0, 1 ) );
+      final RareWordDictionary dictionary = createDictionary( map );
+      for ( String rareWord : map.keySet() ) {
+         final Collection<RareWordTerm> expected = map.getCollection( rareWord );
+         final List<RareWordTerm> actual = new ArrayList<>( dictionary.getRareWordHits( rareWord ) );
+         assertEquals( "Wrong hits for " + rareWord, expected, actual );
+         for ( int i = 0; i < actual.size(); i++ ) {
+            final RareWordTerm expectedTerm = ((List<RareWordTerm>)expected).get( i );
+            assertEquals( "Wrong rare word index", expectedTerm.getRareWordIndex(), actual.get( i ).getRareWordIndex() );
+            assertEquals( "Wrong token count", expectedTerm.getTokenCount(), actual.get( i ).getTokenCount() );
+         }
+      }
+      assertTrue( "Unexpected hits for absent word", dictionary.getRareWordHits( "lambs" ).isEmpty() );
+      assertTrue( "Unexpected hits for absent word", dictionary.getRareWordHits( "a" ).isEmpty() );
+   }
+
+   @Test
+   public void testCustomPrefix() throws IOException {
+      final long custom = CuiCodeUtil.getInstance().getCuiCode( "MAPPED0000123" );
+      final CollectionMap<String, RareWordTerm, List<RareWordTerm>> map = new ArrayListMap<>();
+      map.placeValue( "lamb", new RareWordTerm( "lamb", custom, "lamb", 0, 1 ) );
+      final RareWordDictionary dictionary = createDictionary( map );
+      final RareWordTerm term = dictionary.getRareWordHits( "lamb" ).iterator().next();
+      assertEquals( "Custom prefix not preserved", "MAPPED0000123", CuiCodeUtil.getInstance().getAsCui( term.getCuiCode() ) );
+   }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.dictionary.lookup2.util.collection;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class LongSetTest {
+
+   @Test
+   public void testAddContains() {
+      final LongSet longSet = new LongSet();
+      assertTrue( longSet.isEmpty() );
+      assertTrue( longSet.add( 5 ) );
+      assertFalse( longSet.add( 5 ) );
+      assertTrue( longSet.add( Long.MIN_VALUE ) );
+      assertFalse( longSet.add( Long.MIN_VALUE ) );
+      assertTrue( longSet.add( 0 ) );
+      assertEquals( 3, longSet.size() );
+      assertTrue( longSet.contains( 5 ) );
+      assertTrue( longSet.contains( Long.MIN_VALUE ) );
+      assertTrue( longSet.contains( 0 ) );
+      assertFalse( longSet.contains( 6 ) );
+      longSet.clear();
+      assertTrue( longSet.isEmpty() );
+      assertFalse( longSet.contains( Long.MIN_VALUE ) );
+   }
+
+   @Test
+   public void testMatchesHashSet() {
+      final Random random = new Random( 7 );
+      final LongSet longSet = new LongSet();
+      final Set<Long> hashSet = new HashSet<>();
+      for ( int i = 0; i < 10000; i++ ) {
+         final long value = random.nextInt( 5000 ) * 100000000L + random.nextInt( 100 );
+         assertEquals( hashSet.add( value ), longSet.add( value ) );
+      }
+      assertEquals( hashSet.size(), longSet.size() );
+      assertEquals( hashSet.hashCode(), longSet.hashCode() );
+      int count = 0;
+      final PrimitiveIterator.OfLong iterator = longSet.iterator();
+      while ( iterator.hasNext() ) {
+         assertTrue( hashSet.contains( iterator.nextLong() ) );
+         count++;
+      }
+      assertEquals( hashSet.size(), count );
+      assertEquals( hashSet.size(), longSet.toArray().length );
+   }
+
+   @Test
+   public void testHashSetOrder() {
+      final Random random = new Random( 11 );
+      for ( int round = 0; round < 200; round++ ) {
+         final LongSet longSet = new LongSet();
+         final Set<Long> hashSet = new HashSet<>();
+         final int count = random.nextInt( 60 );
+         for ( int i = 0; i < count; i++ ) {
+            // cui codes, with some values forced into the same bucket
+            final long value = random.nextBoolean() ? random.nextInt( 10000000 ) : (random.nextInt( 8 ) << 20);
+            longSet.add( value );
+            hashSet.add( value );
+         }
+         assertArrayEquals( toArray( hashSet ), longSet.toArray() );
+         final LongSet copySet = new LongSet();
+         copySet.add( 42 );
+         copySet.addAll( longSet );
+         final Set<Long> copyHashSet = new HashSet<>();
+         copyHashSet.add( 42L );
+         copyHashSet.addAll( hashSet );
+         assertArrayEquals( toArray( copyHashSet ), copySet.toArray() );
+         final LongSet sizedSet = new LongSet( count );
+         sizedSet.addAll( longSet );
+         final Set<Long> sizedHashSet = new HashSet<>( count );
+         sizedHashSet.addAll( hashSet );
+         assertArrayEquals( toArray( sizedHashSet ), sizedSet.toArray() );
+         longSet.clear();
+         hashSet.clear();
+         longSet.add( 3 );
+         hashSet.add( 3L );
+         assertArrayEquals( toArray( hashSet ), longSet.toArray() );
+      }
+   }
+
+   @Test
+   public void testCollidingBucketOrder() {
+      final LongSet longSet = new LongSet();
+      final Set<Long> hashSet = new HashSet<>();
+      // same bucket in a table smaller than 64, which makes a HashSet grow instead of building a tree
+      for ( long i = 9; i >= 0; i-- ) {
+         longSet.add( i << 20 );
+         hashSet.add( i << 20 );
+      }
+      assertArrayEquals( toArray( hashSet ), longSet.toArray() );
+   }
+
+   @Test
+   public void testLongKeyMap() {
+      final Random random = new Random( 13 );
+      final LongKeyMap<String> longKeyMap = new LongKeyMap<>();
+      final Map<Long, String> hashMap = new HashMap<>();
+      for ( int i = 0; i < 5000; i++ ) {
+         final long key = random.nextInt( 2000 ) - 1000;
+         final String value = "V" + i;
+         assertEquals( hashMap.put( key, value ), longKeyMap.put( key, value ) );
+      }
+      assertEquals( hashMap.size(), longKeyMap.size() );
+      for ( long key = -1100; key < 1100; key++ ) {
+         assertEquals( hashMap.get( key ), longKeyMap.get( key ) );
+         assertEquals( hashMap.containsKey( key ), longKeyMap.containsKey( key ) );
+      }
+      assertEquals( hashMap.size(), longKeyMap.keys().length );
+      assertEquals( new HashSet<>( hashMap.values() ), new HashSet<>( longKeyMap.values() ) );
+      longKeyMap.clear();
+      assertTrue( longKeyMap.isEmpty() );
+      assertNull( longKeyMap.get( 0 ) );
+   }
+
+   @Test( expected = NullPointerException.class )
+   public void breakLongKeyMap() {
+      new LongKeyMap<String>().put( 1, null );
+   }
+
+   @Test
+   public void testLongSetMap() {
+      final LongSetMap<String> longSetMap = new LongSetMap<>();
+      assertTrue( longSetMap.getCollection( "a" ).isEmpty() );
+      assertTrue( longSetMap.placeValue( "a", 1 ) );
+      assertFalse( longSetMap.placeValue( "a", 1 ) );
+      longSetMap.placeValue( "a", 2 );
+      longSetMap.placeValue( "b", 2 );
+      longSetMap.placeValue( "b", 3 );
+      assertEquals( 2, longSetMap.size() );
+      assertTrue( longSetMap.containsValue( "b", 3 ) );
+      assertFalse( longSetMap.containsValue( "a", 3 ) );
+      assertEquals( 3, longSetMap.getAllValues().size() );
+   }
+
+   @Test( expected = UnsupportedOperationException.class )
+   public void breakEmptySet() {
+      LongSet.emptySet().add( 1 );
+   }
+
+   static private long[] toArray( final Set<Long> set ) {
+      final long[] array = new long[ set.size() ];
+      int index = 0;
+      for ( Long value : set ) {
+         array[ index ] = value;
+         index++;
+      }
+      return array;
+   }
+
+}
@@ -19,8 +19,12 @@
 package org.apache.ctakes.dictionary.lookup;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
+ * Lookups may be made from several threads at once, for instance by the ThreadedDictionaryLookupAnnotator,
+ * so implementations must be thread-safe.
  *
  * @author Mayo Clinic
  */
@@ -48,4 +52,21 @@ public interface Dictionary
      * @throws DictionaryException
      */
     public Collection<MetaDataHit> getEntries(String text) throws DictionaryException;
+
+    /**
+     * Gets the meta data entries associated with each of several input texts.
+     * Implementations may look up all of the texts together.
+     * @param texts The input texts.
+     * @return Map of each input text to its Collection of MetaDataHit objects.
+     * @throws DictionaryException
+     */
+    default Map<String, Collection<MetaDataHit>> getEntries(Collection<String> texts) throws DictionaryException
+    {
+        final Map<String, Collection<MetaDataHit>> entries = new HashMap<>(texts.size());
+        for (String text : texts)
+        {
+            entries.put(text, getEntries(text));
+        }
+        return entries;
+    }
 }
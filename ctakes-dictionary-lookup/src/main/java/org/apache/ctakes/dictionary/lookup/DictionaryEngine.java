@@ -18,12 +18,14 @@
  */
 package org.apache.ctakes.dictionary.lookup;
 
+import org.apache.ctakes.core.util.collection.BoundedCache;
 import org.apache.ctakes.dictionary.lookup.filter.CollectionFilter;
 import org.apache.ctakes.dictionary.lookup.filter.FilterException;
 import org.apache.ctakes.dictionary.lookup.filter.PostLookupFilter;
 import org.apache.ctakes.dictionary.lookup.filter.PreLookupFilter;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The engine adds additional functionality to executing a dictionary.
@@ -33,11 +35,16 @@ import java.util.*;
  * metadata.</li>
  * <li>Collection filtering. Filters the collection of dictionary hits based on
  * metadata and/or collection information.</li>
- * <li>Caching. Caches dictionary hits.</li>
+ * <li>Caching. Caches dictionary hits and misses in least recently used {@link BoundedCache}s.</li>
  * <li>Case Sensitivity. Keeps case or makes case irrelevant to lookup.</li>
  * </ol>
  */
 public class DictionaryEngine {
+   /**
+    * Cache size for dictionaries in a lookup descriptor that do not specify a cacheSize
+    */
+   static public final int DEFAULT_CACHE_SIZE = 10000;
+
    final private Dictionary _dictionary;
    final private boolean _keepCase;
 
@@ -46,11 +53,14 @@ public class DictionaryEngine {
    private List<PostLookupFilter> _postLookupFilterList = new ArrayList<>();
    private List<CollectionFilter> _collectionFilterList = new ArrayList<>();
 
-   // cache objs
+   // cache objs for entries added with addCacheEntry, these do not expire
    // key = String text, value = Boolean
-   private Map<String, Boolean> _binaryLookupCacheMap = new HashMap<>();
+   final private Map<String, Boolean> _binaryLookupCacheMap = new ConcurrentHashMap<>();
    // key = String text, value = Collection of MetaDataHits
-   private Map<String, Collection<MetaDataHit>> _metaLookupCacheMap = new HashMap<>();
+   final private Map<String, Collection<MetaDataHit>> _metaLookupCacheMap = new ConcurrentHashMap<>();
+   // size-bounded caches of lookups performed, including lookups that found nothing
+   final private BoundedCache<String, Boolean> _binaryLookupCache;
+   final private BoundedCache<String, Collection<MetaDataHit>> _metaLookupCache;
 
 
    /**
@@ -60,8 +70,22 @@ public class DictionaryEngine {
     *                   all lookups.
     */
    public DictionaryEngine( final Dictionary dictionary, final boolean keepCase ) {
+      this( dictionary, keepCase, 0 );
+   }
+
+   /**
+    * @param dictionary Dictionary to use for lookup operations.
+    * @param keepCase   Determines whether to keep character Upper or Lower casing.
+    *                   False indicates that casing will be ignored by lower casing
+    *                   all lookups.
+    * @param cacheSize  maximum number of lookups to cache for each of metaLookup and binaryLookup.
+    *                   0 disables the caching of lookups as they are performed.
+    */
+   public DictionaryEngine( final Dictionary dictionary, final boolean keepCase, final int cacheSize ) {
       _dictionary = dictionary;
       _keepCase = keepCase;
+      _binaryLookupCache = new BoundedCache<>( cacheSize );
+      _metaLookupCache = new BoundedCache<>( cacheSize );
    }
 
    /**
@@ -125,17 +149,107 @@ public class DictionaryEngine {
       if ( !_keepCase ) {
          text = text.toLowerCase();
       }
+      final Collection<MetaDataHit> metaDataHitCol = getCachedMetaDataHits( text );
+      if ( metaDataHitCol != null ) {
+         return metaDataHitCol;
+      }
+      // not part of cache, go ahead and do lookup
+      return cacheMetaDataHits( text, filterMetaDataHits( _dictionary.getEntries( text ) ) );
+   }
+
+   /**
+    * Gets the MetaDataHits of several input texts, the same as calling {@link #metaLookup(String)} for each text.
+    * Texts that are not filtered or cached are looked up in the Dictionary together,
+    * see {@link Dictionary#getEntries(Collection)}.
+    *
+    * @param texts input texts
+    * @return map of each input text to its Collection of MetaDataHit objects
+    * @throws DictionaryException
+    * @throws FilterException
+    */
+   public Map<String, Collection<MetaDataHit>> metaLookup( final Collection<String> texts )
+         throws DictionaryException, FilterException {
+      final Map<String, Collection<MetaDataHit>> metaDataHitMap = new HashMap<>( texts.size() );
+      // key = lookup text, value = input texts with that lookup text
+      final Map<String, List<String>> uncachedTextMap = new HashMap<>();
+      for ( String text : texts ) {
+         if ( metaDataHitMap.containsKey( text ) ) {
+            continue;
+         }
+         final String lookupText = _keepCase ? text : text.toLowerCase();
+         final Collection<MetaDataHit> metaDataHitCol = getCachedMetaDataHits( lookupText );
+         if ( metaDataHitCol != null ) {
+            metaDataHitMap.put( text, metaDataHitCol );
+            continue;
+         }
+         List<String> uncachedTexts = uncachedTextMap.get( lookupText );
+         if ( uncachedTexts == null ) {
+            uncachedTexts = new ArrayList<>( 1 );
+            uncachedTextMap.put( lookupText, uncachedTexts );
+         }
+         uncachedTexts.add( text );
+      }
+      if ( uncachedTextMap.isEmpty() ) {
+         return metaDataHitMap;
+      }
+      final Map<String, Collection<MetaDataHit>> dictionaryHitMap = _dictionary.getEntries( uncachedTextMap.keySet() );
+      for ( Map.Entry<String, List<String>> uncachedTexts : uncachedTextMap.entrySet() ) {
+         Collection<MetaDataHit> metaDataHitCol = dictionaryHitMap.get( uncachedTexts.getKey() );
+         if ( metaDataHitCol == null ) {
+            metaDataHitCol = new HashSet<>();
+         }
+         metaDataHitCol = cacheMetaDataHits( uncachedTexts.getKey(), filterMetaDataHits( metaDataHitCol ) );
+         for ( String text : uncachedTexts.getValue() ) {
+            metaDataHitMap.put( text, metaDataHitCol );
+         }
+      }
+      return metaDataHitMap;
+   }
+
+   /**
+    * @param text lookup text, lower case unless case is kept
+    * @return an empty Collection if the text is filtered by Pre-lookup filtering,
+    * the cached MetaDataHits of the text, or null if the text has not been cached
+    */
+   private Collection<MetaDataHit> getCachedMetaDataHits( final String text ) throws FilterException {
       // apply pre-filtering
       if ( isFilteredByPreLookup( text ) ) {
          // return empty Collection
          return Collections.emptySet();
       }
       // not part of filter
-      Collection<MetaDataHit> metaDataHitCol = _metaLookupCacheMap.get( text );
-      if ( metaDataHitCol == null ) {
-         // not part of cache, go ahead and do lookup
-         metaDataHitCol = _dictionary.getEntries( text );
+      final Collection<MetaDataHit> metaDataHitCol = _metaLookupCacheMap.get( text );
+      if ( metaDataHitCol != null ) {
+         return metaDataHitCol;
+      }
+      return _metaLookupCache.get( text );
+   }
+
+   /**
+    * @param text           lookup text, lower case unless case is kept
+    * @param metaDataHitCol filtered hits from the dictionary
+    * @return the hits, unmodifiable if they have been cached
+    */
+   private Collection<MetaDataHit> cacheMetaDataHits( final String text, Collection<MetaDataHit> metaDataHitCol ) {
+      if ( _metaLookupCache.getMaxSize() > 0 ) {
+         // cached hits are shared by threads, so they can't be modified
+         metaDataHitCol = metaDataHitCol.isEmpty()
+                          ? Collections.<MetaDataHit>emptySet()
+                          : Collections.unmodifiableCollection( metaDataHitCol );
+         _metaLookupCache.put( text, metaDataHitCol );
       }
+      return metaDataHitCol;
+   }
+
+   /**
+    * Applies Post-lookup filtering and Collection filtering to the hits of a dictionary lookup.
+    *
+    * @param metaDataHitCol hits from the dictionary, may be modified
+    * @return the filtered hits
+    * @throws FilterException
+    */
+   private Collection<MetaDataHit> filterMetaDataHits( Collection<MetaDataHit> metaDataHitCol )
+         throws FilterException {
       // apply post-filtering
       if ( !_postLookupFilterList.isEmpty() ) {
          final Set<MetaDataHit> mdhRemovalSet = new HashSet<>();
@@ -182,8 +296,37 @@ public class DictionaryEngine {
       if ( isHit != null ) {
          return isHit;
       }
+      final Boolean isCachedHit = _binaryLookupCache.get( text );
+      if ( isCachedHit != null ) {
+         return isCachedHit;
+      }
       // not part of cache, go ahead and do lookup
-      return _dictionary.contains( text );
+      final boolean isDictionaryHit = _dictionary.contains( text );
+      _binaryLookupCache.put( text, isDictionaryHit );
+      return isDictionaryHit;
+   }
+
+   /**
+    * @return the cache of metaLookup results
+    */
+   public BoundedCache<String, Collection<MetaDataHit>> getMetaLookupCache() {
+      return _metaLookupCache;
+   }
+
+   /**
+    * @return the cache of binaryLookup results
+    */
+   public BoundedCache<String, Boolean> getBinaryLookupCache() {
+      return _binaryLookupCache;
+   }
+
+   /**
+    * @return description of the dictionary and the hits and misses of its lookup caches
+    */
+   public String getCacheStatistics() {
+      return _dictionary.getClass().getSimpleName()
+             + " metaLookup cache: " + _metaLookupCache
+             + " ; binaryLookup cache: " + _binaryLookupCache;
    }
 
    /**
@@ -24,12 +24,14 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.ctakes.core.resource.FileResource;
+import org.apache.ctakes.dictionary.lookup.DictionaryEngine;
 import org.apache.ctakes.dictionary.lookup.MetaDataHit;
 import org.apache.ctakes.dictionary.lookup.algorithms.LookupAlgorithm;
 import org.apache.ctakes.dictionary.lookup.vo.LookupAnnotation;
@@ -75,6 +77,24 @@ public class DictionaryLookupAnnotator extends JCasAnnotator_ImplBase
 
 	}
 
+	/**
+	 * Logs lookup cache statistics.
+	 */
+	@Override
+	public void collectionProcessComplete() throws AnalysisEngineProcessException
+	{
+		// several specs can share a dictionary engine
+		Set<DictionaryEngine> dictEngines = Collections.newSetFromMap(new IdentityHashMap<DictionaryEngine, Boolean>());
+		for (LookupSpec ls : iv_lookupSpecSet)
+		{
+			if (ls.getDictionaryEngine() != null && dictEngines.add(ls.getDictionaryEngine()))
+			{
+				iv_logger.info(ls.getDictionaryEngine().getCacheStatistics());
+			}
+		}
+		super.collectionProcessComplete();
+	}
+
 	/**
 	 * Reads configuration parameters.
 	 */
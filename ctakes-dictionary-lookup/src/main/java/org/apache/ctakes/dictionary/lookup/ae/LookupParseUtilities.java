@@ -27,6 +27,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -130,7 +131,8 @@ public class LookupParseUtilities
 			IndexReader indexReader = ((LuceneIndexReaderResource) extResrc).getIndexReader();
 			IndexSearcher indexSearcher = new IndexSearcher(indexReader);
 			// Added 'MaxListSize' ohnlp-Bugs-3296301
-			dict = new LuceneDictionaryImpl(indexSearcher, lookupFieldName, maxSizeList);
+			boolean fastLookup = Boolean.parseBoolean(implEl.getAttributeValue("fastLookup"));
+			dict = new LuceneDictionaryImpl(indexSearcher, lookupFieldName, maxSizeList, fastLookup);
 		}
 		else if (implType.equals("jdbcImpl"))
 		{
@@ -186,7 +188,9 @@ public class LookupParseUtilities
 			dict.retainMetaData(metaFieldName);
 		}
 
-		DictionaryEngine dictEngine = new DictionaryEngine(dict, keepCase.booleanValue()); 
+		String cacheSize = rootDictEl.getAttributeValue("cacheSize");
+		DictionaryEngine dictEngine = new DictionaryEngine(dict, keepCase.booleanValue(),
+				cacheSize != null ? Integer.parseInt(cacheSize.trim()) : DictionaryEngine.DEFAULT_CACHE_SIZE);
 
 	    Element excludeList = rootDictEl.getChild("excludeList");
 	    
@@ -221,7 +225,7 @@ public class LookupParseUtilities
 	private static Set<LookupSpec> parseLookupBindingXml(UimaContext annotCtx,
 			Map<String, DictionaryEngine> dictMap, Element lookupBindingsEl) throws Exception {
 
-		Set<LookupSpec> lsSet = new HashSet<>();
+		Set<LookupSpec> lsSet = new LinkedHashSet<>();
 		Iterator<?> itr = lookupBindingsEl.getChildren().iterator();
 		while (itr.hasNext())
 		{
@@ -274,7 +278,7 @@ public class LookupParseUtilities
 			LookupConsumer lc = (LookupConsumer) lcConstr.newInstance(lcArgs);
 			LookupAlgorithm la = li.getLookupAlgorithm(dictEngine);
 
-			LookupSpec ls = new LookupSpec(la, li, lc);
+			LookupSpec ls = new LookupSpec(la, li, lc, dictEngine);
 
 			lsSet.add(ls);
 		}
@@ -120,7 +120,8 @@ final public class LookupParseUtilitiesRefactor {
             final IndexReader indexReader = ((LuceneIndexReaderResource) extResrc).getIndexReader();
             final IndexSearcher indexSearcher = new IndexSearcher( indexReader );
             // Added 'MaxListSize' ohnlp-Bugs-3296301
-            dict = new LuceneDictionaryImpl( indexSearcher, lookupFieldName, MAX_LIST_SIZE );
+            final boolean fastLookup = Boolean.parseBoolean( implEl.getAttributeValue( "fastLookup" ) );
+            dict = new LuceneDictionaryImpl( indexSearcher, lookupFieldName, MAX_LIST_SIZE, fastLookup );
          } else if ( implType.equals( "jdbcImpl" ) ) {
             final String tableName = implEl.getAttributeValue( "tableName" );
             if ( !(extResrc instanceof JdbcConnectionResource) ) {
@@ -168,7 +169,9 @@ final public class LookupParseUtilitiesRefactor {
          throw new ResourceAccessException( npE );
       }
       final boolean keepCase = Boolean.parseBoolean( rootDictEl.getAttributeValue( "caseSensitive" ) );
-      final DictionaryEngine dictEngine = new DictionaryEngine( dict, keepCase );
+      final String cacheSize = rootDictEl.getAttributeValue( "cacheSize" );
+      final DictionaryEngine dictEngine = new DictionaryEngine( dict, keepCase,
+            cacheSize != null ? Integer.parseInt( cacheSize.trim() ) : DictionaryEngine.DEFAULT_CACHE_SIZE );
       final Element excludeList = rootDictEl.getChild( "excludeList" );
       if ( excludeList != null && excludeList.getChildren() != null && !excludeList.getChildren().isEmpty() ) {
          addExcludeList( dictEngine, excludeList.getChildren() );
@@ -201,7 +204,7 @@ final public class LookupParseUtilitiesRefactor {
       final Class<?>[] constrArgsConsum = {UimaContext.class, Properties.class, int.class};//ohnlp-Bugs-3296301
       final Class<?>[] constrArgsConsumB = {UimaContext.class, Properties.class};
 
-      final Set<LookupSpec> lsSet = new HashSet<>();
+      final Set<LookupSpec> lsSet = new LinkedHashSet<>();
       final List<Element> bindingChildren = lookupBindingsEl.getChildren();
       try {
          for ( Element bindingEl : bindingChildren ) {
@@ -243,7 +246,7 @@ final public class LookupParseUtilitiesRefactor {
             final LookupConsumer lc = (LookupConsumer) lcConstr.newInstance( lcArgs );
             final LookupAlgorithm la = li.getLookupAlgorithm( dictEngine );
 
-            final LookupSpec ls = new LookupSpec( la, li, lc );
+            final LookupSpec ls = new LookupSpec( la, li, lc, dictEngine );
 
             lsSet.add( ls );
          }
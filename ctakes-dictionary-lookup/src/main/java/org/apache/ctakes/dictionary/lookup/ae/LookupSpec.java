@@ -18,6 +18,7 @@
  */
 package org.apache.ctakes.dictionary.lookup.ae;
 
+import org.apache.ctakes.dictionary.lookup.DictionaryEngine;
 import org.apache.ctakes.dictionary.lookup.algorithms.LookupAlgorithm;
 
 import javax.annotation.concurrent.Immutable;
@@ -36,13 +37,25 @@ final public class LookupSpec {
    final private LookupAlgorithm _lookupAlgorithm;
    final private LookupInitializer _lookupInitializer;
    final private LookupConsumer _lookupConsumer;
+   final private DictionaryEngine _dictionaryEngine;
 
    public LookupSpec( final LookupAlgorithm lookupAlgorithm,
                       final LookupInitializer lookupInitializer,
                       final LookupConsumer lookupConsumer ) {
+      this( lookupAlgorithm, lookupInitializer, lookupConsumer, null );
+   }
+
+   /**
+    * @param dictionaryEngine the engine used by the lookup algorithm, for reporting
+    */
+   public LookupSpec( final LookupAlgorithm lookupAlgorithm,
+                      final LookupInitializer lookupInitializer,
+                      final LookupConsumer lookupConsumer,
+                      final DictionaryEngine dictionaryEngine ) {
       _lookupAlgorithm = lookupAlgorithm;
       _lookupInitializer = lookupInitializer;
       _lookupConsumer = lookupConsumer;
+      _dictionaryEngine = dictionaryEngine;
    }
 
    public LookupAlgorithm getLookupAlgorithm() {
@@ -57,4 +70,11 @@ final public class LookupSpec {
       return _lookupConsumer;
    }
 
+   /**
+    * @return the engine used by the lookup algorithm, or null if it is unknown
+    */
+   public DictionaryEngine getDictionaryEngine() {
+      return _dictionaryEngine;
+   }
+
 }
@@ -19,6 +19,7 @@
 package org.apache.ctakes.dictionary.lookup.ae;
 
 import org.apache.ctakes.core.resource.FileResource;
+import org.apache.ctakes.dictionary.lookup.DictionaryEngine;
 import org.apache.ctakes.dictionary.lookup.MetaDataHit;
 import org.apache.ctakes.dictionary.lookup.algorithms.LookupAlgorithm;
 import org.apache.ctakes.dictionary.lookup.vo.LookupAnnotation;
@@ -42,33 +43,115 @@ import java.util.*;
 import java.util.concurrent.*;
 
 /**
+ * Dictionary lookup that looks up the windows of all lookup specs in parallel.
+ * Lookups run on a worker pool that lives as long as the annotator.
+ * By default every instance of the annotator shares one pool with a thread per processor.
+ * The shared pool is shut down when the last instance using it is destroyed.
+ * The optional configuration parameter {@value #PARAM_THREAD_COUNT} gives an instance its own pool.
+ * Windows of one spec are looked up at the same time, so the dictionary of each spec is used by several threads.
  * Date: 12/18/12
  */
 public class ThreadedDictionaryLookupAnnotator extends JCasAnnotator_ImplBase {
 
+   /**
+    * Optional configuration parameter for the number of lookup threads in a pool owned by the annotator
+    */
+   static public final String PARAM_THREAD_COUNT = "ThreadCount";
+
+   // pool shared by annotators that do not have their own, created when first needed
+   static private ExecutorService _sharedExecutor;
+   // number of initialized annotators using the shared pool
+   static private int _sharedExecutorUsers;
+
    // LOG4J logger based on class name
    final private Logger _logger = Logger.getLogger(getClass().getName());
 
+   private ExecutorService _executor;
+   private boolean _ownsExecutor;
+
    // We need to start using types wrt generics
    private Set<LookupSpec> _lookupSpecSet = new HashSet<>();
 
    // used to prevent duplicate hits
    // key = hit begin,end key (java.lang.String)
    // val = Set of MetaDataHit objects
-   private Map<LookupHitKey,Set<MetaDataHit>> _duplicateDataMap = new ConcurrentHashMap<>();
+   private Map<LookupHitKey,Set<MetaDataHit>> _duplicateDataMap = new HashMap<>();
 
    @Override
   public void initialize( final UimaContext uimaContext ) throws ResourceInitializationException {
       super.initialize( uimaContext );
       configInit( uimaContext );
+      final Object threadCount = uimaContext.getConfigParameterValue( PARAM_THREAD_COUNT );
+      if ( threadCount instanceof Integer && (Integer)threadCount > 0 ) {
+         _logger.info( "Using " + threadCount + " lookup threads" );
+         _executor = Executors.newFixedThreadPool( (Integer)threadCount, new LookupThreadFactory() );
+         _ownsExecutor = true;
+      } else {
+         _executor = acquireSharedExecutor();
+      }
+   }
+
+   /**
+    * Shuts down the pool if it is owned by this annotator,
+    * otherwise releases the shared pool, which is shut down if no other annotator uses it
+    */
+   @Override
+   public void destroy() {
+      if ( _executor != null ) {
+         if ( _ownsExecutor ) {
+            shutdown( _executor );
+         } else {
+            releaseSharedExecutor();
+         }
+         _executor = null;
+      }
+      super.destroy();
+   }
+
+   /**
+    * @return the shared pool, created if no other annotator uses it
+    */
+   static private synchronized ExecutorService acquireSharedExecutor() {
+      if ( _sharedExecutor == null ) {
+         _sharedExecutor = Executors.newFixedThreadPool( Runtime.getRuntime().availableProcessors(),
+               new LookupThreadFactory() );
+      }
+      _sharedExecutorUsers++;
+      return _sharedExecutor;
+   }
+
+   /**
+    * Shuts down the shared pool if it is no longer used by any annotator
+    */
+   static private synchronized void releaseSharedExecutor() {
+      _sharedExecutorUsers--;
+      if ( _sharedExecutorUsers == 0 ) {
+         shutdown( _sharedExecutor );
+         _sharedExecutor = null;
+      }
+   }
+
+   static private void shutdown( final ExecutorService executor ) {
+      try {
+         executor.shutdown();
+      } catch ( SecurityException sE ) {
+         Logger.getLogger( ThreadedDictionaryLookupAnnotator.class.getName() ).debug( "Can ignore: " + sE.getMessage() );
+      }
    }
 
    /**
-    * Close db connections in UmlsToSnomedDbConsumerImpl
+    * Close db connections in UmlsToSnomedDbConsumerImpl, log lookup cache statistics
     * @throws org.apache.uima.analysis_engine.AnalysisEngineProcessException
     */
    @Override
   public void collectionProcessComplete() throws org.apache.uima.analysis_engine.AnalysisEngineProcessException {
+      // several specs can share a dictionary engine
+      final Set<DictionaryEngine> dictEngines = Collections.newSetFromMap( new IdentityHashMap<DictionaryEngine, Boolean>() );
+      for ( LookupSpec ls : _lookupSpecSet ) {
+         if ( ls.getDictionaryEngine() != null && dictEngines.add( ls.getDictionaryEngine() ) ) {
+            _logger.info( ls.getDictionaryEngine().getCacheStatistics() );
+         }
+      }
       for ( Object value : _lookupSpecSet ) {
          if ( value instanceof LookupSpec ) {
             final LookupSpec ls = (LookupSpec)value;
@@ -107,64 +190,61 @@ public class ThreadedDictionaryLookupAnnotator extends JCasAnnotator_ImplBase {
 
    /**
     * Entry point for processing.
+    * The lookup windows of every spec are read from the cas on this thread and looked up by the worker pool.
+    * Hits are then filtered for duplicates and consumed in spec order and window order,
+    * so results do not depend upon the order in which lookups complete.
     */
    @Override
   public void process( final JCas jcas ) throws AnalysisEngineProcessException {
       _logger.info( "process(JCas)" );
       _duplicateDataMap.clear();
-      int specCount = 0;
-      for ( Object value : _lookupSpecSet ) {
-         if ( value instanceof LookupSpec ) {
-            specCount++;
-         }
+      final List<LookupDataStore> lookupDataStores = new ArrayList<>( _lookupSpecSet.size() );
+      final List<Callable<Collection<LookupHit>>> windowLookups = new ArrayList<>();
+      for ( LookupSpec ls : _lookupSpecSet ) {
+         final int firstWindow = windowLookups.size();
+         addWindowLookups( jcas, ls, windowLookups );
+         lookupDataStores.add( new LookupDataStore( ls, firstWindow, windowLookups.size() ) );
       }
-      final int procCount = Runtime.getRuntime().availableProcessors();
-      final int threadCount = Math.min( specCount, procCount );
-      final ExecutorService fixedThreadService = Executors.newFixedThreadPool( threadCount );
-      final CompletionService<LookupDataStore> completionService
-            = new ExecutorCompletionService<>( fixedThreadService );
-      for ( Object value : _lookupSpecSet ) {
-         if ( value instanceof LookupSpec ) {
-            final LookupSpec ls = (LookupSpec)value;
-            completionService.submit( new Callable<LookupDataStore>() {
-               public LookupDataStore call() {
-                  return getLookupData( jcas, ls );
-               }
-            });
-         }
+      final List<Future<Collection<LookupHit>>> windowHits;
+      try {
+         windowHits = _executor.invokeAll( windowLookups );
+      } catch ( InterruptedException intE ) {
+         // thrown by executor.invokeAll()
+         throw new AnalysisEngineProcessException( intE );
       }
       try {
-         for ( int i=0; i<specCount; i++ ) {
-            final Future<LookupDataStore> future = completionService.take();
-            final LookupDataStore lookupDataStore = future.get();
+         for ( LookupDataStore lookupDataStore : lookupDataStores ) {
+            final List<LookupHit> allHits = new ArrayList<>();
+            for ( int i = lookupDataStore.__firstWindow; i < lookupDataStore.__endWindow; i++ ) {
+               allHits.addAll( filterHitDups( windowHits.get( i ).get() ) );
+            }
             // consume hits - lookupConsumer.consumeHits may throw AnalysisEngineProcessException
             final LookupConsumer lookupConsumer = lookupDataStore.__lookupSpec.getLookupConsumer();
-            lookupConsumer.consumeHits( jcas, lookupDataStore.__allHits.iterator() );
+            lookupConsumer.consumeHits( jcas, allHits.iterator() );
          }
-      } catch (InterruptedException intE ) {
-         // thrown by completionService.take(), future.get()
+      } catch ( InterruptedException intE ) {
+         // thrown by future.get()
          throw new AnalysisEngineProcessException( intE );
       } catch ( ExecutionException exE ) {
          // thrown by future.get()
          throw new AnalysisEngineProcessException( exE );
       }
-      try {
-         fixedThreadService.shutdown();
-      } catch ( SecurityException sE ) {
-         _logger.debug( "Can ignore: " + sE.getMessage() );
-      }
    }
 
-   private LookupDataStore getLookupData( final JCas jcas, final LookupSpec lookupSpec ) {
+   /**
+    * Creates a lookup task for each window of the lookup spec.
+    * Tokens and context annotations are gathered here so that the cas is only read by the calling thread.
+    */
+   private void addWindowLookups( final JCas jcas, final LookupSpec lookupSpec,
+                                  final List<Callable<Collection<LookupHit>>> windowLookups ) {
       final LookupInitializer lookupInitializer = lookupSpec.getLookupInitializer();
       Iterator<Annotation> windowItr;
       try {
          windowItr = lookupInitializer.getLookupWindowIterator( jcas );
       } catch ( AnnotatorInitializationException aiE ) {
-         return new LookupDataStore( lookupSpec, new ArrayList<LookupHit>(0) );
+         return;
       }
       final LookupAlgorithm algorithm = lookupSpec.getLookupAlgorithm();
-      final List<LookupHit> allHits = new ArrayList<LookupHit>();
       while (windowItr.hasNext()) {
          final Annotation window = windowItr.next();
          try {
@@ -174,22 +254,22 @@ public class ThreadedDictionaryLookupAnnotator extends JCasAnnotator_ImplBase {
 //            final List<LookupToken> lookupTokensInWindow = constrainToWindow( window, tokenItr );
             final List<LookupToken> lookupTokensInWindow = lookupInitializer.getSortedLookupTokens(jcas, window);
             final Map<String,List<LookupAnnotation>> contextMap = lookupInitializer.getContextMap( jcas, window.getBegin(), window.getEnd());
-            allHits.addAll( performLookup( algorithm, lookupTokensInWindow, contextMap ) );
+            windowLookups.add( new Callable<Collection<LookupHit>>() {
+               public Collection<LookupHit> call() {
+                  return performLookup( algorithm, lookupTokensInWindow, contextMap );
+               }
+            } );
          } catch ( AnnotatorInitializationException aiE ) {
             // thrown by lookupInitializer.getLookupTokenIterator and lookupInitializer.getContextMap
             // Don't throw here, just keep going
             // throw new AnalysisEngineProcessException(e);
          }
       }
-      // TODO - last ditch memory reclamation, haven't tried yet  - spf
-//      NDC.remove();
-      return new LookupDataStore( lookupSpec, allHits );
    }
 
 
    /**
-    * Executes the lookup algorithm on the lookup tokens. Hits are stored to
-    * CAS.
+    * Executes the lookup algorithm on the lookup tokens.  Called by the worker pool.
     */
    private Collection<LookupHit> performLookup( final LookupAlgorithm algorithm,
                                                 final List<LookupToken> lookupTokenList,
@@ -197,14 +277,12 @@ public class ThreadedDictionaryLookupAnnotator extends JCasAnnotator_ImplBase {
       // sort the lookup tokens (why? - spf)
       Collections.sort( lookupTokenList, LookupTokenComparator.getInstance() );
       // perform lookup
-      Collection<LookupHit> lookupHits;
       try {
-         lookupHits = algorithm.lookup( lookupTokenList, contextMap );
+         return algorithm.lookup( lookupTokenList, contextMap );
       } catch ( Exception e ) {
          // ** Should be refactored to not throw base Exception ** //
          return Collections.emptyList();
       }
-      return filterHitDups( lookupHits );
    }
 
    /**
@@ -246,14 +324,30 @@ public class ThreadedDictionaryLookupAnnotator extends JCasAnnotator_ImplBase {
    }
 
    /**
-    * Storage for a LookupSpec and all of its unique LookupHits
+    * Storage for a LookupSpec and the range of its window lookups
     */
    static private class LookupDataStore {
       final private LookupSpec __lookupSpec;
-      final private Collection<LookupHit> __allHits;
-      private LookupDataStore( final LookupSpec lookupSpec, final Collection<LookupHit> allHits ) {
+      final private int __firstWindow;
+      final private int __endWindow;
+      private LookupDataStore( final LookupSpec lookupSpec, final int firstWindow, final int endWindow ) {
          __lookupSpec = lookupSpec;
-         __allHits = allHits;
+         __firstWindow = firstWindow;
+         __endWindow = endWindow;
+      }
+   }
+
+   /**
+    * Creates daemon threads so that a pool that is never shut down does not keep the jvm alive
+    */
+   static private class LookupThreadFactory implements ThreadFactory {
+      final private ThreadFactory __defaultFactory = Executors.defaultThreadFactory();
+      @Override
+      public Thread newThread( final Runnable runnable ) {
+         final Thread thread = __defaultFactory.newThread( runnable );
+         thread.setName( "DictionaryLookup-" + thread.getName() );
+         thread.setDaemon( true );
+         return thread;
       }
    }
 
@@ -114,16 +114,19 @@ public class FirstTokenPermutationImpl implements LookupAlgorithm {
       final Map<Integer, List<LookupToken>> ltStartOffsetMap = getMultipleStartOffsetMap( lookupTokenList );
       // map of all the token end indices as keys and the tokens with those indices as values
       final Map<Integer, List<LookupToken>> ltEndOffsetMap = getMultipleEndOffsetMap( lookupTokenList );
+      // first token phrases of all the tokens in the window are looked up together
+      final Map<LookupToken, String[]> firstTokenPhrasesMap = getFirstTokenPhrases( lookupTokenList );
+      final Map<String, Collection<MetaDataHit>> phraseMetaDataHits
+            = getPhraseMetaDataHits( firstTokenPhrasesMap.values() );
 
       final List<LookupHit> lookupHits = new ArrayList<>();
       for ( int currentIndex = 0; currentIndex < lookupTokenList.size(); currentIndex++ ) {
          final LookupToken lookupToken = lookupTokenList.get( currentIndex );
-         final String useForLookupString = lookupToken.getStringAttribute( LT_KEY_USE_FOR_LOOKUP );
-         final boolean useForLookup = Boolean.valueOf( useForLookupString );
-         if ( !useForLookup ) {
+         final String[] firstTokenPhrases = firstTokenPhrasesMap.get( lookupToken );
+         if ( firstTokenPhrases == null ) {
             continue;
          }
-         final Collection<MetaDataHit> firstTokenHits = getFirstTokenHits( lookupToken );
+         final Collection<MetaDataHit> firstTokenHits = getFirstTokenHits( firstTokenPhrases, phraseMetaDataHits );
          if ( firstTokenHits == null || firstTokenHits.isEmpty() ) {
             continue;
          }
@@ -516,20 +519,49 @@ public class FirstTokenPermutationImpl implements LookupAlgorithm {
 
 
    /**
-    * Gets the hits for the specified LookupToken. This uses the first token Dictionary.
+    * @param lookupTokenList tokens in the window
+    * @return map of tokens that are used for lookup to their phrases
+    */
+   private Map<LookupToken, String[]> getFirstTokenPhrases( final List<LookupToken> lookupTokenList ) {
+      final Map<LookupToken, String[]> firstTokenPhrasesMap = new HashMap<>( lookupTokenList.size() );
+      for ( LookupToken lookupToken : lookupTokenList ) {
+         final String useForLookupString = lookupToken.getStringAttribute( LT_KEY_USE_FOR_LOOKUP );
+         final boolean useForLookup = Boolean.valueOf( useForLookupString );
+         if ( useForLookup ) {
+            firstTokenPhrasesMap.put( lookupToken, iv_phrBuilder.getPhrases( Arrays.asList( lookupToken ) ) );
+         }
+      }
+      return firstTokenPhrasesMap;
+   }
+
+   /**
+    * @param phraseArrays phrases of the first tokens in the window
+    * @return map of each phrase to its hits in the first token dictionary
+    */
+   private Map<String, Collection<MetaDataHit>> getPhraseMetaDataHits( final Collection<String[]> phraseArrays )
+         throws Exception {
+      final Set<String> phrases = new HashSet<>();
+      for ( String[] phraseArray : phraseArrays ) {
+         phrases.addAll( Arrays.asList( phraseArray ) );
+      }
+      return iv_firstTokenDictEngine.metaLookup( phrases );
+   }
+
+   /**
+    * Gets the hits in the first token dictionary for the phrases of one first token.
+    * The phrases of all first tokens in the window have already been looked up together.
     *
-    * @param firstLookupToken -
-    * @return -
-    * @throws Exception
+    * @param phrases            phrases of the first token
+    * @param phraseMetaDataHits map of each phrase in the window to its hits, with an entry for every phrase
+    * @return hits of all of the phrases of the first token, empty if none of the phrases is in the dictionary
     */
-   private Collection<MetaDataHit> getFirstTokenHits( final LookupToken firstLookupToken ) throws Exception {
-      final List<LookupToken> singleTokenList = Arrays.asList( firstLookupToken );
-      final String[] phrases = iv_phrBuilder.getPhrases( singleTokenList );
+   private Collection<MetaDataHit> getFirstTokenHits( final String[] phrases,
+                                                     final Map<String, Collection<MetaDataHit>> phraseMetaDataHits ) {
       final List<MetaDataHit> metaDataHits = new ArrayList<>();
       for ( String phrase : phrases ) {
-         final Collection<MetaDataHit> phraseMetaDataHits = iv_firstTokenDictEngine.metaLookup( phrase );
-         if ( !phraseMetaDataHits.isEmpty() ) {
-            metaDataHits.addAll( phraseMetaDataHits );
+         final Collection<MetaDataHit> phraseMetaDataHitCol = phraseMetaDataHits.get( phrase );
+         if ( !phraseMetaDataHitCol.isEmpty() ) {
+            metaDataHits.addAll( phraseMetaDataHitCol );
          }
       }
       return metaDataHits;
@@ -36,6 +36,10 @@ import org.apache.ctakes.dictionary.lookup.MetaDataHit;
 
 
 /**
+ * Dictionary in a database table.
+ * Lookups share one connection and its prepared statements, so they are synchronized
+ * and lookups from several threads run one at a time.
+ *
  * @author Mayo Clinic
  */
 public class JdbcDictionaryImpl extends AbstractBaseDictionary {
@@ -108,7 +112,7 @@ public class JdbcDictionaryImpl extends AbstractBaseDictionary {
     * {@inheritDoc}
     */
    @Override
-   public boolean contains( final String text ) throws DictionaryException {
+   synchronized public boolean contains( final String text ) throws DictionaryException {
       try {
          final PreparedStatement prepStmt = initCountPrepStmt( text );
          final ResultSet rs = prepStmt.executeQuery();
@@ -124,7 +128,7 @@ public class JdbcDictionaryImpl extends AbstractBaseDictionary {
     * {@inheritDoc}
     */
    @Override
-   public Collection<MetaDataHit> getEntries( final String text ) throws DictionaryException {
+   synchronized public Collection<MetaDataHit> getEntries( final String text ) throws DictionaryException {
       final Set<MetaDataHit> metaDataHitSet = new HashSet<>();
       try {
          final PreparedStatement prepStmt = initMetaDataPrepStmt( text );
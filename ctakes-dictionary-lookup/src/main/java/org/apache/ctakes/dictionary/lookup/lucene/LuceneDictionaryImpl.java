@@ -25,28 +25,38 @@ import org.apache.ctakes.dictionary.lookup.MetaDataHit;
 import org.apache.log4j.Logger;
 import org.apache.lucene.analysis.core.KeywordAnalyzer;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.DocsEnum;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.queryparser.classic.QueryParserBase;
 import org.apache.lucene.search.*;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.Version;
 
 import java.io.IOException;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 
 /**
+ * In the fast lookup mode texts are looked up directly in the terms dictionary of the lookup field
+ * instead of through a query, all texts in a call to {@link #getEntries(Collection)} are probed together,
+ * and only the stored fields of retained meta data are loaded.
+ * All fields that are used by the lookup algorithm and consumer must then be retained meta data.
+ *
  * @author Mayo Clinic
  */
 public class LuceneDictionaryImpl extends AbstractBaseDictionary {
    final private IndexSearcher iv_searcher;
    final private String iv_lookupFieldName;
    //ohnlp-Bugs-3296301 limits the search results to fixed 100 records.
-   private int iv_maxHits;
+   final private int iv_maxHits;
+   final private boolean iv_fastLookup;
    // LOG4J logger based on class name
    private Logger iv_logger = Logger.getLogger( getClass().getName() );
 
@@ -63,10 +73,27 @@ public class LuceneDictionaryImpl extends AbstractBaseDictionary {
     * Constructor
     */
    public LuceneDictionaryImpl( final IndexSearcher searcher, final String lookupFieldName, final int maxListHits ) {
+      this( searcher, lookupFieldName, maxListHits, false );
+   }
+
+   /**
+    * Constructor
+    *
+    * @param fastLookup true to use the terms dictionary for lookups and load only retained meta data fields
+    */
+   public LuceneDictionaryImpl( final IndexSearcher searcher, final String lookupFieldName, final int maxListHits,
+                                final boolean fastLookup ) {
       iv_searcher = searcher;
       iv_lookupFieldName = lookupFieldName;
       // Added 'maxListHits'
-      iv_maxHits = maxListHits;
+      // set here instead of at lookup, as lookups can be made from several threads
+      if ( maxListHits == 0 ) {
+         iv_maxHits = Integer.MAX_VALUE;
+         iv_logger.warn( "iv_maxHits was 0, using Integer.MAX_VALUE instead" );
+      } else {
+         iv_maxHits = maxListHits;
+      }
+      iv_fastLookup = fastLookup;
       // TODO Only take perfect matches?
    }
 
@@ -75,6 +102,9 @@ public class LuceneDictionaryImpl extends AbstractBaseDictionary {
     */
    @Override
    public Collection<MetaDataHit> getEntries( final String text ) throws DictionaryException {
+      if ( iv_fastLookup ) {
+         return getEntries( Collections.singleton( text ) ).get( text );
+      }
       final Set<MetaDataHit> metaDataHitSet = new HashSet<>();
 
       try {
@@ -101,10 +131,6 @@ public class LuceneDictionaryImpl extends AbstractBaseDictionary {
             iv_logger.warn( getClass().getName() + " getEntries(..) topDoc is null, returning empty collection" );
             return Collections.emptySet();
          }
-         if ( iv_maxHits == 0 ) {
-            iv_maxHits = Integer.MAX_VALUE;
-            iv_logger.warn( "iv_maxHits was 0, using Integer.MAX_VALUE instead" );
-         }
          final ScoreDoc[] hits = topDoc.scoreDocs;
          if ( hits.length == iv_maxHits ) {
             iv_logger.warn( "'iv_maxHits' equals the list length returned by the lucene query (" + hits.length + ")." );
@@ -129,6 +155,14 @@ public class LuceneDictionaryImpl extends AbstractBaseDictionary {
     */
    @Override
    public boolean contains( final String text ) throws DictionaryException {
+      if ( iv_fastLookup ) {
+         try {
+            return !getTermDocIds( Collections.singleton( text ) ).isEmpty();
+         } catch ( IOException ioe ) {
+            // thrown by TermsEnum.seekExact(), DocsEnum.nextDoc()
+            throw new DictionaryException( ioe );
+         }
+      }
       try {
          final Query q = new TermQuery( new Term( iv_lookupFieldName, text ) );
 
@@ -141,4 +175,176 @@ public class LuceneDictionaryImpl extends AbstractBaseDictionary {
       }
 
    }
+
+   /**
+    * {@inheritDoc}
+    * In the fast lookup mode the terms of all texts are probed in the terms dictionary together
+    * and each matching document is loaded once.
+    */
+   @Override
+   public Map<String, Collection<MetaDataHit>> getEntries( final Collection<String> texts )
+         throws DictionaryException {
+      final Map<String, Collection<MetaDataHit>> entries = new HashMap<>( texts.size() );
+      if ( !iv_fastLookup ) {
+         for ( String text : texts ) {
+            entries.put( text, getEntries( text ) );
+         }
+         return entries;
+      }
+      final Map<String, List<String>> textTerms = new HashMap<>( texts.size() );
+      final Set<String> allTerms = new HashSet<>();
+      for ( String text : texts ) {
+         final List<String> terms = getLookupTerms( text );
+         textTerms.put( text, terms );
+         allTerms.addAll( terms );
+      }
+      try {
+         final Map<String, List<Integer>> termDocIds = getTermDocIds( allTerms );
+         final Set<String> fieldNames = getFieldNames();
+         final Map<Integer, MetaDataHit> docMetaDataHits = new HashMap<>();
+         for ( Map.Entry<String, List<String>> entry : textTerms.entrySet() ) {
+            final Set<MetaDataHit> metaDataHitSet = new HashSet<>();
+            entries.put( entry.getKey(), metaDataHitSet );
+            final Collection<Integer> docIds = getDocIds( entry.getValue(), termDocIds );
+            if ( docIds.size() == iv_maxHits ) {
+               iv_logger.warn( "'iv_maxHits' equals the list length returned by the lucene query (" + docIds.size() + ")." );
+            }
+            for ( Integer docId : docIds ) {
+               MetaDataHit mdh = docMetaDataHits.get( docId );
+               if ( mdh == null ) {
+                  mdh = new LuceneDocumentMetaDataHitImpl( getDocument( docId, fieldNames ) );
+                  docMetaDataHits.put( docId, mdh );
+               }
+               metaDataHitSet.add( mdh );
+            }
+         }
+         return entries;
+      } catch ( IOException ioe ) {
+         // thrown by TermsEnum.seekExact(), DocsEnum.nextDoc(), IndexSearcher.doc()
+         throw new DictionaryException( ioe );
+      }
+   }
+
+   /**
+    * Gets the terms that match the query used by {@link #getEntries(String)} in the normal mode:
+    * the text itself, or for a hyphenated text the words on either side of the hyphens,
+    * which the query parser with a keyword analyzer turns into optional term clauses.
+    *
+    * @param text lookup text
+    * @return terms of the lookup field to find
+    */
+   static private List<String> getLookupTerms( final String text ) {
+      if ( text.indexOf( '-' ) == -1 ) {
+         return Collections.singletonList( text );
+      }
+      final List<String> terms = new ArrayList<>();
+      final StringTokenizer tokenizer = new StringTokenizer( text.replace( '-', ' ' ), " \t\n\r\u3000" );
+      while ( tokenizer.hasMoreTokens() ) {
+         terms.add( tokenizer.nextToken() );
+      }
+      return terms;
+   }
+
+   /**
+    * @param terms      terms of a lookup text
+    * @param termDocIds ids of the documents with each term
+    * @return ids of the documents with any of the terms in index order, at most iv_maxHits
+    */
+   private Collection<Integer> getDocIds( final List<String> terms, final Map<String, List<Integer>> termDocIds ) {
+      if ( terms.size() == 1 ) {
+         final List<Integer> docIds = termDocIds.get( terms.get( 0 ) );
+         if ( docIds == null ) {
+            return Collections.emptyList();
+         }
+         return docIds.size() > iv_maxHits ? docIds.subList( 0, iv_maxHits ) : docIds;
+      }
+      final SortedSet<Integer> docIdSet = new TreeSet<>();
+      for ( String term : terms ) {
+         final List<Integer> docIds = termDocIds.get( term );
+         if ( docIds != null ) {
+            docIdSet.addAll( docIds );
+         }
+      }
+      final List<Integer> docIds = new ArrayList<>( Math.min( docIdSet.size(), iv_maxHits ) );
+      for ( Integer docId : docIdSet ) {
+         if ( docIds.size() == iv_maxHits ) {
+            break;
+         }
+         docIds.add( docId );
+      }
+      return docIds;
+   }
+
+   /**
+    * Probes the terms dictionary of the lookup field in each index segment with one terms enum, in term order.
+    *
+    * @param terms terms of the lookup field
+    * @return map of each term in the index to the ids of the live documents with the term, in index order
+    * @throws IOException
+    */
+   private Map<String, List<Integer>> getTermDocIds( final Collection<String> terms ) throws IOException {
+      final List<BytesRef> sortedTerms = new ArrayList<>( terms.size() );
+      for ( String term : terms ) {
+         sortedTerms.add( new BytesRef( term ) );
+      }
+      Collections.sort( sortedTerms );
+      final Map<String, List<Integer>> termDocIds = new HashMap<>();
+      for ( AtomicReaderContext leaf : iv_searcher.getIndexReader().getContext().leaves() ) {
+         final AtomicReader reader = leaf.reader();
+         final Terms fieldTerms = reader.terms( iv_lookupFieldName );
+         if ( fieldTerms == null ) {
+            continue;
+         }
+         final TermsEnum termsEnum = fieldTerms.iterator( null );
+         final Bits liveDocs = reader.getLiveDocs();
+         DocsEnum docsEnum = null;
+         for ( BytesRef term : sortedTerms ) {
+            if ( !termsEnum.seekExact( term, false ) ) {
+               continue;
+            }
+            docsEnum = termsEnum.docs( liveDocs, docsEnum, 0 );
+            int doc = docsEnum.nextDoc();
+            if ( doc == DocsEnum.NO_MORE_DOCS ) {
+               // every document with the term is deleted
+               continue;
+            }
+            final String text = term.utf8ToString();
+            List<Integer> docIds = termDocIds.get( text );
+            if ( docIds == null ) {
+               docIds = new ArrayList<>( 1 );
+               termDocIds.put( text, docIds );
+            }
+            for ( ; doc != DocsEnum.NO_MORE_DOCS; doc = docsEnum.nextDoc() ) {
+               docIds.add( leaf.docBase + doc );
+            }
+         }
+      }
+      return termDocIds;
+   }
+
+   /**
+    * @return names of the retained meta data fields
+    */
+   private Set<String> getFieldNames() {
+      final Set<String> fieldNames = new HashSet<>();
+      final Iterator<String> metaFieldNames = getMetaFieldNames();
+      while ( metaFieldNames.hasNext() ) {
+         fieldNames.add( metaFieldNames.next() );
+      }
+      return fieldNames;
+   }
+
+   /**
+    * @param docId      index document id
+    * @param fieldNames names of the fields to load
+    * @return the document with only the given fields, or all fields if there are no field names
+    * @throws IOException
+    */
+   private Document getDocument( final int docId, final Set<String> fieldNames ) throws IOException {
+      if ( fieldNames.isEmpty() ) {
+         return iv_searcher.doc( docId );
+      }
+      return iv_searcher.document( docId, fieldNames );
+   }
+
 }
@@ -29,6 +29,10 @@ import org.apache.ctakes.dictionary.lookup.MetaDataHit;
 
 
 /**
+ * Dictionary in a {@link StringTable}, for instance one built from a delimited file by the {@link StringTableFactory}.
+ * Lookups only read the table, so they can be made from several threads
+ * as long as no rows are added to the table after the dictionary is created.
+ *
  * @author Mayo Clinic
  */
 public class StringTableDictionaryImpl extends AbstractBaseDictionary {
@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.dictionary.lookup;
+
+import org.apache.ctakes.dictionary.lookup.algorithms.DirectPassThroughImpl;
+import org.apache.ctakes.dictionary.lookup.algorithms.LookupAlgorithm;
+import org.apache.ctakes.dictionary.lookup.jdbc.JdbcDictionaryImpl;
+import org.apache.ctakes.dictionary.lookup.lucene.LuceneDictionaryImpl;
+import org.apache.ctakes.dictionary.lookup.phrasebuilder.VariantPhraseBuilderImpl;
+import org.apache.ctakes.dictionary.lookup.strtable.StringTable;
+import org.apache.ctakes.dictionary.lookup.strtable.StringTableDictionaryImpl;
+import org.apache.ctakes.dictionary.lookup.strtable.StringTableFactory;
+import org.apache.ctakes.dictionary.lookup.vo.LookupAnnotation;
+import org.apache.ctakes.dictionary.lookup.vo.LookupHit;
+import org.apache.ctakes.dictionary.lookup.vo.LookupToken;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Version;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Looks up windows at the same time with one dictionary engine for each dictionary implementation,
+ * as the ThreadedDictionaryLookupAnnotator does.
+ * In each dictionary every text "term#" has the cui "C#".
+ */
+final public class ConcurrentDictionaryLookupTest {
+
+   static private final int TERM_COUNT = 1000;
+   static private final int WINDOW_COUNT = 32;
+   static private final int TOKENS_PER_WINDOW = 8;
+   static private final int THREAD_COUNT = 8;
+
+   /**
+    * @return connection to a table in which every text "term#" has the cui "C#"
+    */
+   static private Connection createConnection() {
+      return (Connection)Proxy.newProxyInstance( ConcurrentDictionaryLookupTest.class.getClassLoader(),
+            new Class[]{ Connection.class }, ( proxy, method, args ) -> {
+               if ( method.getName().equals( "prepareStatement" ) ) {
+                  return createStatement( ((String)args[ 0 ]).startsWith( "SELECT COUNT" ) );
+               }
+               throw new UnsupportedOperationException( method.getName() );
+            } );
+   }
+
+   static private PreparedStatement createStatement( final boolean isCount ) {
+      final String[] parameter = new String[ 1 ];
+      return (PreparedStatement)Proxy.newProxyInstance( ConcurrentDictionaryLookupTest.class.getClassLoader(),
+            new Class[]{ PreparedStatement.class }, ( proxy, method, args ) -> {
+               switch ( method.getName() ) {
+                  case "clearParameters":
+                     parameter[ 0 ] = null;
+                     return null;
+                  case "setString":
+                     parameter[ 0 ] = (String)args[ 1 ];
+                     return null;
+                  case "executeQuery":
+                     // gives other threads time to change the parameter of a statement that they share
+                     Thread.sleep( 1 );
+                     final String text = parameter[ 0 ];
+                     final List<String> cuis = text != null && text.startsWith( "term" )
+                                               ? Collections.singletonList( "C" + text.substring( 4 ) )
+                                               : Collections.emptyList();
+                     return createResultSet( isCount, cuis );
+               }
+               throw new UnsupportedOperationException( method.getName() );
+            } );
+   }
+
+   static private ResultSet createResultSet( final boolean isCount, final List<String> cuis ) {
+      final int[] row = { -1 };
+      return (ResultSet)Proxy.newProxyInstance( ConcurrentDictionaryLookupTest.class.getClassLoader(),
+            new Class[]{ ResultSet.class }, ( proxy, method, args ) -> {
+               switch ( method.getName() ) {
+                  case "next":
+                     row[ 0 ]++;
+                     return isCount ? row[ 0 ] == 0 : row[ 0 ] < cuis.size();
+                  case "getInt":
+                     return cuis.size();
+                  case "getString":
+                     return cuis.get( row[ 0 ] );
+               }
+               throw new UnsupportedOperationException( method.getName() );
+            } );
+   }
+
+   /**
+    * @return table built from delimited text in the same way as for a csvImpl dictionary
+    */
+   static private StringTable createStringTable() throws IOException {
+      final StringBuilder sb = new StringBuilder();
+      for ( int i = 0; i < TERM_COUNT; i++ ) {
+         sb.append( "term" ).append( i ).append( '|' ).append( 'C' ).append( i ).append( '\n' );
+      }
+      return StringTableFactory.build( new StringReader( sb.toString() ), "|", "0", false );
+   }
+
+   static private RAMDirectory createIndex() throws IOException {
+      final RAMDirectory directory = new RAMDirectory();
+      final IndexWriter writer
+            = new IndexWriter( directory, new IndexWriterConfig( Version.LUCENE_40, new KeywordAnalyzer() ) );
+      for ( int i = 0; i < TERM_COUNT; i++ ) {
+         final Document document = new Document();
+         document.add( new StringField( "text", "term" + i, Field.Store.YES ) );
+         document.add( new StringField( "cui", "C" + i, Field.Store.YES ) );
+         writer.addDocument( document );
+      }
+      writer.close();
+      return directory;
+   }
+
+   /**
+    * @return windows of tokens, about half of which are in the dictionary
+    */
+   static private List<List<LookupToken>> createWindows() {
+      final Random random = new Random( 7 );
+      final List<List<LookupToken>> windows = new ArrayList<>( WINDOW_COUNT );
+      int offset = 0;
+      for ( int i = 0; i < WINDOW_COUNT; i++ ) {
+         final List<LookupToken> window = new ArrayList<>( TOKENS_PER_WINDOW );
+         for ( int j = 0; j < TOKENS_PER_WINDOW; j++ ) {
+            final String text = (random.nextBoolean() ? "term" : "miss") + random.nextInt( TERM_COUNT );
+            window.add( new TextToken( offset, text ) );
+            offset += text.length() + 1;
+         }
+         windows.add( window );
+      }
+      return windows;
+   }
+
+   /**
+    * @return begin, end and cui of each hit
+    */
+   static private List<String> getHitTexts( final Collection<LookupHit> hits, final String cuiField ) {
+      final List<String> hitTexts = new ArrayList<>( hits.size() );
+      for ( LookupHit hit : hits ) {
+         hitTexts.add( hit.getStartOffset() + "," + hit.getEndOffset() + " "
+                       + hit.getDictMetaDataHit().getMetaFieldValue( cuiField ) );
+      }
+      return hitTexts;
+   }
+
+   @Test
+   public void testJdbcDictionary() throws Exception {
+      final Dictionary dictionary = new JdbcDictionaryImpl( createConnection(), "umls", "text" );
+      dictionary.retainMetaData( "cui" );
+      assertConcurrentLookups( dictionary, "cui" );
+   }
+
+   @Test
+   public void testStringTableDictionary() throws Exception {
+      final Dictionary dictionary = new StringTableDictionaryImpl( createStringTable(), "0" );
+      dictionary.retainMetaData( "1" );
+      assertConcurrentLookups( dictionary, "1" );
+   }
+
+   @Test
+   public void testLuceneDictionary() throws Exception {
+      final RAMDirectory directory = createIndex();
+      try ( DirectoryReader reader = DirectoryReader.open( directory ) ) {
+         for ( boolean fastLookup : new boolean[] { false, true } ) {
+            final Dictionary dictionary
+                  = new LuceneDictionaryImpl( new IndexSearcher( reader ), "text", 100, fastLookup );
+            dictionary.retainMetaData( "cui" );
+            assertConcurrentLookups( dictionary, "cui" );
+         }
+      } finally {
+         directory.close();
+      }
+   }
+
+   /**
+    * Checks that windows looked up at the same time have the same hits as windows looked up one after another.
+    */
+   static private void assertConcurrentLookups( final Dictionary dictionary, final String cuiField )
+         throws Exception {
+      final LookupAlgorithm algorithm = new DirectPassThroughImpl( new DictionaryEngine( dictionary, false ),
+            new VariantPhraseBuilderImpl( new String[ 0 ], true ) );
+      final Map<String, List<LookupAnnotation>> contextMap = Collections.emptyMap();
+      final List<List<LookupToken>> windows = createWindows();
+
+      final List<List<String>> expectedHits = new ArrayList<>( windows.size() );
+      int hitCount = 0;
+      for ( List<LookupToken> window : windows ) {
+         final List<String> hitTexts = getHitTexts( algorithm.lookup( window, contextMap ), cuiField );
+         expectedHits.add( hitTexts );
+         hitCount += hitTexts.size();
+      }
+      assertTrue( hitCount > 0 );
+
+      final List<Callable<Collection<LookupHit>>> windowLookups = new ArrayList<>( windows.size() );
+      for ( List<LookupToken> window : windows ) {
+         windowLookups.add( () -> algorithm.lookup( window, contextMap ) );
+      }
+      final ExecutorService executor = Executors.newFixedThreadPool( THREAD_COUNT );
+      try {
+         final List<Future<Collection<LookupHit>>> windowHits = executor.invokeAll( windowLookups );
+         for ( int i = 0; i < windows.size(); i++ ) {
+            assertEquals( "Window " + i, expectedHits.get( i ), getHitTexts( windowHits.get( i ).get(), cuiField ) );
+         }
+      } finally {
+         executor.shutdown();
+      }
+   }
+
+
+   static private final class TextToken implements LookupToken {
+      private final int _start;
+      private final String _text;
+      private final Map<String, String> _attributes = new HashMap<>();
+
+      private TextToken( final int start, final String text ) {
+         _start = start;
+         _text = text;
+      }
+
+      @Override
+      public int getStartOffset() {
+         return _start;
+      }
+
+      @Override
+      public int getEndOffset() {
+         return _start + _text.length();
+      }
+
+      @Override
+      public int getLength() {
+         return _text.length();
+      }
+
+      @Override
+      public String getText() {
+         return _text;
+      }
+
+      @Override
+      public void addStringAttribute( final String attrKey, final String attrVal ) {
+         _attributes.put( attrKey, attrVal );
+      }
+
+      @Override
+      public String getStringAttribute( final String attrKey ) {
+         return _attributes.get( attrKey );
+      }
+   }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.dictionary.lookup;
+
+import org.apache.ctakes.dictionary.lookup.filter.FilterException;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the caching of lookups by the {@link DictionaryEngine}.
+ */
+final public class DictionaryEngineTest {
+
+   static private final String CODE = "code";
+
+   /**
+    * Dictionary of a few texts that counts its lookups
+    */
+   static private final class CountingDictionary implements Dictionary {
+      // key = text, value = codes of the entries for the text
+      private final Map<String, String[]> _entries = new HashMap<>();
+      private int _containsCount;
+      private int _entriesCount;
+
+      private CountingDictionary() {
+         _entries.put( "aspirin", new String[] { "C0004057", "REMOVED" } );
+         _entries.put( "heart", new String[] { "C0018787" } );
+         _entries.put( "lung", new String[] { "C0024109" } );
+      }
+
+      @Override
+      public void retainMetaData( final String metaFieldName ) {
+      }
+
+      @Override
+      public boolean contains( final String text ) {
+         _containsCount++;
+         return _entries.containsKey( text );
+      }
+
+      /**
+       * @return a new modifiable collection of hits for each call, as dictionary implementations do
+       */
+      @Override
+      public Collection<MetaDataHit> getEntries( final String text ) {
+         _entriesCount++;
+         final Collection<MetaDataHit> hits = new HashSet<>();
+         final String[] codes = _entries.get( text );
+         if ( codes != null ) {
+            for ( String code : codes ) {
+               hits.add( new GenericMetaDataHitImpl( Collections.singletonMap( CODE, code ) ) );
+            }
+         }
+         return hits;
+      }
+   }
+
+   static private DictionaryEngine createEngine( final Dictionary dictionary, final int cacheSize ) {
+      final DictionaryEngine engine = new DictionaryEngine( dictionary, false, cacheSize );
+      engine.addPostLookupFilter( hit -> "REMOVED".equals( hit.getMetaFieldValue( CODE ) ) );
+      return engine;
+   }
+
+   static private Set<String> getCodes( final Collection<MetaDataHit> hits ) {
+      final Set<String> codes = new HashSet<>();
+      for ( MetaDataHit hit : hits ) {
+         codes.add( hit.getMetaFieldValue( CODE ) );
+      }
+      return codes;
+   }
+
+   @Test
+   public void testCacheHitReturnsFilteredHits() throws DictionaryException, FilterException {
+      final CountingDictionary dictionary = new CountingDictionary();
+      final DictionaryEngine engine = createEngine( dictionary, 10 );
+      final Collection<MetaDataHit> hits = engine.metaLookup( "Aspirin" );
+      assertEquals( Collections.singleton( "C0004057" ), getCodes( hits ) );
+      final Collection<MetaDataHit> cachedHits = engine.metaLookup( "aspirin" );
+      assertSame( hits, cachedHits );
+      assertEquals( 1, dictionary._entriesCount );
+      assertEquals( 1, engine.getMetaLookupCache().getHitCount() );
+      assertEquals( Collections.singleton( "C0004057" ),
+            getCodes( engine.metaLookup( Arrays.asList( "ASPIRIN", "heart" ) ).get( "ASPIRIN" ) ) );
+      // only heart is looked up
+      assertEquals( 2, dictionary._entriesCount );
+   }
+
+   @Test
+   public void testMissesAreCached() throws DictionaryException, FilterException {
+      final CountingDictionary dictionary = new CountingDictionary();
+      final DictionaryEngine engine = createEngine( dictionary, 10 );
+      assertTrue( engine.metaLookup( "nothing" ).isEmpty() );
+      assertTrue( engine.metaLookup( "nothing" ).isEmpty() );
+      assertEquals( 1, dictionary._entriesCount );
+      assertFalse( engine.binaryLookup( "nothing" ) );
+      assertFalse( engine.binaryLookup( "nothing" ) );
+      assertEquals( 1, dictionary._containsCount );
+      assertEquals( 1, engine.getBinaryLookupCache().getHitCount() );
+   }
+
+   @Test
+   public void testEvictionAtCacheSize() throws DictionaryException, FilterException {
+      final CountingDictionary dictionary = new CountingDictionary();
+      final DictionaryEngine engine = createEngine( dictionary, 2 );
+      engine.metaLookup( "aspirin" );
+      engine.metaLookup( "heart" );
+      // aspirin becomes the most recently used, so heart is evicted
+      engine.metaLookup( "aspirin" );
+      engine.metaLookup( "lung" );
+      assertEquals( 2, engine.getMetaLookupCache().size() );
+      assertEquals( 3, dictionary._entriesCount );
+      engine.metaLookup( "aspirin" );
+      engine.metaLookup( "lung" );
+      assertEquals( 3, dictionary._entriesCount );
+      engine.metaLookup( "heart" );
+      assertEquals( 4, dictionary._entriesCount );
+      assertEquals( 2, engine.getMetaLookupCache().size() );
+   }
+
+   @Test
+   public void testZeroCacheSizeDisablesCache() throws DictionaryException, FilterException {
+      final CountingDictionary dictionary = new CountingDictionary();
+      final DictionaryEngine engine = createEngine( dictionary, 0 );
+      final Collection<MetaDataHit> hits = engine.metaLookup( "heart" );
+      assertEquals( Collections.singleton( "C0018787" ), getCodes( hits ) );
+      // uncached hits belong to the caller
+      hits.clear();
+      assertEquals( Collections.singleton( "C0018787" ), getCodes( engine.metaLookup( "heart" ) ) );
+      engine.binaryLookup( "heart" );
+      engine.binaryLookup( "heart" );
+      assertEquals( 2, dictionary._entriesCount );
+      assertEquals( 2, dictionary._containsCount );
+      assertEquals( 0, engine.getMetaLookupCache().size() );
+      assertEquals( 0, engine.getBinaryLookupCache().size() );
+   }
+
+   @Test( expected = UnsupportedOperationException.class )
+   public void testCachedHitsAreUnmodifiable() throws DictionaryException, FilterException {
+      final DictionaryEngine engine = createEngine( new CountingDictionary(), 10 );
+      engine.metaLookup( "heart" ).clear();
+   }
+
+   @Test( expected = UnsupportedOperationException.class )
+   public void testCachedMissesAreUnmodifiable() throws DictionaryException, FilterException {
+      final DictionaryEngine engine = createEngine( new CountingDictionary(), 10 );
+      engine.metaLookup( "nothing" ).add( new GenericMetaDataHitImpl( Collections.<String, String>emptyMap() ) );
+   }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.dictionary.lookup.lucene;
+
+import org.apache.ctakes.dictionary.lookup.DictionaryException;
+import org.apache.ctakes.dictionary.lookup.MetaDataHit;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Version;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the fast lookup mode of the {@link LuceneDictionaryImpl} finds the same entries as the normal mode.
+ */
+final public class LuceneDictionaryImplTest {
+
+   static private final String LOOKUP_FIELD = "first_word";
+
+   // lookup field value, cui, text
+   static private final String[][] ENTRIES = {
+         { "aspirin", "C0004057", "aspirin" },
+         { "heart", "C0027051", "heart attack" },
+         { "heart", "C0018801", "heart failure" },
+         { "non", "C0007131", "non small cell lung cancer" },
+         { "small", "C0149925", "small cell carcinoma" },
+         { "cell", "C0007634", "cell" },
+         { "x-ray", "C0043299", "x-ray" },
+         { "vitamin d", "C0042866", "vitamin d" },
+         { "d", "C0011744", "d" },
+         { "3", "C0205449", "3" },
+         { "removed", "C9999999", "removed" } };
+
+   static private final String[] TEXTS = { "aspirin", "heart", "non-small", "small-cell-carcinoma", "x-ray",
+                                           "vitamin d", "vitamin d-3", "removed", "nothing", "no-thing", "-", "" };
+
+   static private RAMDirectory _directory;
+   static private DirectoryReader _reader;
+   static private LuceneDictionaryImpl _normalDictionary;
+   static private LuceneDictionaryImpl _fastDictionary;
+
+   @BeforeClass
+   static public void setup() throws IOException {
+      _directory = new RAMDirectory();
+      final IndexWriter writer
+            = new IndexWriter( _directory, new IndexWriterConfig( Version.LUCENE_40, new KeywordAnalyzer() ) );
+      for ( int i = 0; i < ENTRIES.length; i++ ) {
+         final Document document = new Document();
+         document.add( new StringField( LOOKUP_FIELD, ENTRIES[ i ][ 0 ], Field.Store.YES ) );
+         document.add( new StringField( "cui", ENTRIES[ i ][ 1 ], Field.Store.YES ) );
+         document.add( new StringField( "text", ENTRIES[ i ][ 2 ], Field.Store.YES ) );
+         document.add( new StringField( "code", "code" + i, Field.Store.YES ) );
+         writer.addDocument( document );
+         if ( i == ENTRIES.length / 2 ) {
+            // more than one index segment
+            writer.commit();
+         }
+      }
+      writer.deleteDocuments( new Term( "cui", "C9999999" ) );
+      writer.close();
+      _reader = DirectoryReader.open( _directory );
+      _normalDictionary = createDictionary( false );
+      _fastDictionary = createDictionary( true );
+   }
+
+   @AfterClass
+   static public void tearDown() throws IOException {
+      _reader.close();
+      _directory.close();
+   }
+
+   static private LuceneDictionaryImpl createDictionary( final boolean fastLookup ) {
+      final LuceneDictionaryImpl dictionary
+            = new LuceneDictionaryImpl( new IndexSearcher( _reader ), LOOKUP_FIELD, 100, fastLookup );
+      dictionary.retainMetaData( "cui" );
+      dictionary.retainMetaData( "text" );
+      return dictionary;
+   }
+
+   /**
+    * @return cui and text of each hit, sorted
+    */
+   static private List<String> getHitTexts( final Collection<MetaDataHit> hits ) {
+      final List<String> hitTexts = new ArrayList<>( hits.size() );
+      for ( MetaDataHit hit : hits ) {
+         hitTexts.add( hit.getMetaFieldValue( "cui" ) + " " + hit.getMetaFieldValue( "text" ) );
+      }
+      Collections.sort( hitTexts );
+      return hitTexts;
+   }
+
+   @Test
+   public void testGetEntries() throws DictionaryException {
+      for ( String text : TEXTS ) {
+         assertEquals( text, getHitTexts( _normalDictionary.getEntries( text ) ),
+               getHitTexts( _fastDictionary.getEntries( text ) ) );
+      }
+      assertEquals( Arrays.asList( "C0018801 heart failure", "C0027051 heart attack" ),
+            getHitTexts( _fastDictionary.getEntries( "heart" ) ) );
+      assertEquals( Arrays.asList( "C0007131 non small cell lung cancer", "C0149925 small cell carcinoma" ),
+            getHitTexts( _fastDictionary.getEntries( "non-small" ) ) );
+      // the words of a hyphenated text are looked up separately
+      assertEquals( Arrays.asList( "C0011744 d", "C0205449 3" ),
+            getHitTexts( _fastDictionary.getEntries( "vitamin d-3" ) ) );
+      assertTrue( _fastDictionary.getEntries( "removed" ).isEmpty() );
+   }
+
+   @Test
+   public void testGetWindowEntries() throws DictionaryException {
+      final List<String> texts = Arrays.asList( TEXTS );
+      final Map<String, Collection<MetaDataHit>> normalEntries = _normalDictionary.getEntries( texts );
+      final Map<String, Collection<MetaDataHit>> fastEntries = _fastDictionary.getEntries( texts );
+      assertEquals( normalEntries.keySet(), fastEntries.keySet() );
+      for ( String text : TEXTS ) {
+         assertEquals( text, getHitTexts( normalEntries.get( text ) ), getHitTexts( fastEntries.get( text ) ) );
+         assertEquals( text, getHitTexts( _normalDictionary.getEntries( text ) ),
+               getHitTexts( fastEntries.get( text ) ) );
+      }
+   }
+
+   @Test
+   public void testContains() throws DictionaryException {
+      for ( String text : TEXTS ) {
+         assertEquals( text, _normalDictionary.contains( text ), _fastDictionary.contains( text ) );
+      }
+      assertTrue( _fastDictionary.contains( "x-ray" ) );
+      assertTrue( _fastDictionary.contains( "vitamin d" ) );
+      assertFalse( _fastDictionary.contains( "removed" ) );
+   }
+
+   @Test
+   public void testOnlyRetainedFieldsAreLoaded() throws DictionaryException {
+      for ( MetaDataHit hit : _fastDictionary.getEntries( "aspirin" ) ) {
+         assertEquals( "C0004057", hit.getMetaFieldValue( "cui" ) );
+         assertNull( hit.getMetaFieldValue( "code" ) );
+      }
+   }
+
+}
@@ -18,11 +18,8 @@
  */
 package org.apache.ctakes.drugner.fsm.machines.elements;
 
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.apache.ctakes.core.fsm.condition.IntegerValueCondition;
@@ -30,6 +27,7 @@ import org.apache.ctakes.core.fsm.condition.NumberCondition;
 import org.apache.ctakes.core.fsm.condition.PunctuationValueCondition;
 import org.apache.ctakes.core.fsm.state.NamedState;
 import org.apache.ctakes.core.fsm.token.BaseToken;
+import org.apache.ctakes.drugner.fsm.machines.util.MachineRunner;
 import org.apache.ctakes.drugner.fsm.output.util.DecimalStrengthToken;
 
 import net.openai.util.fsm.AnyCondition;
@@ -46,6 +44,8 @@ public class DecimalStrengthFSM
 	
     // contains the finite state machines
     private Set iv_machineSet = new HashSet();
+    // runs the finite state machines
+    private final MachineRunner iv_machineRunner;
 
     /**
      * 
@@ -56,6 +56,7 @@ public class DecimalStrengthFSM
     {
 
         iv_machineSet.add(getDecimalStrengthMachine());
+        iv_machineRunner = new MachineRunner(iv_machineSet);
        
     }
 
@@ -101,68 +102,17 @@ public class DecimalStrengthFSM
      */
     public Set execute(List tokens) throws Exception
     {
-        Set fractionSet = new HashSet();
-
-        // maps a fsm to a token start index
-        // key = fsm , value = token start index
-        Map tokenStartMap = new HashMap();
-
-        for (int i = 0; i < tokens.size(); i++)
-        {
-            BaseToken token = (BaseToken) tokens.get(i);
-
-            Iterator machineItr = iv_machineSet.iterator();
-            while (machineItr.hasNext())
-            {
-                Machine fsm = (Machine) machineItr.next();
-
-                fsm.input(token);
-
-                State currentState = fsm.getCurrentState();
-                if (currentState.getStartStateFlag())
+        final Set fractionSet = new HashSet();
+        iv_machineRunner.run(tokens,
+                (fsm, currentState, tokenStartIndex, i, token) ->
                 {
-                    tokenStartMap.put(fsm, Integer.valueOf(i));
-                }
-                if (currentState.getEndStateFlag())
-                {
-                    Object o = tokenStartMap.get(fsm);
-					int tokenStartIndex;
-					if (o == null)
-					{
-						// By default, all machines start with
-						// token zero.
-						tokenStartIndex = 0;
-					}
-					else
-					{
-						tokenStartIndex = ((Integer) o).intValue();
-						// skip ahead over single token we don't want
-						tokenStartIndex++;						
-					}
                     BaseToken startToken =
                         (BaseToken) tokens.get(tokenStartIndex);
-                    BaseToken endToken = token;
-                    DecimalStrengthToken fractionToken =
+                    fractionSet.add(
                         new DecimalStrengthToken(
                             startToken.getStartOffset(),
-                            endToken.getEndOffset());
-                    fractionSet.add(fractionToken);
-                    fsm.reset();
-                }
-            }
-        }
-
-        // cleanup
-        tokenStartMap.clear();
-
-        // reset machines
-        Iterator itr = iv_machineSet.iterator();
-        while (itr.hasNext())
-        {
-            Machine fsm = (Machine) itr.next();
-            fsm.reset();
-        }
-
+                            token.getEndOffset()));
+                });
         return fractionSet;
     }
 }
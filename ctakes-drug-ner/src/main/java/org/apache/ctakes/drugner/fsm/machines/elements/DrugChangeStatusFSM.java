@@ -18,11 +18,8 @@
  */
 package org.apache.ctakes.drugner.fsm.machines.elements;
 
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.apache.ctakes.core.fsm.condition.DisjoinCondition;
@@ -34,6 +31,7 @@ import org.apache.ctakes.core.fsm.state.NamedState;
 import org.apache.ctakes.core.fsm.token.BaseToken;
 import org.apache.ctakes.drugner.fsm.elements.conditions.RangeStrengthCondition;
 import org.apache.ctakes.drugner.fsm.elements.conditions.StrengthCondition;
+import org.apache.ctakes.drugner.fsm.machines.util.MachineRunner;
 import org.apache.ctakes.drugner.fsm.output.elements.DrugChangeStatusToken;
 
 import net.openai.util.fsm.AnyCondition;
@@ -93,6 +91,8 @@ public class DrugChangeStatusFSM {
 
 	// contains the finite state machines
 	private Set iv_machineSet = new HashSet();
+	// runs the finite state machines
+	private final MachineRunner iv_machineRunner;
 
 	private Machine iv_startStatusMachine;
 
@@ -265,6 +265,7 @@ public class DrugChangeStatusFSM {
 		iv_machineSet.add(iv_changeStatusMachine);
 		iv_machineSet.add(iv_sumStatusMachine);
 		iv_machineSet.add(iv_maxStatusMachine);
+		iv_machineRunner = new MachineRunner(iv_machineSet);
 
 
 	}
@@ -772,92 +773,58 @@ public class DrugChangeStatusFSM {
 	 * @throws Exception
 	 */
 	public Set execute(List tokens) throws Exception {
-		Set fractionSet = new HashSet();
-
-		// maps a fsm to a token start index
-		// key = fsm , value = token start index
-		Map tokenStartMap = new HashMap();
-
-		for (int i = 0; i < tokens.size(); i++) {
-			BaseToken token = (BaseToken) tokens.get(i);
-
-			Iterator machineItr = iv_machineSet.iterator();
-			while (machineItr.hasNext()) {
-				Machine fsm = (Machine) machineItr.next();
-
-				fsm.input(token);
-
-				State currentState = fsm.getCurrentState();
-				if (currentState.getStartStateFlag()) {
-					tokenStartMap.put(fsm, Integer.valueOf(i));
-				}
-				if (currentState.getEndStateFlag()) {
-					Object o = tokenStartMap.get(fsm);
-					int tokenStartIndex;
-					if (o == null) {
-						// By default, all machines start with
-						// token zero.
-						tokenStartIndex = 0;
-					} else {
-						tokenStartIndex = ((Integer) o).intValue();
-						// skip ahead over single token we don't want
-						tokenStartIndex++;
-					}
-					BaseToken startToken = (BaseToken) tokens
-							.get(tokenStartIndex);
-					BaseToken endToken = token;
-					DrugChangeStatusToken fractionToken = null;
-					if (fsm.equals(iv_startStatusMachine)) {
-						fractionToken = new DrugChangeStatusToken(startToken
-								.getStartOffset(), endToken.getEndOffset(),DrugChangeStatusToken.START);
-					} else if (fsm.equals(iv_stopStatusMachine)) {
-						fractionToken = new DrugChangeStatusToken(startToken
-								.getStartOffset(), endToken.getEndOffset(), DrugChangeStatusToken.STOP);
-					} else if (fsm.equals(iv_increaseFromStatusMachine)) {
-						fractionToken = new DrugChangeStatusToken(startToken
-								.getStartOffset(), endToken.getEndOffset(), DrugChangeStatusToken.INCREASEFROM);
-					} else if (fsm.equals(iv_decreaseFromStatusMachine)) {
-						fractionToken = new DrugChangeStatusToken(startToken
-								.getStartOffset(), endToken.getEndOffset(), DrugChangeStatusToken.DECREASEFROM);
-					}  else if (fsm.equals(iv_increaseStatusMachine)) {
-						fractionToken = new DrugChangeStatusToken(startToken
-								.getStartOffset(), endToken.getEndOffset(), DrugChangeStatusToken.INCREASE);
-					} else if (fsm.equals(iv_decreaseStatusMachine)) {
-						fractionToken = new DrugChangeStatusToken(startToken
-								.getStartOffset(), endToken.getEndOffset(), DrugChangeStatusToken.DECREASE);
-					} else if (fsm.equals(iv_noChangeStatusMachine)) {
-						fractionToken = new DrugChangeStatusToken(startToken
-								.getStartOffset(), endToken.getEndOffset(), DrugChangeStatusToken.NOCHANGE);
-						
-					} else if (fsm.equals(iv_changeStatusMachine)) {
-						fractionToken = new DrugChangeStatusToken(startToken
-								.getStartOffset(), endToken.getEndOffset(), DrugChangeStatusToken.OTHER);
-					} else if (fsm.equals(iv_sumStatusMachine)) {
-						fractionToken = new DrugChangeStatusToken(startToken
-								.getStartOffset(), endToken.getEndOffset(), DrugChangeStatusToken.SUM);
-						
-					} else if (fsm.equals(iv_maxStatusMachine)) {
-						fractionToken = new DrugChangeStatusToken(startToken
-								.getStartOffset(), endToken.getEndOffset(), DrugChangeStatusToken.MAX);
-						
-					}
-
-					fractionSet.add(fractionToken);
-					fsm.reset();
-				}
-			}
-		}
-
-		// cleanup
-		tokenStartMap.clear();
+		final Set fractionSet = new HashSet();
+		iv_machineRunner.run(tokens,
+				(fsm, currentState, tokenStartIndex, i, token) -> fractionSet
+						.add(createDrugChangeStatusToken(fsm,
+								(BaseToken) tokens.get(tokenStartIndex), token)));
+		return fractionSet;
+	}
 
-		// reset machines
-		Iterator itr = iv_machineSet.iterator();
-		while (itr.hasNext()) {
-			Machine fsm = (Machine) itr.next();
-			fsm.reset();
+	/**
+	 * @param fsm machine that matched
+	 * @param startToken first token of the match
+	 * @param endToken last token of the match
+	 * @return DrugChangeStatusToken with the status of the machine, or null if
+	 *         the machine has no status
+	 */
+	private DrugChangeStatusToken createDrugChangeStatusToken(Machine fsm,
+			BaseToken startToken, BaseToken endToken) {
+		DrugChangeStatusToken fractionToken = null;
+		if (fsm.equals(iv_startStatusMachine)) {
+			fractionToken = new DrugChangeStatusToken(startToken
+					.getStartOffset(), endToken.getEndOffset(),DrugChangeStatusToken.START);
+		} else if (fsm.equals(iv_stopStatusMachine)) {
+			fractionToken = new DrugChangeStatusToken(startToken
+					.getStartOffset(), endToken.getEndOffset(), DrugChangeStatusToken.STOP);
+		} else if (fsm.equals(iv_increaseFromStatusMachine)) {
+			fractionToken = new DrugChangeStatusToken(startToken
+					.getStartOffset(), endToken.getEndOffset(), DrugChangeStatusToken.INCREASEFROM);
+		} else if (fsm.equals(iv_decreaseFromStatusMachine)) {
+			fractionToken = new DrugChangeStatusToken(startToken
+					.getStartOffset(), endToken.getEndOffset(), DrugChangeStatusToken.DECREASEFROM);
+		}  else if (fsm.equals(iv_increaseStatusMachine)) {
+			fractionToken = new DrugChangeStatusToken(startToken
+					.getStartOffset(), endToken.getEndOffset(), DrugChangeStatusToken.INCREASE);
+		} else if (fsm.equals(iv_decreaseStatusMachine)) {
+			fractionToken = new DrugChangeStatusToken(startToken
+					.getStartOffset(), endToken.getEndOffset(), DrugChangeStatusToken.DECREASE);
+		} else if (fsm.equals(iv_noChangeStatusMachine)) {
+			fractionToken = new DrugChangeStatusToken(startToken
+					.getStartOffset(), endToken.getEndOffset(), DrugChangeStatusToken.NOCHANGE);
+			
+		} else if (fsm.equals(iv_changeStatusMachine)) {
+			fractionToken = new DrugChangeStatusToken(startToken
+					.getStartOffset(), endToken.getEndOffset(), DrugChangeStatusToken.OTHER);
+		} else if (fsm.equals(iv_sumStatusMachine)) {
+			fractionToken = new DrugChangeStatusToken(startToken
+					.getStartOffset(), endToken.getEndOffset(), DrugChangeStatusToken.SUM);
+			
+		} else if (fsm.equals(iv_maxStatusMachine)) {
+			fractionToken = new DrugChangeStatusToken(startToken
+					.getStartOffset(), endToken.getEndOffset(), DrugChangeStatusToken.MAX);
+			
 		}
-
-		return fractionSet;
+		return fractionToken;
 	}
 }
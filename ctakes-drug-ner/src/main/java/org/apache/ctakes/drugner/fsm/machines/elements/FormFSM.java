@@ -28,6 +28,7 @@ import java.util.Set;
 import org.apache.ctakes.core.fsm.condition.WordSetCondition;
 import org.apache.ctakes.core.fsm.state.NamedState;
 import org.apache.ctakes.core.fsm.token.BaseToken;
+import org.apache.ctakes.drugner.fsm.machines.util.MachineRunner;
 import org.apache.ctakes.drugner.fsm.output.elements.FormToken;
 
 import net.openai.util.fsm.AnyCondition;
@@ -50,6 +51,8 @@ public class FormFSM {
 
 	// contains the finite state machines
 	private Set iv_machineSet = new HashSet();
+	// runs the finite state machines
+	private final MachineRunner iv_machineRunner;
 
 	/**
 	 * 
@@ -114,6 +117,7 @@ public class FormFSM {
 		iv_fullTextSet.add("milliliters");
  
 		iv_machineSet.add(getFormMachine());
+		iv_machineRunner = new MachineRunner(iv_machineSet);
 		
 
 	}
@@ -154,89 +158,14 @@ public class FormFSM {
 	 * @throws Exception
 	 */
 	public Set execute(List tokens, Set overrideSet) throws Exception {
-		Set measurementSet = new HashSet();
-
-		// maps a fsm to a token start index
-		// key = fsm , value = token start index
-		Map tokenStartMap = new HashMap();
-
-		Iterator overrideTokenItr = overrideSet.iterator();
-		// key = start offset, value = override BaseToken object
-		Map overrideTokenMap = new HashMap();
-		while (overrideTokenItr.hasNext()) {
-			BaseToken t = (BaseToken) overrideTokenItr.next();
-			Integer key = new Integer(t.getStartOffset());
-			overrideTokenMap.put(key, t);
-		}
-
-		boolean overrideOn = false;
-		int overrideEndOffset = -1;
-		for (int i = 0; i < tokens.size(); i++) {
-			BaseToken token = (BaseToken) tokens.get(i);
-
-			Integer key = new Integer(token.getStartOffset());
-
-			if (overrideOn) {
-				if (token.getStartOffset() >= overrideEndOffset) {
-					overrideOn = false;
-					overrideEndOffset = -1;
-				} else {
-					// step to next iteration of for loop
-					continue;
-				}
-			} else {
-				if (overrideTokenMap.containsKey(key)) {
-					// override one or more tokens until the override
-					// token is complete
-					token = (BaseToken) overrideTokenMap.get(key);
-					overrideOn = true;
-					overrideEndOffset = token.getEndOffset();
-				}
-			}
-
-			Iterator machineItr = iv_machineSet.iterator();
-			while (machineItr.hasNext()) {
-				Machine fsm = (Machine) machineItr.next();
-
-				fsm.input(token);
-
-				State currentState = fsm.getCurrentState();
-				if (currentState.getStartStateFlag()) {
-					tokenStartMap.put(fsm, Integer.valueOf(i));
-				}
-				if (currentState.getEndStateFlag()) {
-					Object o = tokenStartMap.get(fsm);
-					int tokenStartIndex;
-					if (o == null) {
-						// By default, all machines start with
-						// token zero.
-						tokenStartIndex = 0;
-					} else {
-						tokenStartIndex = ((Integer) o).intValue();
-						// skip ahead over single token we don't want
-						tokenStartIndex++;
-					}
+		final Set measurementSet = new HashSet();
+		iv_machineRunner.run(tokens, overrideSet,
+				(fsm, currentState, tokenStartIndex, i, token) -> {
 					BaseToken startToken = (BaseToken) tokens
 							.get(tokenStartIndex);
-					BaseToken endToken = token;
-					FormToken measurementToken = new FormToken(startToken
-							.getStartOffset(), endToken.getEndOffset());
-					measurementSet.add(measurementToken);
-					fsm.reset();
-				}
-			}
-		}
-
-		// cleanup
-		tokenStartMap.clear();
-
-		// reset machines
-		Iterator itr = iv_machineSet.iterator();
-		while (itr.hasNext()) {
-			Machine fsm = (Machine) itr.next();
-			fsm.reset();
-		}
-
+					measurementSet.add(new FormToken(startToken
+							.getStartOffset(), token.getEndOffset()));
+				});
 		return measurementSet;
 	}
 
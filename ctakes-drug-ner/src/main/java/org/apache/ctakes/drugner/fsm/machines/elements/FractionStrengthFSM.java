@@ -18,11 +18,8 @@
  */
 package org.apache.ctakes.drugner.fsm.machines.elements;
 
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.apache.ctakes.core.fsm.condition.DecimalCondition;
@@ -32,6 +29,7 @@ import org.apache.ctakes.core.fsm.condition.WordSetCondition;
 import org.apache.ctakes.core.fsm.state.NamedState;
 import org.apache.ctakes.core.fsm.token.BaseToken;
 import org.apache.ctakes.drugner.fsm.elements.conditions.ContainsSetTextValueCondition;
+import org.apache.ctakes.drugner.fsm.machines.util.MachineRunner;
 import org.apache.ctakes.drugner.fsm.output.util.FractionStrengthToken;
 
 import net.openai.util.fsm.AnyCondition;
@@ -53,6 +51,8 @@ public class FractionStrengthFSM
 
     // contains the finite state machines
     private Set<Machine> iv_machineSet = new HashSet<Machine>();
+    // runs the finite state machines
+    private final MachineRunner iv_machineRunner;
 
     /**
      * Constructor
@@ -91,6 +91,7 @@ public class FractionStrengthFSM
 
         iv_machineSet.add(getStrengthSlashMachine());
         iv_machineSet.add(getStandardMachine());
+        iv_machineRunner = new MachineRunner(iv_machineSet);
        
     }
 
@@ -222,67 +223,17 @@ public class FractionStrengthFSM
      */
     public Set execute(List tokens) throws Exception
     {
-        Set<FractionStrengthToken> fractionSet = new HashSet<FractionStrengthToken>();
-
-        // maps a fsm to a token start index
-        // key = fsm , value = token start index
-        Map tokenStartMap = new HashMap();
-
-        for (int i = 0; i < tokens.size(); i++)
-        {
-            BaseToken token = (BaseToken) tokens.get(i);
-
-            Iterator machineItr = iv_machineSet.iterator();
-            while (machineItr.hasNext())
-            {
-            	Machine fsm = (Machine) machineItr.next();
-
-            	fsm.input(token);
-
-            	State currentState = fsm.getCurrentState();
-            	if (currentState.getStartStateFlag())
-            	{
-            		tokenStartMap.put(fsm, Integer.valueOf(i));
-            	}
-            	if (currentState.getEndStateFlag())
-            	{
-            		Object o = tokenStartMap.get(fsm);
-            		int tokenStartIndex;
-            		if (o == null)
-            		{
-            			// By default, all machines start with token zero.
-            			tokenStartIndex = 0;
-            		}
-            		else
-            		{
-            			tokenStartIndex = ((Integer) o).intValue();
-            			// skip ahead over single token we don't want
-            			tokenStartIndex++;						
-            		}
-            		BaseToken startToken =
-            			(BaseToken) tokens.get(tokenStartIndex);
-            		BaseToken endToken = token;
-            		FractionStrengthToken fractionToken =
-            			new FractionStrengthToken(
-            					startToken.getStartOffset(),
-            					endToken.getEndOffset());
-            		fractionSet.add(fractionToken);
-            		fsm.reset();
-            	}
-            }
-        }
-
-        // cleanup
-        tokenStartMap.clear();
-
-        // reset machines
-        Iterator<Machine> itr = iv_machineSet.iterator();
-        while (itr.hasNext())
-        {
-            Machine fsm = itr.next();
-            fsm.reset();
-        }
-
+        final Set<FractionStrengthToken> fractionSet = new HashSet<FractionStrengthToken>();
+        iv_machineRunner.run(tokens,
+                (fsm, currentState, tokenStartIndex, i, token) ->
+                {
+                    BaseToken startToken =
+                        (BaseToken) tokens.get(tokenStartIndex);
+                    fractionSet.add(
+                        new FractionStrengthToken(
+                            startToken.getStartOffset(),
+                            token.getEndOffset()));
+                });
         return fractionSet;
     }
 }
@@ -18,11 +18,8 @@
  */
 package org.apache.ctakes.drugner.fsm.machines.elements;
 
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.apache.ctakes.core.fsm.condition.DisjoinCondition;
@@ -36,6 +33,7 @@ import org.apache.ctakes.core.fsm.token.BaseToken;
 import org.apache.ctakes.drugner.fsm.elements.conditions.FrequencyUnitCondition;
 import org.apache.ctakes.drugner.fsm.elements.conditions.RangeStrengthCondition;
 import org.apache.ctakes.drugner.fsm.elements.conditions.RouteCondition;
+import org.apache.ctakes.drugner.fsm.machines.util.MachineRunner;
 import org.apache.ctakes.drugner.fsm.output.elements.FrequencyToken;
 import org.apache.ctakes.drugner.fsm.states.util.IndentStartState;
 
@@ -61,6 +59,8 @@ public class FrequencyFSM {
 
 	// contains the finite state machines
 	private Set iv_machineSet = new HashSet();
+	// runs the finite state machines
+	private final MachineRunner iv_machineRunner;
 
 	// private DosagesFSM iv_dosages = new DosagesFSM();
 
@@ -203,6 +203,7 @@ public class FrequencyFSM {
 		iv_hyphenatedSet.add("nine-times-each-hour");
 
 		iv_machineSet.add(getFrequencyMachine());
+		iv_machineRunner = new MachineRunner(iv_machineSet);
 
 
 	}
@@ -305,101 +306,11 @@ public class FrequencyFSM {
 	 * @throws Exception
 	 */
 	public Set execute(List tokens, Set overrideSet) throws Exception {
-		Set rangeSet = new HashSet();
-
-		// maps a fsm to a token start index
-		// key = fsm , value = token start index
-		Map tokenStartMap = new HashMap();
-
-		Iterator overrideTokenItr = overrideSet.iterator();
-		// key = start offset, value = override BaseToken object
-		Map overrideTokenMap = new HashMap();
-		while (overrideTokenItr.hasNext()) {
-			BaseToken t = (BaseToken) overrideTokenItr.next();
-			Integer key = new Integer(t.getStartOffset());
-			overrideTokenMap.put(key, t);
-		}
-
-		boolean overrideOn = false;
-		int overrideEndOffset = -1;
-		for (int i = 0; i < tokens.size(); i++) {
-			BaseToken token = (BaseToken) tokens.get(i);
-
-			Integer key = new Integer(token.getStartOffset());
-
-			if (overrideOn) {
-				if (token.getStartOffset() >= overrideEndOffset) {
-					overrideOn = false;
-					overrideEndOffset = -1;
-				} else {
-					// step to next iteration of for loop
-					continue;
-				}
-			} else {
-				if (overrideTokenMap.containsKey(key)) {
-					// override one or more tokens until the override
-					// token is complete
-					token = (BaseToken) overrideTokenMap.get(key);
-					overrideOn = true;
-					overrideEndOffset = token.getEndOffset();
-				}
-			}
-
-			Iterator machineItr = iv_machineSet.iterator();
-			while (machineItr.hasNext()) {
-				Machine fsm = (Machine) machineItr.next();
-
-				fsm.input(token);
-
-				State currentState = fsm.getCurrentState();
-				if (currentState.getStartStateFlag()) {
-					tokenStartMap.put(fsm, new Integer(i));
-				}
-				if (currentState.getEndStateFlag()) {
-					Object o = tokenStartMap.get(fsm);
-					int tokenStartIndex;
-					if (o == null) {
-						// By default, all machines start with
-						// token zero.
-						tokenStartIndex = 0;
-					} else {
-						tokenStartIndex = ((Integer) o).intValue();
-						// skip ahead over single token we don't want
-						tokenStartIndex++;
-					}
-										BaseToken startToken = null;
-					if (currentState instanceof IndentStartState) {
-						startToken = (BaseToken) tokens
-								.get(tokenStartIndex + 1);
-
-					} else {
-						startToken = (BaseToken) tokens.get(tokenStartIndex);
-
-					}
-					BaseToken endToken = null;
-					if (currentState instanceof NonTerminalEndState) {
-						endToken = (BaseToken) tokens.get(i - 1);
-					} else {
-						endToken = token;
-					}
-					FrequencyToken segmentToken = new FrequencyToken(startToken
-							.getStartOffset(), endToken.getEndOffset());
-					rangeSet.add(segmentToken);
-					fsm.reset();
-				}
-			}
-		}
-
-		// cleanup
-		tokenStartMap.clear();
-
-		// reset machines
-		Iterator itr = iv_machineSet.iterator();
-		while (itr.hasNext()) {
-			Machine fsm = (Machine) itr.next();
-			fsm.reset();
-		}
-
+		final Set rangeSet = new HashSet();
+		iv_machineRunner.run(tokens, overrideSet,
+				(fsm, currentState, tokenStartIndex, i, token) -> rangeSet
+						.add(createFrequencyToken(tokens, currentState,
+								tokenStartIndex, i, token)));
 		return rangeSet;
 	}
 
@@ -411,71 +322,11 @@ public class FrequencyFSM {
 	 * @throws Exception
 	 */
 	public Set execute(List tokens) throws Exception {
-		Set fractionSet = new HashSet();
-
-		// maps a fsm to a token start index
-		// key = fsm , value = token start index
-		Map tokenStartMap = new HashMap();
-
-		for (int i = 0; i < tokens.size(); i++) {
-			BaseToken token = (BaseToken) tokens.get(i);
-
-			Iterator machineItr = iv_machineSet.iterator();
-			while (machineItr.hasNext()) {
-				Machine fsm = (Machine) machineItr.next();
-
-				fsm.input(token);
-
-				State currentState = fsm.getCurrentState();
-				if (currentState.getStartStateFlag()) {
-					tokenStartMap.put(fsm, new Integer(i));
-				}
-				if (currentState.getEndStateFlag()) {
-					Object o = tokenStartMap.get(fsm);
-					int tokenStartIndex;
-					if (o == null) {
-						// By default, all machines start with
-						// token zero.
-						tokenStartIndex = 0;
-					} else {
-						tokenStartIndex = ((Integer) o).intValue();
-						// skip ahead over single token we don't want
-						tokenStartIndex++;
-					}
-					BaseToken startToken = null;
-					if (currentState instanceof IndentStartState) {
-						startToken = (BaseToken) tokens
-								.get(tokenStartIndex + 1);
-
-					} else {
-						startToken = (BaseToken) tokens.get(tokenStartIndex);
-
-					}
-					BaseToken endToken = null;
-					if (currentState instanceof NonTerminalEndState) {
-						endToken = (BaseToken) tokens.get(i - 1);
-					} else {
-						endToken = token;
-					}
-					FrequencyToken fractionToken = new FrequencyToken(
-							startToken.getStartOffset(), endToken
-									.getEndOffset());
-					fractionSet.add(fractionToken);
-					fsm.reset();
-				}
-			}
-		}
-
-		// cleanup
-		tokenStartMap.clear();
-
-		// reset machines
-		Iterator itr = iv_machineSet.iterator();
-		while (itr.hasNext()) {
-			Machine fsm = (Machine) itr.next();
-			fsm.reset();
-		}
-
+		final Set fractionSet = new HashSet();
+		iv_machineRunner.run(tokens,
+				(fsm, currentState, tokenStartIndex, i, token) -> fractionSet
+						.add(createFrequencyToken(tokens, currentState,
+								tokenStartIndex, i, token)));
 		return fractionSet;
 	}
 
@@ -488,168 +339,40 @@ public class FrequencyFSM {
 	 */
 	public Set execute(List tokens, Set overrideSet1, Set overrideSet2)
 			throws Exception {
-		Set measurementSet = new HashSet();
-
-		// maps a fsm to a token start index
-		// key = fsm , value = token start index
-		Map tokenStartMap = new HashMap();
-
-		Iterator overrideTokenItr1 = overrideSet1.iterator();
-		Iterator overrideTokenItr2 = overrideSet2.iterator();
-		// key = start offset, value = override BaseToken object
-		Map overrideTokenMap1 = new HashMap();
-		Map overrideTokenMap2 = new HashMap();
-		Map overrideBeginTokenMap1 = new HashMap();
-		Map overrideBeginTokenMap2 = new HashMap();
-		while (overrideTokenItr1.hasNext()) {
-			BaseToken t = (BaseToken) overrideTokenItr1.next();
-			Integer key = new Integer(t.getStartOffset());
-			overrideTokenMap1.put(key, t);
-		}
-
-		while (overrideTokenItr2.hasNext()) {
-			BaseToken t = (BaseToken) overrideTokenItr2.next();
-			Integer key = new Integer(t.getStartOffset());
-			overrideTokenMap2.put(key, t);
-		}
+		final Set measurementSet = new HashSet();
+		iv_machineRunner.runAnchored(tokens, overrideSet1, overrideSet2,
+				(fsm, currentState, tokenStartIndex, i, token) -> measurementSet
+						.add(createFrequencyToken(tokens, currentState,
+								tokenStartIndex, i, token)));
+		return measurementSet;
+	}
 
-		boolean overrideOn1 = false;
-		boolean overrideOn2 = false;
-		int overrideEndOffset1 = -1;
-		int overrideEndOffset2 = -1;
-		int tokenOffset1 = 0;
-		int tokenOffset2 = 0;
-		int anchorKey1 = 0;
-		int anchorKey2 = 0;
-
-		for (int i = 0; i < tokens.size(); i++) {
-			BaseToken token = (BaseToken) tokens.get(i);
-
-			Integer key = new Integer(token.getStartOffset());
-			if (overrideOn1 && overrideOn2) {
-				if (overrideEndOffset1 >= overrideEndOffset2)
-					overrideOn1 = false;
-				else
-					overrideOn2 = false;
-			}
-			if (overrideOn1) {
-				if (token.getStartOffset() >= overrideEndOffset1) {
-					if (tokenOffset1 > 0)
-						overrideBeginTokenMap1.put(new Integer(anchorKey1), new Integer(tokenOffset1));
-					overrideOn1 = false;
-					overrideEndOffset1 = -1;
-				} else {
-					tokenOffset1++;
-					// step to next iteration of for loop
-					continue;
-				}
-			} else if (overrideOn2) {
-				if (token.getStartOffset() >= overrideEndOffset2) {
-					if (tokenOffset2 > 0)
-						overrideBeginTokenMap2.put(new Integer(anchorKey2), new Integer(tokenOffset2));
-					overrideOn2 = false;
-					overrideEndOffset2 = -1;
-				} else {
-					tokenOffset2++;
-					// step to next iteration of for loop
-					continue;
-				}
-			} else {
-				if (overrideTokenMap1.containsKey(key)) {
-					// override one or more tokens until the override
-					// token is complete
-					anchorKey1 = key.intValue();
-					token = (BaseToken) overrideTokenMap1.get(key);
-					overrideOn1 = true;
-					overrideEndOffset1 = token.getEndOffset();
-					tokenOffset1 = 0;
-				}
-				if (overrideTokenMap2.containsKey(key)) {
-					// override one or more tokens until the override
-					// token is complete
-					anchorKey2 = key.intValue();
-					token = (BaseToken) overrideTokenMap2.get(key);
-					overrideOn2 = true;
-					overrideEndOffset2 = token.getEndOffset();
-					tokenOffset2 = 0;
-				}
-			}
-
-			Iterator machineItr = iv_machineSet.iterator();
-			while (machineItr.hasNext()) {
-				Machine fsm = (Machine) machineItr.next();
-
-				fsm.input(token);
-				State currentState = fsm.getCurrentState();
-				if (currentState.getStartStateFlag()) {
-					tokenStartMap.put(fsm, new Integer(i));
-					tokenOffset1 = 0;
-					tokenOffset2 = 0;
-				}
-				if (currentState.getEndStateFlag()) {
-					Object o = tokenStartMap.get(fsm);
-					int tokenStartIndex;
-					int globalOffset = 0;
-					if (o == null) {
-						// By default, all machines start with
-						// token zero.
-						tokenStartIndex = 0;
-					} else {
-						Integer tokenMap1 = new Integer(0);
-						Integer tokenMap2 = new Integer(0);
-					
-						BaseToken lookUpOffset = (BaseToken) tokens.get(((Integer) o).intValue());
-							
-						if (overrideBeginTokenMap1.get(new Integer(lookUpOffset.getStartOffset())) != null){
-							Integer offSet = (Integer) (overrideBeginTokenMap1.get(new Integer(lookUpOffset.getStartOffset())));
-							tokenMap1 = new Integer(offSet.intValue()  + tokenMap1.intValue());
-						}
-						if (overrideBeginTokenMap2.get(new Integer(lookUpOffset.getStartOffset())) != null){
-							Integer offSet = (Integer) (overrideBeginTokenMap2.get(new Integer(lookUpOffset.getStartOffset())));
-							tokenMap2 = new Integer(offSet.intValue() + tokenMap2.intValue());
-							}
-						
-
-						globalOffset = tokenMap1.intValue() + tokenMap2.intValue();
-						tokenStartIndex = ((Integer) o).intValue() + globalOffset;
-						// skip ahead over single token we don't want
-						tokenStartIndex++;
-					}
-
-					BaseToken startToken = null;
-					if (currentState instanceof IndentStartState) {
-						startToken = (BaseToken) tokens
-								.get(tokenStartIndex + 1);
-
-					} else {
-						startToken = (BaseToken) tokens.get(tokenStartIndex);
-
-					}
-					BaseToken endToken = null;
-					if (currentState instanceof NonTerminalEndState) {
-						endToken = (BaseToken) tokens.get(i - 1);
-					} else {
-						endToken = token;
-					}
-					FrequencyToken measurementToken = new FrequencyToken(
-							startToken.getStartOffset(), endToken
-									.getEndOffset());
-					measurementSet.add(measurementToken);
-					fsm.reset();
-				}
-			}
-		}
+	/**
+	 * @param tokens
+	 * @param currentState end state of the machine
+	 * @param tokenStartIndex index of the first token of the match
+	 * @param i index of the token that ended the match
+	 * @param token token that ended the match
+	 * @return FrequencyToken for the match
+	 */
+	private FrequencyToken createFrequencyToken(List tokens,
+			State currentState, int tokenStartIndex, int i, BaseToken token) {
+		BaseToken startToken = null;
+		if (currentState instanceof IndentStartState) {
+			startToken = (BaseToken) tokens
+					.get(tokenStartIndex + 1);
 
-		// cleanup
-		tokenStartMap.clear();
+		} else {
+			startToken = (BaseToken) tokens.get(tokenStartIndex);
 
-		// reset machines
-		Iterator itr = iv_machineSet.iterator();
-		while (itr.hasNext()) {
-			Machine fsm = (Machine) itr.next();
-			fsm.reset();
 		}
-
-		return measurementSet;
+		BaseToken endToken = null;
+		if (currentState instanceof NonTerminalEndState) {
+			endToken = (BaseToken) tokens.get(i - 1);
+		} else {
+			endToken = token;
+		}
+		return new FrequencyToken(startToken.getStartOffset(), endToken
+				.getEndOffset());
 	}
 }
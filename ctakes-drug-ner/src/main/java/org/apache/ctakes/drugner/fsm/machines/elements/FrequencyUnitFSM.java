@@ -18,11 +18,8 @@
  */
 package org.apache.ctakes.drugner.fsm.machines.elements;
 
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.apache.ctakes.core.fsm.condition.CombineCondition;
@@ -39,6 +36,7 @@ import org.apache.ctakes.core.fsm.state.NonTerminalEndState;
 import org.apache.ctakes.core.fsm.token.BaseToken;
 import org.apache.ctakes.drugner.fsm.elements.conditions.ContainsSetTextValueCondition;
 import org.apache.ctakes.drugner.fsm.elements.conditions.TimeCondition;
+import org.apache.ctakes.drugner.fsm.machines.util.MachineRunner;
 import org.apache.ctakes.drugner.fsm.output.elements.FrequencyUnitToken;
 import org.apache.ctakes.drugner.fsm.states.util.IndentStartState;
 
@@ -107,6 +105,8 @@ public class FrequencyUnitFSM {
 	
 	// contains the finite state machines
 	private Set iv_machineSet = new HashSet();
+	// runs the finite state machines
+	private final MachineRunner iv_machineRunner;
 	
     private Machine iv_DailyMachine;
     
@@ -367,6 +367,7 @@ public class FrequencyUnitFSM {
 		iv_machineSet.add(iv_EveryOtherDayMachine);
 		iv_machineSet.add(iv_WeeklyMachine);
 		iv_machineSet.add(iv_PrnMachine);
+		iv_machineRunner = new MachineRunner(iv_machineSet);
 		
 
 
@@ -1337,164 +1338,11 @@ public class FrequencyUnitFSM {
 	 * @throws Exception
 	 */
 	public Set execute(List tokens, Set overrideSet) throws Exception {
-		Set rangeSet = new HashSet();
-
-		// maps a fsm to a token start index
-		// key = fsm , value = token start index
-		Map tokenStartMap = new HashMap();
-
-		Iterator overrideTokenItr = overrideSet.iterator();
-		// key = start offset, value = override BaseToken object
-		Map overrideTokenMap = new HashMap();
-		while (overrideTokenItr.hasNext()) {
-			BaseToken t = (BaseToken) overrideTokenItr.next();
-			Integer key = new Integer(t.getStartOffset());
-			overrideTokenMap.put(key, t);
-		}
-
-		boolean overrideOn = false;
-		int overrideEndOffset = -1;
-		for (int i = 0; i < tokens.size(); i++) {
-			BaseToken token = (BaseToken) tokens.get(i);
-
-			Integer key = new Integer(token.getStartOffset());
-
-			if (overrideOn) {
-				if (token.getStartOffset() >= overrideEndOffset) {
-					overrideOn = false;
-					overrideEndOffset = -1;
-				} else {
-					// step to next iteration of for loop
-					continue;
-				}
-			} else {
-				if (overrideTokenMap.containsKey(key)) {
-					// override one or more tokens until the override
-					// token is complete
-					token = (BaseToken) overrideTokenMap.get(key);
-					overrideOn = true;
-					overrideEndOffset = token.getEndOffset();
-				}
-			}
-
-			Iterator machineItr = iv_machineSet.iterator();
-			while (machineItr.hasNext()) {
-				Machine fsm = (Machine) machineItr.next();
-
-				fsm.input(token);
-				BaseToken startToken = null;
-			  
-				State currentState = fsm.getCurrentState();
-				
-				if (currentState.getStartStateFlag()) {
-					tokenStartMap.put(fsm, new Integer(i));
-								
-				}
-				if (currentState.getEndStateFlag()) {
-					Object o = tokenStartMap.get(fsm);
-					int tokenStartIndex;
-					if (o == null) {
-						// By default, all machines start with
-						// token zero.
-						tokenStartIndex = 0;
-					} else {
-						tokenStartIndex = ((Integer) o).intValue();
-						// skip ahead over single token we don't want
-						tokenStartIndex++;
-					}
-					
-										
-					if (currentState instanceof IndentStartState) {
-                    	startToken = (BaseToken) tokens
-						.get(tokenStartIndex + 1);
-    					
-                    }
-                    else {
-                    	startToken = (BaseToken) tokens
-						.get(tokenStartIndex);
-				
-                    }
-					
-                    BaseToken endToken = null;
-                    if (currentState instanceof NonTerminalEndState)
-                    {
-                        endToken = (BaseToken) tokens.get(i - 1);
-                    }
-                    else
-                    {
-                        endToken = token;
-                    }
-                    
-					FrequencyUnitToken fractionToken = null;
-					 if (fsm.equals(iv_EveryOtherHourMachine))
-							fractionToken = new FrequencyUnitToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset(), FrequencyUnitToken.QUANTITY_24/2);
-					 else if (fsm.equals(iv_SixTimesADayMachine))
-							fractionToken = new FrequencyUnitToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset(), FrequencyUnitToken.QUANTITY_SIX);
-					 else if (fsm.equals(iv_FiveTimesADayMachine))
-							fractionToken = new FrequencyUnitToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset(), FrequencyUnitToken.QUANTITY_FIVE);
-					 else if (fsm.equals(iv_FourTimesADayMachine))
-							fractionToken = new FrequencyUnitToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset(), FrequencyUnitToken.QUANTITY_FOUR);
-					 else if (fsm.equals(iv_ThreeTimesADayMachine))
-							fractionToken = new FrequencyUnitToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset(), FrequencyUnitToken.QUANTITY_THREE);
-					else if (fsm.equals(iv_HourlyMachine) || fsm.equals(iv_HourlySuffixMachine))
-							fractionToken = new FrequencyUnitToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset(), FrequencyUnitToken.QUANTITY_24);
-					else if (fsm.equals(iv_TwiceADayMachine))
-						fractionToken = new FrequencyUnitToken(
-							startToken.getStartOffset(), endToken
-									.getEndOffset(), FrequencyUnitToken.QUANTITY_TWO);
-					else if (fsm.equals(iv_DailyMachine) || fsm.equals(iv_DailySuffixMachine))
-						fractionToken = new FrequencyUnitToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset(), FrequencyUnitToken.QUANTITY_ONE);
-					else if (fsm.equals(iv_EveryOtherDayMachine))
-						fractionToken = new FrequencyUnitToken(
-							startToken.getStartOffset(), endToken
-									.getEndOffset(), FrequencyUnitToken.QUANTITY_EVERY_OTHER_DAY);
-					else if (fsm.equals(iv_WeeklyMachine)|| fsm.equals(iv_WeeklySuffixMachine))
-						fractionToken = new FrequencyUnitToken(
-							startToken.getStartOffset(), endToken
-									.getEndOffset(), FrequencyUnitToken.QUANTITY_WEEKLY);
-					else if (fsm.equals(iv_MonthlySuffixMachine))
-						fractionToken = new FrequencyUnitToken(
-							startToken.getStartOffset(), endToken
-									.getEndOffset(), FrequencyUnitToken.QUANTITY_MONTHLY);
-					else if (fsm.equals(iv_YearlySuffixMachine))
-						fractionToken = new FrequencyUnitToken(
-							startToken.getStartOffset(), endToken
-									.getEndOffset(), FrequencyUnitToken.QUANTITY_YEARLY);
-					else 
-						fractionToken = new FrequencyUnitToken(
-							startToken.getStartOffset(), endToken
-									.getEndOffset(), FrequencyUnitToken.QUANTITY_PRN);
-					
-					rangeSet.add(fractionToken);
-					fsm.reset();
-				}
-			}
-		}
-
-		// cleanup
-		tokenStartMap.clear();
-
-		// reset machines
-		Iterator itr = iv_machineSet.iterator();
-		while (itr.hasNext()) {
-			Machine fsm = (Machine) itr.next();
-			fsm.reset();
-		}
-
+		final Set rangeSet = new HashSet();
+		iv_machineRunner.run(tokens, overrideSet,
+				(fsm, currentState, tokenStartIndex, i, token) -> rangeSet
+						.add(createFrequencyUnitToken(tokens, fsm,
+								currentState, tokenStartIndex, i, token)));
 		return rangeSet;
 	}
 
@@ -1506,131 +1354,72 @@ public class FrequencyUnitFSM {
 	 * @throws Exception
 	 */
 	public Set execute(List tokens) throws Exception {
-		Set fractionSet = new HashSet();
-
-		// maps a fsm to a token start index
-		// key = fsm , value = token start index
-		Map tokenStartMap = new HashMap();
-
-		for (int i = 0; i < tokens.size(); i++) {
-			BaseToken token = (BaseToken) tokens.get(i);
-
-			Iterator machineItr = iv_machineSet.iterator();
-			while (machineItr.hasNext()) {
-				Machine fsm = (Machine) machineItr.next();
-
-				fsm.input(token);
-
-				State currentState = fsm.getCurrentState();
-				BaseToken startToken = null;
-
-				if (currentState.getStartStateFlag()) {
-					tokenStartMap.put(fsm, new Integer(i));
-								
-				}
-				if (currentState.getEndStateFlag()) {
-					Object o = tokenStartMap.get(fsm);
-					int tokenStartIndex;
-					if (o == null) {
-						// By default, all machines start with
-						// token zero.
-						tokenStartIndex = 0;
-					} else {
-						tokenStartIndex = ((Integer) o).intValue();
-						// skip ahead over single token we don't want
-						tokenStartIndex++;
-					}
-					
-	               if (currentState instanceof IndentStartState){
-	                    	startToken = (BaseToken) tokens
-							.get(tokenStartIndex + 1);
-	    					
-	                    }
-	               else {
-	                    	startToken = (BaseToken) tokens
-							.get(tokenStartIndex);
-					
-	                    }
-                    BaseToken endToken = null;
-                    if (currentState instanceof NonTerminalEndState)
-                    {
-                        endToken = (BaseToken) tokens.get(i - 1);
-                    }
-                    else
-                    {
-                        endToken = token;
-                    }
-					FrequencyUnitToken fractionToken = null;
-					 if (fsm.equals(iv_EveryOtherHourMachine))
-							fractionToken = new FrequencyUnitToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset(), FrequencyUnitToken.QUANTITY_24/2);
-					 else if (fsm.equals(iv_SixTimesADayMachine))
-							fractionToken = new FrequencyUnitToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset(), FrequencyUnitToken.QUANTITY_SIX);
-					 else if (fsm.equals(iv_FiveTimesADayMachine))
-							fractionToken = new FrequencyUnitToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset(), FrequencyUnitToken.QUANTITY_FIVE);
-					 else if (fsm.equals(iv_FourTimesADayMachine))
-							fractionToken = new FrequencyUnitToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset(), FrequencyUnitToken.QUANTITY_FOUR);
-					 else if (fsm.equals(iv_ThreeTimesADayMachine))
-							fractionToken = new FrequencyUnitToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset(), FrequencyUnitToken.QUANTITY_THREE);
-					else if (fsm.equals(iv_HourlyMachine) || fsm.equals(iv_HourlySuffixMachine))
-							fractionToken = new FrequencyUnitToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset(), FrequencyUnitToken.QUANTITY_24);
-					else if (fsm.equals(iv_TwiceADayMachine))
-						fractionToken = new FrequencyUnitToken(
-							startToken.getStartOffset(), endToken
-									.getEndOffset(), FrequencyUnitToken.QUANTITY_TWO);
-					else if (fsm.equals(iv_DailyMachine) || fsm.equals(iv_DailySuffixMachine))
-						fractionToken = new FrequencyUnitToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset(), FrequencyUnitToken.QUANTITY_ONE);
-					else if (fsm.equals(iv_EveryOtherDayMachine))
-						fractionToken = new FrequencyUnitToken(
-							startToken.getStartOffset(), endToken
-									.getEndOffset(), FrequencyUnitToken.QUANTITY_EVERY_OTHER_DAY);
-					else if (fsm.equals(iv_WeeklyMachine)|| fsm.equals(iv_WeeklySuffixMachine))
-						fractionToken = new FrequencyUnitToken(
-							startToken.getStartOffset(), endToken
-									.getEndOffset(), FrequencyUnitToken.QUANTITY_WEEKLY);
-					else if (fsm.equals(iv_MonthlySuffixMachine))
-						fractionToken = new FrequencyUnitToken(
-							startToken.getStartOffset(), endToken
-									.getEndOffset(), FrequencyUnitToken.QUANTITY_MONTHLY);
-					else if (fsm.equals(iv_YearlySuffixMachine))
-						fractionToken = new FrequencyUnitToken(
-							startToken.getStartOffset(), endToken
-									.getEndOffset(), FrequencyUnitToken.QUANTITY_YEARLY);
-					else 
-						fractionToken = new FrequencyUnitToken(
-							startToken.getStartOffset(), endToken
-									.getEndOffset(), FrequencyUnitToken.QUANTITY_PRN);
-				
-					fractionSet.add(fractionToken);
-					fsm.reset();
-				}
-			}
-		}
-
-		// cleanup
-		tokenStartMap.clear();
+		final Set fractionSet = new HashSet();
+		iv_machineRunner.run(tokens,
+				(fsm, currentState, tokenStartIndex, i, token) -> fractionSet
+						.add(createFrequencyUnitToken(tokens, fsm,
+								currentState, tokenStartIndex, i, token)));
+		return fractionSet;
+	}
 
-		// reset machines
-		Iterator itr = iv_machineSet.iterator();
-		while (itr.hasNext()) {
-			Machine fsm = (Machine) itr.next();
-			fsm.reset();
+	/**
+	 * @param tokens
+	 * @param fsm machine that matched
+	 * @param currentState end state of the machine
+	 * @param tokenStartIndex index of the first token of the match
+	 * @param i index of the token that ended the match
+	 * @param token token that ended the match
+	 * @return FrequencyUnitToken with the quantity of the machine
+	 */
+	private FrequencyUnitToken createFrequencyUnitToken(List tokens,
+			Machine fsm, State currentState, int tokenStartIndex, int i,
+			BaseToken token) {
+		BaseToken startToken = null;
+		if (currentState instanceof IndentStartState) {
+			startToken = (BaseToken) tokens.get(tokenStartIndex + 1);
+		} else {
+			startToken = (BaseToken) tokens.get(tokenStartIndex);
 		}
+		BaseToken endToken = null;
+		if (currentState instanceof NonTerminalEndState) {
+			endToken = (BaseToken) tokens.get(i - 1);
+		} else {
+			endToken = token;
+		}
+		return new FrequencyUnitToken(startToken.getStartOffset(), endToken
+				.getEndOffset(), getFrequencyUnitQuantity(fsm));
+	}
 
-		return fractionSet;
+	/**
+	 * @param fsm machine that matched
+	 * @return frequency unit quantity for matches of the machine
+	 */
+	private double getFrequencyUnitQuantity(Machine fsm) {
+		if (fsm.equals(iv_EveryOtherHourMachine))
+			return FrequencyUnitToken.QUANTITY_24/2;
+		else if (fsm.equals(iv_SixTimesADayMachine))
+			return FrequencyUnitToken.QUANTITY_SIX;
+		else if (fsm.equals(iv_FiveTimesADayMachine))
+			return FrequencyUnitToken.QUANTITY_FIVE;
+		else if (fsm.equals(iv_FourTimesADayMachine))
+			return FrequencyUnitToken.QUANTITY_FOUR;
+		else if (fsm.equals(iv_ThreeTimesADayMachine))
+			return FrequencyUnitToken.QUANTITY_THREE;
+		else if (fsm.equals(iv_HourlyMachine) || fsm.equals(iv_HourlySuffixMachine))
+			return FrequencyUnitToken.QUANTITY_24;
+		else if (fsm.equals(iv_TwiceADayMachine))
+			return FrequencyUnitToken.QUANTITY_TWO;
+		else if (fsm.equals(iv_DailyMachine) || fsm.equals(iv_DailySuffixMachine))
+			return FrequencyUnitToken.QUANTITY_ONE;
+		else if (fsm.equals(iv_EveryOtherDayMachine))
+			return FrequencyUnitToken.QUANTITY_EVERY_OTHER_DAY;
+		else if (fsm.equals(iv_WeeklyMachine)|| fsm.equals(iv_WeeklySuffixMachine))
+			return FrequencyUnitToken.QUANTITY_WEEKLY;
+		else if (fsm.equals(iv_MonthlySuffixMachine))
+			return FrequencyUnitToken.QUANTITY_MONTHLY;
+		else if (fsm.equals(iv_YearlySuffixMachine))
+			return FrequencyUnitToken.QUANTITY_YEARLY;
+		return FrequencyUnitToken.QUANTITY_PRN;
 	}
 	/**
 	 * Gets a fsm that detects five times a day
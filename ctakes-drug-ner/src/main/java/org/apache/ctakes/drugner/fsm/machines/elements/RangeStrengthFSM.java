@@ -18,11 +18,8 @@
  */
 package org.apache.ctakes.drugner.fsm.machines.elements;
 
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.apache.ctakes.core.fsm.condition.DecimalCondition;
@@ -33,6 +30,7 @@ import org.apache.ctakes.core.fsm.condition.WordSetCondition;
 import org.apache.ctakes.core.fsm.state.NamedState;
 import org.apache.ctakes.core.fsm.token.BaseToken;
 import org.apache.ctakes.drugner.fsm.elements.conditions.FractionStrengthCondition;
+import org.apache.ctakes.drugner.fsm.machines.util.MachineRunner;
 import org.apache.ctakes.drugner.fsm.output.util.RangeStrengthToken;
 
 import net.openai.util.fsm.AnyCondition;
@@ -56,6 +54,8 @@ public class RangeStrengthFSM
 	Set iv_hyphenatedSet = new HashSet();
 	// contains the finite state machines
 	private Set iv_machineSet = new HashSet();
+	// runs the finite state machines
+	private final MachineRunner iv_machineRunner;
 
 	/**
 	 * Constructor
@@ -191,6 +191,7 @@ public class RangeStrengthFSM
 		iv_machineSet.add(getDashMachine());
 		iv_machineSet.add(getDotDashMachine());
 		iv_machineSet.add(getDashDashMachine());
+		iv_machineRunner = new MachineRunner(iv_machineSet);
 
 	}
 
@@ -374,107 +375,17 @@ public class RangeStrengthFSM
 	 */
 	public Set execute(List tokens, Set overrideSet) throws Exception
 	{
-		Set rangeSet = new HashSet();
-
-		// maps a fsm to a token start index
-		// key = fsm , value = token start index
-		Map tokenStartMap = new HashMap();
-
-		Iterator overrideTokenItr = overrideSet.iterator();
-		// key = start offset, value = override BaseToken object
-		Map overrideTokenMap = new HashMap();
-		while (overrideTokenItr.hasNext())
-		{
-			BaseToken t = (BaseToken)overrideTokenItr.next();
-			Integer key = new Integer(t.getStartOffset());
-			overrideTokenMap.put(key, t);
-		}
-
-		boolean overrideOn = false;
-		int overrideEndOffset = -1;
-		for (int i = 0; i < tokens.size(); i++)
-		{
-			BaseToken token = (BaseToken) tokens.get(i);
-
-			Integer key = new Integer(token.getStartOffset());						
-			
-			if (overrideOn)
-			{
-				if (token.getStartOffset() >= overrideEndOffset)
-				{
-					overrideOn = false;
-					overrideEndOffset = -1;						
-				}
-				else
-				{
-					// step to next iteration of for loop
-					continue;
-				}
-			}			
-			else
-			{
-				if (overrideTokenMap.containsKey(key))
-				{
-					// override one or more tokens until the override
-					// token is complete
-					token = (BaseToken)overrideTokenMap.get(key);
-					overrideOn = true;
-					overrideEndOffset = token.getEndOffset();
-				}
-			}
-
-			Iterator machineItr = iv_machineSet.iterator();
-			while (machineItr.hasNext())
-			{
-				Machine fsm = (Machine) machineItr.next();
-
-				fsm.input(token);
-
-				State currentState = fsm.getCurrentState();
-				if (currentState.getStartStateFlag())
-				{
-					tokenStartMap.put(fsm, new Integer(i));
-				}
-				if (currentState.getEndStateFlag())
+		final Set rangeSet = new HashSet();
+		iv_machineRunner.run(tokens, overrideSet,
+				(fsm, currentState, tokenStartIndex, i, token) ->
 				{
-					Object o = tokenStartMap.get(fsm);
-					int tokenStartIndex;
-					if (o == null)
-					{
-						// By default, all machines start with
-						// token zero.
-						tokenStartIndex = 0;
-					}
-					else
-					{
-						tokenStartIndex = ((Integer) o).intValue();
-						// skip ahead over single token we don't want
-						tokenStartIndex++;						
-					}
 					BaseToken startToken =
 						(BaseToken) tokens.get(tokenStartIndex);
-					BaseToken endToken = token;
-					RangeStrengthToken segmentToken =
+					rangeSet.add(
 						new RangeStrengthToken(
 							startToken.getStartOffset(),
-							endToken.getEndOffset());
-					rangeSet.add(segmentToken);
-					fsm.reset();
-				}
-			}
-		}
-
-		// cleanup
-		tokenStartMap.clear();
-
-		// reset machines
-		Iterator itr = iv_machineSet.iterator();
-		while (itr.hasNext())
-		{
-			Machine fsm = (Machine) itr.next();
-			fsm.reset();
-		}
-
+							token.getEndOffset()));
+				});
 		return rangeSet;
 	}
 
@@ -485,58 +396,14 @@ public class RangeStrengthFSM
 	 * @throws Exception
 	 */
 	public Set execute(List tokens) throws Exception {
-		Set fractionSet = new HashSet();
-	
-		// maps a fsm to a token start index
-		// key = fsm , value = token start index
-		Map tokenStartMap = new HashMap();
-	
-		for (int i = 0; i < tokens.size(); i++) {
-			BaseToken token = (BaseToken) tokens.get(i);
-	
-			Iterator machineItr = iv_machineSet.iterator();
-			while (machineItr.hasNext()) {
-				Machine fsm = (Machine) machineItr.next();
-	
-				fsm.input(token);
-	
-				State currentState = fsm.getCurrentState();
-				if (currentState.getStartStateFlag()) {
-					tokenStartMap.put(fsm, new Integer(i));
-				}
-				if (currentState.getEndStateFlag()) {
-					Object o = tokenStartMap.get(fsm);
-					int tokenStartIndex;
-					if (o == null) {
-						// By default, all machines start with
-						// token zero.
-						tokenStartIndex = 0;
-					} else {
-						tokenStartIndex = ((Integer) o).intValue();
-						// skip ahead over single token we don't want
-						tokenStartIndex++;
-					}
+		final Set fractionSet = new HashSet();
+		iv_machineRunner.run(tokens,
+				(fsm, currentState, tokenStartIndex, i, token) -> {
 					BaseToken startToken = (BaseToken) tokens
 							.get(tokenStartIndex);
-					BaseToken endToken = token;
-					RangeStrengthToken fractionToken = new RangeStrengthToken(startToken
-							.getStartOffset(), endToken.getEndOffset());
-					fractionSet.add(fractionToken);
-					fsm.reset();
-				}
-			}
-		}
-	
-		// cleanup
-		tokenStartMap.clear();
-	
-		// reset machines
-		Iterator itr = iv_machineSet.iterator();
-		while (itr.hasNext()) {
-			Machine fsm = (Machine) itr.next();
-			fsm.reset();
-		}
-	
+					fractionSet.add(new RangeStrengthToken(startToken
+							.getStartOffset(), token.getEndOffset()));
+				});
 		return fractionSet;
 	}
 }
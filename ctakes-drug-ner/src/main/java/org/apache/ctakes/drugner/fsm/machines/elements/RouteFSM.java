@@ -18,11 +18,8 @@
  */
 package org.apache.ctakes.drugner.fsm.machines.elements;
 
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.apache.ctakes.core.fsm.condition.DisjoinCondition;
@@ -33,6 +30,7 @@ import org.apache.ctakes.core.fsm.condition.WordSetCondition;
 import org.apache.ctakes.core.fsm.state.NamedState;
 import org.apache.ctakes.core.fsm.token.BaseToken;
 import org.apache.ctakes.drugner.fsm.elements.conditions.RangeStrengthCondition;
+import org.apache.ctakes.drugner.fsm.machines.util.MachineRunner;
 import org.apache.ctakes.drugner.fsm.output.elements.RouteToken;
 
 import net.openai.util.fsm.AnyCondition;
@@ -69,6 +67,8 @@ public class RouteFSM {
 
 	// contains the finite state machines
 	private Set iv_machineSet = new HashSet();
+	// runs the finite state machines
+	private final MachineRunner iv_machineRunner;
 	
     private Machine iv_PatchesMachine;
     
@@ -159,6 +159,7 @@ public class RouteFSM {
 		iv_machineSet.add(iv_OralMachine);
 		iv_machineSet.add(iv_RectalMachine);
 		iv_machineSet.add(iv_InjectMachine);
+		iv_machineRunner = new MachineRunner(iv_machineSet);
 
 	}
 
@@ -573,125 +574,11 @@ public class RouteFSM {
 	 * @throws Exception
 	 */
 	public Set execute(List tokens, Set overrideSet) throws Exception {
-		Set rangeSet = new HashSet();
-
-		// maps a fsm to a token start index
-		// key = fsm , value = token start index
-		Map tokenStartMap = new HashMap();
-
-		Iterator overrideTokenItr = overrideSet.iterator();
-		// key = start offset, value = override BaseToken object
-		Map overrideTokenMap = new HashMap();
-		while (overrideTokenItr.hasNext()) {
-			BaseToken t = (BaseToken) overrideTokenItr.next();
-			Integer key = new Integer(t.getStartOffset());
-			overrideTokenMap.put(key, t);
-		}
-
-		boolean overrideOn = false;
-		int overrideEndOffset = -1;
-		for (int i = 0; i < tokens.size(); i++) {
-			BaseToken token = (BaseToken) tokens.get(i);
-
-			Integer key = new Integer(token.getStartOffset());
-
-			if (overrideOn) {
-				if (token.getStartOffset() >= overrideEndOffset) {
-					overrideOn = false;
-					overrideEndOffset = -1;
-				} else {
-					// step to next iteration of for loop
-					continue;
-				}
-			} else {
-				if (overrideTokenMap.containsKey(key)) {
-					// override one or more tokens until the override
-					// token is complete
-					token = (BaseToken) overrideTokenMap.get(key);
-					overrideOn = true;
-					overrideEndOffset = token.getEndOffset();
-				}
-			}
-
-			Iterator machineItr = iv_machineSet.iterator();
-			while (machineItr.hasNext()) {
-				Machine fsm = (Machine) machineItr.next();
-
-				fsm.input(token);
-
-				State currentState = fsm.getCurrentState();
-				if (currentState.getStartStateFlag()) {
-					tokenStartMap.put(fsm, new Integer(i));
-				}
-				if (currentState.getEndStateFlag()) {
-					Object o = tokenStartMap.get(fsm);
-					int tokenStartIndex;
-					if (o == null) {
-						// By default, all machines start with
-						// token zero.
-						tokenStartIndex = 0;
-					} else {
-						tokenStartIndex = ((Integer) o).intValue();
-						// skip ahead over single token we don't want
-						tokenStartIndex++;
-					}
-					BaseToken startToken = (BaseToken) tokens
-							.get(tokenStartIndex);
-					BaseToken endToken = token;
-					RouteToken segmentToken = null;
-					
-					if (fsm.equals(iv_PatchesMachine)){
-						segmentToken = new RouteToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset());
-						segmentToken.setFormMethod(RouteToken.TRANSDERMAL);
-					}
-					else if (fsm.equals(iv_GastricMachine)){
-						segmentToken = new RouteToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset());
-						segmentToken.setFormMethod(RouteToken.GASTRIC);
-					}
-					else if (fsm.equals(iv_TopicalMachine)){
-						segmentToken = new RouteToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset());
-						segmentToken.setFormMethod(RouteToken.TOPICAL);
-					}
-					else if (fsm.equals(iv_OralMachine)){
-						segmentToken = new RouteToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset());
-						segmentToken.setFormMethod(RouteToken.ORAL);
-					}
-					else if (fsm.equals(iv_RectalMachine)){
-						segmentToken = new RouteToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset());
-						segmentToken.setFormMethod(RouteToken.RECTAL);
-					}
-					else if (fsm.equals(iv_InjectMachine)){
-						segmentToken = new RouteToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset());
-						segmentToken.setFormMethod(RouteToken.INTRAVENOUS);
-					}
-					rangeSet.add(segmentToken);
-					fsm.reset();
-				}
-			}
-		}
-
-		// cleanup
-		tokenStartMap.clear();
-
-		// reset machines
-		Iterator itr = iv_machineSet.iterator();
-		while (itr.hasNext()) {
-			Machine fsm = (Machine) itr.next();
-			fsm.reset();
-		}
-
+		final Set rangeSet = new HashSet();
+		iv_machineRunner.run(tokens, overrideSet,
+				(fsm, currentState, tokenStartIndex, i, token) -> rangeSet
+						.add(createRouteToken(fsm, (BaseToken) tokens
+								.get(tokenStartIndex), token)));
 		return rangeSet;
 	}
 
@@ -702,95 +589,61 @@ public class RouteFSM {
 	 * @throws Exception
 	 */
 	public Set execute(List tokens) throws Exception {
-		Set fractionSet = new HashSet();
-
-		// maps a fsm to a token start index
-		// key = fsm , value = token start index
-		Map tokenStartMap = new HashMap();
-
-		for (int i = 0; i < tokens.size(); i++) {
-			BaseToken token = (BaseToken) tokens.get(i);
-
-			Iterator machineItr = iv_machineSet.iterator();
-			while (machineItr.hasNext()) {
-				Machine fsm = (Machine) machineItr.next();
-
-				fsm.input(token);
-
-				State currentState = fsm.getCurrentState();
-				if (currentState.getStartStateFlag()) {
-					tokenStartMap.put(fsm, new Integer(i));
-				}
-				if (currentState.getEndStateFlag()) {
-					Object o = tokenStartMap.get(fsm);
-					int tokenStartIndex;
-					if (o == null) {
-						// By default, all machines start with
-						// token zero.
-						tokenStartIndex = 0;
-					} else {
-						tokenStartIndex = ((Integer) o).intValue();
-						// skip ahead over single token we don't want
-						tokenStartIndex++;
-					}
-					BaseToken startToken = (BaseToken) tokens
-							.get(tokenStartIndex);
-					BaseToken endToken = token;
-					RouteToken segmentToken = null;
-					
-					if (fsm.equals(iv_PatchesMachine)){
-						segmentToken = new RouteToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset());
-						segmentToken.setFormMethod(RouteToken.TRANSDERMAL);
-					}
-					else if (fsm.equals(iv_GastricMachine)){
-						segmentToken = new RouteToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset());
-						segmentToken.setFormMethod(RouteToken.GASTRIC);
-					}
-					else if (fsm.equals(iv_TopicalMachine)){
-						segmentToken = new RouteToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset());
-						segmentToken.setFormMethod(RouteToken.TOPICAL);
-					}
-					else if (fsm.equals(iv_OralMachine)){
-						segmentToken = new RouteToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset());
-						segmentToken.setFormMethod(RouteToken.ORAL);
-					}
-					else if (fsm.equals(iv_RectalMachine)){
-						segmentToken = new RouteToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset());
-						segmentToken.setFormMethod(RouteToken.RECTAL);
-					}
-					else if (fsm.equals(iv_InjectMachine)){
-						segmentToken = new RouteToken(
-								startToken.getStartOffset(), endToken
-										.getEndOffset());
-						segmentToken.setFormMethod(RouteToken.INTRAVENOUS);
-					}
-					
-					fractionSet.add(segmentToken);
-					fsm.reset();
-				}
-			}
-		}
-
-		// cleanup
-		tokenStartMap.clear();
+		final Set fractionSet = new HashSet();
+		iv_machineRunner.run(tokens,
+				(fsm, currentState, tokenStartIndex, i, token) -> fractionSet
+						.add(createRouteToken(fsm, (BaseToken) tokens
+								.get(tokenStartIndex), token)));
+		return fractionSet;
+	}
 
-		// reset machines
-		Iterator itr = iv_machineSet.iterator();
-		while (itr.hasNext()) {
-			Machine fsm = (Machine) itr.next();
-			fsm.reset();
+	/**
+	 * @param fsm machine that matched
+	 * @param startToken first token of the match
+	 * @param endToken last token of the match
+	 * @return RouteToken with the form method of the machine, or null if the
+	 *         machine has no form method
+	 */
+	private RouteToken createRouteToken(Machine fsm, BaseToken startToken,
+			BaseToken endToken) {
+		RouteToken segmentToken = null;
+
+		if (fsm.equals(iv_PatchesMachine)){
+			segmentToken = new RouteToken(
+					startToken.getStartOffset(), endToken
+							.getEndOffset());
+			segmentToken.setFormMethod(RouteToken.TRANSDERMAL);
 		}
-
-		return fractionSet;
+		else if (fsm.equals(iv_GastricMachine)){
+			segmentToken = new RouteToken(
+					startToken.getStartOffset(), endToken
+							.getEndOffset());
+			segmentToken.setFormMethod(RouteToken.GASTRIC);
+		}
+		else if (fsm.equals(iv_TopicalMachine)){
+			segmentToken = new RouteToken(
+					startToken.getStartOffset(), endToken
+							.getEndOffset());
+			segmentToken.setFormMethod(RouteToken.TOPICAL);
+		}
+		else if (fsm.equals(iv_OralMachine)){
+			segmentToken = new RouteToken(
+					startToken.getStartOffset(), endToken
+							.getEndOffset());
+			segmentToken.setFormMethod(RouteToken.ORAL);
+		}
+		else if (fsm.equals(iv_RectalMachine)){
+			segmentToken = new RouteToken(
+					startToken.getStartOffset(), endToken
+							.getEndOffset());
+			segmentToken.setFormMethod(RouteToken.RECTAL);
+		}
+		else if (fsm.equals(iv_InjectMachine)){
+			segmentToken = new RouteToken(
+					startToken.getStartOffset(), endToken
+							.getEndOffset());
+			segmentToken.setFormMethod(RouteToken.INTRAVENOUS);
+		}
+		return segmentToken;
 	}
 }
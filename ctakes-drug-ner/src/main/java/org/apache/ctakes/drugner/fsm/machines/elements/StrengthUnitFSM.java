@@ -18,11 +18,9 @@
  */
 package org.apache.ctakes.drugner.fsm.machines.elements;
 
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.apache.ctakes.core.fsm.condition.PunctuationValueCondition;
@@ -31,6 +29,7 @@ import org.apache.ctakes.core.fsm.condition.WordSetCondition;
 import org.apache.ctakes.core.fsm.state.NamedState;
 import org.apache.ctakes.core.fsm.token.BaseToken;
 import org.apache.ctakes.drugner.fsm.elements.conditions.ContainsSetTextValueCondition;
+import org.apache.ctakes.drugner.fsm.machines.util.MachineRunner;
 import org.apache.ctakes.drugner.fsm.output.elements.StrengthUnitCombinedToken;
 import org.apache.ctakes.drugner.fsm.output.elements.StrengthUnitToken;
 import org.apache.ctakes.drugner.fsm.states.util.IndentStartState;
@@ -52,6 +51,8 @@ public class StrengthUnitFSM {
 	private Machine iv_strengthMachine;
 	private Machine iv_strengthCombinedMachine;
 	private Set iv_machineSet = new HashSet();
+	// runs the finite state machines
+	private final MachineRunner iv_machineRunner;
 
 	/**
 	 * 
@@ -99,6 +100,7 @@ public class StrengthUnitFSM {
 		iv_strengthCombinedMachine = getStrengthCombinedMachine();
 		iv_machineSet.add(iv_strengthCombinedMachine);
 		iv_machineSet.add(iv_strengthMachine);
+		iv_machineRunner = new MachineRunner(iv_machineSet);
 
 
 	}
@@ -187,170 +189,11 @@ public class StrengthUnitFSM {
 	 */
 	public Set execute(List tokens, Set overrideSet1, Set overrideSet2)
 			throws Exception {
-		Set measurementSet = new HashSet();
-
-		// maps a fsm to a token start index
-		// key = fsm , value = token start index
-		Map tokenStartMap = new HashMap();
-
-		Iterator overrideTokenItr1 = overrideSet1.iterator();
-		Iterator overrideTokenItr2 = overrideSet2.iterator();
-		Map overrideTokenMap1 = new HashMap();
-		Map overrideTokenMap2 = new HashMap();
-		Map overrideBeginTokenMap1 = new HashMap();
-		Map overrideBeginTokenMap2 = new HashMap();
-		while (overrideTokenItr1.hasNext()) {
-			BaseToken t = (BaseToken) overrideTokenItr1.next();
-			Integer key = new Integer(t.getStartOffset());
-			overrideTokenMap1.put(key, t);
-		}
-
-		while (overrideTokenItr2.hasNext()) {
-			BaseToken t = (BaseToken) overrideTokenItr2.next();
-			Integer key = new Integer(t.getStartOffset());
-			overrideTokenMap2.put(key, t);
-		}
-
-		boolean overrideOn1 = false;
-		boolean overrideOn2 = false;
-		int overrideEndOffset1 = -1;
-		int overrideEndOffset2 = -1;
-		int tokenOffset1 = 0;
-		int tokenOffset2 = 0;
-		int anchorKey1 = 0;
-		int anchorKey2 = 0;
-		for (int i = 0; i < tokens.size(); i++) {
-			BaseToken token = (BaseToken) tokens.get(i);
-
-			Integer key = new Integer(token.getStartOffset());
-			if (overrideOn1 && overrideOn2){
-				if (overrideEndOffset1 >= overrideEndOffset2)
-					overrideOn1 = false;
-				else
-					overrideOn2 = false;
-			}
-			if (overrideOn1) {
-				if (token.getStartOffset() >= overrideEndOffset1) {
-					overrideBeginTokenMap1.put(new Integer(anchorKey1), new Integer(tokenOffset1));
-					overrideOn1 = false;
-					overrideEndOffset1 = -1;
-				} else {
-					tokenOffset1++;
-					// step to next iteration of for loop
-					continue;
-				}
-			} else if (overrideOn2) {
-				if (token.getStartOffset() >= overrideEndOffset2) {
-					overrideBeginTokenMap2.put(new Integer(anchorKey2), new Integer(tokenOffset2));
-					overrideOn2 = false;
-					overrideEndOffset2 = -1;
-				} else {
-					tokenOffset2++;
-					// step to next iteration of for loop
-					continue;
-				}
-			} else {
-				if (overrideTokenMap1.containsKey(key)) {
-					// override one or more tokens until the override
-					// token is complete
-					anchorKey1 = key.intValue();
-					token = (BaseToken) overrideTokenMap1.get(key);
-					overrideOn1 = true;
-					overrideEndOffset1 = token.getEndOffset();
-					tokenOffset1 = 0;
-				}
-				if (overrideTokenMap2.containsKey(key)) {
-					// override one or more tokens until the override
-					// token is complete
-					anchorKey2 = key.intValue();
-					token = (BaseToken) overrideTokenMap2.get(key);
-					overrideOn2 = true;
-					overrideEndOffset2 = token.getEndOffset();
-					tokenOffset2 = 0;
-				}
-			}
-
-			Iterator machineItr = iv_machineSet.iterator();
-			while (machineItr.hasNext()) {
-				Machine fsm = (Machine) machineItr.next();
-
-				fsm.input(token);
-
-				State currentState = fsm.getCurrentState();
-				if (currentState.getStartStateFlag()) {
-					tokenStartMap.put(fsm, new Integer(i));
-					tokenOffset1 = 0;
-					tokenOffset2 = 0;
-				}
-				if (currentState.getEndStateFlag()) {
-					Object o = tokenStartMap.get(fsm);
-					int tokenStartIndex;
-					int globalOffset = 0;
-					if (o == null) {
-						// By default, all machines start with
-						// token zero.
-						tokenStartIndex = 0;
-					} else {
-						Integer tokenMap1 = new Integer(0);
-						Integer tokenMap2 = new Integer(0);
-					
-						BaseToken lookUpOffset = (BaseToken) tokens.get(((Integer) o).intValue());
-							
-						if (overrideBeginTokenMap1.get(new Integer(lookUpOffset.getStartOffset())) != null){
-							Integer offSet = (Integer) (overrideBeginTokenMap1.get(new Integer(lookUpOffset.getStartOffset())));
-							tokenMap1 = new Integer(offSet.intValue()  + tokenMap1.intValue());
-						}
-						if (overrideBeginTokenMap2.get(new Integer(lookUpOffset.getStartOffset())) != null){
-							Integer offSet = (Integer) (overrideBeginTokenMap2.get(new Integer(lookUpOffset.getStartOffset())));
-							tokenMap2 = new Integer(offSet.intValue() + tokenMap2.intValue());
-							}
-						
-
-						globalOffset = tokenMap1.intValue() + tokenMap2.intValue();
-						tokenStartIndex = ((Integer) o).intValue() + globalOffset;
-						// skip ahead over single token we don't want
-						tokenStartIndex++;
-					}
-					
-					BaseToken startToken = null;
-					BaseToken endToken = token;
-					if (currentState instanceof IndentStartState) {
-						startToken = (BaseToken) tokens
-								.get(tokenStartIndex + 1);
-
-					} else {
-						startToken = (BaseToken) tokens.get(tokenStartIndex);
-
-					}
-					StrengthUnitToken measurementToken = null;
-					StrengthUnitCombinedToken measurementCombinedToken = null;
-					if (fsm.equals(iv_strengthCombinedMachine)) {
-						measurementCombinedToken = new StrengthUnitCombinedToken(startToken
-								.getStartOffset(), endToken.getEndOffset());
-						measurementSet.add(measurementCombinedToken);
-						
-					}
-					else {
-						measurementToken = new StrengthUnitToken(startToken
-								.getStartOffset(), endToken.getEndOffset());
-						measurementSet.add(measurementToken);
-						
-					}
-					fsm.reset();
-				}
-			}
-		}
-
-		// cleanup
-		tokenStartMap.clear();
-
-		// reset machines
-		Iterator itr = iv_machineSet.iterator();
-		while (itr.hasNext()) {
-			Machine fsm = (Machine) itr.next();
-			fsm.reset();
-		}
-
+		final Set measurementSet = new HashSet();
+		iv_machineRunner.runAnchored(tokens, overrideSet1, overrideSet2, true,
+				(fsm, currentState, tokenStartIndex, i, token) -> measurementSet
+						.add(createStrengthUnitToken(tokens, fsm, currentState,
+								tokenStartIndex, token)));
 		return measurementSet;
 	}
 
@@ -361,130 +204,41 @@ public class StrengthUnitFSM {
 	 * @throws Exception
 	 */
 	public Set execute(List tokens, Set overrideSet) throws Exception {
-		Set measurementSet = new HashSet();
-
-		// maps a fsm to a token start index
-		// key = fsm , value = token start index
-		Map tokenStartMap = new HashMap();
-
-		Iterator overrideTokenItr = overrideSet.iterator();
-		// key = start offset, value = override BaseToken object
-		Map overrideTokenMap = new HashMap();
-		Map overrideBeginTokenMap = new HashMap();
-		while (overrideTokenItr.hasNext()) {
-			BaseToken t = (BaseToken) overrideTokenItr.next();
-			Integer key = new Integer(t.getStartOffset());
-			overrideTokenMap.put(key, t);
-		}
-
-		boolean overrideOn = false;
-		int overrideEndOffset = -1;
-		int tokenOffset = 0;
-		int anchorKey = 0;
-		
-		for (int i = 0; i < tokens.size(); i++) {
-			BaseToken token = (BaseToken) tokens.get(i);
-
-			Integer key = new Integer(token.getStartOffset());
-
-			if (overrideOn) {
-				if (token.getStartOffset() >= overrideEndOffset) {
-					if (tokenOffset > 0)
-						overrideBeginTokenMap.put(new Integer(anchorKey), new Integer(tokenOffset));
-					overrideOn = false;
-					overrideEndOffset = -1;
-				} else {
-					tokenOffset++;
-					// step to next iteration of for loop
-					continue;
-				}
-			} else {
-				if (overrideTokenMap.containsKey(key)) {
-					// override one or more tokens until the override
-					// token is complete
-					anchorKey = key.intValue();
-					token = (BaseToken) overrideTokenMap.get(key);
-					overrideOn = true;
-					overrideEndOffset = token.getEndOffset();
-					tokenOffset = 0;
-				}
-			}
-
-			Iterator machineItr = iv_machineSet.iterator();
-			while (machineItr.hasNext()) {
-				Machine fsm = (Machine) machineItr.next();
-
-				fsm.input(token);
+		final Set measurementSet = new HashSet();
+		iv_machineRunner.runAnchored(tokens, overrideSet,
+				Collections.emptySet(),
+				(fsm, currentState, tokenStartIndex, i, token) -> measurementSet
+						.add(createStrengthUnitToken(tokens, fsm, currentState,
+								tokenStartIndex, token)));
+		return measurementSet;
+	}
 
-				State currentState = fsm.getCurrentState();
-				if (currentState.getStartStateFlag()) {
-					tokenStartMap.put(fsm, new Integer(i));
-					tokenOffset = 0;
-				}
-				if (currentState.getEndStateFlag()) {
-					Object o = tokenStartMap.get(fsm);
-					int tokenStartIndex;
-					if (o == null) {
-						// By default, all machines start with
-						// token zero.
-						tokenStartIndex = 0;
-					} else {
-						Integer tokenMap = new Integer(0);
-											
-						BaseToken lookUpOffset = (BaseToken) tokens.get(((Integer) o).intValue());
-							
-						if (overrideBeginTokenMap.get(new Integer(lookUpOffset.getStartOffset())) != null){
-							Integer offSet = (Integer) (overrideBeginTokenMap.get(new Integer(lookUpOffset.getStartOffset())));
-							tokenMap = new Integer(offSet.intValue()  + tokenMap.intValue());
-						}
-						
-						
-						tokenStartIndex = ((Integer) o).intValue() + tokenMap.intValue();
-						// skip ahead over single token we don't want
-						tokenStartIndex++;
-					}
-					BaseToken startToken = null;
-					BaseToken endToken = token;
-					if (currentState instanceof IndentStartState) {
-						startToken = (BaseToken) tokens
-								.get(tokenStartIndex + 1);
+	/**
+	 * @param tokens
+	 * @param fsm machine that matched
+	 * @param currentState end state of the machine
+	 * @param tokenStartIndex index of the first token of the match
+	 * @param endToken token that ended the match
+	 * @return StrengthUnitCombinedToken for the combined machine, otherwise
+	 *         StrengthUnitToken
+	 */
+	private Object createStrengthUnitToken(List tokens, Machine fsm,
+			State currentState, int tokenStartIndex, BaseToken endToken) {
+		BaseToken startToken = null;
+		if (currentState instanceof IndentStartState) {
+			startToken = (BaseToken) tokens
+					.get(tokenStartIndex + 1);
 
-					} else {
-						startToken = (BaseToken) tokens.get(tokenStartIndex);
+		} else {
+			startToken = (BaseToken) tokens.get(tokenStartIndex);
 
-					}
-					StrengthUnitToken measurementToken = null;
-					StrengthUnitCombinedToken measurementCombinedToken = null;
-					if (fsm.equals(iv_strengthCombinedMachine)) {
-						measurementCombinedToken = new StrengthUnitCombinedToken(startToken
-								.getStartOffset(), endToken.getEndOffset());
-						measurementSet.add(measurementCombinedToken);
-						
-					}
-					else {
-						measurementToken = new StrengthUnitToken(startToken
-								.getStartOffset(), endToken.getEndOffset());
-						measurementSet.add(measurementToken);
-						
-					}
-					
-					fsm.reset();
-					
-				}
-			}
 		}
-
-		// cleanup
-		tokenStartMap.clear();
-
-		// reset machines
-		Iterator itr = iv_machineSet.iterator();
-		while (itr.hasNext()) {
-			Machine fsm = (Machine) itr.next();
-			fsm.reset();
+		if (fsm.equals(iv_strengthCombinedMachine)) {
+			return new StrengthUnitCombinedToken(startToken
+					.getStartOffset(), endToken.getEndOffset());
 		}
-
-		return measurementSet;
+		return new StrengthUnitToken(startToken.getStartOffset(), endToken
+				.getEndOffset());
 	}
 
 
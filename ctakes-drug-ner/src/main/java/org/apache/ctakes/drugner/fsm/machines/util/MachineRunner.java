@@ -0,0 +1,297 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.drugner.fsm.machines.util;
+
+import net.openai.util.fsm.Machine;
+import net.openai.util.fsm.State;
+import org.apache.ctakes.core.fsm.token.BaseToken;
+
+import java.util.*;
+
+/**
+ * Runs a fixed set of finite state machines together in a single pass over a list of tokens.
+ * <p>
+ * The machines are held in an array, and the token index at which each machine last entered a start state is held
+ * in a parallel int array, so stepping a token through the machines needs no iteration over a hash set and no
+ * boxed map keys.  Override tokens are held in a table sorted by start offset.
+ * </p>
+ * <p>
+ * The token walk, override handling and start index arithmetic are exactly those of the hand written
+ * execute methods of the drug ner fsm classes:
+ * <ul>
+ * <li>A machine that has never entered a start state matched from token zero.</li>
+ * <li>Otherwise the match starts at the token after the last start state token.</li>
+ * <li>An override token replaces the tokens that it covers, which are not given to the machines.</li>
+ * <li>With anchored overrides, a match start that lies on an override anchor is shifted past the number of tokens
+ * that the override replaced.  Overrides that replaced no further tokens are not recorded unless requested,
+ * as some of the execute methods recorded them and some did not.</li>
+ * </ul>
+ * </p>
+ * Like the machines themselves, a runner is not thread safe.
+ */
+final public class MachineRunner {
+
+   /**
+    * Called when a machine enters an end state.  The machine is reset after the call.
+    */
+   public interface MatchHandler {
+      /**
+       * @param machine    machine that matched
+       * @param endState   end state entered by the machine
+       * @param startIndex index of the first token of the match
+       * @param tokenIndex index of the token that put the machine in its end state
+       * @param token      token that was given to the machine, which may be an override token
+       */
+      void handleMatch( Machine machine, State endState, int startIndex, int tokenIndex, BaseToken token );
+   }
+
+   static private final OverrideTable NO_OVERRIDES = new OverrideTable( Collections.emptySet() );
+
+   private final Machine[] _machines;
+
+   /**
+    * @param machines machines to run
+    */
+   public MachineRunner( final Collection<Machine> machines ) {
+      _machines = machines.toArray( new Machine[ machines.size() ] );
+   }
+
+   /**
+    * Run the machines over the tokens.
+    *
+    * @param tokens  list of {@link BaseToken}
+    * @param handler called for each match
+    * @throws Exception if a machine cannot take a token
+    */
+   public void run( final List<?> tokens, final MatchHandler handler ) throws Exception {
+      run( tokens, NO_OVERRIDES, NO_OVERRIDES, false, false, handler );
+   }
+
+   /**
+    * Run the machines over the tokens, replacing tokens with the override tokens that cover them.
+    *
+    * @param tokens      list of {@link BaseToken}
+    * @param overrideSet set of override {@link BaseToken}
+    * @param handler     called for each match
+    * @throws Exception if a machine cannot take a token
+    */
+   public void run( final List<?> tokens, final Set<?> overrideSet, final MatchHandler handler ) throws Exception {
+      run( tokens, new OverrideTable( overrideSet ), NO_OVERRIDES, false, false, handler );
+   }
+
+   /**
+    * Run the machines over the tokens, replacing tokens with the override tokens that cover them
+    * and shifting match starts past replaced tokens.
+    *
+    * @param tokens       list of {@link BaseToken}
+    * @param overrideSet1 set of override {@link BaseToken}
+    * @param overrideSet2 second set of override {@link BaseToken}, used when the first set has no override
+    * @param handler      called for each match
+    * @throws Exception if a machine cannot take a token
+    */
+   public void runAnchored( final List<?> tokens, final Set<?> overrideSet1, final Set<?> overrideSet2,
+                            final MatchHandler handler ) throws Exception {
+      runAnchored( tokens, overrideSet1, overrideSet2, false, handler );
+   }
+
+   /**
+    * Run the machines over the tokens, replacing tokens with the override tokens that cover them
+    * and shifting match starts past replaced tokens.
+    *
+    * @param tokens          list of {@link BaseToken}
+    * @param overrideSet1    set of override {@link BaseToken}
+    * @param overrideSet2    second set of override {@link BaseToken}, used when the first set has no override
+    * @param recordZeroSkips true to record a skip count of zero for an override that replaced no further tokens,
+    *                        which replaces any count already recorded at its anchor
+    * @param handler         called for each match
+    * @throws Exception if a machine cannot take a token
+    */
+   public void runAnchored( final List<?> tokens, final Set<?> overrideSet1, final Set<?> overrideSet2,
+                            final boolean recordZeroSkips, final MatchHandler handler ) throws Exception {
+      run( tokens, new OverrideTable( overrideSet1 ), new OverrideTable( overrideSet2 ), true, recordZeroSkips,
+            handler );
+   }
+
+   private void run( final List<?> tokens, final OverrideTable overrides1, final OverrideTable overrides2,
+                     final boolean anchored, final boolean recordZeroSkips,
+                     final MatchHandler handler ) throws Exception {
+      final int[] startIndices = new int[ _machines.length ];
+      Arrays.fill( startIndices, -1 );
+      // key = anchor start offset , value = number of tokens replaced by the override at the anchor
+      final Map<Integer, Integer> skipCounts1 = anchored ? new HashMap<>() : null;
+      final Map<Integer, Integer> skipCounts2 = anchored ? new HashMap<>() : null;
+      boolean overrideOn1 = false;
+      boolean overrideOn2 = false;
+      int overrideEndOffset1 = -1;
+      int overrideEndOffset2 = -1;
+      int skipCount1 = 0;
+      int skipCount2 = 0;
+      int anchorKey1 = 0;
+      int anchorKey2 = 0;
+      try {
+         final int tokenCount = tokens.size();
+         for ( int i = 0; i < tokenCount; i++ ) {
+            BaseToken token = (BaseToken)tokens.get( i );
+            final int startOffset = token.getStartOffset();
+            if ( overrideOn1 && overrideOn2 ) {
+               if ( overrideEndOffset1 >= overrideEndOffset2 ) {
+                  overrideOn1 = false;
+               } else {
+                  overrideOn2 = false;
+               }
+            }
+            if ( overrideOn1 ) {
+               if ( startOffset >= overrideEndOffset1 ) {
+                  if ( anchored && (skipCount1 > 0 || recordZeroSkips) ) {
+                     skipCounts1.put( anchorKey1, skipCount1 );
+                  }
+                  overrideOn1 = false;
+                  overrideEndOffset1 = -1;
+               } else {
+                  // the token is covered by the override
+                  skipCount1++;
+                  continue;
+               }
+            } else if ( overrideOn2 ) {
+               if ( startOffset >= overrideEndOffset2 ) {
+                  if ( anchored && (skipCount2 > 0 || recordZeroSkips) ) {
+                     skipCounts2.put( anchorKey2, skipCount2 );
+                  }
+                  overrideOn2 = false;
+                  overrideEndOffset2 = -1;
+               } else {
+                  // the token is covered by the override
+                  skipCount2++;
+                  continue;
+               }
+            } else {
+               final BaseToken override1 = overrides1.get( startOffset );
+               if ( override1 != null ) {
+                  anchorKey1 = startOffset;
+                  token = override1;
+                  overrideOn1 = true;
+                  overrideEndOffset1 = token.getEndOffset();
+                  skipCount1 = 0;
+               }
+               final BaseToken override2 = overrides2.get( startOffset );
+               if ( override2 != null ) {
+                  anchorKey2 = startOffset;
+                  token = override2;
+                  overrideOn2 = true;
+                  overrideEndOffset2 = token.getEndOffset();
+                  skipCount2 = 0;
+               }
+            }
+            boolean started = false;
+            for ( int m = 0; m < _machines.length; m++ ) {
+               final Machine machine = _machines[ m ];
+               machine.input( token );
+               final State state = machine.getCurrentState();
+               if ( state.getStartStateFlag() ) {
+                  startIndices[ m ] = i;
+                  started = true;
+               }
+               if ( state.getEndStateFlag() ) {
+                  int startIndex = 0;
+                  if ( startIndices[ m ] >= 0 ) {
+                     startIndex = startIndices[ m ];
+                     if ( anchored ) {
+                        startIndex += getSkipCount( skipCounts1, skipCounts2, tokens, startIndex );
+                     }
+                     // skip ahead over single token we don't want
+                     startIndex++;
+                  }
+                  handler.handleMatch( machine, state, startIndex, i, token );
+                  machine.reset();
+               }
+            }
+            if ( started ) {
+               skipCount1 = 0;
+               skipCount2 = 0;
+            }
+         }
+      } finally {
+         reset();
+      }
+   }
+
+   /**
+    * @return number of tokens replaced by overrides anchored at the start offset of the token at the index
+    */
+   static private int getSkipCount( final Map<Integer, Integer> skipCounts1, final Map<Integer, Integer> skipCounts2,
+                                    final List<?> tokens, final int tokenIndex ) {
+      if ( skipCounts1.isEmpty() && skipCounts2.isEmpty() ) {
+         return 0;
+      }
+      final Integer key = ((BaseToken)tokens.get( tokenIndex )).getStartOffset();
+      return skipCounts1.getOrDefault( key, 0 ) + skipCounts2.getOrDefault( key, 0 );
+   }
+
+   /**
+    * Reset all machines to their start states.
+    */
+   public void reset() {
+      for ( Machine machine : _machines ) {
+         machine.reset();
+      }
+   }
+
+
+   /**
+    * Override tokens sorted by start offset.
+    * Where override tokens share a start offset, the last in iteration order is used.
+    */
+   static private final class OverrideTable {
+      private final int[] __startOffsets;
+      private final BaseToken[] __tokens;
+
+      private OverrideTable( final Collection<?> overrideTokens ) {
+         final List<BaseToken> sorted = new ArrayList<>( overrideTokens.size() );
+         for ( Object token : overrideTokens ) {
+            sorted.add( (BaseToken)token );
+         }
+         // the sort is stable, so the last token with a start offset remains last
+         sorted.sort( Comparator.comparingInt( BaseToken::getStartOffset ) );
+         final List<BaseToken> unique = new ArrayList<>( sorted.size() );
+         for ( int i = 0; i < sorted.size(); i++ ) {
+            if ( i + 1 < sorted.size() && sorted.get( i + 1 ).getStartOffset() == sorted.get( i ).getStartOffset() ) {
+               continue;
+            }
+            unique.add( sorted.get( i ) );
+         }
+         __startOffsets = new int[ unique.size() ];
+         __tokens = unique.toArray( new BaseToken[ unique.size() ] );
+         for ( int i = 0; i < __startOffsets.length; i++ ) {
+            __startOffsets[ i ] = __tokens[ i ].getStartOffset();
+         }
+      }
+
+      /**
+       * @return override token with the start offset, or null if there is none
+       */
+      private BaseToken get( final int startOffset ) {
+         if ( __startOffsets.length == 0 ) {
+            return null;
+         }
+         final int index = Arrays.binarySearch( __startOffsets, startOffset );
+         return index >= 0 ? __tokens[ index ] : null;
+      }
+   }
+
+}
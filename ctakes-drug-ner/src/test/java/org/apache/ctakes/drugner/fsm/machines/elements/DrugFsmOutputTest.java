@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.drugner.fsm.machines.elements;
+
+import org.apache.ctakes.core.fsm.token.BaseToken;
+import org.apache.ctakes.core.fsm.token.adapter.TokenConverter;
+import org.apache.ctakes.core.nlp.tokenizer.Tokenizer;
+import org.apache.ctakes.drugner.fsm.machines.util.SuffixStrengthFSM;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Outputs of the drug ner machines over a medication list, through every execute method,
+ * with override sets chained as they are in the DrugMentionAnnotator.
+ * Expected outputs are those of the execute loops that each machine had before they were run by a MachineRunner.
+ * Each output token is given as its covered text @ its start offset.
+ */
+final public class DrugFsmOutputTest {
+
+   static private final String TEXT = "1. Lisinopril 10 mg p.o. daily.\n"
+                                      + "2. Metoprolol 25 mg tablet by mouth twice a day.\n"
+                                      + "3. Aspirin 81-325 mg q.d.\n"
+                                      + "4. Coumadin 1/2 tab b.i.d. x 3 days.\n"
+                                      + "5. Insulin 0.5 ml subcutaneously q6h prn pain.\n"
+                                      + "6. Albuterol 2 puffs inhaled q.i.d.\n"
+                                      + "7. Lasix increase to 40 mg daily, then decrease 20 mg bid.\n"
+                                      + "8. Tylenol 1-2 tablets at bedtime as needed.\n"
+                                      + "9. Heparin 5000 units iv every 8 hours.\n"
+                                      + "10. Prednisone 7.5 mg once per week for 2 weeks, taper off over 1-2 weeks.\n"
+                                      + "11. Ibuprofen 5-mg, 3.5-4 mg two to three times daily.\n"
+                                      + "12. Fentanyl 50 mcg/hr patch, 100 mg/5 ml 1 tsp, stop.\n";
+
+   static private List<BaseToken> _tokens;
+   static private Set _fractionSet;
+   static private Set _rangeSet;
+   static private Set _strengthUnitSet;
+   static private Set _formSet;
+   static private Set _frequencyUnitSet;
+
+   @BeforeClass
+   static public void setup() throws Exception {
+      _tokens = TokenConverter.convertTokens( new Tokenizer().tokenize( TEXT ) );
+      _fractionSet = new FractionStrengthFSM().execute( _tokens );
+      _rangeSet = new RangeStrengthFSM().execute( _tokens );
+      _strengthUnitSet = new StrengthUnitFSM().execute( _tokens, _rangeSet );
+      _formSet = new FormFSM().execute( _tokens, new HashSet() );
+      _frequencyUnitSet = new FrequencyUnitFSM().execute( _tokens );
+   }
+
+   /**
+    * @param outputTokens output of a machine
+    * @return covered text @ start offset of each token, in text order
+    */
+   static private List<String> getCoveredTexts( final Set outputTokens ) {
+      final List<BaseToken> tokens = new ArrayList<>( outputTokens.size() );
+      for ( Object token : outputTokens ) {
+         tokens.add( (BaseToken)token );
+      }
+      tokens.sort( Comparator.comparingInt( BaseToken::getStartOffset ).thenComparingInt( BaseToken::getEndOffset ) );
+      final List<String> coveredTexts = new ArrayList<>( tokens.size() );
+      for ( BaseToken token : tokens ) {
+         coveredTexts.add( TEXT.substring( token.getStartOffset(), token.getEndOffset() ) + "@"
+                           + token.getStartOffset() );
+      }
+      return coveredTexts;
+   }
+
+   static private void assertOutput( final Set outputTokens, final String... expected ) {
+      assertEquals( Arrays.asList( expected ), getCoveredTexts( outputTokens ) );
+   }
+
+   @Test
+   public void testStrengthElements() throws Exception {
+      assertOutput( _fractionSet, "3.5@466" );
+      assertOutput( new DecimalStrengthFSM().execute( _tokens ) );
+      assertOutput( _rangeSet, "3.5@466", "two to three@475" );
+      assertOutput( new RangeStrengthFSM().execute( _tokens, _strengthUnitSet ), "3.5@466", "two to three@475" );
+      assertOutput( new SuffixStrengthFSM().execute( _tokens, _strengthUnitSet ) );
+   }
+
+   @Test
+   public void testStrengthUnit() throws Exception {
+      final String[] expected = { "mg@17", "mg@49", "mg@99", "puffs@206", "mg@251", "mg@278", "units@347",
+                                  "mg@390", "mg@462", "mg@472", "mcg@517", "mg@535", "tsp@545" };
+      assertOutput( _strengthUnitSet, expected );
+      assertOutput( new StrengthUnitFSM().execute( _tokens, _rangeSet, _fractionSet ), expected );
+   }
+
+   @Test
+   public void testStrength() throws Exception {
+      final String[] expected = { "10@14", "25@46", "2@204", "40@248", "20@275", "5000@342", "7.5@386", "5@460",
+                                  "1@543" };
+      assertOutput( new StrengthFSM().execute( _tokens, _strengthUnitSet, _fractionSet ), expected );
+      assertOutput( new StrengthFSM().execute( _tokens, _strengthUnitSet ), expected );
+      assertOutput( new StrengthFSM().execute( _tokens ) );
+   }
+
+   @Test
+   public void testDosages() throws Exception {
+      assertOutput( _formSet, "tablet@52", "tab@123", "ml@159", "tablets@301", "units@347", "patch@524", "ml@540" );
+      assertOutput( new DosagesFSM().execute( _tokens, _formSet, _strengthUnitSet ),
+            "0.5@155", "50@514", "50 mcg/hr patch, 100@514" );
+      assertOutput( new DosagesFSM().execute( _tokens, _formSet ),
+            "0.5@155", "5000@342", "50@514", "50 mcg/hr patch, 100@514" );
+   }
+
+   @Test
+   public void testRoute() throws Exception {
+      final String[] expected = { "by mouth@59", "subcutaneously@162", "iv@353" };
+      assertOutput( new RouteFSM().execute( _tokens ), expected );
+      assertOutput( new RouteFSM().execute( _tokens, _formSet ), expected );
+   }
+
+   @Test
+   public void testFrequency() throws Exception {
+      final String[] expected = { "daily@25", "day@76", "q6h@177", "prn@181", "daily@254", "bid@281", "bedtime@312",
+                                  "as needed@320", "8 hours@362", "daily@494" };
+      assertOutput( _frequencyUnitSet, expected );
+      assertOutput( new FrequencyUnitFSM().execute( _tokens, _rangeSet ), expected );
+      assertOutput( new FrequencyFSM().execute( _tokens, _frequencyUnitSet, _rangeSet ),
+            "twice a@68", "two to three times@475" );
+      assertOutput( new FrequencyFSM().execute( _tokens, _frequencyUnitSet ), "twice a@68", "three times@482" );
+      assertOutput( new FrequencyFSM().execute( _tokens ) );
+   }
+
+   @Test
+   public void testDuration() throws Exception {
+      assertOutput( new DurationFSM().execute( _tokens, _rangeSet ), "for 2 weeks@407" );
+      assertOutput( new DurationFSM().execute( _tokens ), "for 2 weeks@407" );
+   }
+
+   @Test
+   public void testDrugChangeStatus() throws Exception {
+      assertOutput( new DrugChangeStatusFSM().execute( _tokens ),
+            "increase@236", "then@261", "then decrease@261", "taper@420", "taper off@420", "stop@550" );
+   }
+
+}
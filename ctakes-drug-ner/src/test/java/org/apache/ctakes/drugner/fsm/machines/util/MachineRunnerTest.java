@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.drugner.fsm.machines.util;
+
+import net.openai.util.fsm.AnyCondition;
+import net.openai.util.fsm.Condition;
+import net.openai.util.fsm.Machine;
+import net.openai.util.fsm.State;
+import org.apache.ctakes.core.fsm.output.BaseTokenImpl;
+import org.apache.ctakes.core.fsm.state.NamedState;
+import org.apache.ctakes.core.fsm.token.BaseToken;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+final public class MachineRunnerTest {
+
+   static private final int END_OFFSET = 8;
+
+   /**
+    * @return machine that starts at every token and ends at the token that starts at the end offset
+    */
+   static private Machine createMachine() {
+      final State startState = new NamedState( "START" );
+      final State endState = new NamedState( "END" );
+      startState.setStartStateFlag( true );
+      endState.setEndStateFlag( true );
+      startState.addTransition( new Condition() {
+         @Override
+         public boolean satisfiedBy( final Object conditional ) {
+            return ((BaseToken)conditional).getStartOffset() == END_OFFSET;
+         }
+      }, endState );
+      startState.addTransition( new AnyCondition(), startState );
+      endState.addTransition( new AnyCondition(), startState );
+      return new Machine( startState );
+   }
+
+   /**
+    * The override at offset 2 is met twice, first replacing one more token and then replacing none,
+    * and the match starts on the second anchor.
+    */
+   static private int getAnchoredStart( final boolean recordZeroSkips ) throws Exception {
+      final List<BaseToken> tokens = Arrays.asList(
+            new BaseTokenImpl( 0, 1 ),
+            new BaseTokenImpl( 2, 3 ),
+            new BaseTokenImpl( 4, 5 ),
+            new BaseTokenImpl( 6, 7 ),
+            new BaseTokenImpl( 2, 3 ),
+            new BaseTokenImpl( END_OFFSET, 9 ) );
+      final Set<BaseToken> overrides = Collections.singleton( new BaseTokenImpl( 2, 5 ) );
+      final List<Integer> startIndices = new ArrayList<>();
+      new MachineRunner( Collections.singleton( createMachine() ) )
+            .runAnchored( tokens, overrides, Collections.emptySet(), recordZeroSkips,
+                  ( machine, endState, startIndex, tokenIndex, token ) -> startIndices.add( startIndex ) );
+      assertEquals( 1, startIndices.size() );
+      return startIndices.get( 0 );
+   }
+
+   @Test
+   public void testRun() throws Exception {
+      final List<BaseToken> tokens = Arrays.asList(
+            new BaseTokenImpl( 0, 1 ),
+            new BaseTokenImpl( 2, 3 ),
+            new BaseTokenImpl( END_OFFSET, 9 ) );
+      final List<Integer> startIndices = new ArrayList<>();
+      new MachineRunner( Collections.singleton( createMachine() ) )
+            .run( tokens, ( machine, endState, startIndex, tokenIndex, token ) -> startIndices.add( startIndex ) );
+      // the token after the last start state token
+      assertEquals( Collections.singletonList( 2 ), startIndices );
+   }
+
+   @Test
+   public void testZeroSkipsNotRecorded() throws Exception {
+      // the anchor keeps the count of one replaced token
+      assertEquals( 6, getAnchoredStart( false ) );
+   }
+
+   @Test
+   public void testZeroSkipsRecorded() throws Exception {
+      // the second pass over the anchor replaces the count with zero, as in StrengthFSM and StrengthUnitFSM
+      assertEquals( 5, getAnchoredStart( true ) );
+   }
+
+}
@@ -18,10 +18,7 @@
  */
 package org.apache.ctakes.lvg.ae;
 
-import gov.nih.nlm.nls.lvg.Api.LvgCmdApi;
-import gov.nih.nlm.nls.lvg.Api.LvgLexItemApi;
 import gov.nih.nlm.nls.lvg.Lib.Category;
-import gov.nih.nlm.nls.lvg.Lib.LexItem;
 
 import java.io.BufferedReader;
 import java.io.File;
@@ -35,15 +32,17 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
-import java.util.Vector;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.ctakes.core.util.ListFactory;
 import org.apache.ctakes.lvg.resource.LvgCmdApiResource;
 import org.apache.ctakes.lvg.resource.LvgCmdApiResourceImpl;
+import org.apache.ctakes.lvg.resource.LvgLemma;
 import org.apache.ctakes.typesystem.type.syntax.Lemma;
 import org.apache.ctakes.typesystem.type.syntax.WordToken;
 import org.apache.ctakes.typesystem.type.textspan.Segment;
@@ -52,7 +51,6 @@ import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.jcas.JCas;
-import org.apache.uima.jcas.JFSIndexRepository;
 import org.apache.uima.jcas.cas.FSList;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
@@ -60,6 +58,7 @@ import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.fit.descriptor.ExternalResource;
 import org.apache.uima.fit.factory.AnalysisEngineFactory;
 import org.apache.uima.fit.factory.ExternalResourceFactory;
+import org.apache.uima.fit.util.JCasUtil;
 
 /**
  * UIMA annotator that uses the UMLS LVG package to find the canonical form of
@@ -192,6 +191,34 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
 	    )
 	private String[] wordsToExclude = defaultExclusionWords;
   private Set<String> exclusionSet;
+
+	/**
+	 * Value is "RuntimeCacheSize". This parameter sets the maximum number of
+	 * words held in the runtime cache of lvg results, which is shared by all
+	 * annotators using the same lvg resource. 0 disables the runtime cache.
+	 */
+	public static final String PARAM_RUNTIME_CACHE_SIZE = "RuntimeCacheSize";
+	@ConfigurationParameter(
+	    name = PARAM_RUNTIME_CACHE_SIZE,
+	    mandatory = false,
+	    defaultValue = "100000",
+	    description = "Maximum number of words in the shared runtime cache of lvg results, 0 to disable"
+	    )
+	private int runtimeCacheSize;
+
+	/**
+	 * Value is "RuntimeCacheDirectory". This parameter sets a directory to
+	 * which the runtime cache is saved at the end of a run, and from which it
+	 * is loaded at the start of the next run.
+	 */
+	public static final String PARAM_RUNTIME_CACHE_DIRECTORY = "RuntimeCacheDirectory";
+	@ConfigurationParameter(
+	    name = PARAM_RUNTIME_CACHE_DIRECTORY,
+	    mandatory = false,
+	    defaultValue = "",
+	    description = "Directory in which to save and load the runtime cache of lvg results"
+	    )
+	private String runtimeCacheDirectory;
   
 	// LOG4J logger based on class name
 	private Logger logger = Logger.getLogger(getClass().getName());
@@ -202,10 +229,6 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
       mandatory = true
       )
   private LvgCmdApiResource lvgResource;
-      
-	private LvgCmdApi lvgCmd;
-
-	private LvgLexItemApi lvgLexItem;
 
 	// key = word, value = canonical word
 	private Map<String, String> normCacheMap;
@@ -228,7 +251,7 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
 		configInit();
 
 		try {
-			lvgCmd = lvgResource.getLvg();
+			lvgResource.initializeCache(runtimeCacheSize, runtimeCacheDirectory);
 
 			if (useCmdCache) {
 				logger.info("Loading Cmd cache=" + cmdCacheFileLocation);
@@ -236,13 +259,10 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
 				logger.info("Loaded " + normCacheMap.size() + " entries");
 			}
 
-			if (postLemmas) {
-				lvgLexItem = lvgResource.getLvgLex();
-				if (useLemmaCache) {
-					logger.info("Loading Lemma cache=" + lemmaCacheFileLocation);
-					loadLemmaCacheFile(lemmaCacheFileLocation);
-					logger.info("Loaded " + lemmaCacheMap.size() + " entries");
-				}
+			if (postLemmas && useLemmaCache) {
+				logger.info("Loading Lemma cache=" + lemmaCacheFileLocation);
+				loadLemmaCacheFile(lemmaCacheFileLocation);
+				logger.info("Loaded " + lemmaCacheMap.size() + " entries");
 			}
 
 		} catch (IOException e) {
@@ -250,6 +270,16 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
 		}
 	}
 
+	/**
+	 * Saves the shared runtime cache so that the next run starts warm.
+	 */
+	@Override
+	public void collectionProcessComplete()
+			throws AnalysisEngineProcessException {
+		lvgResource.saveCache();
+		super.collectionProcessComplete();
+	}
+
 	/**
 	 * Sets configuration parameters with values from the descriptor.
 	 */
@@ -278,6 +308,8 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
 
 	/**
 	 * Invokes this annotator's analysis logic.
+	 * Words are gathered from the document or its segments first so that lvg
+	 * is used only once for each distinct word in the document.
 	 */
 	@Override
   public void process(JCas jcas)
@@ -286,26 +318,25 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
 		logger.info("process(JCas)");
 
 		String text = jcas.getDocumentText();
+		// key = word, value = WordTokens with that word
+		Map<String, List<WordToken>> wordTokensMap = new LinkedHashMap<>();
 
 		try {
 			if (useSegments) {
-				JFSIndexRepository indexes = jcas.getJFSIndexRepository();
-				Iterator<?> segmentItr = indexes.getAnnotationIndex(Segment.type)
-						.iterator();
-				while (segmentItr.hasNext()) {
-					Segment segmentAnnotation = (Segment) segmentItr.next();
+				for (Segment segmentAnnotation : JCasUtil.select(jcas, Segment.class)) {
 					String segmentID = segmentAnnotation.getId();
 
 					if (!skipSegmentsSet.contains(segmentID)) {
 						int start = segmentAnnotation.getBegin();
 						int end = segmentAnnotation.getEnd();
-						annotateRange(jcas, text, start, end);
+						collectWords(jcas, text, start, end, wordTokensMap);
 					}
 				}
 			} else {
 				// annotate over full doc text
-				annotateRange(jcas, text, 0, text.length());
+				collectWords(jcas, text, 0, text.length(), wordTokensMap);
 			}
+			annotateWords(jcas, wordTokensMap);
 		} catch (Exception e) {
 			throw new AnalysisEngineProcessException(e);
 		}
@@ -318,35 +349,63 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
 	protected void annotateRange(JCas jcas, String text, int rangeBegin,
 			int rangeEnd)
 			throws AnalysisEngineProcessException {
-		JFSIndexRepository indexes = jcas.getJFSIndexRepository();
-		Iterator<?> wordItr = indexes.getAnnotationIndex(WordToken.type)
-				.iterator();
-		while (wordItr.hasNext()) {
-			WordToken wordAnnotation = (WordToken) wordItr.next();
-			if (wordAnnotation.getBegin() >= rangeBegin
-					&& wordAnnotation.getEnd() <= rangeEnd) {
-				String word = text.substring(wordAnnotation.getBegin(),
-						wordAnnotation.getEnd());
-
-				// if the original word was misspelled, use the spell correction
-				String suggestion = wordAnnotation.getSuggestion();
-
-				if ((suggestion != null) && (suggestion.length() > 0)) {
-					word = suggestion;
-				}
+		Map<String, List<WordToken>> wordTokensMap = new LinkedHashMap<>();
+		collectWords(jcas, text, rangeBegin, rangeEnd, wordTokensMap);
+		annotateWords(jcas, wordTokensMap);
+	}
+
+	/**
+	 * Adds the WordTokens within a given range to a map of word to tokens.
+	 * Only the tokens covered by the range are visited.
+	 */
+	private void collectWords(JCas jcas, String text, int rangeBegin,
+			int rangeEnd, Map<String, List<WordToken>> wordTokensMap) {
+		for (WordToken wordAnnotation : JCasUtil.selectCovered(jcas,
+				WordToken.class, rangeBegin, rangeEnd)) {
+			String word = text.substring(wordAnnotation.getBegin(),
+					wordAnnotation.getEnd());
+
+			// if the original word was misspelled, use the spell correction
+			String suggestion = wordAnnotation.getSuggestion();
+
+			if ((suggestion != null) && (suggestion.length() > 0)) {
+				word = suggestion;
+			}
 
-				// skip past words that are part of the exclusion set
-				if (exclusionSet.contains(word))
-					continue;
+			// skip past words that are part of the exclusion set
+			if (exclusionSet.contains(word))
+				continue;
 
-				setCanonicalForm(wordAnnotation, word);
-				if (postLemmas)
-					setLemma(wordAnnotation, word, jcas);
+			wordTokensMap.computeIfAbsent(word, w -> new ArrayList<>())
+					.add(wordAnnotation);
+		}
+	}
+
+	/**
+	 * Applies lvg once for each distinct word and sets the results on all of
+	 * the WordTokens with that word.
+	 */
+	private void annotateWords(JCas jcas,
+			Map<String, List<WordToken>> wordTokensMap)
+			throws AnalysisEngineProcessException {
+		for (Map.Entry<String, List<WordToken>> entry : wordTokensMap
+				.entrySet()) {
+			String word = entry.getKey();
+			String canonicalForm = getCanonicalForm(word);
+			Map<String, Set<String>> lemmaMap = postLemmas ? getLemmaMap(word)
+					: null;
+			for (WordToken wordAnnotation : entry.getValue()) {
+				if (canonicalForm != null) {
+					wordAnnotation.setCanonicalForm(canonicalForm);
+				}
+				if (lemmaMap != null) {
+					setLemma(wordAnnotation, lemmaMap, jcas);
+				}
 			}
 		}
 	}
 
-	private void setCanonicalForm(WordToken wordAnnotation, String word)
+	private String getCanonicalForm(String word)
 			throws AnalysisEngineProcessException {
 		// apply LVG processing to get canonical form
 		String canonicalForm = null;
@@ -360,26 +419,20 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
 		// only apply LVG processing if not found in cache first
 		if (canonicalForm == null) {
 			try {
-				String out = lvgCmd.MutateToString(word);
-
-				String[] output = out.split("\\|");
-
-				if ((output != null) && (output.length >= 2)
-						&& (!output[1].matches("No Output"))) {
-					canonicalForm = output[1];
-				}
+				canonicalForm = lvgResource.getCanonicalForm(word);
 			} catch (Exception e) {
 				throw new AnalysisEngineProcessException(e);
 			}
 
 		}
 
-		if (canonicalForm != null) {
-			wordAnnotation.setCanonicalForm(canonicalForm);
-		}
+		return canonicalForm;
 	}
 
-	private void setLemma(WordToken wordAnnotation, String word, JCas jcas)
+	/**
+	 * @return map of lemma string to Set of POS tags for the word
+	 */
+	private Map<String, Set<String>> getLemmaMap(String word)
 			throws AnalysisEngineProcessException {
 		// apply LVG processing to get lemmas
 		// key = lemma string, value = Set of POS tags
@@ -403,14 +456,9 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
 		if (lemmaMap == null) {
 			lemmaMap = new HashMap<>();
 			try {
-				Vector<?> lexItems = lvgLexItem.MutateLexItem(word);
-				Iterator<?> lexItemItr = lexItems.iterator();
-				while (lexItemItr.hasNext()) {
-					LexItem li = (LexItem) lexItemItr.next();
-
-					Category c = li.GetTargetCategory();
-					String lemmaStr = li.GetTargetTerm();
-					long[] bitValues = Category.ToValuesArray(c.GetValue());
+				for (LvgLemma lvgLemma : lvgResource.getLemmas(word)) {
+					String lemmaStr = lvgLemma.getTerm();
+					long[] bitValues = Category.ToValuesArray(lvgLemma.getCategories());
 					for (int i = 0; i < bitValues.length; i++) {
 						// note that POS is Xerox tagset
 						String lemmaPos = Category.ToName(bitValues[i]);
@@ -433,7 +481,11 @@ public class LvgAnnotator extends JCasAnnotator_ImplBase {
 				throw new AnalysisEngineProcessException(e);
 			}
 		}
+		return lemmaMap;
+	}
 
+	private void setLemma(WordToken wordAnnotation,
+			Map<String, Set<String>> lemmaMap, JCas jcas) {
 		// add lemma information to CAS
 		// FSArray lemmas = new FSArray(jcas, lemmaMap.keySet().size());
 		Collection<Lemma> lemmas = new ArrayList<>(lemmaMap.keySet().size());
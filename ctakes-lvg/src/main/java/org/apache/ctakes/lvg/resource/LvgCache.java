@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.lvg.resource;
+
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Size-bounded memo of lvg results by word.  Thread safe.
+ * <p>
+ * When the cache is full the least recently used word is dropped, so common words stay cached.
+ * The lookup itself is far cheaper than the lvg call that it replaces, so a single lock is used.
+ * </p>
+ * The cache can be written to and read from a text file so that later runs start with a warm cache.
+ * Each line holds a word, a tab, and the text of the value.  Lines are in order of use, least recent first.
+ */
+final public class LvgCache<V> {
+
+   static private final Logger LOGGER = Logger.getLogger( "LvgCache" );
+
+   private final String _name;
+   private final int _maxSize;
+   private final Map<String, V> _cache;
+   private final AtomicLong _hitCount = new AtomicLong();
+   private final AtomicLong _missCount = new AtomicLong();
+
+   /**
+    * @param name    name of the cache for logging
+    * @param maxSize maximum number of words to hold
+    */
+   public LvgCache( final String name, final int maxSize ) {
+      _name = name;
+      _maxSize = Math.max( 1, maxSize );
+      // with access order the iteration order is least to most recently used
+      _cache = new LinkedHashMap<String, V>( Math.min( _maxSize, 1 << 16 ) * 4 / 3 + 1, 0.75f, true ) {
+         @Override
+         protected boolean removeEldestEntry( final Map.Entry<String, V> eldest ) {
+            return size() > _maxSize;
+         }
+      };
+   }
+
+   /**
+    * @param word -
+    * @return the value for the word, or null if the word is not cached
+    */
+   public V get( final String word ) {
+      final V value;
+      synchronized ( _cache ) {
+         value = _cache.get( word );
+      }
+      if ( value == null ) {
+         _missCount.incrementAndGet();
+      } else {
+         _hitCount.incrementAndGet();
+      }
+      return value;
+   }
+
+   /**
+    * If the cache is full then the least recently used word is dropped.
+    *
+    * @param word  -
+    * @param value value for the word, not null
+    */
+   public void put( final String word, final V value ) {
+      synchronized ( _cache ) {
+         _cache.put( word, value );
+      }
+   }
+
+   /**
+    * @return number of cached words
+    */
+   public int size() {
+      synchronized ( _cache ) {
+         return _cache.size();
+      }
+   }
+
+   /**
+    * @return maximum number of cached words
+    */
+   public int getMaxSize() {
+      return _maxSize;
+   }
+
+   public long getHitCount() {
+      return _hitCount.get();
+   }
+
+   public long getMissCount() {
+      return _missCount.get();
+   }
+
+   public void clear() {
+      synchronized ( _cache ) {
+         _cache.clear();
+      }
+   }
+
+   /**
+    * Write all entries to a file, least recently used first.  The file is replaced only after all entries are written.
+    *
+    * @param file      file to write
+    * @param formatter creates single line text for a value
+    * @throws IOException if the file cannot be written
+    */
+   public void save( final File file, final Function<V, String> formatter ) throws IOException {
+      final File parent = file.getAbsoluteFile().getParentFile();
+      if ( parent != null && !parent.exists() && !parent.mkdirs() ) {
+         throw new IOException( "Could not create directory " + parent.getPath() );
+      }
+      final List<Map.Entry<String, V>> entries;
+      synchronized ( _cache ) {
+         entries = new ArrayList<>( _cache.entrySet() );
+      }
+      final File tempFile = new File( file.getPath() + ".tmp" );
+      try ( Writer writer = new BufferedWriter(
+            new OutputStreamWriter( new FileOutputStream( tempFile ), StandardCharsets.UTF_8 ) ) ) {
+         for ( Map.Entry<String, V> entry : entries ) {
+            writer.write( entry.getKey() );
+            writer.write( '\t' );
+            writer.write( formatter.apply( entry.getValue() ) );
+            writer.write( '\n' );
+         }
+      }
+      Files.move( tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+      LOGGER.info( "Wrote " + entries.size() + " " + _name + " entries to " + file.getPath() );
+   }
+
+   /**
+    * Read entries from a file written by {@link #save(File, Function)}.  The order of use is kept,
+    * and if the file holds more than the maximum number of entries then only the most recently used are kept.
+    *
+    * @param file   file to read
+    * @param parser creates a value from its text, returning null for invalid text
+    * @return the number of entries read
+    * @throws IOException if the file cannot be read
+    */
+   public int load( final File file, final Function<String, V> parser ) throws IOException {
+      int count = 0;
+      try ( BufferedReader reader = new BufferedReader(
+            new InputStreamReader( new FileInputStream( file ), StandardCharsets.UTF_8 ) ) ) {
+         String line = reader.readLine();
+         while ( line != null ) {
+            final int tabIndex = line.indexOf( '\t' );
+            if ( tabIndex > 0 ) {
+               final V value = parser.apply( line.substring( tabIndex + 1 ) );
+               if ( value != null ) {
+                  put( line.substring( 0, tabIndex ), value );
+                  count++;
+               }
+            }
+            line = reader.readLine();
+         }
+      }
+      LOGGER.info( "Read " + count + " " + _name + " entries from " + file.getPath() );
+      return count;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString() {
+      return _name + " size " + size() + " of " + _maxSize + " hits " + getHitCount() + " misses " + getMissCount();
+   }
+
+}
@@ -24,6 +24,8 @@ package org.apache.ctakes.lvg.resource;
 import gov.nih.nlm.nls.lvg.Api.LvgCmdApi;
 import gov.nih.nlm.nls.lvg.Api.LvgLexItemApi;
 
+import java.util.List;
+
 /**
  * @author Mayo Clinic
  *
@@ -34,4 +36,32 @@ public interface LvgCmdApiResource {
     
     public LvgLexItemApi getLvgLex();
 
+    /**
+     * Start a runtime cache of lvg results that is shared by all users of this resource.
+     * Only the first call has any effect.
+     *
+     * @param maxSize        maximum number of words to cache, 0 for no cache
+     * @param cacheDirectory directory from which a saved cache is read and to which the cache is saved, may be empty
+     */
+    public void initializeCache( int maxSize, String cacheDirectory );
+
+    /**
+     * @param word -
+     * @return the lower case, uninflected form of the word or null if lvg has none
+     * @throws Exception if lvg fails
+     */
+    public String getCanonicalForm( String word ) throws Exception;
+
+    /**
+     * @param word -
+     * @return lemmas of the inflectional variants of the word
+     * @throws Exception if lvg fails
+     */
+    public List<LvgLemma> getLemmas( String word ) throws Exception;
+
+    /**
+     * Save the runtime cache to its directory, if there is one
+     */
+    public void saveCache();
+
 }
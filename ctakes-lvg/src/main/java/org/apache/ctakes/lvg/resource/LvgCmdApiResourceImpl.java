@@ -19,9 +19,15 @@
 package org.apache.ctakes.lvg.resource;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Vector;
 
 import gov.nih.nlm.nls.lvg.Api.LvgCmdApi;
 import gov.nih.nlm.nls.lvg.Api.LvgLexItemApi;
+import gov.nih.nlm.nls.lvg.Lib.LexItem;
 
 import org.apache.log4j.Logger;
 
@@ -42,6 +48,9 @@ import org.apache.uima.resource.SharedResourceObject;
  * its files, so using AUTO_MODE requires this class to change the current 
  * working directory temporarily so the lvg files can be found by lvg.
  *
+ * Canonical forms and lemmas can be memoized in a runtime cache that is shared
+ * by every annotator using this resource, and saved to disk for the next run.
+ *
  * @author Mayo Clinic
  */
 public class LvgCmdApiResourceImpl
@@ -54,6 +63,15 @@ public class LvgCmdApiResourceImpl
     private LvgLexItemApi lvgLexItem;
     
     private static String CWD_PROPERTY = "user.dir"; // Name of property for current working directory
+
+    private static final String CANONICAL_CACHE_FILE = "lvg_canonical.cache";
+    private static final String LEMMA_CACHE_FILE = "lvg_lemma.cache";
+    // cached for words that have no canonical form
+    private static final String NO_CANONICAL_FORM = "";
+
+    private volatile LvgCache<String> canonicalCache;
+    private volatile LvgCache<List<LvgLemma>> lemmaCache;
+    private File cacheDirectory;
     
     public void load(DataResource dr) throws ResourceInitializationException
     {
@@ -177,4 +195,145 @@ public class LvgCmdApiResourceImpl
 		return lvgLexItem;
 	}
 
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized void initializeCache(int maxSize, String cacheDirectoryPath) {
+        if (canonicalCache != null || maxSize <= 0) {
+            return;
+        }
+        LvgCache<String> newCanonicalCache = new LvgCache<>("LVG Canonical Form", maxSize);
+        LvgCache<List<LvgLemma>> newLemmaCache = new LvgCache<>("LVG Lemma", maxSize);
+        if (cacheDirectoryPath != null && !cacheDirectoryPath.trim().isEmpty()) {
+            cacheDirectory = new File(cacheDirectoryPath.trim());
+            File canonicalFile = new File(cacheDirectory, CANONICAL_CACHE_FILE);
+            File lemmaFile = new File(cacheDirectory, LEMMA_CACHE_FILE);
+            try {
+                if (canonicalFile.canRead()) {
+                    newCanonicalCache.load(canonicalFile, text -> text);
+                }
+                if (lemmaFile.canRead()) {
+                    newLemmaCache.load(lemmaFile, LvgCmdApiResourceImpl::parseLemmas);
+                }
+            } catch (IOException ioE) {
+                logger.warn("Could not read LVG cache in " + cacheDirectory.getPath() + " : " + ioE.getMessage());
+                newCanonicalCache.clear();
+                newLemmaCache.clear();
+            }
+        }
+        lemmaCache = newLemmaCache;
+        canonicalCache = newCanonicalCache;
+        logger.info("Using LVG runtime cache of " + maxSize + " words");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getCanonicalForm(String word) throws Exception {
+        LvgCache<String> cache = canonicalCache;
+        if (cache != null) {
+            String canonicalForm = cache.get(word);
+            if (canonicalForm != null) {
+                return canonicalForm.isEmpty() ? null : canonicalForm;
+            }
+        }
+        String out;
+        // lvg apis are not thread safe
+        synchronized (lvg) {
+            out = lvg.MutateToString(word);
+        }
+        String canonicalForm = null;
+        String[] output = out.split("\\|");
+        if ((output != null) && (output.length >= 2)
+                && (!output[1].matches("No Output"))) {
+            canonicalForm = output[1];
+        }
+        if (cache != null) {
+            cache.put(word, canonicalForm == null ? NO_CANONICAL_FORM : canonicalForm);
+        }
+        return canonicalForm;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<LvgLemma> getLemmas(String word) throws Exception {
+        LvgCache<List<LvgLemma>> cache = lemmaCache;
+        if (cache != null) {
+            List<LvgLemma> lemmas = cache.get(word);
+            if (lemmas != null) {
+                return lemmas;
+            }
+        }
+        Vector<?> lexItems;
+        synchronized (lvgLexItem) {
+            lexItems = lvgLexItem.MutateLexItem(word);
+        }
+        List<LvgLemma> lemmas = new ArrayList<>(lexItems.size());
+        for (Object lexItem : lexItems) {
+            LexItem li = (LexItem) lexItem;
+            lemmas.add(new LvgLemma(li.GetTargetTerm(), li.GetTargetCategory().GetValue()));
+        }
+        lemmas = Collections.unmodifiableList(lemmas);
+        if (cache != null) {
+            cache.put(word, lemmas);
+        }
+        return lemmas;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized void saveCache() {
+        if (cacheDirectory == null || canonicalCache == null) {
+            return;
+        }
+        logger.info(canonicalCache.toString());
+        logger.info(lemmaCache.toString());
+        try {
+            canonicalCache.save(new File(cacheDirectory, CANONICAL_CACHE_FILE), text -> text);
+            lemmaCache.save(new File(cacheDirectory, LEMMA_CACHE_FILE), LvgCmdApiResourceImpl::formatLemmas);
+        } catch (IOException ioE) {
+            logger.error("Could not save LVG cache in " + cacheDirectory.getPath() + " : " + ioE.getMessage());
+        }
+    }
+
+    /**
+     * @return lemmas as term|categories separated by tabs
+     */
+    static String formatLemmas(List<LvgLemma> lemmas) {
+        StringBuilder sb = new StringBuilder();
+        for (LvgLemma lemma : lemmas) {
+            if (sb.length() > 0) {
+                sb.append('\t');
+            }
+            sb.append(lemma.getTerm()).append('|').append(lemma.getCategories());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return lemmas read from text written by formatLemmas, or null if the text is invalid
+     */
+    static List<LvgLemma> parseLemmas(String text) {
+        if (text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String[] lemmaTexts = text.split("\t");
+        List<LvgLemma> lemmas = new ArrayList<>(lemmaTexts.length);
+        for (String lemmaText : lemmaTexts) {
+            int barIndex = lemmaText.lastIndexOf('|');
+            if (barIndex < 0) {
+                return null;
+            }
+            try {
+                lemmas.add(new LvgLemma(lemmaText.substring(0, barIndex),
+                        Long.parseLong(lemmaText.substring(barIndex + 1))));
+            } catch (NumberFormatException nfE) {
+                return null;
+            }
+        }
+        return Collections.unmodifiableList(lemmas);
+    }
+
 }
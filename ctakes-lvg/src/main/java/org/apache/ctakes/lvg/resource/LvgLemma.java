@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.lvg.resource;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * A lemma term and its lvg categories, as produced by {@link gov.nih.nlm.nls.lvg.Api.LvgLexItemApi}.
+ * Unlike an lvg LexItem this is small, immutable and can be written to a cache file.
+ */
+@Immutable
+final public class LvgLemma {
+
+   private final String _term;
+   private final long _categories;
+
+   /**
+    * @param term       lemma term
+    * @param categories lvg category bit vector for the term
+    */
+   public LvgLemma( final String term, final long categories ) {
+      _term = term;
+      _categories = categories;
+   }
+
+   /**
+    * @return lemma term
+    */
+   public String getTerm() {
+      return _term;
+   }
+
+   /**
+    * @return lvg category bit vector for the term, use {@link gov.nih.nlm.nls.lvg.Lib.Category} to read
+    */
+   public long getCategories() {
+      return _categories;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public boolean equals( final Object value ) {
+      return value instanceof LvgLemma
+             && ((LvgLemma)value)._categories == _categories
+             && ((LvgLemma)value)._term.equals( _term );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public int hashCode() {
+      return _term.hashCode() + 31 * Long.hashCode( _categories );
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString() {
+      return _term + "|" + _categories;
+   }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.lvg.resource;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+final public class LvgCacheTest {
+
+   @Rule
+   public TemporaryFolder _folder = new TemporaryFolder();
+
+   @Test
+   public void testLruEviction() {
+      final LvgCache<String> cache = new LvgCache<>( "Test", 3 );
+      cache.put( "a", "A" );
+      cache.put( "b", "B" );
+      cache.put( "c", "C" );
+      // "a" becomes the most recently used, so "b" is dropped
+      assertEquals( "A", cache.get( "a" ) );
+      cache.put( "d", "D" );
+      assertEquals( 3, cache.size() );
+      assertNull( cache.get( "b" ) );
+      assertEquals( "A", cache.get( "a" ) );
+      assertEquals( "C", cache.get( "c" ) );
+      assertEquals( "D", cache.get( "d" ) );
+      assertEquals( 4, cache.getHitCount() );
+      assertEquals( 1, cache.getMissCount() );
+   }
+
+   @Test
+   public void testSaveLoad() throws IOException {
+      final LvgCache<String> cache = new LvgCache<>( "Test", 10 );
+      cache.put( "running", "run" );
+      cache.put( "mice", "mouse" );
+      cache.put( "aspirin", "" );
+      cache.get( "running" );
+      final File file = new File( _folder.getRoot(), "cache/canonical.txt" );
+      cache.save( file, text -> text );
+      assertEquals( Arrays.asList( "mice\tmouse", "aspirin\t", "running\trun" ),
+            Files.readAllLines( file.toPath(), StandardCharsets.UTF_8 ) );
+
+      final LvgCache<String> loaded = new LvgCache<>( "Test", 10 );
+      assertEquals( 3, loaded.load( file, text -> text ) );
+      assertEquals( "run", loaded.get( "running" ) );
+      assertEquals( "mouse", loaded.get( "mice" ) );
+      assertEquals( "", loaded.get( "aspirin" ) );
+   }
+
+   @Test
+   public void testLoadKeepsMostRecent() throws IOException {
+      final LvgCache<String> cache = new LvgCache<>( "Test", 4 );
+      for ( String word : Arrays.asList( "a", "b", "c", "d" ) ) {
+         cache.put( word, word.toUpperCase() );
+      }
+      final File file = _folder.newFile( "canonical.txt" );
+      cache.save( file, text -> text );
+      final LvgCache<String> loaded = new LvgCache<>( "Test", 2 );
+      loaded.load( file, text -> text );
+      assertEquals( 2, loaded.size() );
+      assertNull( loaded.get( "a" ) );
+      assertNull( loaded.get( "b" ) );
+      assertEquals( "C", loaded.get( "c" ) );
+      assertEquals( "D", loaded.get( "d" ) );
+   }
+
+   @Test
+   public void testLemmaSaveLoad() throws IOException {
+      final LvgCache<List<LvgLemma>> cache = new LvgCache<>( "Test", 10 );
+      final List<LvgLemma> lemmas = Arrays.asList( new LvgLemma( "run", 1024 ), new LvgLemma( "run|on", 128 ) );
+      cache.put( "running", lemmas );
+      cache.put( "xyzzy", Collections.emptyList() );
+      final File file = _folder.newFile( "lemma.txt" );
+      cache.save( file, LvgCmdApiResourceImpl::formatLemmas );
+
+      final LvgCache<List<LvgLemma>> loaded = new LvgCache<>( "Test", 10 );
+      assertEquals( 2, loaded.load( file, LvgCmdApiResourceImpl::parseLemmas ) );
+      assertEquals( lemmas, loaded.get( "running" ) );
+      assertEquals( Collections.emptyList(), loaded.get( "xyzzy" ) );
+   }
+
+   @Test
+   public void testLoadSkipsInvalidLines() throws IOException {
+      final File file = _folder.newFile( "lemma.txt" );
+      Files.write( file.toPath(), Arrays.asList( "running\trun|1024", "no tab", "mice\tmouse|x", "\tempty|1" ),
+            StandardCharsets.UTF_8 );
+      final LvgCache<List<LvgLemma>> loaded = new LvgCache<>( "Test", 10 );
+      assertEquals( 1, loaded.load( file, LvgCmdApiResourceImpl::parseLemmas ) );
+      assertEquals( Collections.singletonList( new LvgLemma( "run", 1024 ) ), loaded.get( "running" ) );
+   }
+
+}
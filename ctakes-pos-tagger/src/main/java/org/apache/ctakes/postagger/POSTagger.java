@@ -50,12 +50,17 @@
 
 package org.apache.ctakes.postagger;
 
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.apache.ctakes.core.resource.FileLocator;
+import org.apache.ctakes.core.resource.ModelRegistry;
+import org.apache.ctakes.core.util.CoveredAnnotationUtil;
 import org.apache.ctakes.typesystem.type.syntax.BaseToken;
 import org.apache.ctakes.typesystem.type.syntax.NewlineToken;
 import org.apache.ctakes.typesystem.type.textspan.Segment;
@@ -74,6 +79,7 @@ import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ResourceInitializationException;
 
 import opennlp.tools.postag.POSModel;
+import opennlp.tools.postag.POSTaggerME;
 
 public class POSTagger extends JCasAnnotator_ImplBase {
 
@@ -90,7 +96,28 @@ public class POSTagger extends JCasAnnotator_ImplBase {
 	public static final String PARAM_POS_MODEL_FILE = POS_MODEL_FILE_PARAM;
 	@ConfigurationParameter(name = POS_MODEL_FILE_PARAM, mandatory = false, defaultValue = "org/apache/ctakes/postagger/models/mayo-pos.zip", description = "Model file for OpenNLP POS tagger")
 	private String posModelPath;
-	private opennlp.tools.postag.POSTaggerME tagger;
+
+	/**
+	 * Value is "BatchTag".  This parameter specifies whether the tokens of all sentences are collected in one pass
+	 * over the token index and the sentences are tagged on several threads, each with its own tagger.
+	 * Each annotator has its own pool of up to 8 threads, which is shut down by destroy().
+	 * Tags are always set on the processing thread.
+	 */
+	public static final String PARAM_BATCH_TAG = "BatchTag";
+	@ConfigurationParameter(name = PARAM_BATCH_TAG, mandatory = false, defaultValue = "false", description = "Collect all sentences in one pass and tag them on several threads")
+	private boolean batchTag;
+
+	private POSModel posModel;
+	private POSTaggerME tagger;
+	// taggers hold state while they tag, so each pool thread has its own
+	private ThreadLocal<POSTaggerME> threadTaggers;
+
+	// pool used to tag sentences when BatchTag is true, otherwise null
+	private ExecutorService tagExecutor;
+	private int tagThreadCount;
+
+	// number of tag tasks per pool thread, to keep the pool busy when sentence lengths vary
+	private static final int TASKS_PER_THREAD = 4;
 
 	@Override
 	public void initialize(UimaContext uimaContext)
@@ -99,13 +126,37 @@ public class POSTagger extends JCasAnnotator_ImplBase {
 
 		logger.info("POS tagger model file: " + posModelPath);
 
-		try (InputStream fis = FileLocator.getAsStream(posModelPath)) {
-			POSModel modelFile = new POSModel(fis);
-			tagger = new opennlp.tools.postag.POSTaggerME(modelFile);
+		try {
+			// the model is shared by all pos taggers, the tagger is not
+			posModel = ModelRegistry.getInstance().getModel(posModelPath, POSModel.class, POSModel::new);
+			tagger = new POSTaggerME(posModel);
 		} catch (Exception e) {
 			logger.info("Error loading POS tagger model: " + posModelPath);
 			throw new ResourceInitializationException(e);
 		}
+		if (batchTag) {
+			threadTaggers = ThreadLocal.withInitial(() -> new POSTaggerME(posModel));
+			tagThreadCount = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+			AtomicInteger threadNumber = new AtomicInteger();
+			tagExecutor = Executors.newFixedThreadPool(tagThreadCount, r -> {
+				Thread thread = new Thread(r, "POSTagger-" + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+			logger.info("Tagging sentences on " + tagThreadCount + " threads");
+		}
+	}
+
+	/**
+	 * Shuts down the pool used to tag sentences in parallel.
+	 */
+	@Override
+	public void destroy() {
+		if (tagExecutor != null) {
+			tagExecutor.shutdownNow();
+			tagExecutor = null;
+		}
+		super.destroy();
 	}
 
 	@Override
@@ -113,6 +164,11 @@ public class POSTagger extends JCasAnnotator_ImplBase {
 
 		logger.info("process(JCas)");
 
+		if (batchTag) {
+			processBatch(jCas);
+			return;
+		}
+
 		Collection<Sentence> sentences = JCasUtil.select(jCas, Sentence.class);
 		for (Sentence sentence : sentences) {
 
@@ -146,6 +202,88 @@ public class POSTagger extends JCasAnnotator_ImplBase {
 		}
 	}
 
+	/**
+	 * Collects the printable tokens of every sentence in one pass, tags the sentences in parallel
+	 * and then sets the tags in one sequential pass.
+	 */
+	private void processBatch(JCas jCas) throws AnalysisEngineProcessException {
+		List<List<BaseToken>> sentenceTokens = new ArrayList<>();
+		List<String[]> sentenceWords = new ArrayList<>();
+		for (List<BaseToken> tokens : CoveredAnnotationUtil.selectCoveredLists(jCas, Sentence.class, BaseToken.class).values()) {
+			List<BaseToken> printableTokens = new ArrayList<>(tokens.size());
+			for (BaseToken token : tokens) {
+				if (!(token instanceof NewlineToken)) {
+					printableTokens.add(token);
+				}
+			}
+			if (printableTokens.isEmpty()) {
+				continue;
+			}
+			String[] words = new String[printableTokens.size()];
+			for (int i = 0; i < words.length; i++) {
+				words[i] = printableTokens.get(i).getCoveredText();
+			}
+			sentenceTokens.add(printableTokens);
+			sentenceWords.add(words);
+		}
+
+		List<String[]> sentenceTags = tag(sentenceWords);
+
+		for (int s = 0; s < sentenceTokens.size(); s++) {
+			List<BaseToken> printableTokens = sentenceTokens.get(s);
+			String[] wordTagList = sentenceTags.get(s);
+			if (wordTagList.length < printableTokens.size()) {
+				throw new AnalysisEngineProcessException(
+						"sentence being tagged begins with: '"
+								+ printableTokens.get(0).getCoveredText() + "'", null);
+			}
+			for (int i = 0; i < printableTokens.size(); i++) {
+				printableTokens.get(i).setPartOfSpeech(wordTagList[i]);
+			}
+		}
+	}
+
+	/**
+	 * Tags the sentences in groups on the pool.
+	 * @param sentenceWords the words of each sentence
+	 * @return the tags of each sentence, in sentence order
+	 */
+	private List<String[]> tag(List<String[]> sentenceWords) throws AnalysisEngineProcessException {
+		if (sentenceWords.size() < 2) {
+			return tag(sentenceWords, tagger);
+		}
+		int chunkSize = Math.max(1, sentenceWords.size() / (tagThreadCount * TASKS_PER_THREAD));
+		List<Future<List<String[]>>> futures = new ArrayList<>();
+		for (int start = 0; start < sentenceWords.size(); start += chunkSize) {
+			List<String[]> chunk = sentenceWords.subList(start, Math.min(start + chunkSize, sentenceWords.size()));
+			futures.add(tagExecutor.submit(() -> tag(chunk, threadTaggers.get())));
+		}
+		List<String[]> sentenceTags = new ArrayList<>(sentenceWords.size());
+		try {
+			for (Future<List<String[]>> future : futures) {
+				sentenceTags.addAll(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AnalysisEngineProcessException(e);
+		} catch (ExecutionException e) {
+			throw new AnalysisEngineProcessException(e.getCause());
+		} finally {
+			for (Future<?> future : futures) {
+				future.cancel(true);
+			}
+		}
+		return sentenceTags;
+	}
+
+	private static List<String[]> tag(List<String[]> sentenceWords, POSTaggerME sentenceTagger) {
+		List<String[]> sentenceTags = new ArrayList<>(sentenceWords.size());
+		for (String[] words : sentenceWords) {
+			sentenceTags.add(sentenceTagger.tag(words));
+		}
+		return sentenceTags;
+	}
+
 	public static AnalysisEngineDescription createAnnotatorDescription()
 			throws ResourceInitializationException {
 		return AnalysisEngineFactory.createEngineDescription(
@@ -9,11 +9,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 
-import org.apache.ctakes.core.resource.FileLocator;
+import org.apache.ctakes.core.resource.EmbeddingRegistry;
 import org.apache.ctakes.typesystem.type.syntax.BaseToken;
 import org.apache.ctakes.utils.distsem.WordEmbeddings;
 import org.apache.ctakes.utils.distsem.WordVector;
-import org.apache.ctakes.utils.distsem.WordVectorReader;
 import org.apache.uima.jcas.JCas;
 import org.cleartk.ml.Feature;
 import org.cleartk.ml.feature.extractor.CleartkExtractorException;
@@ -28,7 +27,7 @@ NamedFeatureExtractor1<BaseToken>  {
 		super();
 		try {
 			words =
-					WordVectorReader.getEmbeddings(FileLocator.getAsStream(vecFile));
+					EmbeddingRegistry.getInstance().getEmbeddings(vecFile);
 		} catch (IOException e) {
 			e.printStackTrace();
 			throw new CleartkExtractorException(e);
@@ -23,13 +23,12 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-import org.apache.ctakes.core.resource.FileLocator;
+import org.apache.ctakes.core.resource.EmbeddingRegistry;
 import org.apache.ctakes.relationextractor.ae.features.RelationFeaturesExtractor;
 import org.apache.ctakes.typesystem.type.syntax.WordToken;
 import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
 import org.apache.ctakes.utils.distsem.WordEmbeddings;
 import org.apache.ctakes.utils.distsem.WordVector;
-import org.apache.ctakes.utils.distsem.WordVectorReader;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
@@ -48,7 +47,7 @@ public class RelationEmbeddingFeatureExtractor implements RelationFeaturesExtrac
 	CleartkExtractorException {
 		try {
 			words =
-					WordVectorReader.getEmbeddings(FileLocator.getAsStream(vecFile));
+					EmbeddingRegistry.getInstance().getEmbeddings(vecFile);
 		} catch (IOException e) {
 			e.printStackTrace();
 			throw new CleartkExtractorException(e);
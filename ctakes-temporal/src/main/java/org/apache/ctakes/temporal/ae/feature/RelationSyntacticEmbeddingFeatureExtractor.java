@@ -25,7 +25,7 @@ import java.util.List;
 
 import org.apache.ctakes.constituency.parser.treekernel.TreeExtractor;
 import org.apache.ctakes.constituency.parser.util.AnnotationTreeUtils;
-import org.apache.ctakes.core.resource.FileLocator;
+import org.apache.ctakes.core.resource.EmbeddingRegistry;
 import org.apache.ctakes.relationextractor.ae.features.RelationFeaturesExtractor;
 import org.apache.ctakes.typesystem.type.syntax.TopTreebankNode;
 import org.apache.ctakes.typesystem.type.syntax.TreebankNode;
@@ -35,7 +35,6 @@ import org.apache.ctakes.typesystem.type.textsem.IdentifiedAnnotation;
 import org.apache.ctakes.typesystem.type.textsem.TimeMention;
 import org.apache.ctakes.utils.distsem.WordEmbeddings;
 import org.apache.ctakes.utils.distsem.WordVector;
-import org.apache.ctakes.utils.distsem.WordVectorReader;
 import org.apache.ctakes.utils.tree.SimpleTree;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.util.JCasUtil;
@@ -55,7 +54,7 @@ public class RelationSyntacticEmbeddingFeatureExtractor implements RelationFeatu
 	CleartkExtractorException {
 		try {
 			paths =
-					WordVectorReader.getEmbeddings(FileLocator.getAsStream(vecFile));
+					EmbeddingRegistry.getInstance().getEmbeddings(vecFile);
 		} catch (IOException e) {
 			e.printStackTrace();
 			throw new CleartkExtractorException(e);
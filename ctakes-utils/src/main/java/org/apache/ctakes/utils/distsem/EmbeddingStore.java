@@ -0,0 +1,484 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.utils.distsem;
+
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only word embeddings in a binary file of float32 vectors that is memory-mapped when it is loaded,
+ * so that the vectors are not copied onto the heap and processes that map the same file share its pages.
+ * <p>
+ * Layout, little-endian:
+ * <pre>
+ * header:   magic, version, word count, dimensionality, hash table size, word byte count (ints), 8 reserved bytes
+ * float[word count * dimensionality]   vectors, one row per word
+ * float[word count]                    vector lengths
+ * int[hash table size]                 word indexes by word hash, open addressing, -1 for an empty slot
+ * int[word count]                      word hash codes
+ * int[word count + 1]                  word offsets into the word bytes
+ * byte[word byte count]                UTF-8 words
+ * </pre>
+ * Files are written from the text format read by {@link WordVectorReader}: a line with the word count and
+ * dimensionality, then a line per word with the word and its values separated by spaces.
+ * A word that is repeated keeps its last vector, as it does in {@link WordEmbeddings}.
+ * </p>
+ * Vector operations read the mapped rows in place.
+ */
+final public class EmbeddingStore {
+
+   /**
+    * File extension of binary embedding files
+    */
+   static public final String FILE_EXTENSION = ".emb";
+
+   static private final Logger LOGGER = Logger.getLogger( "EmbeddingStore" );
+
+   // "CTEM"
+   static private final int MAGIC = 0x4354454D;
+   static private final int VERSION = 1;
+   static private final int HEADER_SIZE = 32;
+
+   final private ByteBuffer _buffer;
+   final private int _wordCount;
+   final private int _dimensionality;
+   final private FloatBuffer _vectors;
+   final private FloatBuffer _lengths;
+   final private IntBuffer _hashTable;
+   final private int _hashMask;
+   final private IntBuffer _hashCodes;
+   final private IntBuffer _wordOffsets;
+   final private ByteBuffer _wordBytes;
+
+   private EmbeddingStore( final ByteBuffer buffer ) throws IOException {
+      _buffer = buffer.order( ByteOrder.LITTLE_ENDIAN );
+      if ( buffer.limit() < HEADER_SIZE || buffer.getInt( 0 ) != MAGIC ) {
+         throw new IOException( "Not a word embedding file" );
+      }
+      final int version = buffer.getInt( 4 );
+      if ( version != VERSION ) {
+         throw new IOException( "Unsupported word embedding file version " + version + ", expected " + VERSION );
+      }
+      _wordCount = buffer.getInt( 8 );
+      _dimensionality = buffer.getInt( 12 );
+      final int hashTableSize = buffer.getInt( 16 );
+      final int wordByteCount = buffer.getInt( 20 );
+      // the hash table must be a power of 2 with an empty slot
+      if ( _wordCount < 0 || _dimensionality < 0 || wordByteCount < 0
+           || hashTableSize <= _wordCount || Integer.bitCount( hashTableSize ) != 1 ) {
+         throw new IOException( "Word embedding file is corrupt" );
+      }
+      final long fileSize = HEADER_SIZE
+                            + ((long)_wordCount * _dimensionality + _wordCount * 3L + 1 + hashTableSize) * 4
+                            + wordByteCount;
+      if ( fileSize != buffer.limit() ) {
+         throw new IOException( "Word embedding file is truncated or corrupt" );
+      }
+      _hashMask = hashTableSize - 1;
+      int position = HEADER_SIZE;
+      _vectors = slice( position, _wordCount * _dimensionality * 4 ).asFloatBuffer();
+      position += _wordCount * _dimensionality * 4;
+      _lengths = slice( position, _wordCount * 4 ).asFloatBuffer();
+      position += _wordCount * 4;
+      _hashTable = slice( position, hashTableSize * 4 ).asIntBuffer();
+      position += hashTableSize * 4;
+      _hashCodes = slice( position, _wordCount * 4 ).asIntBuffer();
+      position += _wordCount * 4;
+      _wordOffsets = slice( position, (_wordCount + 1) * 4 ).asIntBuffer();
+      position += (_wordCount + 1) * 4;
+      _wordBytes = slice( position, wordByteCount );
+   }
+
+   private ByteBuffer slice( final int position, final int length ) {
+      final ByteBuffer section = _buffer.duplicate();
+      section.position( position );
+      section.limit( position + length );
+      return section.slice().order( ByteOrder.LITTLE_ENDIAN );
+   }
+
+   /**
+    * @param file binary embedding file
+    * @return embeddings backed by the memory-mapped file
+    * @throws IOException if the file cannot be read or is not a binary embedding file
+    */
+   static public EmbeddingStore map( final File file ) throws IOException {
+      try ( RandomAccessFile raf = new RandomAccessFile( file, "r" ) ) {
+         final FileChannel channel = raf.getChannel();
+         // the mapping stays valid after the channel is closed
+         return new EmbeddingStore( channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() ) );
+      }
+   }
+
+   /**
+    * Reads a binary embedding file from a stream that cannot be mapped, such as a resource in a jar,
+    * into a single heap buffer.
+    *
+    * @param stream binary embedding file contents, not closed
+    * @return embeddings backed by the buffer
+    * @throws IOException if the stream cannot be read or is not a binary embedding file
+    */
+   static public EmbeddingStore read( final InputStream stream ) throws IOException {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[ 65536 ];
+      int count;
+      while ( (count = stream.read( buffer )) >= 0 ) {
+         bytes.write( buffer, 0, count );
+      }
+      return new EmbeddingStore( ByteBuffer.wrap( bytes.toByteArray() ) );
+   }
+
+   /**
+    * Converts embeddings in the text format to a temporary binary file and maps it.
+    * The file is deleted once it is mapped where the platform allows, otherwise when the jvm exits.
+    *
+    * @param stream embeddings in the text format, not closed
+    * @return embeddings backed by the memory-mapped file
+    * @throws IOException if the stream cannot be read or converted
+    */
+   static public EmbeddingStore readText( final InputStream stream ) throws IOException {
+      final File file = File.createTempFile( "embeddings", FILE_EXTENSION );
+      try {
+         convert( stream, file );
+         return map( file );
+      } finally {
+         if ( !file.delete() ) {
+            file.deleteOnExit();
+         }
+      }
+   }
+
+   /**
+    * Converts embeddings in the text format to a binary embedding file.
+    * Vectors are written to the file as they are read, so only the words are held in memory.
+    *
+    * @param stream embeddings in the text format, not closed
+    * @param file   binary embedding file to write
+    * @throws IOException if the stream cannot be read, is not in the text format, or the file cannot be written
+    */
+   static public void convert( final InputStream stream, final File file ) throws IOException {
+      final BufferedReader reader = new BufferedReader( new InputStreamReader( stream, StandardCharsets.UTF_8 ) );
+      final String header = reader.readLine();
+      if ( header == null ) {
+         throw new IOException( "No word embeddings in stream" );
+      }
+      final String[] counts = header.trim().split( "\\s+" );
+      if ( counts.length != 2 ) {
+         throw new IOException( "Expected a word count and dimensionality in the first line: " + header );
+      }
+      final int dimensionality = Integer.parseInt( counts[ 1 ] );
+      final List<String> words = new ArrayList<>( Math.max( 16, Integer.parseInt( counts[ 0 ] ) ) );
+      final Map<String, Integer> wordIndexes = new HashMap<>();
+      final List<Float> lengths = new ArrayList<>();
+      try ( RandomAccessFile raf = new RandomAccessFile( file, "rw" ) ) {
+         raf.setLength( 0 );
+         final FileChannel channel = raf.getChannel();
+         final ByteBuffer row = ByteBuffer.allocate( dimensionality * 4 ).order( ByteOrder.LITTLE_ENDIAN );
+         String line;
+         while ( (line = reader.readLine()) != null ) {
+            line = line.trim();
+            if ( line.isEmpty() ) {
+               continue;
+            }
+            final int wordBreak = line.indexOf( ' ' );
+            if ( wordBreak < 0 ) {
+               throw new IOException( "No vector for word " + line );
+            }
+            final String word = line.substring( 0, wordBreak );
+            final String[] values = line.substring( wordBreak + 1 ).split( " " );
+            if ( values.length != dimensionality ) {
+               throw new IOException( "Expected " + dimensionality + " values for word " + word
+                                      + " but found " + values.length );
+            }
+            row.clear();
+            double length = 0;
+            for ( String value : values ) {
+               final float v = Float.parseFloat( value );
+               row.putFloat( v );
+               length += v * v;
+            }
+            row.flip();
+            Integer index = wordIndexes.get( word );
+            if ( index == null ) {
+               index = words.size();
+               wordIndexes.put( word, index );
+               words.add( word );
+               lengths.add( (float)Math.sqrt( length ) );
+            } else {
+               lengths.set( index, (float)Math.sqrt( length ) );
+            }
+            channel.write( row, HEADER_SIZE + (long)index * dimensionality * 4 );
+         }
+         final int wordCount = words.size();
+         final byte[][] wordBytes = new byte[ wordCount ][];
+         int wordByteCount = 0;
+         for ( int i = 0; i < wordCount; i++ ) {
+            wordBytes[ i ] = words.get( i ).getBytes( StandardCharsets.UTF_8 );
+            wordByteCount += wordBytes[ i ].length;
+         }
+         int hashTableSize = 2;
+         while ( hashTableSize < wordCount * 2 ) {
+            hashTableSize <<= 1;
+         }
+         final int[] hashTable = new int[ hashTableSize ];
+         Arrays.fill( hashTable, -1 );
+         for ( int i = 0; i < wordCount; i++ ) {
+            int slot = spread( words.get( i ).hashCode() ) & (hashTableSize - 1);
+            while ( hashTable[ slot ] >= 0 ) {
+               slot = (slot + 1) & (hashTableSize - 1);
+            }
+            hashTable[ slot ] = i;
+         }
+         final long vectorBytes = (long)wordCount * dimensionality * 4;
+         if ( HEADER_SIZE + vectorBytes + (wordCount * 3L + hashTableSize + 1) * 4 + wordByteCount
+              > Integer.MAX_VALUE ) {
+            throw new IOException( "Word embeddings are too large for one file: " + wordCount + " words of "
+                                   + dimensionality + " dimensions" );
+         }
+         final ByteArrayOutputStream tailBytes = new ByteArrayOutputStream();
+         final DataOutputStream tail = new DataOutputStream( tailBytes );
+         for ( Float length : lengths ) {
+            tail.writeInt( Integer.reverseBytes( Float.floatToIntBits( length ) ) );
+         }
+         for ( int index : hashTable ) {
+            tail.writeInt( Integer.reverseBytes( index ) );
+         }
+         for ( String word : words ) {
+            tail.writeInt( Integer.reverseBytes( word.hashCode() ) );
+         }
+         int offset = 0;
+         for ( byte[] bytes : wordBytes ) {
+            tail.writeInt( Integer.reverseBytes( offset ) );
+            offset += bytes.length;
+         }
+         tail.writeInt( Integer.reverseBytes( offset ) );
+         for ( byte[] bytes : wordBytes ) {
+            tail.write( bytes );
+         }
+         tail.flush();
+         channel.write( ByteBuffer.wrap( tailBytes.toByteArray() ), HEADER_SIZE + vectorBytes );
+         final ByteBuffer headerBuffer = ByteBuffer.allocate( HEADER_SIZE ).order( ByteOrder.LITTLE_ENDIAN );
+         headerBuffer.putInt( MAGIC ).putInt( VERSION ).putInt( wordCount ).putInt( dimensionality )
+                     .putInt( hashTableSize ).putInt( wordByteCount ).putLong( 0 );
+         headerBuffer.flip();
+         channel.write( headerBuffer, 0 );
+      }
+   }
+
+   static private int spread( final int hashCode ) {
+      return hashCode ^ (hashCode >>> 16);
+   }
+
+   /**
+    * @return the number of words
+    */
+   public int size() {
+      return _wordCount;
+   }
+
+   public int getDimensionality() {
+      return _dimensionality;
+   }
+
+   /**
+    * @param word some word
+    * @return index of the word's vector, or -1 if the word has no vector
+    */
+   public int getIndex( final String word ) {
+      final int hashCode = word.hashCode();
+      byte[] bytes = null;
+      int slot = spread( hashCode ) & _hashMask;
+      int index;
+      while ( (index = _hashTable.get( slot )) >= 0 ) {
+         if ( _hashCodes.get( index ) == hashCode ) {
+            if ( bytes == null ) {
+               bytes = word.getBytes( StandardCharsets.UTF_8 );
+            }
+            if ( isWord( index, bytes ) ) {
+               return index;
+            }
+         }
+         slot = (slot + 1) & _hashMask;
+      }
+      return -1;
+   }
+
+   private boolean isWord( final int index, final byte[] bytes ) {
+      final int start = _wordOffsets.get( index );
+      if ( _wordOffsets.get( index + 1 ) - start != bytes.length ) {
+         return false;
+      }
+      for ( int i = 0; i < bytes.length; i++ ) {
+         if ( _wordBytes.get( start + i ) != bytes[ i ] ) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   public boolean contains( final String word ) {
+      return getIndex( word ) >= 0;
+   }
+
+   /**
+    * @param index index of a vector
+    * @return the word of the vector
+    */
+   public String getWord( final int index ) {
+      final int start = _wordOffsets.get( index );
+      final byte[] bytes = new byte[ _wordOffsets.get( index + 1 ) - start ];
+      for ( int i = 0; i < bytes.length; i++ ) {
+         bytes[ i ] = _wordBytes.get( start + i );
+      }
+      return new String( bytes, StandardCharsets.UTF_8 );
+   }
+
+   /**
+    * @param index     index of a vector
+    * @param dimension dimension of the vector
+    * @return value of the vector in the dimension
+    */
+   public float getValue( final int index, final int dimension ) {
+      return _vectors.get( index * _dimensionality + dimension );
+   }
+
+   /**
+    * @param index index of a vector
+    * @return a copy of the vector
+    */
+   public double[] getVector( final int index ) {
+      final double[] vector = new double[ _dimensionality ];
+      final int row = index * _dimensionality;
+      for ( int i = 0; i < _dimensionality; i++ ) {
+         vector[ i ] = _vectors.get( row + i );
+      }
+      return vector;
+   }
+
+   /**
+    * @param index index of a vector
+    * @return euclidean length of the vector
+    */
+   public double getLength( final int index ) {
+      return _lengths.get( index );
+   }
+
+   /**
+    * @param index1 index of a vector
+    * @param index2 index of another vector
+    * @return dot product of the vectors
+    */
+   public double dot( final int index1, final int index2 ) {
+      final int row1 = index1 * _dimensionality;
+      final int row2 = index2 * _dimensionality;
+      // independent sums so that the multiplications are not serialized on one accumulator
+      double sum0 = 0;
+      double sum1 = 0;
+      double sum2 = 0;
+      double sum3 = 0;
+      int i = 0;
+      for ( ; i + 3 < _dimensionality; i += 4 ) {
+         sum0 += _vectors.get( row1 + i ) * _vectors.get( row2 + i );
+         sum1 += _vectors.get( row1 + i + 1 ) * _vectors.get( row2 + i + 1 );
+         sum2 += _vectors.get( row1 + i + 2 ) * _vectors.get( row2 + i + 2 );
+         sum3 += _vectors.get( row1 + i + 3 ) * _vectors.get( row2 + i + 3 );
+      }
+      for ( ; i < _dimensionality; i++ ) {
+         sum0 += _vectors.get( row1 + i ) * _vectors.get( row2 + i );
+      }
+      return (sum0 + sum1) + (sum2 + sum3);
+   }
+
+   /**
+    * @param index  index of a vector
+    * @param vector some vector with the dimensionality of the embeddings
+    * @return dot product of the vectors
+    */
+   public double dot( final int index, final double[] vector ) {
+      final int row = index * _dimensionality;
+      double sum0 = 0;
+      double sum1 = 0;
+      double sum2 = 0;
+      double sum3 = 0;
+      int i = 0;
+      for ( ; i + 3 < _dimensionality; i += 4 ) {
+         sum0 += _vectors.get( row + i ) * vector[ i ];
+         sum1 += _vectors.get( row + i + 1 ) * vector[ i + 1 ];
+         sum2 += _vectors.get( row + i + 2 ) * vector[ i + 2 ];
+         sum3 += _vectors.get( row + i + 3 ) * vector[ i + 3 ];
+      }
+      for ( ; i < _dimensionality; i++ ) {
+         sum0 += _vectors.get( row + i ) * vector[ i ];
+      }
+      return (sum0 + sum1) + (sum2 + sum3);
+   }
+
+   /**
+    * @param index1 index of a vector
+    * @param index2 index of another vector
+    * @return cosine similarity of the vectors, using the stored vector lengths
+    */
+   public double cosine( final int index1, final int index2 ) {
+      return dot( index1, index2 ) / (getLength( index1 ) * getLength( index2 ));
+   }
+
+   /**
+    * Adds a vector to a sum, for instance to build a phrase vector.
+    *
+    * @param index index of a vector
+    * @param sum   sum with the dimensionality of the embeddings
+    */
+   public void addTo( final int index, final double[] sum ) {
+      final int row = index * _dimensionality;
+      for ( int i = 0; i < _dimensionality; i++ ) {
+         sum[ i ] += _vectors.get( row + i );
+      }
+   }
+
+   /**
+    * Converts a text embedding file to a binary embedding file.
+    *
+    * @param args text embedding file, binary embedding file
+    * @throws IOException if a file cannot be read or written
+    */
+   public static void main( final String... args ) throws IOException {
+      if ( args.length != 2 ) {
+         LOGGER.error( "Usage: EmbeddingStore <text embedding file> <binary embedding file>" );
+         System.exit( 1 );
+      }
+      try ( InputStream stream = new FileInputStream( args[ 0 ] ) ) {
+         convert( stream, new File( args[ 1 ] ) );
+      }
+      final EmbeddingStore store = map( new File( args[ 1 ] ) );
+      LOGGER.info( "Wrote " + store.size() + " words of " + store.getDimensionality() + " dimensions to "
+                   + args[ 1 ] );
+   }
+
+}
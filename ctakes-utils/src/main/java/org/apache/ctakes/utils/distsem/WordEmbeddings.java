@@ -12,6 +12,7 @@ public class WordEmbeddings {
   private int dimensionality = 0;
   private WordVector meanVector = null;
   private WordVector rawMeanVector = null;
+  private EmbeddingStore store = null;
   
   public WordEmbeddings(int dim){
     this.vectors = new HashMap<>();
@@ -24,7 +25,24 @@ public class WordEmbeddings {
     this.vectors = vectors;
   }
 
+  /**
+   * Embeddings read from a binary embedding store, which may be shared by other users of the same store.
+   * Vectors are not copied into word vectors until they are requested, and can't be added.
+   */
+  public WordEmbeddings(EmbeddingStore store){
+    this.store = store;
+    this.dimensionality = store.getDimensionality();
+  }
+
   public double getSimilarity(String word1, String word2){
+    if(store != null){
+      int index1 = store.getIndex(word1);
+      int index2 = store.getIndex(word2);
+      if(index1 < 0 || index2 < 0){
+        return 0.0;
+      }
+      return store.cosine(index1, index2);
+    }
     WordVector vec1 = getVector(word1);
     WordVector vec2 = getVector(word2);
     
@@ -39,6 +57,9 @@ public class WordEmbeddings {
   }
 
   public void add(String line){
+    if(store != null){
+      throw new UnsupportedOperationException("Can't add vectors to embeddings read from an embedding store");
+    }
     int wordBreak = line.indexOf(' ');
     String word = line.substring(0, wordBreak);
     String[] dims = line.substring(wordBreak+1).split(" ");
@@ -57,10 +78,17 @@ public class WordEmbeddings {
   }
   
   public boolean containsKey(String word){
+    if(store != null){
+      return store.contains(word);
+    }
     return vectors.containsKey(word);
   }
   
   public WordVector getVector(String word){
+    if(store != null){
+      int index = store.getIndex(word);
+      return index < 0 ? null : new WordVector(word, store.getVector(index));
+    }
     if(vectors != null){
       return vectors.get(word);
     }
@@ -72,6 +100,9 @@ public class WordEmbeddings {
   }
   
   public List<String> getSimilarWords(String word, int maxWords) {
+    if(store != null){
+      return getStoredSimilarWords(word, maxWords);
+    }
     double[] sims = new double[maxWords];
     List<String> words = new ArrayList<>(20);
     Arrays.fill(sims, -1);
@@ -113,7 +144,60 @@ public class WordEmbeddings {
     return words;
   }
   
+  /**
+   * Compares vectors by their index in the store, so that only the words of the most similar vectors are decoded.
+   * @return the most similar words, most similar first, or none if the word has no vector
+   */
+  private List<String> getStoredSimilarWords(String word, int maxWords){
+    int queryIndex = store.getIndex(word);
+    if(queryIndex < 0 || maxWords <= 0){
+      return new ArrayList<>();
+    }
+    double[] sims = new double[maxWords];
+    int[] indices = new int[maxWords];
+    int count = 0;
+    for(int index = 0; index < store.size(); index++){
+      if(index == queryIndex){
+        continue;
+      }
+      double sim = store.cosine(queryIndex, index);
+      if(count == maxWords && sim <= sims[maxWords-1]){
+        // most words won't be greater than the minimum similarity -- quit right away
+        continue;
+      }
+      // shift over the lesser scores and indices to find the position of the new index
+      int i = Math.min(count, maxWords-1);
+      for(; i > 0 && sim > sims[i-1]; i--){
+        sims[i] = sims[i-1];
+        indices[i] = indices[i-1];
+      }
+      sims[i] = sim;
+      indices[i] = index;
+      if(count < maxWords){
+        count++;
+      }
+    }
+    List<String> words = new ArrayList<>(count);
+    for(int i = 0; i < count; i++){
+      words.add(store.getWord(indices[i]));
+    }
+    return words;
+  }
+
   public WordVector getMeanVector(){
+    if(store != null){
+      // text embeddings have always returned the sum of the vectors here, and models were trained with it
+      synchronized(this){
+        if(meanVector == null){
+          double[] sum = new double[dimensionality];
+          for(int i = 0; i < store.size(); i++){
+            store.addTo(i, sum);
+          }
+          meanVector = new WordVector("_mean_", sum);
+        }
+      }
+      return meanVector;
+    }
     for(int i = 0; i < this.rawMeanVector.getLength(); i++){
       this.meanVector.vector[i] = this.rawMeanVector.vector[i] / vectors.size();
     }
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.utils.distsem;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the conversion of text embeddings to the binary {@link EmbeddingStore} and the reading of binary files.
+ */
+final public class EmbeddingStoreTest {
+
+   static private final String VECTORS = "5 3\n"
+                                         + "pain 1 0 0\n"
+                                         + "ache 0.9 0.3 0\n"
+                                         + "sore 0.5 0.5 0.2\n"
+                                         + "fever 0 0.2 1\n"
+                                         + "chills -0.5 0.1 0.9\n";
+
+   static private InputStream toStream( final String text ) {
+      return new ByteArrayInputStream( text.getBytes( StandardCharsets.UTF_8 ) );
+   }
+
+   static private byte[] toBytes( final String text ) throws IOException {
+      final File file = File.createTempFile( "EmbeddingStoreTest", EmbeddingStore.FILE_EXTENSION );
+      try {
+         EmbeddingStore.convert( toStream( text ), file );
+         return Files.readAllBytes( file.toPath() );
+      } finally {
+         file.delete();
+      }
+   }
+
+   @Test
+   public void testDuplicateWordKeepsLastVector() throws IOException {
+      final String text = "3 2\n"
+                          + "pain 1 0\n"
+                          + "ache 0 1\n"
+                          + "pain 3 4\n";
+      final EmbeddingStore store = EmbeddingStore.readText( toStream( text ) );
+      assertEquals( 2, store.size() );
+      final int index = store.getIndex( "pain" );
+      assertEquals( 0, index );
+      assertEquals( "pain", store.getWord( index ) );
+      assertArrayEquals( new double[] { 3, 4 }, store.getVector( index ), 1e-6 );
+      assertEquals( 5, store.getLength( index ), 1e-6 );
+      assertEquals( 0.8, store.cosine( index, store.getIndex( "ache" ) ), 1e-6 );
+      final WordVector textVector = WordVectorReader.getEmbeddings( toStream( text ) ).getVector( "pain" );
+      assertEquals( textVector.getValue( 0 ), store.getValue( index, 0 ), 1e-6 );
+      assertEquals( textVector.getValue( 1 ), store.getValue( index, 1 ), 1e-6 );
+   }
+
+   @Test
+   public void testReadStreamMatchesMappedFile() throws IOException {
+      final File file = File.createTempFile( "EmbeddingStoreTest", EmbeddingStore.FILE_EXTENSION );
+      file.deleteOnExit();
+      EmbeddingStore.convert( toStream( VECTORS ), file );
+      final EmbeddingStore mapped = EmbeddingStore.map( file );
+      final EmbeddingStore read;
+      try ( InputStream stream = new FileInputStream( file ) ) {
+         read = EmbeddingStore.read( stream );
+      }
+      assertEquals( 5, read.size() );
+      assertEquals( 3, read.getDimensionality() );
+      for ( int i = 0; i < mapped.size(); i++ ) {
+         final String word = mapped.getWord( i );
+         assertEquals( i, read.getIndex( word ) );
+         assertArrayEquals( mapped.getVector( i ), read.getVector( i ), 0 );
+         for ( int j = 0; j < mapped.size(); j++ ) {
+            assertEquals( mapped.cosine( i, j ), read.cosine( i, j ), 0 );
+         }
+      }
+      assertEquals( -1, read.getIndex( "cough" ) );
+   }
+
+   @Test
+   public void testTruncatedFileIsRejected() throws IOException {
+      final byte[] bytes = toBytes( VECTORS );
+      for ( int length : new int[] { 0, 16, 40, bytes.length / 2, bytes.length - 1 } ) {
+         try {
+            EmbeddingStore.read( new ByteArrayInputStream( Arrays.copyOf( bytes, length ) ) );
+            fail( "Read a file truncated to " + length + " bytes" );
+         } catch ( IOException ioE ) {
+            // expected
+         }
+      }
+      final File file = File.createTempFile( "EmbeddingStoreTest", EmbeddingStore.FILE_EXTENSION );
+      file.deleteOnExit();
+      Files.write( file.toPath(), Arrays.copyOf( bytes, bytes.length - 4 ) );
+      try {
+         EmbeddingStore.map( file );
+         fail( "Mapped a truncated file" );
+      } catch ( IOException ioE ) {
+         // expected
+      }
+   }
+
+   @Test
+   public void testCorruptHeaderIsRejected() throws IOException {
+      final byte[] bytes = toBytes( VECTORS );
+      // magic, version, word count, dimensionality, hash table size, word byte count
+      final int[][] corruptions = { { 0, 0 }, { 4, 2 }, { 8, 1 << 30 }, { 8, -1 }, { 12, 1 << 20 }, { 16, 12 },
+                                    { 16, 4 }, { 20, -5 } };
+      for ( int[] corruption : corruptions ) {
+         final ByteBuffer buffer = ByteBuffer.wrap( bytes.clone() ).order( ByteOrder.LITTLE_ENDIAN );
+         buffer.putInt( corruption[ 0 ], corruption[ 1 ] );
+         try {
+            EmbeddingStore.read( new ByteArrayInputStream( buffer.array() ) );
+            fail( "Read a file with " + corruption[ 1 ] + " at " + corruption[ 0 ] );
+         } catch ( IOException ioE ) {
+            // expected
+         }
+      }
+   }
+
+   @Test( expected = IOException.class )
+   public void testWrongDimensionalityIsRejected() throws IOException {
+      EmbeddingStore.readText( toStream( "2 3\npain 1 0 0\nache 1 0\n" ) );
+   }
+
+   @Test
+   public void testSimilarWordsMatchText() throws IOException {
+      final WordEmbeddings text = WordVectorReader.getEmbeddings( toStream( VECTORS ) );
+      final WordEmbeddings stored = new WordEmbeddings( EmbeddingStore.readText( toStream( VECTORS ) ) );
+      assertEquals( Arrays.asList( "ache", "sore" ), stored.getSimilarWords( "pain", 2 ) );
+      for ( String word : Arrays.asList( "pain", "ache", "sore", "fever", "chills" ) ) {
+         for ( int maxWords = 1; maxWords <= 4; maxWords++ ) {
+            assertEquals( word + " " + maxWords, text.getSimilarWords( word, maxWords ),
+                  stored.getSimilarWords( word, maxWords ) );
+         }
+      }
+      assertEquals( Collections.emptyList(), stored.getSimilarWords( "cough", 2 ) );
+   }
+
+}
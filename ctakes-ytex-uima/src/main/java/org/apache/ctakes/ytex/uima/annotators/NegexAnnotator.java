@@ -20,6 +20,7 @@ package org.apache.ctakes.ytex.uima.annotators;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.CharBuffer;
@@ -27,9 +28,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -88,7 +91,18 @@ import org.apache.uima.resource.ResourceInitializationException;
  */
 public class NegexAnnotator extends JCasAnnotator_ImplBase {
 	private static final Log log = LogFactory.getLog(NegexAnnotator.class);
+	private static final String NEGEX_TRIGGERS = "/org/apache/ctakes/ytex/uima/annotators/negex_triggers.txt";
+	// tags that end the scope of each negex tag
+	private static final Set<String> PREN_STOP_TAGS = createTagSet("[CONJ]",
+			"[PSEU]", "[POST]", "[PREP]", "[POSP]");
+	private static final Set<String> POST_STOP_TAGS = createTagSet("[CONJ]",
+			"[PSEU]", "[PREN]", "[PREP]", "[POSP]");
+	private static final Set<String> PREP_STOP_TAGS = createTagSet("[CONJ]",
+			"[PSEU]", "[PREN]", "[POST]", "[POSP]");
+	private static final Set<String> POSP_STOP_TAGS = createTagSet("[CONJ]",
+			"[PSEU]", "[PREN]", "[POST]", "[PREP]");
 	private List<NegexRule> listNegexRules = null;
+	private NegexTriggerFinder triggerFinder = null;
 	private boolean negatePossibilities = true;
 	private boolean checkPossibilities = true;
 	private boolean storeAsInterval = false;
@@ -99,6 +113,7 @@ public class NegexAnnotator extends JCasAnnotator_ImplBase {
 			throws ResourceInitializationException {
 		super.initialize(aContext);
 		this.listNegexRules = this.initializeRules();
+		this.triggerFinder = new NegexTriggerFinder(this.listNegexRules);
 		negatePossibilities = getBooleanConfigParam(aContext,
 				"negatePossibilities", negatePossibilities);
 		if (negatePossibilities) {
@@ -120,13 +135,17 @@ public class NegexAnnotator extends JCasAnnotator_ImplBase {
 
 	}
 
-	private List<String> initalizeRuleList() {
+	private List<String> initalizeRuleList()
+			throws ResourceInitializationException {
 		List<String> rules = new ArrayList<String>();
 		BufferedReader reader = null;
 		try {
-			reader = new BufferedReader(new InputStreamReader(this.getClass()
-					.getResourceAsStream(
-							"/org/apache/ctakes/ytex/uima/annotators/negex_triggers.txt")));
+			InputStream is = this.getClass().getResourceAsStream(NEGEX_TRIGGERS);
+			if (is == null)
+				throw new ResourceInitializationException(
+						ResourceInitializationException.COULD_NOT_ACCESS_DATA,
+						new Object[] { NEGEX_TRIGGERS });
+			reader = new BufferedReader(new InputStreamReader(is));
 			String line = null;
 			try {
 				while ((line = reader.readLine()) != null)
@@ -160,7 +179,8 @@ public class NegexAnnotator extends JCasAnnotator_ImplBase {
 		return rules;
 	}
 
-	private List<NegexRule> initializeRules() {
+	private List<NegexRule> initializeRules()
+			throws ResourceInitializationException {
 		List<String> listRules = this.initalizeRuleList();
 		List<NegexRule> listNegexRules = new ArrayList<NegexRule>(
 				listRules.size());
@@ -210,6 +230,11 @@ public class NegexAnnotator extends JCasAnnotator_ImplBase {
 
 	}
 
+	private static Set<String> createTagSet(String... tags) {
+		return Collections.unmodifiableSet(new HashSet<String>(Arrays
+				.asList(tags)));
+	}
+
 	public static interface TargetAnnoFilter {
 		public boolean filter(Annotation anno);
 	}
@@ -260,10 +285,17 @@ public class NegexAnnotator extends JCasAnnotator_ImplBase {
 		while (sentenceIter.hasNext()) {
 			Sentence s = (Sentence) sentenceIter.next();
 			FSIterator neIter = targetIdx.subiterator(s);
+			// rule matches are shared by all targets in the sentence, only
+			// create them if there is a target
+			NegexSentence negexSentence = null;
 			while (neIter.hasNext()) {
 				Annotation ne = (Annotation) neIter.next();
-				if (filter == null || filter.filter(ne))
-					checkNegation(aJCas, s, ne);
+				if (filter == null || filter.filter(ne)) {
+					if (negexSentence == null)
+						negexSentence = new NegexSentence(s.getCoveredText(),
+								triggerFinder);
+					checkNegation(aJCas, s, negexSentence, ne);
+				}
 				// checkNegation2(aJCas, s, ne);
 			}
 		}
@@ -423,10 +455,82 @@ public class NegexAnnotator extends JCasAnnotator_ImplBase {
 
 	}
 
-	private NegexToken findTokenByTag(String tag, String stopTags[],
+	/**
+	 * The negex rules that can match a sentence, found once for the sentence,
+	 * and the negex tokens found for each target span in the sentence.
+	 */
+	static class NegexSentence {
+		// need to add . on either side due to the way the regexs are built
+		private final char[] sentence;
+		private final List<NegexRule> candidateRules;
+		// key = target span relative to the sentence
+		private final Map<Long, NegexToken[]> spanTokens = new HashMap<Long, NegexToken[]>();
+
+		NegexSentence(String sentenceText, NegexTriggerFinder triggerFinder) {
+			this.sentence = ("." + sentenceText + ".").toCharArray();
+			this.candidateRules = triggerFinder.findCandidateRules(CharBuffer
+					.wrap(sentence));
+		}
+
+		/**
+		 * @param neRelStart
+		 *            start of the target relative to the padded sentence
+		 * @param neRelEnd
+		 *            end of the target relative to the padded sentence
+		 * @return array that maps each character of the padded sentence to
+		 *         the negex token that covers it
+		 */
+		NegexToken[] getTokens(int neRelStart, int neRelEnd) {
+			Long key = ((long) neRelStart << 32) | (neRelEnd & 0xffffffffL);
+			NegexToken[] tokens = spanTokens.get(key);
+			if (tokens == null) {
+				tokens = findTokens(neRelStart, neRelEnd);
+				spanTokens.put(key, tokens);
+			}
+			return tokens;
+		}
+
+		private NegexToken[] findTokens(int neRelStart, int neRelEnd) {
+			// allocate array of tokens
+			// this maps each character of the sentence to a token
+			NegexToken[] tokens = new NegexToken[sentence.length];
+			// char buffer for modify the sentence
+			// we want to 'black out' trigger words already found and the
+			// phrase we were looking for
+			CharBuffer buf = CharBuffer.wrap(sentence.clone());
+			// black out the ne in the sentence buffer
+			for (int i = neRelStart; i < neRelEnd; i++) {
+				// black out the named entity from the char buffer
+				buf.put(i, '_');
+			}
+			// look for negex rules in the sentence. Only rules whose trigger
+			// occurs in the sentence can match
+			for (NegexRule rule : candidateRules) {
+				Matcher m = rule.getPattern().matcher(buf);
+				while (m.find() == true) {
+					// see if the range has not already been marked
+					boolean bUnoccupied = true;
+					for (int i = m.start(); i < m.end() && bUnoccupied; i++)
+						bUnoccupied = tokens[i] == null;
+					if (bUnoccupied) {
+						// mark the range in the sentence with this token
+						// black it out so other rules do not match
+						NegexToken t = new NegexToken(m.start(), m.end(), rule);
+						for (int i = m.start(); i < m.end() && bUnoccupied; i++) {
+							// black out this range from the char buffer
+							buf.put(i, '_');
+							// add the token to the array
+							tokens[i] = t;
+						}
+					}
+				}
+			}
+			return tokens;
+		}
+	}
+
+	private NegexToken findTokenByTag(String tag, Set<String> stopTagSet,
 			boolean before, int neRelStart, int neRelEnd, NegexToken tokens[]) {
-		Set<String> stopTagSet = new HashSet<String>(stopTags.length);
-		stopTagSet.addAll(Arrays.asList(stopTags));
 		if (before) {
 			for (int i = neRelStart - 1; i > 0; i--) {
 				if (tokens[i] != null) {
@@ -456,82 +560,45 @@ public class NegexAnnotator extends JCasAnnotator_ImplBase {
 	 *            for adding annotations
 	 * @param s
 	 *            the sentence in which we will look
+	 * @param negexSentence
+	 *            the rule matches of the sentence
 	 * @param ne
 	 *            the named entity whose negation status will be checked.
-	 * @param checkPoss
-	 *            should possibility be checked?
-	 * @param negPoss
-	 *            should possiblities be negated?
 	 */
-	private void checkNegation(JCas aJCas, Sentence s, Annotation ne) {
+	private void checkNegation(JCas aJCas, Sentence s,
+			NegexSentence negexSentence, Annotation ne) {
 		if (storeAsInterval && ne instanceof IdentifiedAnnotation) {
 			// default is affirmed, which is coded as confidence = 1
 			((IdentifiedAnnotation) ne).setConfidence(1);
 		}
-		// need to add . on either side due to the way the regexs are built
-		String sentence = "." + s.getCoveredText() + ".";
-		// allocate array of tokens
-		// this maps each character of the sentence to a token
-		NegexToken[] tokens = new NegexToken[sentence.length()];
-		// char buffer for modify the sentence
-		// we want to 'black out' trigger words already found and the phrase we
-		// were looking for
-		CharBuffer buf = CharBuffer.wrap(sentence.toCharArray());
 		// calculate location of the ne relative to the sentence
 		int neRelStart = ne.getBegin() - s.getBegin() + 1;
 		int neRelEnd = ne.getEnd() - s.getBegin() + 1;
-		// black out the ne in the sentence buffer
-		for (int i = neRelStart; i < neRelEnd; i++) {
-			// black out the named entity from the char buffer
-			buf.put(i, '_');
-		}
-		// look for negex rules in the sentence
-		for (NegexRule rule : this.listNegexRules) {
-			Matcher m = rule.getPattern().matcher(buf);
-			while (m.find() == true) {
-				// see if the range has not already been marked
-				boolean bUnoccupied = true;
-				for (int i = m.start(); i < m.end() && bUnoccupied; i++)
-					bUnoccupied = tokens[i] == null;
-				if (bUnoccupied) {
-					// mark the range in the sentence with this token
-					// black it out so other rules do not match
-					NegexToken t = new NegexToken(m.start(), m.end(), rule);
-					for (int i = m.start(); i < m.end() && bUnoccupied; i++) {
-						// black out this range from the char buffer
-						buf.put(i, '_');
-						// add the token to the array
-						tokens[i] = t;
-					}
-				}
-			}
-		}
+		// rule matches with the ne blacked out, shared by targets with the
+		// same span
+		NegexToken[] tokens = negexSentence.getTokens(neRelStart, neRelEnd);
 		// prenegation
 		// look for a PREN rule before the ne, without any intervening stop tags
-		NegexToken t = this.findTokenByTag("[PREN]", new String[] { "[CONJ]",
-				"[PSEU]", "[POST]", "[PREP]", "[POSP]" }, true, neRelStart,
-				neRelEnd, tokens);
+		NegexToken t = this.findTokenByTag("[PREN]", PREN_STOP_TAGS, true,
+				neRelStart, neRelEnd, tokens);
 		if (t != null) {
 			// hit - negate the ne
 			annotateNegation(aJCas, s, ne, t, true, false);
 		} else {
 			// look for POST rule after the ne, without any intervening stop
 			// tags
-			t = this.findTokenByTag("[POST]", new String[] { "[CONJ]",
-					"[PSEU]", "[PREN]", "[PREP]", "[POSP]" }, false,
+			t = this.findTokenByTag("[POST]", POST_STOP_TAGS, false,
 					neRelStart, neRelEnd, tokens);
 			if (t != null) {
 				annotateNegation(aJCas, s, ne, t, true, false);
 			} else if (this.checkPossibilities || this.negatePossibilities) {
 				// check possibles
-				t = this.findTokenByTag("[PREP]", new String[] { "[CONJ]",
-						"[PSEU]", "[PREN]", "[POST]", "[POSP]" }, true,
+				t = this.findTokenByTag("[PREP]", PREP_STOP_TAGS, true,
 						neRelStart, neRelEnd, tokens);
 				if (t != null) {
 					annotateNegation(aJCas, s, ne, t, false, true);
 				} else {
-					t = this.findTokenByTag("[POSP]", new String[] { "[CONJ]",
-							"[PSEU]", "[PREN]", "[POST]", "[PREP]" }, false,
+					t = this.findTokenByTag("[POSP]", POSP_STOP_TAGS, false,
 							neRelStart, neRelEnd, tokens);
 					if (t != null)
 						annotateNegation(aJCas, s, ne, t, true, true);
@@ -0,0 +1,221 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.ytex.uima.annotators;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import org.apache.ctakes.ytex.uima.annotators.NegexAnnotator.NegexRule;
+
+/**
+ * Finds the negex rules whose trigger phrase occurs in a sentence, with a
+ * single pass of an Aho-Corasick automaton over the sentence.
+ * <p/>
+ * Trigger phrases are matched as the rule patterns match them: ASCII case
+ * insensitive, with any run of whitespace between words. The rule patterns
+ * also require a boundary character on either side of the trigger, which is
+ * not checked here, so a rule that is found may still not match. A rule that
+ * is not found cannot match the sentence, nor the sentence with any of its
+ * characters blacked out, as long as its trigger is literal text. Rules with
+ * regular expression characters in their trigger are always returned.
+ * <p/>
+ * Instances are immutable and may be shared between threads.
+ */
+class NegexTriggerFinder {
+	// separator that NegexAnnotator places between the words of a trigger
+	private static final String WORD_SEPARATOR = "\\s+";
+	// characters that are not matched literally by the rule pattern, or that
+	// could be written into the sentence by a black out
+	private static final Pattern NON_LITERAL = Pattern
+			.compile("[\\\\\\[\\](){}.*+?^$|_\\s]");
+
+	private final NegexRule[] rules;
+	// rules that are always candidates, ordered as the rules
+	private final BitSet nonLiteralRules = new BitSet();
+	// automaton nodes, node 0 is the root
+	private final char[][] nodeChars;
+	private final int[][] nodeChildren;
+	private final int[] nodeFailures;
+	// indices of the rules whose trigger ends at each node
+	private final int[][] nodeRules;
+
+	/**
+	 * @param listNegexRules
+	 *            rules in the order in which they are run
+	 */
+	NegexTriggerFinder(List<NegexRule> listNegexRules) {
+		this.rules = listNegexRules.toArray(new NegexRule[listNegexRules
+				.size()]);
+		List<TreeMap<Character, Integer>> children = new ArrayList<TreeMap<Character, Integer>>();
+		List<List<Integer>> outputs = new ArrayList<List<Integer>>();
+		children.add(new TreeMap<Character, Integer>());
+		outputs.add(new ArrayList<Integer>());
+		for (int r = 0; r < rules.length; r++) {
+			String phrase = getPhrase(rules[r]);
+			if (phrase == null) {
+				nonLiteralRules.set(r);
+				continue;
+			}
+			int node = 0;
+			for (int i = 0; i < phrase.length(); i++) {
+				Integer child = children.get(node).get(phrase.charAt(i));
+				if (child == null) {
+					child = children.size();
+					children.add(new TreeMap<Character, Integer>());
+					outputs.add(new ArrayList<Integer>());
+					children.get(node).put(phrase.charAt(i), child);
+				}
+				node = child;
+			}
+			outputs.get(node).add(r);
+		}
+		int nodeCount = children.size();
+		nodeChars = new char[nodeCount][];
+		nodeChildren = new int[nodeCount][];
+		nodeFailures = new int[nodeCount];
+		nodeRules = new int[nodeCount][];
+		for (int node = 0; node < nodeCount; node++) {
+			TreeMap<Character, Integer> nodeMap = children.get(node);
+			nodeChars[node] = new char[nodeMap.size()];
+			nodeChildren[node] = new int[nodeMap.size()];
+			int i = 0;
+			for (Map.Entry<Character, Integer> entry : nodeMap.entrySet()) {
+				nodeChars[node][i] = entry.getKey();
+				nodeChildren[node][i] = entry.getValue();
+				i++;
+			}
+		}
+		// breadth first, so the failure of a parent is known before its
+		// children
+		Deque<Integer> queue = new ArrayDeque<Integer>();
+		for (int child : nodeChildren[0]) {
+			queue.add(child);
+		}
+		while (!queue.isEmpty()) {
+			int node = queue.removeFirst();
+			for (int i = 0; i < nodeChars[node].length; i++) {
+				int child = nodeChildren[node][i];
+				int failure = nodeFailures[node];
+				int next = getChild(failure, nodeChars[node][i]);
+				while (next < 0 && failure != 0) {
+					failure = nodeFailures[failure];
+					next = getChild(failure, nodeChars[node][i]);
+				}
+				nodeFailures[child] = next < 0 ? 0 : next;
+				outputs.get(child).addAll(outputs.get(nodeFailures[child]));
+				queue.add(child);
+			}
+		}
+		for (int node = 0; node < nodeCount; node++) {
+			List<Integer> nodeOutputs = outputs.get(node);
+			nodeRules[node] = new int[nodeOutputs.size()];
+			for (int i = 0; i < nodeRules[node].length; i++) {
+				nodeRules[node][i] = nodeOutputs.get(i);
+			}
+		}
+	}
+
+	/**
+	 * @return the lower case trigger phrase with words separated by a single
+	 *         space, or null if the trigger is not literal text
+	 */
+	private static String getPhrase(NegexRule rule) {
+		String[] words = rule.getRule().split(Pattern.quote(WORD_SEPARATOR));
+		StringBuilder phrase = new StringBuilder();
+		for (String word : words) {
+			if (word.length() == 0 || NON_LITERAL.matcher(word).find())
+				return null;
+			if (phrase.length() > 0)
+				phrase.append(' ');
+			for (int i = 0; i < word.length(); i++) {
+				phrase.append(toLowerCase(word.charAt(i)));
+			}
+		}
+		return phrase.length() > 0 ? phrase.toString() : null;
+	}
+
+	/**
+	 * @return the child of the node for the character, or -1 if there is none
+	 */
+	private int getChild(int node, char c) {
+		int i = Arrays.binarySearch(nodeChars[node], c);
+		return i >= 0 ? nodeChildren[node][i] : -1;
+	}
+
+	/**
+	 * @param sentence
+	 *            sentence text
+	 * @return rules that may match the sentence, in rule order
+	 */
+	List<NegexRule> findCandidateRules(CharSequence sentence) {
+		BitSet found = (BitSet) nonLiteralRules.clone();
+		int node = 0;
+		boolean inWhitespace = false;
+		for (int i = 0; i < sentence.length(); i++) {
+			char c = sentence.charAt(i);
+			if (isWhitespace(c)) {
+				// a run of whitespace is read as a single space
+				if (inWhitespace)
+					continue;
+				inWhitespace = true;
+				c = ' ';
+			} else {
+				inWhitespace = false;
+				c = toLowerCase(c);
+			}
+			int next = getChild(node, c);
+			while (next < 0 && node != 0) {
+				node = nodeFailures[node];
+				next = getChild(node, c);
+			}
+			node = next < 0 ? 0 : next;
+			for (int r : nodeRules[node]) {
+				found.set(r);
+			}
+		}
+		List<NegexRule> candidates = new ArrayList<NegexRule>(
+				found.cardinality());
+		for (int r = found.nextSetBit(0); r >= 0; r = found.nextSetBit(r + 1)) {
+			candidates.add(rules[r]);
+		}
+		return candidates;
+	}
+
+	/**
+	 * @return true for the characters matched by the regular expression \s
+	 */
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B'
+				|| c == '\f' || c == '\r';
+	}
+
+	/**
+	 * case insensitive patterns only fold US-ASCII characters
+	 */
+	private static char toLowerCase(char c) {
+		return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+	}
+}
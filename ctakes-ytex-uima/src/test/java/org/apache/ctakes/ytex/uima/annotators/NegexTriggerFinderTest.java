@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.ytex.uima.annotators;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.ctakes.ytex.uima.annotators.NegexAnnotator.NegexRule;
+import org.apache.ctakes.ytex.uima.annotators.NegexAnnotator.NegexSentence;
+import org.apache.ctakes.ytex.uima.annotators.NegexAnnotator.NegexToken;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NegexTriggerFinderTest {
+
+	/**
+	 * create a rule the way the NegexAnnotator does
+	 */
+	private static NegexRule createRule(String trigger, String tag) {
+		String rule2 = trigger.replace(" ", "\\s+");
+		Pattern p = Pattern.compile("(?m)(?i)[[\\p{Punct}&&[^\\]\\[]]|\\s+]("
+				+ rule2 + ")[[\\p{Punct}&&[^_]]|\\s+]");
+		return new NegexRule(p, rule2, tag);
+	}
+
+	private static final NegexRule RULE_OUT = createRule("rule out", "[PREP]");
+	private static final NegexRule NO_SIGN_OF = createRule("no sign of",
+			"[PREN]");
+	private static final NegexRule NO = createRule("no", "[PREN]");
+	private static final NegexRule RO = createRule("r/o", "[PREP]");
+	private static final NegexRule BUT = createRule("but", "[CONJ]");
+	private static final NegexRule NON_LITERAL = new NegexRule(
+			Pattern.compile("(?i)[\\s.](free of)[\\s.]"), "free\\s+o.", "[POST]");
+	private static final List<NegexRule> RULES = Arrays.asList(RULE_OUT,
+			NO_SIGN_OF, NO, RO, BUT, NON_LITERAL);
+
+	@Test
+	public void testCandidateRules() {
+		NegexTriggerFinder finder = new NegexTriggerFinder(RULES);
+		Assert.assertEquals(Arrays.asList(NO_SIGN_OF, NO, NON_LITERAL),
+				finder.findCandidateRules(".No  Sign\n of pneumonia."));
+		Assert.assertEquals(Arrays.asList(RULE_OUT, RO, NON_LITERAL),
+				finder.findCandidateRules(".Rule out MI, R/O PE."));
+		// only the trigger text is checked, not the word boundaries
+		Assert.assertEquals(Arrays.asList(NO, BUT, NON_LITERAL),
+				finder.findCandidateRules(".known butane."));
+		Assert.assertEquals(Arrays.asList(NON_LITERAL),
+				finder.findCandidateRules(".Patient has a cough."));
+	}
+
+	@Test
+	public void testSentenceTokens() {
+		NegexTriggerFinder finder = new NegexTriggerFinder(RULES);
+		String text = "No sign of pneumonia but could rule out CHF";
+		NegexSentence sentence = new NegexSentence(text, finder);
+		// pneumonia, relative to the sentence with a leading period
+		int neRelStart = text.indexOf("pneumonia") + 1;
+		int neRelEnd = neRelStart + "pneumonia".length();
+		NegexToken[] tokens = sentence.getTokens(neRelStart, neRelEnd);
+		Assert.assertSame(tokens, sentence.getTokens(neRelStart, neRelEnd));
+		Assert.assertEquals("[PREN]", tokens[1].getTag());
+		// the token includes the boundary characters of the match
+		Assert.assertEquals(0, tokens[1].getStart());
+		Assert.assertEquals("No sign of".length() + 2, tokens[1].getEnd());
+		Assert.assertEquals("[CONJ]", tokens[text.indexOf("but") + 1]
+				.getTag());
+		Assert.assertEquals("[PREP]", tokens[text.indexOf("rule") + 1]
+				.getTag());
+		Assert.assertNull(tokens[neRelStart]);
+	}
+}
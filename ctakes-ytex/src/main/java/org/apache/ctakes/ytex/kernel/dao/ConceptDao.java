@@ -34,17 +34,18 @@ import org.apache.ctakes.ytex.kernel.model.ConceptGraph;
 public interface ConceptDao {
 
 	/**
-	 * retrieve an existing concept graph. This attempts to find the concept
-	 * graph as follows:
+	 * retrieve an existing concept graph. This attempts to find the binary
+	 * concept graph file [name].cg, and then a concept graph written with java
+	 * serialization, [name].gz, as follows:
 	 * <ul>
 	 * <li>classpath: attempt to load
-	 * org/apache/ctakes/ytex/conceptGraph/[name].gz</li>
+	 * org/apache/ctakes/ytex/conceptGraph/[name].cg</li>
 	 * <li>relative to org.apache.ctakes.ytex.conceptGraphDir: if that fails
 	 * then relative to the directory defined by the system property/ytex
 	 * property org.apache.ctakes.ytex.conceptGraphDir</li>
 	 * <li>relative to ytex.properties: if the org...conceptGraphDir property is
 	 * not defined, then look for [directory of
-	 * ytex.properties]/conceptGraph/[name].gz</li>
+	 * ytex.properties]/conceptGraph/[name].cg</li>
 	 * </ul>
 	 * 
 	 * @param name
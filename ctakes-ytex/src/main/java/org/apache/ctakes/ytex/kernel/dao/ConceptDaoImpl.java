@@ -19,14 +19,11 @@
 package org.apache.ctakes.ytex.kernel.dao;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.sql.ResultSet;
@@ -36,7 +33,6 @@ import java.util.HashSet;
 import java.util.Properties;
 import java.util.Set;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import javax.sql.DataSource;
 
@@ -54,12 +50,12 @@ import org.apache.ctakes.ytex.kernel.IntrinsicInfoContentEvaluator;
 import org.apache.ctakes.ytex.kernel.KernelContextHolder;
 import org.apache.ctakes.ytex.kernel.model.ConcRel;
 import org.apache.ctakes.ytex.kernel.model.ConceptGraph;
+import org.apache.ctakes.ytex.kernel.model.ConceptGraphFile;
 import org.hibernate.SessionFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowCallbackHandler;
 
 import com.google.common.base.Strings;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
 public class ConceptDaoImpl implements ConceptDao {
@@ -354,10 +350,11 @@ public class ConceptDaoImpl implements ConceptDao {
 	public ConceptGraph getConceptGraph(String name) {
 		ConceptGraph cg = this.readConceptGraph(name);
 		if (cg != null) {
-			this.initializeConceptGraph(cg);
+			if (!cg.isFileBacked())
+				this.initializeConceptGraph(cg);
 			if (log.isInfoEnabled()) {
 				log.info(String.format("concept graph %s, vertices: %s", name,
-						cg.getConceptList().size()));
+						cg.size()));
 			}
 		}
 		return cg;
@@ -478,7 +475,60 @@ public class ConceptDaoImpl implements ConceptDao {
 		return cg;
 	}
 
+	/**
+	 * read the concept graph. Look for the binary concept graph file
+	 * [name].cg on the classpath and in the concept graph directory, then for
+	 * a concept graph written with java serialization, [name].gz.
+	 * 
+	 * @param name
+	 * @return concept graph, null if it doesn't exist
+	 */
 	private ConceptGraph readConceptGraph(String name) {
+		try {
+			ConceptGraph cg = readConceptGraphFile(name);
+			if (cg == null)
+				cg = readSerializedConceptGraph(name);
+			return cg;
+		} catch (IOException ioe) {
+			throw new RuntimeException(ioe);
+		}
+	}
+
+	/**
+	 * memory-map the binary concept graph file, or read it into memory if it
+	 * is in a jar
+	 */
+	private ConceptGraph readConceptGraphFile(String name) throws IOException {
+		URL url = this.getClass().getClassLoader()
+				.getResource(CONCEPT_GRAPH_PATH + name + ".cg");
+		File f = urlToFile(url);
+		if (f == null && url == null) {
+			String cdir = this.getDefaultConceptGraphDir();
+			if (cdir != null) {
+				f = new File(cdir + "/" + name + ".cg");
+				if (!f.exists())
+					f = null;
+			}
+		}
+		if (f != null) {
+			log.info("mapping concept graph from " + f.getAbsolutePath());
+			return ConceptGraphFile.map(f);
+		} else if (url != null) {
+			log.info("loading concept graph from " + url);
+			InputStream is = url.openStream();
+			try {
+				return ConceptGraphFile.read(is);
+			} finally {
+				is.close();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * read a concept graph written with java serialization
+	 */
+	private ConceptGraph readSerializedConceptGraph(String name) {
 		ObjectInputStream is = null;
 		try {
 			// try loading from classpath
@@ -580,33 +630,20 @@ public class ConceptDaoImpl implements ConceptDao {
 	// }
 
 	/**
-	 * write the concept graph, create parent directories as required
+	 * write the concept graph file, create parent directories as required
 	 * 
 	 * @param name
 	 * @param cg
 	 */
 	private void writeConceptGraph(String dir, String name, ConceptGraph cg) {
-		ObjectOutputStream os = null;
-		String outputDir = dir;
-		File cgFile = new File(outputDir + "/" + name + ".gz");
+		File cgFile = new File(dir + "/" + name + ".cg");
 		log.info("writing concept graph: " + cgFile.getAbsolutePath());
 		if (!cgFile.getParentFile().exists())
 			cgFile.getParentFile().mkdirs();
 		try {
-			os = new ObjectOutputStream(new BufferedOutputStream(
-					new GZIPOutputStream(new FileOutputStream(cgFile))));
-			// replace the writable list with an immutable list
-			cg.setConceptList(ImmutableList.copyOf(cg.getConceptList()));
-			os.writeObject(cg);
+			ConceptGraphFile.write(cg, cgFile);
 		} catch (IOException ioe) {
 			throw new RuntimeException(ioe);
-		} finally {
-			if (os != null)
-				try {
-					os.close();
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
 		}
 	}
 
@@ -41,7 +41,6 @@ import java.util.TreeMap;
 
 import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
-import net.sf.ehcache.Element;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -286,6 +285,8 @@ public class ConceptSimilarityServiceImpl implements ConceptSimilarityService {
 
 	/**
 	 * cache to hold lcs's
+	 * 
+	 * @deprecated lcs's are computed from the concept graph index
 	 */
 	private Cache lcsCache;
 	private String lcsImputedType = ImputedFeatureEvaluator.MeasureType.INFOGAIN
@@ -528,9 +529,9 @@ public class ConceptSimilarityServiceImpl implements ConceptSimilarityService {
 		// if (frMap.containsKey(concept))
 		// return frMap.get(concept).getRank();
 		// }
-		ConcRel cr = this.cg.getConceptMap().get(concept);
-		if (cr != null)
-			return cr.getDepth();
+		int node = this.cg.getNodeIndex(concept);
+		if (node >= 0)
+			return this.cg.getDepth(node);
 		return 0;
 	}
 
@@ -538,9 +539,9 @@ public class ConceptSimilarityServiceImpl implements ConceptSimilarityService {
 	public double getIC(String concept, boolean intrinsicICMap) {
 		double ic = 0d;
 		if (intrinsicICMap) {
-			ConcRel cr = this.cg.getConceptMap().get(concept);
-			if (cr != null)
-				ic = cr.getIntrinsicInfoContent();
+			int node = this.cg.getNodeIndex(concept);
+			if (node >= 0)
+				ic = this.cg.getIntrinsicInfoContent(node);
 		} else {
 			Double icC = null;
 			if (isPreload()) {
@@ -616,13 +617,13 @@ public class ConceptSimilarityServiceImpl implements ConceptSimilarityService {
 	public int getLCS(String concept1, String concept2, Set<String> lcses,
 			List<LCSPath> lcsPaths) {
 		int lcsDist = 0;
-		ConcRel cr1 = getConceptGraph().getConceptMap().get(concept1);
-		ConcRel cr2 = getConceptGraph().getConceptMap().get(concept2);
-		if (cr1 != null && cr2 != null) {
+		int node1 = getConceptGraph().getNodeIndex(concept1);
+		int node2 = getConceptGraph().getNodeIndex(concept2);
+		if (node1 >= 0 && node2 >= 0) {
 			lcses.clear();
 			if (lcsPaths == null) {
-				// no need to get paths which we don't cache - look in the cache
-				lcsDist = getLCSFromCache(cr1, cr2, lcses);
+				// no need to get paths - use the index
+				lcsDist = getLCSFromIndex(node1, node2, lcses);
 			} else {
 				lcsPaths.clear();
 				// need to get paths - compute the lcses and their paths
@@ -633,58 +634,35 @@ public class ConceptSimilarityServiceImpl implements ConceptSimilarityService {
 			}
 		} else {
 			if (log.isDebugEnabled()) {
-				if (cr1 == null)
+				if (node1 < 0)
 					log.debug("could not find concept:" + concept1);
-				if (cr2 == null)
+				if (node2 < 0)
 					log.debug("could not find concept:" + concept2);
 			}
 		}
 		return lcsDist;
 	}
 
+	/**
+	 * @deprecated lcs's are computed from the concept graph index and are not
+	 *             cached
+	 */
 	public Cache getLcsCache() {
 		return lcsCache;
 	}
 
-	@SuppressWarnings("unchecked")
-	private int getLCSFromCache(ConcRel cr1, ConcRel cr2, Set<String> lcses) {
-		StringBuilder cacheKeyBuilder = new StringBuilder(this.conceptGraphName);
-		cacheKeyBuilder
-				.append(cr1.getConceptID().compareTo(cr2.getConceptID()) < 0 ? cr1
-						.getConceptID() : cr2.getConceptID());
-		cacheKeyBuilder
-				.append(cr1.getConceptID().compareTo(cr2.getConceptID()) >= 0 ? cr2
-						.getConceptID() : cr1.getConceptID());
-		String cacheKey = cacheKeyBuilder.toString();
-		Element e = this.lcsCache != null ? this.lcsCache.get(cacheKey) : null;
-		if (e != null) {
-			// hit the cache - unpack the lcs
-			if (e.getObjectValue() != null) {
-				Object[] val = (Object[]) e.getObjectValue();
-				lcses.addAll((Set<String>) val[1]);
-				return (Integer) val[0];
-			} else {
-				return -1;
-			}
-		} else {
-			// missed the cache - save the lcs
-			Object[] val = null;
-			Set<ConcRel> lcsCRSet = new HashSet<ConcRel>(2);
-			int dist = ConcRel.getLeastCommonConcept(cr1, cr2, lcsCRSet, null);
-			if (dist >= 0) {
-				val = new Object[2];
-				val[0] = dist;
-				for (ConcRel cr : lcsCRSet) {
-					lcses.add(cr.getConceptID());
-				}
-				val[1] = lcses;
-			}
-			if (this.lcsCache != null) {
-				e = new Element(cacheKey, val);
-				this.lcsCache.put(e);
-			}
-			return dist;
+	/**
+	 * get the lcses from the compact index of the concept graph. The index
+	 * search is cheaper than a cache lookup, so the lcses are not cached.
+	 */
+	private int getLCSFromIndex(int node1, int node2, Set<String> lcses) {
+		Set<Integer> lcsIndexes = new HashSet<Integer>(2);
+		int dist = cg.getIndex().getLeastCommonConcept(node1, node2,
+				lcsIndexes);
+		for (int lcsIndex : lcsIndexes) {
+			lcses.add(cg.getConceptID(lcsIndex));
 		}
+		return dist;
 	}
 
 	public String getLcsImputedType() {
@@ -826,9 +804,8 @@ public class ConceptSimilarityServiceImpl implements ConceptSimilarityService {
 		}
 		ImmutableMap.Builder<String, Double> mb = new ImmutableMap.Builder<String, Double>();
 		for (Map.Entry<String, Double> corpusICEntry : corpusICMap.entrySet()) {
-			ConcRel cr = cg.getConceptMap().get(corpusICEntry.getKey());
-			if (cr != null) {
-				mb.put(cr.getConceptID(), corpusICEntry.getValue());
+			if (cg.getNodeIndex(corpusICEntry.getKey()) >= 0) {
+				mb.put(corpusICEntry.getKey(), corpusICEntry.getValue());
 			}
 		}
 		this.corpusICMap = mb.build();
@@ -996,6 +973,10 @@ public class ConceptSimilarityServiceImpl implements ConceptSimilarityService {
 		this.corpusName = corpusName;
 	}
 
+	/**
+	 * @deprecated lcs's are computed from the concept graph index and are not
+	 *             cached
+	 */
 	public void setLcsCache(Cache lcsCache) {
 		this.lcsCache = lcsCache;
 	}
@@ -24,9 +24,16 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
 /**
  * A directed graph that spans a subset of the UMLS connecting concepts with
  * IS-A links.
+ * <p/>
+ * A graph loaded from a {@link ConceptGraphFile} is backed by the file; its
+ * concept list and concept map are only created when they are first asked
+ * for. Use the node index methods to avoid creating them.
  * 
  * @author vijay
  */
@@ -40,6 +47,25 @@ public class ConceptGraph implements Serializable {
 	private short depthMax = 0;
 	private double intrinsicICMax = 0d;
 	private String root = null;
+	private transient ConceptGraphIndex index = null;
+	private transient ConceptGraphFile file = null;
+
+	public ConceptGraph() {
+	}
+
+	/**
+	 * graph backed by a concept graph file
+	 */
+	ConceptGraph(ConceptGraphFile file, short depthMax, double intrinsicICMax,
+			String root) {
+		this.file = file;
+		this.index = file.getIndex();
+		this.conceptList = null;
+		this.conceptMap = null;
+		this.depthMax = depthMax;
+		this.intrinsicICMax = intrinsicICMax;
+		this.root = root;
+	}
 
 	public ConcRel addConcept(String conceptID) {
 		// get position at which concept would be added to list
@@ -52,11 +78,105 @@ public class ConceptGraph implements Serializable {
 		return cr;
 	}
 
-	public List<ConcRel> getConceptList() {
+	public synchronized List<ConcRel> getConceptList() {
+		if (conceptList == null && file != null)
+			materializeConcepts();
 		return conceptList;
 	}
 
-	public Map<String, ConcRel> getConceptMap() {
+	/**
+	 * create the ConcRel objects of a graph backed by a concept graph file.
+	 * Like graphs read with java serialization, parent and child objects are
+	 * only resolved if the graph has no cycles.
+	 */
+	private void materializeConcepts() {
+		int size = index.size();
+		ImmutableList.Builder<ConcRel> lb = new ImmutableList.Builder<ConcRel>();
+		for (int node = 0; node < size; node++) {
+			ConcRel cr = new ConcRel(file.getConceptID(node), node);
+			cr.setDepth(index.getDepth(node));
+			cr.setIntrinsicInfoContent(file.getIntrinsicInfoContent(node));
+			int[] parentsArray = new int[index.getParentCount(node)];
+			for (int i = 0; i < parentsArray.length; i++)
+				parentsArray[i] = index.getParent(node, i);
+			cr.setParentsArray(parentsArray);
+			int[] childrenArray = new int[index.getChildCount(node)];
+			for (int i = 0; i < childrenArray.length; i++)
+				childrenArray[i] = index.getChild(node, i);
+			cr.setChildrenArray(childrenArray);
+			lb.add(cr);
+		}
+		List<ConcRel> concepts = lb.build();
+		ImmutableMap.Builder<String, ConcRel> mb = new ImmutableMap.Builder<String, ConcRel>();
+		for (ConcRel cr : concepts) {
+			if (depthMax > 0)
+				cr.constructRel(concepts);
+			mb.put(cr.getConceptID(), cr);
+		}
+		conceptList = concepts;
+		conceptMap = mb.build();
+	}
+
+	/**
+	 * @param conceptID
+	 * @return node index of the concept, -1 if it isn't in the graph
+	 */
+	public int getNodeIndex(String conceptID) {
+		if (file != null)
+			return file.getNodeIndex(conceptID);
+		ConcRel cr = getConceptMap().get(conceptID);
+		return cr != null ? cr.getNodeIndex() : -1;
+	}
+
+	public String getConceptID(int nodeIndex) {
+		if (file != null)
+			return file.getConceptID(nodeIndex);
+		return getConceptList().get(nodeIndex).getConceptID();
+	}
+
+	public double getIntrinsicInfoContent(int nodeIndex) {
+		if (file != null)
+			return file.getIntrinsicInfoContent(nodeIndex);
+		return getConceptList().get(nodeIndex).getIntrinsicInfoContent();
+	}
+
+	public short getDepth(int nodeIndex) {
+		if (file != null)
+			return index.getDepth(nodeIndex);
+		return getConceptList().get(nodeIndex).getDepth();
+	}
+
+	/**
+	 * @return number of concepts in the graph
+	 */
+	public int size() {
+		if (file != null)
+			return file.size();
+		return getConceptList().size();
+	}
+
+	/**
+	 * @return true if this graph is backed by a concept graph file
+	 */
+	public boolean isFileBacked() {
+		return file != null;
+	}
+
+	/**
+	 * get the compact index of this graph, built from the concept list on
+	 * first use. The concept list must not be modified afterwards.
+	 * 
+	 * @return index of this graph
+	 */
+	public synchronized ConceptGraphIndex getIndex() {
+		if (index == null)
+			index = ConceptGraphIndex.build(conceptList);
+		return index;
+	}
+
+	public synchronized Map<String, ConcRel> getConceptMap() {
+		if (conceptMap == null && file != null)
+			materializeConcepts();
 		return conceptMap;
 	}
 
@@ -74,6 +194,7 @@ public class ConceptGraph implements Serializable {
 
 	public void setConceptList(List<ConcRel> conceptList) {
 		this.conceptList = conceptList;
+		this.index = null;
 	}
 
 	public void setConceptMap(Map<String, ConcRel> conceptMap) {
@@ -92,4 +213,13 @@ public class ConceptGraph implements Serializable {
 		this.root = root;
 	}
 
+	/**
+	 * create the concepts of a file-backed graph before serializing it
+	 */
+	private void writeObject(java.io.ObjectOutputStream out)
+			throws java.io.IOException {
+		getConceptList();
+		out.defaultWriteObject();
+	}
+
 }
@@ -0,0 +1,338 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.ytex.kernel.model;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Binary concept graph file. The file is memory-mapped when it is loaded;
+ * concept ids, adjacency, depth and intrinsic info content are read from the
+ * mapped sections, and {@link ConcRel} objects are only created for callers
+ * of {@link ConceptGraph#getConceptList()} and
+ * {@link ConceptGraph#getConceptMap()}.
+ * <p/>
+ * Layout, big-endian, every section aligned to its element size:
+ *
+ * <pre>
+ * header:   magic, version, concept count, parent count, child count,
+ *           concept id byte count, depth max, root node index (ints),
+ *           intrinsic ic max (double)
+ * double[concept count]       intrinsic info content
+ * int[concept count + 1]      concept id offsets into the concept id bytes
+ * int[concept count]          node indexes sorted by concept id
+ * int[concept count + 1]      parent offsets
+ * int[parent count]           parents
+ * int[concept count + 1]      child offsets
+ * int[child count]            children
+ * short[concept count]        depth
+ * byte[concept id byte count] UTF-8 concept ids
+ * </pre>
+ *
+ * Concept ids are sorted by their UTF-8 bytes, so lookups compare bytes
+ * without decoding the table.
+ */
+public class ConceptGraphFile {
+	/**
+	 * "YTCG"
+	 */
+	public static final int MAGIC = 0x59544347;
+	public static final int VERSION = 1;
+	private static final int HEADER_SIZE = 40;
+
+	private static final Comparator<byte[]> UTF8_ORDER = new Comparator<byte[]>() {
+		@Override
+		public int compare(byte[] o1, byte[] o2) {
+			int n = Math.min(o1.length, o2.length);
+			for (int i = 0; i < n; i++) {
+				int c = (o1[i] & 0xff) - (o2[i] & 0xff);
+				if (c != 0)
+					return c;
+			}
+			return o1.length - o2.length;
+		}
+	};
+
+	/**
+	 * write the concept graph in the binary format
+	 *
+	 * @param cg
+	 *            concept graph with its concept list and concept map
+	 * @param file
+	 *            output file
+	 * @throws IOException
+	 */
+	public static void write(ConceptGraph cg, File file) throws IOException {
+		List<ConcRel> conceptList = cg.getConceptList();
+		int size = conceptList.size();
+		final byte[][] conceptIds = new byte[size][];
+		int conceptIdBytes = 0;
+		int parentCount = 0;
+		int childCount = 0;
+		for (int n = 0; n < size; n++) {
+			ConcRel cr = conceptList.get(n);
+			conceptIds[n] = cr.getConceptID().getBytes(StandardCharsets.UTF_8);
+			conceptIdBytes += conceptIds[n].length;
+			parentCount += cr.getParents().size();
+			childCount += cr.getChildren().size();
+		}
+		Integer[] sortedNodes = new Integer[size];
+		for (int n = 0; n < size; n++)
+			sortedNodes[n] = n;
+		Arrays.sort(sortedNodes, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return UTF8_ORDER.compare(conceptIds[o1], conceptIds[o2]);
+			}
+		});
+		ConcRel crRoot = cg.getRoot() != null ? cg.getConceptMap().get(
+				cg.getRoot()) : null;
+		DataOutputStream os = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file)));
+		try {
+			os.writeInt(MAGIC);
+			os.writeInt(VERSION);
+			os.writeInt(size);
+			os.writeInt(parentCount);
+			os.writeInt(childCount);
+			os.writeInt(conceptIdBytes);
+			os.writeInt(cg.getDepthMax());
+			os.writeInt(crRoot != null ? crRoot.getNodeIndex() : -1);
+			os.writeDouble(cg.getIntrinsicICMax());
+			for (ConcRel cr : conceptList)
+				os.writeDouble(cr.getIntrinsicInfoContent());
+			int offset = 0;
+			for (byte[] conceptId : conceptIds) {
+				os.writeInt(offset);
+				offset += conceptId.length;
+			}
+			os.writeInt(offset);
+			for (Integer node : sortedNodes)
+				os.writeInt(node);
+			offset = 0;
+			for (ConcRel cr : conceptList) {
+				os.writeInt(offset);
+				offset += cr.getParents().size();
+			}
+			os.writeInt(offset);
+			for (ConcRel cr : conceptList) {
+				for (ConcRel parent : cr.getParents())
+					os.writeInt(parent.getNodeIndex());
+			}
+			offset = 0;
+			for (ConcRel cr : conceptList) {
+				os.writeInt(offset);
+				offset += cr.getChildren().size();
+			}
+			os.writeInt(offset);
+			for (ConcRel cr : conceptList) {
+				for (ConcRel child : cr.getChildren())
+					os.writeInt(child.getNodeIndex());
+			}
+			for (ConcRel cr : conceptList)
+				os.writeShort(cr.getDepth());
+			for (byte[] conceptId : conceptIds)
+				os.write(conceptId);
+		} finally {
+			os.close();
+		}
+	}
+
+	/**
+	 * memory-map a concept graph file
+	 *
+	 * @param file
+	 *            file written by {@link #write(ConceptGraph, File)}
+	 * @return concept graph backed by the mapped file
+	 * @throws IOException
+	 */
+	public static ConceptGraph map(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			// the mapping stays valid after the channel is closed
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size()));
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * read a concept graph file from a stream that can't be mapped, e.g. a
+	 * classpath resource in a jar, into a heap buffer
+	 *
+	 * @param is
+	 *            stream of the file, not closed
+	 * @return concept graph backed by the buffer
+	 * @throws IOException
+	 */
+	public static ConceptGraph read(InputStream is) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		byte[] buf = new byte[65536];
+		int n;
+		while ((n = is.read(buf)) > 0)
+			bos.write(buf, 0, n);
+		return read(ByteBuffer.wrap(bos.toByteArray()));
+	}
+
+	private static ConceptGraph read(ByteBuffer buffer) throws IOException {
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+			throw new IOException("not a concept graph file");
+		int version = buffer.getInt(4);
+		if (version != VERSION)
+			throw new IOException("unsupported concept graph file version "
+					+ version + ", expected " + VERSION);
+		int size = buffer.getInt(8);
+		int parentCount = buffer.getInt(12);
+		int childCount = buffer.getInt(16);
+		int conceptIdByteCount = buffer.getInt(20);
+		short depthMax = (short) buffer.getInt(24);
+		int rootIndex = buffer.getInt(28);
+		double intrinsicICMax = buffer.getDouble(32);
+		int position = HEADER_SIZE;
+		DoubleBuffer intrinsicICs = slice(buffer, position, size * 8)
+				.asDoubleBuffer();
+		position += size * 8;
+		IntBuffer conceptIdOffsets = slice(buffer, position, (size + 1) * 4)
+				.asIntBuffer();
+		position += (size + 1) * 4;
+		IntBuffer sortedNodes = slice(buffer, position, size * 4)
+				.asIntBuffer();
+		position += size * 4;
+		IntBuffer parentOffsets = slice(buffer, position, (size + 1) * 4)
+				.asIntBuffer();
+		position += (size + 1) * 4;
+		IntBuffer parents = slice(buffer, position, parentCount * 4)
+				.asIntBuffer();
+		position += parentCount * 4;
+		IntBuffer childOffsets = slice(buffer, position, (size + 1) * 4)
+				.asIntBuffer();
+		position += (size + 1) * 4;
+		IntBuffer children = slice(buffer, position, childCount * 4)
+				.asIntBuffer();
+		position += childCount * 4;
+		ConceptGraphIndex index = new ConceptGraphIndex(parentOffsets,
+				parents, childOffsets, children, slice(buffer, position,
+						size * 2).asShortBuffer());
+		position += size * 2;
+		ByteBuffer conceptIdBytes = slice(buffer, position, conceptIdByteCount);
+		if (position + conceptIdByteCount != buffer.limit())
+			throw new IOException("concept graph file is truncated or corrupt");
+		ConceptGraphFile file = new ConceptGraphFile(index, intrinsicICs,
+				conceptIdOffsets, sortedNodes, conceptIdBytes);
+		return new ConceptGraph(file, depthMax, intrinsicICMax,
+				rootIndex >= 0 ? file.getConceptID(rootIndex) : null);
+	}
+
+	private static ByteBuffer slice(ByteBuffer buffer, int position,
+			int length) {
+		ByteBuffer section = buffer.duplicate();
+		section.position(position);
+		section.limit(position + length);
+		return section.slice();
+	}
+
+	private final ConceptGraphIndex index;
+	private final DoubleBuffer intrinsicICs;
+	private final IntBuffer conceptIdOffsets;
+	private final IntBuffer sortedNodes;
+	private final ByteBuffer conceptIdBytes;
+
+	private ConceptGraphFile(ConceptGraphIndex index,
+			DoubleBuffer intrinsicICs, IntBuffer conceptIdOffsets,
+			IntBuffer sortedNodes, ByteBuffer conceptIdBytes) {
+		this.index = index;
+		this.intrinsicICs = intrinsicICs;
+		this.conceptIdOffsets = conceptIdOffsets;
+		this.sortedNodes = sortedNodes;
+		this.conceptIdBytes = conceptIdBytes;
+	}
+
+	public ConceptGraphIndex getIndex() {
+		return index;
+	}
+
+	public int size() {
+		return index.size();
+	}
+
+	public double getIntrinsicInfoContent(int node) {
+		return intrinsicICs.get(node);
+	}
+
+	public String getConceptID(int node) {
+		int start = conceptIdOffsets.get(node);
+		byte[] conceptId = new byte[conceptIdOffsets.get(node + 1) - start];
+		for (int i = 0; i < conceptId.length; i++)
+			conceptId[i] = conceptIdBytes.get(start + i);
+		return new String(conceptId, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * binary search of the sorted concept ids
+	 *
+	 * @param conceptId
+	 * @return node index of the concept, -1 if it isn't in the graph
+	 */
+	public int getNodeIndex(String conceptId) {
+		byte[] key = conceptId.getBytes(StandardCharsets.UTF_8);
+		int low = 0;
+		int high = size() - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int node = sortedNodes.get(mid);
+			int c = compare(node, key);
+			if (c < 0)
+				low = mid + 1;
+			else if (c > 0)
+				high = mid - 1;
+			else
+				return node;
+		}
+		return -1;
+	}
+
+	private int compare(int node, byte[] key) {
+		int start = conceptIdOffsets.get(node);
+		int length = conceptIdOffsets.get(node + 1) - start;
+		int n = Math.min(length, key.length);
+		for (int i = 0; i < n; i++) {
+			int c = (conceptIdBytes.get(start + i) & 0xff) - (key[i] & 0xff);
+			if (c != 0)
+				return c;
+		}
+		return length - key.length;
+	}
+
+}
@@ -0,0 +1,410 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.ytex.kernel.model;
+
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compact, integer-indexed view of a {@link ConceptGraph}. Node ids are the
+ * {@link ConcRel#getNodeIndex() node indexes} of the graph. Parents and
+ * children are stored in compressed sparse row form: the parents of node
+ * <code>n</code> are <code>parents[parentOffsets[n]]</code> up to
+ * <code>parents[parentOffsets[n+1]]</code>.
+ * <p/>
+ * The least common subsumer search is the dual breadth-first search of
+ * {@link ConcRel#getLeastCommonConcept(ConcRel, ConcRel, Set, java.util.Map)}
+ * , with identical results, run over the int arrays. The search state of a
+ * thread is kept in a small hash table that only holds the concepts the
+ * search reaches, i.e. the ancestors of the two concepts. Its memory is
+ * proportional to the largest ancestor set searched by the thread, not to
+ * the size of the graph, and resetting it only touches the reached entries.
+ */
+public class ConceptGraphIndex {
+
+	/**
+	 * growable int array used for frontiers and result lists
+	 */
+	private static final class IntList {
+		private int[] values = new int[16];
+		private int size;
+
+		private void add(int value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+
+		private void clear() {
+			size = 0;
+		}
+	}
+
+	/**
+	 * per-thread search state. Each concept reached by the search has a
+	 * record with its distance from each concept and flags; records are found
+	 * by node id in an open addressing hash table. Frontiers and result lists
+	 * hold record numbers.
+	 */
+	private static final class Scratch {
+		private static final int SEEN1 = 1;
+		private static final int SEEN2 = 2;
+		private static final int QUEUED1 = 4;
+		private static final int QUEUED2 = 8;
+		private static final int CANDIDATE = 16;
+
+		// record number + 1 for each slot, 0 if the slot is empty
+		private int[] table = new int[64];
+		private int[] nodes = new int[32];
+		private int[] slots = new int[32];
+		private int[] flags = new int[32];
+		private final int[][] dists = { new int[32], new int[32] };
+		private int count;
+		private IntList frontier1 = new IntList();
+		private IntList frontier2 = new IntList();
+		private IntList next = new IntList();
+		private final IntList added = new IntList();
+		private final IntList newLcses = new IntList();
+		private final IntList lcses = new IntList();
+
+		/**
+		 * remove the records of the previous search
+		 */
+		private void clear() {
+			for (int r = 0; r < count; r++)
+				table[slots[r]] = 0;
+			count = 0;
+		}
+
+		private int slot(int node) {
+			return (node * 0x9E3779B9) >>> (32 - Integer.numberOfTrailingZeros(table.length));
+		}
+
+		/**
+		 * @return record of the node, -1 if it hasn't been reached
+		 */
+		private int find(int node) {
+			int mask = table.length - 1;
+			for (int i = slot(node); table[i] != 0; i = (i + 1) & mask) {
+				int r = table[i] - 1;
+				if (nodes[r] == node)
+					return r;
+			}
+			return -1;
+		}
+
+		/**
+		 * @return record of the node, added without flags if it hasn't been
+		 *         reached
+		 */
+		private int get(int node) {
+			int mask = table.length - 1;
+			int i = slot(node);
+			for (; table[i] != 0; i = (i + 1) & mask) {
+				int r = table[i] - 1;
+				if (nodes[r] == node)
+					return r;
+			}
+			if (count == nodes.length) {
+				nodes = Arrays.copyOf(nodes, count * 2);
+				slots = Arrays.copyOf(slots, count * 2);
+				flags = Arrays.copyOf(flags, count * 2);
+				dists[0] = Arrays.copyOf(dists[0], count * 2);
+				dists[1] = Arrays.copyOf(dists[1], count * 2);
+			}
+			int r = count++;
+			nodes[r] = node;
+			flags[r] = 0;
+			table[i] = r + 1;
+			slots[r] = i;
+			// keep the load factor at most 1/2
+			if (count * 2 > table.length)
+				rehash();
+			return r;
+		}
+
+		private void rehash() {
+			table = new int[table.length * 2];
+			int mask = table.length - 1;
+			for (int r = 0; r < count; r++) {
+				int i = slot(nodes[r]);
+				while (table[i] != 0)
+					i = (i + 1) & mask;
+				table[i] = r + 1;
+				slots[r] = i;
+			}
+		}
+	}
+
+	/**
+	 * build the index from the concepts of a graph
+	 *
+	 * @param conceptList
+	 *            concepts, the position of each concept is its node index
+	 * @return index of the concepts
+	 */
+	public static ConceptGraphIndex build(List<ConcRel> conceptList) {
+		int size = conceptList.size();
+		int parentCount = 0;
+		int childCount = 0;
+		for (ConcRel cr : conceptList) {
+			parentCount += cr.getParents().size();
+			childCount += cr.getChildren().size();
+		}
+		int[] parentOffsets = new int[size + 1];
+		int[] parents = new int[parentCount];
+		int[] childOffsets = new int[size + 1];
+		int[] children = new int[childCount];
+		short[] depths = new short[size];
+		int p = 0;
+		int c = 0;
+		for (int n = 0; n < size; n++) {
+			ConcRel cr = conceptList.get(n);
+			parentOffsets[n] = p;
+			for (ConcRel parent : cr.getParents())
+				parents[p++] = parent.getNodeIndex();
+			childOffsets[n] = c;
+			for (ConcRel child : cr.getChildren())
+				children[c++] = child.getNodeIndex();
+			depths[n] = cr.getDepth();
+		}
+		parentOffsets[size] = p;
+		childOffsets[size] = c;
+		return new ConceptGraphIndex(IntBuffer.wrap(parentOffsets),
+				IntBuffer.wrap(parents), IntBuffer.wrap(childOffsets),
+				IntBuffer.wrap(children), ShortBuffer.wrap(depths));
+	}
+
+	private final int size;
+	private final IntBuffer parentOffsets;
+	private final IntBuffer parents;
+	private final IntBuffer childOffsets;
+	private final IntBuffer children;
+	private final ShortBuffer depths;
+	private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+		@Override
+		protected Scratch initialValue() {
+			return new Scratch();
+		}
+	};
+
+	/**
+	 * @param parentOffsets
+	 *            offset of each node's parents, followed by the number of
+	 *            parents
+	 * @param parents
+	 *            parent node ids
+	 * @param childOffsets
+	 *            offset of each node's children, followed by the number of
+	 *            children
+	 * @param children
+	 *            child node ids
+	 * @param depths
+	 *            depth of each node
+	 */
+	public ConceptGraphIndex(IntBuffer parentOffsets, IntBuffer parents,
+			IntBuffer childOffsets, IntBuffer children, ShortBuffer depths) {
+		this.size = depths.limit();
+		this.parentOffsets = parentOffsets;
+		this.parents = parents;
+		this.childOffsets = childOffsets;
+		this.children = children;
+		this.depths = depths;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getParentCount(int node) {
+		return parentOffsets.get(node + 1) - parentOffsets.get(node);
+	}
+
+	public int getParent(int node, int i) {
+		return parents.get(parentOffsets.get(node) + i);
+	}
+
+	public int getChildCount(int node) {
+		return childOffsets.get(node + 1) - childOffsets.get(node);
+	}
+
+	public int getChild(int node, int i) {
+		return children.get(childOffsets.get(node) + i);
+	}
+
+	public short getDepth(int node) {
+		return depths.get(node);
+	}
+
+	public IntBuffer getParentOffsets() {
+		return parentOffsets.duplicate();
+	}
+
+	public IntBuffer getParents() {
+		return parents.duplicate();
+	}
+
+	public IntBuffer getChildOffsets() {
+		return childOffsets.duplicate();
+	}
+
+	public IntBuffer getChildren() {
+		return children.duplicate();
+	}
+
+	public ShortBuffer getDepths() {
+		return depths.duplicate();
+	}
+
+	/**
+	 *
+	 * @param c1
+	 *            node id of concept1
+	 * @param c2
+	 *            node id of concept2
+	 * @param lcses
+	 *            node ids of the least common subsumers, required
+	 * @return path length, -1 if no lcs
+	 * @see ConcRel#getLeastCommonConcept(ConcRel, ConcRel, Set,
+	 *      java.util.Map)
+	 */
+	public int getLeastCommonConcept(int c1, int c2, Set<Integer> lcses) {
+		Scratch s = scratch.get();
+		s.clear();
+		s.frontier1.clear();
+		s.frontier2.clear();
+		s.lcses.clear();
+		int r1 = s.get(c1);
+		s.flags[r1] |= Scratch.QUEUED1;
+		s.frontier1.add(r1);
+		int r2 = s.get(c2);
+		s.flags[r2] |= Scratch.QUEUED2;
+		s.frontier2.add(r2);
+		int maxIter = -1;
+		int dist = 0;
+		int minDist = Integer.MAX_VALUE - 1;
+		while ((s.frontier1.size > 0 || s.frontier2.size > 0) && maxIter != 0) {
+			s.added.clear();
+			IntList next = s.next;
+			s.next = s.frontier1;
+			s.frontier1 = next;
+			updateParent(s, s.next, s.frontier1, Scratch.SEEN1,
+					Scratch.QUEUED1, 0, dist);
+			next = s.next;
+			s.next = s.frontier2;
+			s.frontier2 = next;
+			updateParent(s, s.next, s.frontier2, Scratch.SEEN2,
+					Scratch.QUEUED2, 1, dist);
+			// only concepts reached in this iteration can be new lcs
+			// candidates
+			s.newLcses.clear();
+			for (int i = 0; i < s.added.size; i++) {
+				int r = s.added.values[i];
+				int f = s.flags[r];
+				if ((f & Scratch.SEEN1) != 0 && (f & Scratch.SEEN2) != 0
+						&& (f & Scratch.CANDIDATE) == 0) {
+					s.flags[r] |= Scratch.CANDIDATE;
+					s.newLcses.add(r);
+				}
+			}
+			if (s.newLcses.size > 0) {
+				removeParents(s, s.frontier1, Scratch.QUEUED1);
+				removeParents(s, s.frontier2, Scratch.QUEUED2);
+				for (int i = 0; i < s.newLcses.size; i++) {
+					int lcs = s.newLcses.values[i];
+					int dist1 = s.dists[0][lcs];
+					int dist2 = s.dists[1][lcs];
+					int distTmp = dist1 + dist2 + 1;
+					if (distTmp <= minDist) {
+						if (distTmp < minDist)
+							s.lcses.clear();
+						minDist = distTmp;
+						s.lcses.add(lcs);
+					}
+					int minLcsToConceptLen = Math.min(dist1, dist2);
+					if (maxIter < 0 || maxIter > minLcsToConceptLen)
+						maxIter = minLcsToConceptLen;
+				}
+			}
+			maxIter--;
+			++dist;
+		}
+		if (s.lcses.size == 0)
+			return -1;
+		for (int i = 0; i < s.lcses.size; i++)
+			lcses.add(s.nodes[s.lcses.values[i]]);
+		return minDist;
+	}
+
+	/**
+	 * perform 1 iteration of breadth-first search: mark the frontier as
+	 * visited at the current distance and queue their unvisited parents.
+	 * Queuing a parent may grow the scratch arrays, so they are not held in
+	 * locals.
+	 */
+	private void updateParent(Scratch s, IntList frontier, IntList next,
+			int seen, int queued, int side, int dist) {
+		next.clear();
+		for (int i = 0; i < frontier.size; i++) {
+			int r = frontier.values[i];
+			if ((s.flags[r] & seen) != 0)
+				continue;
+			s.flags[r] |= seen;
+			s.dists[side][r] = dist;
+			s.added.add(r);
+			int cr = s.nodes[r];
+			int end = parentOffsets.get(cr + 1);
+			for (int j = parentOffsets.get(cr); j < end; j++) {
+				int parent = s.get(parents.get(j));
+				// a queued parent that isn't visited yet is in the current
+				// frontier, it will be visited in this iteration
+				if ((s.flags[parent] & (seen | queued)) == 0) {
+					s.flags[parent] |= queued;
+					next.add(parent);
+				}
+			}
+		}
+	}
+
+	/**
+	 * remove the parents of the new candidate lcses from the frontier
+	 */
+	private void removeParents(Scratch s, IntList frontier, int queued) {
+		for (int i = 0; i < s.newLcses.size; i++) {
+			int lcs = s.nodes[s.newLcses.values[i]];
+			int end = parentOffsets.get(lcs + 1);
+			for (int j = parentOffsets.get(lcs); j < end; j++) {
+				int parent = s.find(parents.get(j));
+				if (parent >= 0)
+					s.flags[parent] &= ~queued;
+			}
+		}
+		int kept = 0;
+		for (int i = 0; i < frontier.size; i++) {
+			int r = frontier.values[i];
+			if ((s.flags[r] & queued) != 0)
+				frontier.values[kept++] = r;
+		}
+		frontier.size = kept;
+	}
+
+}
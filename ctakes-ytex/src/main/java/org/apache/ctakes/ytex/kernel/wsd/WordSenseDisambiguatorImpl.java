@@ -31,7 +31,7 @@ import java.util.TreeMap;
 import org.apache.ctakes.ytex.kernel.metric.ConceptPairSimilarity;
 import org.apache.ctakes.ytex.kernel.metric.ConceptSimilarityService;
 import org.apache.ctakes.ytex.kernel.metric.ConceptSimilarityService.SimilarityMetricEnum;
-import org.apache.ctakes.ytex.kernel.model.ConcRel;
+import org.apache.ctakes.ytex.kernel.model.ConceptGraph;
 
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.TreeMultimap;
@@ -141,13 +141,12 @@ public class WordSenseDisambiguatorImpl implements WordSenseDisambiguator {
 			// multiple best candidates - pick concept with lowest ic - most
 			// general concept
 			double ic = 1e6;
-			Map<String, ConcRel> conceptMap = this
-					.getConceptSimilarityService().getConceptGraph()
-					.getConceptMap();
+			ConceptGraph cg = this.getConceptSimilarityService()
+					.getConceptGraph();
 			for (String c : bestConcepts) {
-				ConcRel cr = conceptMap.get(c);
-				if (cr != null && cr.getIntrinsicInfoContent() < ic) {
-					ic = cr.getIntrinsicInfoContent();
+				int node = cg.getNodeIndex(c);
+				if (node >= 0 && cg.getIntrinsicInfoContent(node) < ic) {
+					ic = cg.getIntrinsicInfoContent(node);
 					bestConcept = c;
 				}
 			}
@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.ytex.kernel.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class ConceptGraphFileTest {
+
+	private static ConceptGraph randomGraph(Random random, int size) {
+		ConceptGraph cg = new ConceptGraph();
+		for (int i = 0; i < size; i++) {
+			// ids that don't sort in node order
+			ConcRel cr = cg.addConcept("C" + random.nextInt(1000000) + "_" + i);
+			cr.setDepth((short) random.nextInt(20));
+			cr.setIntrinsicInfoContent(random.nextDouble());
+			if (i > 0) {
+				int nParents = 1 + random.nextInt(Math.min(i, 3));
+				for (int p = 0; p < nParents; p++) {
+					int parentId = Math.max(0, i - 1 - random.nextInt(20));
+					ConcRel parent = cg.getConceptList().get(parentId);
+					cr.getParents().add(parent);
+					parent.getChildren().add(cr);
+				}
+			}
+		}
+		cg.setRoot(cg.getConceptList().get(0).getConceptID());
+		cg.setDepthMax((short) 20);
+		cg.setIntrinsicICMax(1d);
+		return cg;
+	}
+
+	@Test
+	public void testWriteAndMap() throws IOException {
+		Random random = new Random(7);
+		ConceptGraph cg = randomGraph(random, 1000);
+		File file = File.createTempFile("conceptGraph", ".cg");
+		file.deleteOnExit();
+		ConceptGraphFile.write(cg, file);
+		ConceptGraph mapped = ConceptGraphFile.map(file);
+		assertTrue(mapped.isFileBacked());
+		assertEquals(cg.getRoot(), mapped.getRoot());
+		assertEquals(cg.getDepthMax(), mapped.getDepthMax());
+		assertEquals(cg.getIntrinsicICMax(), mapped.getIntrinsicICMax(), 0d);
+		assertEquals(1000, mapped.size());
+		for (ConcRel cr : cg.getConceptList()) {
+			int node = mapped.getNodeIndex(cr.getConceptID());
+			assertEquals(cr.getNodeIndex(), node);
+			assertEquals(cr.getConceptID(), mapped.getConceptID(node));
+			assertEquals(cr.getDepth(), mapped.getDepth(node));
+			assertEquals(cr.getIntrinsicInfoContent(),
+					mapped.getIntrinsicInfoContent(node), 0d);
+		}
+		assertEquals(-1, mapped.getNodeIndex("C"));
+		assertEquals(-1, mapped.getNodeIndex("unknown"));
+		for (int i = 0; i < 1000; i++) {
+			int node1 = random.nextInt(1000);
+			int node2 = random.nextInt(1000);
+			Set<Integer> expected = new HashSet<Integer>();
+			Set<Integer> lcses = new HashSet<Integer>();
+			assertEquals(cg.getIndex().getLeastCommonConcept(node1, node2,
+					expected), mapped.getIndex().getLeastCommonConcept(node1,
+					node2, lcses));
+			assertEquals(expected, lcses);
+		}
+		// concrel views are created on demand
+		ConcRel original = cg.getConceptList().get(500);
+		ConcRel materialized = mapped.getConceptMap().get(
+				original.getConceptID());
+		assertEquals(original.getNodeIndex(), materialized.getNodeIndex());
+		assertEquals(original.getParents(), materialized.getParents());
+		assertEquals(original.getChildren(), materialized.getChildren());
+		assertFalse(materialized.getParents().isEmpty());
+	}
+
+}
@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ctakes.ytex.kernel.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class ConceptGraphIndexTest {
+
+	/**
+	 * random graph where every concept except the root has 1 to 3 parents
+	 * with lower ids
+	 *
+	 * @param window
+	 *            maximum distance between the ids of a concept and its parents
+	 */
+	private static ConceptGraph randomGraph(Random random, int size, int window) {
+		ConceptGraph cg = new ConceptGraph();
+		for (int i = 0; i < size; i++) {
+			ConcRel cr = cg.addConcept("C" + i);
+			if (i > 0) {
+				int nParents = 1 + random.nextInt(Math.min(i, 3));
+				for (int p = 0; p < nParents; p++) {
+					// bias parents towards nearby concepts for deeper graphs
+					int parentId = Math.max(0, i - 1 - random.nextInt(window));
+					ConcRel parent = cg.getConceptList().get(parentId);
+					cr.getParents().add(parent);
+					parent.getChildren().add(cr);
+				}
+			}
+		}
+		return cg;
+	}
+
+	@Test
+	public void testSameAsConcRel() {
+		Random random = new Random(42);
+		assertSameAsConcRel(random, randomGraph(random, 2000, 20), 5000);
+	}
+
+	/**
+	 * concepts with hundreds of ancestors, more than the initial capacity of
+	 * the search state
+	 */
+	@Test
+	public void testManyAncestors() {
+		Random random = new Random(7);
+		assertSameAsConcRel(random, randomGraph(random, 2000, 500), 1000);
+	}
+
+	private static void assertSameAsConcRel(Random random, ConceptGraph cg,
+			int searches) {
+		int size = cg.getConceptList().size();
+		ConceptGraphIndex index = cg.getIndex();
+		for (int i = 0; i < searches; i++) {
+			ConcRel cr1 = cg.getConceptList().get(random.nextInt(size));
+			ConcRel cr2 = cg.getConceptList().get(random.nextInt(size));
+			Set<ConcRel> lcses = new HashSet<ConcRel>();
+			int dist = ConcRel.getLeastCommonConcept(cr1, cr2, lcses, null);
+			Set<Integer> expected = new HashSet<Integer>();
+			for (ConcRel lcs : lcses)
+				expected.add(lcs.getNodeIndex());
+			Set<Integer> lcsIndexes = new HashSet<Integer>();
+			assertEquals(dist, index.getLeastCommonConcept(cr1.getNodeIndex(),
+					cr2.getNodeIndex(), lcsIndexes));
+			assertEquals(expected, lcsIndexes);
+		}
+	}
+
+	@Test
+	public void testNoCommonAncestor() {
+		ConceptGraph cg = new ConceptGraph();
+		ConcRel a = cg.addConcept("A");
+		ConcRel b = cg.addConcept("B");
+		ConcRel c = cg.addConcept("C");
+		c.getParents().add(a);
+		a.getChildren().add(c);
+		Set<Integer> lcses = new HashSet<Integer>();
+		assertEquals(-1,
+				cg.getIndex().getLeastCommonConcept(c.getNodeIndex(),
+						b.getNodeIndex(), lcses));
+		assertEquals(0, lcses.size());
+		assertEquals(2, cg.getIndex().getLeastCommonConcept(c.getNodeIndex(),
+				a.getNodeIndex(), lcses));
+		assertEquals(1, lcses.size());
+		assertEquals(1, cg.getIndex().getParentCount(c.getNodeIndex()));
+		assertEquals(a.getNodeIndex(),
+				cg.getIndex().getParent(c.getNodeIndex(), 0));
+	}
+
+}